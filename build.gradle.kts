@@ -40,6 +40,38 @@ application {
     mainClass.set("pascal.taie.Main")
 }
 
+// JMH microbenchmarks of core data structures, located in src/jmh
+val jmh: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[jmh.implementationConfigurationName]
+    .extendsFrom(configurations.implementation.get())
+configurations[jmh.runtimeOnlyConfigurationName]
+    .extendsFrom(configurations.runtimeOnly.get())
+
+dependencies {
+    add(jmh.implementationConfigurationName, "org.openjdk.jmh:jmh-core:1.37")
+    add(jmh.annotationProcessorConfigurationName,
+        "org.openjdk.jmh:jmh-generator-annprocess:1.37")
+}
+
+task("jmh", type = JavaExec::class) {
+    group = "verification"
+    description = "Runs the JMH benchmarks and writes the results in JSON " +
+        "(pass extra JMH arguments via -PjmhArgs=\"...\")"
+    val resultFile = layout.buildDirectory
+        .file("reports/jmh/results-$projectVersion.json").get().asFile
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    args("-rf", "json", "-rff", resultFile.path)
+    (findProperty("jmhArgs") as String?)?.let {
+        args(it.trim().split(Regex("\\s+")))
+    }
+    doFirst { resultFile.parentFile.mkdirs() }
+}
+
 task("fatJar", type = Jar::class) {
     group = "build"
     description = "Creates a single jar file including Tai-e and all dependencies"
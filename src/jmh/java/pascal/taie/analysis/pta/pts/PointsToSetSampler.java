@@ -0,0 +1,141 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.Main;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.solver.Solver;
+import pascal.taie.analysis.pta.plugin.Plugin;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs pointer analysis on given program, and samples the (non-empty)
+ * points-to sets of the pointers to a file, which can be used as the
+ * workload of the collection benchmarks (via parameter {@code workload}).
+ * Each line of the file is a points-to set, i.e., the indexes of
+ * the objects in the set separated by spaces.
+ * <p>
+ * Example: {@code PointsToSetSampler -cp app.jar -m Main -pta cs:2-obj
+ * -o pts.txt}
+ */
+@CommandLine.Command
+public class PointsToSetSampler {
+
+    @CommandLine.Option(names = "-cp", required = true,
+            description = "class path of the analyzed program")
+    private String classPath;
+
+    @CommandLine.Option(names = "-m", required = true,
+            description = "main class of the analyzed program")
+    private String mainClass;
+
+    @CommandLine.Option(names = "-java", defaultValue = "8",
+            description = "Java version of the library")
+    private String javaVersion;
+
+    @CommandLine.Option(names = "-pta", defaultValue = "cs:ci",
+            description = "options of pointer analysis")
+    private String ptaOptions;
+
+    @CommandLine.Option(names = "-n", defaultValue = "10000",
+            description = "maximum number of sampled points-to sets")
+    private int maxSets;
+
+    @CommandLine.Option(names = "-o", defaultValue = "output/pts-sample.txt",
+            description = "output file")
+    private File outFile;
+
+    public static void main(String[] args) {
+        PointsToSetSampler sampler = CommandLine.populateCommand(
+                new PointsToSetSampler(), args);
+        Recorder.sampler = sampler;
+        Main.main("-java", sampler.javaVersion,
+                "-cp", sampler.classPath, "-m", sampler.mainClass,
+                "-a", "pta=" + sampler.ptaOptions
+                        + ";plugins:[" + Recorder.class.getName() + "]");
+        System.out.println("Points-to sets are written to "
+                + sampler.outFile.getAbsolutePath());
+    }
+
+    private void sample(PointerAnalysisResult result) {
+        List<Pointer> pointers = Stream.<Collection<? extends Pointer>>of(
+                        result.getCSVars(),
+                        result.getInstanceFields(),
+                        result.getArrayIndexes(),
+                        result.getStaticFields())
+                .flatMap(Collection::stream)
+                .filter(p -> !p.getObjects().isEmpty())
+                .collect(Collectors.toList());
+        // samples evenly to keep the distribution of sizes
+        int step = Math.max(1, pointers.size() / maxSets);
+        try {
+            File dir = outFile.getAbsoluteFile().getParentFile();
+            Files.createDirectories(dir.toPath());
+            try (PrintStream out = new PrintStream(outFile)) {
+                out.println("# points-to sets sampled from "
+                        + pointers.size() + " pointers");
+                for (int i = 0, n = 0; i < pointers.size() && n < maxSets;
+                     i += step, ++n) {
+                    out.println(pointers.get(i).objects()
+                            .map(CSObj::getIndex)
+                            .sorted()
+                            .map(String::valueOf)
+                            .collect(Collectors.joining(" ")));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Plugin that samples points-to sets when pointer analysis finishes.
+     */
+    public static class Recorder implements Plugin {
+
+        private static PointsToSetSampler sampler;
+
+        private Solver solver;
+
+        @Override
+        public void setSolver(Solver solver) {
+            this.solver = solver;
+        }
+
+        @Override
+        public void onFinish() {
+            sampler.sample(solver.getResult());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.util.collection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of key operations of {@link IBitSet} implementations.
+ * Each benchmark applies an operation to all sets (or all pairs of
+ * adjacent sets) of the {@link Workload}. Mutating operations are applied
+ * to copies of the sets, so {@link #copy(Blackhole)} is their baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitSetBenchmark {
+
+    @Param({"sparse", "regular", "roaring"})
+    private String impl;
+
+    /**
+     * Path of the file of sampled points-to sets; empty for synthetic sets.
+     */
+    @Param("")
+    private String workload;
+
+    private int[][] indexes;
+
+    private IBitSet[] sets;
+
+    @Setup
+    public void setup() {
+        indexes = Workload.load(workload);
+        sets = new IBitSet[indexes.length];
+        for (int i = 0; i < indexes.length; ++i) {
+            sets[i] = newBitSet();
+            for (int index : indexes[i]) {
+                sets[i].set(index);
+            }
+        }
+    }
+
+    private IBitSet newBitSet() {
+        return switch (impl) {
+            case "sparse" -> new SparseBitSet();
+            case "regular" -> new RegularBitSet();
+            case "roaring" -> new RoaringBitSet();
+            default -> throw new IllegalArgumentException(impl);
+        };
+    }
+
+    @Benchmark
+    public void set(Blackhole bh) {
+        for (int[] set : indexes) {
+            IBitSet bitSet = newBitSet();
+            for (int index : set) {
+                bitSet.set(index);
+            }
+            bh.consume(bitSet);
+        }
+    }
+
+    @Benchmark
+    public void copy(Blackhole bh) {
+        for (IBitSet set : sets) {
+            bh.consume(set.copy());
+        }
+    }
+
+    /**
+     * Corresponds to {@code addAll} of bit-set-based sets.
+     */
+    @Benchmark
+    public void or(Blackhole bh) {
+        for (int i = 0; i + 1 < sets.length; ++i) {
+            IBitSet set = sets[i].copy();
+            bh.consume(set.or(sets[i + 1]));
+        }
+    }
+
+    /**
+     * Corresponds to {@code addAllDiff} of bit-set-based sets.
+     */
+    @Benchmark
+    public void orDiff(Blackhole bh) {
+        for (int i = 0; i + 1 < sets.length; ++i) {
+            IBitSet set = sets[i].copy();
+            bh.consume(set.orDiff(sets[i + 1]));
+        }
+    }
+
+    @Benchmark
+    public void intersects(Blackhole bh) {
+        for (int i = 0; i + 1 < sets.length; ++i) {
+            bh.consume(sets[i].intersects(sets[i + 1]));
+        }
+    }
+
+    @Benchmark
+    public void iterate(Blackhole bh) {
+        for (IBitSet set : sets) {
+            for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+                bh.consume(i);
+            }
+        }
+    }
+
+    /**
+     * Queries the indexes of each set (hits) and of its next set
+     * (mostly misses).
+     */
+    @Benchmark
+    public void get(Blackhole bh) {
+        for (int i = 0; i + 1 < sets.length; ++i) {
+            IBitSet set = sets[i];
+            for (int index : indexes[i]) {
+                bh.consume(set.get(index));
+            }
+            for (int index : indexes[i + 1]) {
+                bh.consume(set.get(index));
+            }
+        }
+    }
+}
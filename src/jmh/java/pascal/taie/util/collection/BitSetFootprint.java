@@ -0,0 +1,96 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import java.lang.ref.Reference;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Measures the heap footprint of {@link IBitSet} implementations on the
+ * sets of a {@link Workload}, which complements the throughput results
+ * of {@link BitSetBenchmark}. For each implementation, it fills one bit
+ * set per input set, and reports the heap growth (after GC) per set
+ * as a CSV line.
+ * <p>
+ * Usage: {@code BitSetFootprint [<file of sampled points-to sets>]}
+ */
+public class BitSetFootprint {
+
+    private static final String CSV_HEADER = "impl,sets,bits,bytes,bytes-per-set,bytes-per-bit";
+
+    private static final List<String> IMPLS = List.of("sparse", "regular", "roaring");
+
+    /**
+     * Number of measurements of each implementation; the minimum is reported.
+     */
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        int[][] indexes = Workload.load(args.length > 0 ? args[0] : "");
+        long bits = 0;
+        for (int[] set : indexes) {
+            bits += set.length;
+        }
+        System.out.println(CSV_HEADER);
+        for (String impl : IMPLS) {
+            Supplier<IBitSet> factory = switch (impl) {
+                case "sparse" -> SparseBitSet::new;
+                case "regular" -> RegularBitSet::new;
+                case "roaring" -> RoaringBitSet::new;
+                default -> throw new IllegalArgumentException(impl);
+            };
+            long bytes = Long.MAX_VALUE;
+            for (int i = 0; i < ROUNDS; ++i) {
+                bytes = Math.min(bytes, measure(indexes, factory));
+            }
+            System.out.printf("%s,%d,%d,%d,%.1f,%.2f%n", impl,
+                    indexes.length, bits, bytes,
+                    bytes / (double) indexes.length,
+                    bits == 0 ? 0.0 : bytes / (double) bits);
+        }
+    }
+
+    private static long measure(int[][] indexes, Supplier<IBitSet> factory) {
+        long before = usedMemory();
+        IBitSet[] sets = new IBitSet[indexes.length];
+        for (int i = 0; i < indexes.length; ++i) {
+            IBitSet set = factory.get();
+            for (int index : indexes[i]) {
+                set.set(index);
+            }
+            sets[i] = set;
+        }
+        long after = usedMemory();
+        Reference.reachabilityFence(sets);
+        return after - before;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; ++i) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
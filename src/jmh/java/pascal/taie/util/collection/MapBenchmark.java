@@ -0,0 +1,214 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.util.collection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pascal.taie.util.Indexer;
+import pascal.taie.util.collection.Workload.Element;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of key operations of {@link IndexMap}, {@link TwoKeyMap}
+ * and {@link MapSetMultiMap}. The i-th set of the {@link Workload} is
+ * regarded as the values (or the second keys) of the i-th element,
+ * like the points-to relations from pointers to objects.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapBenchmark {
+
+    /**
+     * Path of the file of sampled points-to sets; empty for synthetic sets.
+     */
+    @Param("")
+    private String workload;
+
+    private Indexer<Element> indexer;
+
+    /**
+     * Number of elements, including keys.
+     */
+    private int capacity;
+
+    private Element[] keys;
+
+    private Element[][] values;
+
+    private Map<Element, Element[]> indexMap;
+
+    private Map<Element, Element[]> hashMap;
+
+    private TwoKeyMap<Element, Element, Element> twoKeyMap;
+
+    private MultiMap<Element, Element> multiMap;
+
+    @Setup
+    public void setup() {
+        int[][] indexes = Workload.load(workload);
+        // use the elements after the ones in the sets as keys
+        int universe = Workload.universe(indexes);
+        capacity = universe + indexes.length;
+        indexer = Workload.newIndexer(capacity);
+        keys = new Element[indexes.length];
+        values = new Element[indexes.length][];
+        for (int i = 0; i < indexes.length; ++i) {
+            keys[i] = indexer.getObject(universe + i);
+            int[] set = indexes[i];
+            values[i] = new Element[set.length];
+            for (int j = 0; j < set.length; ++j) {
+                values[i][j] = indexer.getObject(set[j]);
+            }
+        }
+        indexMap = newIndexMap();
+        hashMap = Maps.newMap();
+        twoKeyMap = Maps.newTwoKeyMap();
+        multiMap = Maps.newMultiMap();
+        for (int i = 0; i < keys.length; ++i) {
+            indexMap.put(keys[i], values[i]);
+            hashMap.put(keys[i], values[i]);
+            for (Element v : values[i]) {
+                twoKeyMap.put(keys[i], v, v);
+                multiMap.put(keys[i], v);
+            }
+        }
+    }
+
+    private Map<Element, Element[]> newIndexMap() {
+        return new IndexMap<>(indexer, capacity);
+    }
+
+    @Benchmark
+    public void indexMapPut(Blackhole bh) {
+        Map<Element, Element[]> map = newIndexMap();
+        for (int i = 0; i < keys.length; ++i) {
+            map.put(keys[i], values[i]);
+        }
+        bh.consume(map);
+    }
+
+    @Benchmark
+    public void indexMapGet(Blackhole bh) {
+        for (Element key : keys) {
+            bh.consume(indexMap.get(key));
+        }
+    }
+
+    @Benchmark
+    public void indexMapIterate(Blackhole bh) {
+        indexMap.forEach((k, v) -> bh.consume(v));
+    }
+
+    @Benchmark
+    public void hashMapPut(Blackhole bh) {
+        Map<Element, Element[]> map = Maps.newMap();
+        for (int i = 0; i < keys.length; ++i) {
+            map.put(keys[i], values[i]);
+        }
+        bh.consume(map);
+    }
+
+    @Benchmark
+    public void hashMapGet(Blackhole bh) {
+        for (Element key : keys) {
+            bh.consume(hashMap.get(key));
+        }
+    }
+
+    @Benchmark
+    public void hashMapIterate(Blackhole bh) {
+        hashMap.forEach((k, v) -> bh.consume(v));
+    }
+
+    @Benchmark
+    public void twoKeyMapPut(Blackhole bh) {
+        TwoKeyMap<Element, Element, Element> map = Maps.newTwoKeyMap();
+        for (int i = 0; i < keys.length; ++i) {
+            for (Element v : values[i]) {
+                map.put(keys[i], v, v);
+            }
+        }
+        bh.consume(map);
+    }
+
+    @Benchmark
+    public void twoKeyMapGet(Blackhole bh) {
+        for (int i = 0; i < keys.length; ++i) {
+            for (Element v : values[i]) {
+                bh.consume(twoKeyMap.get(keys[i], v));
+            }
+        }
+    }
+
+    @Benchmark
+    public void twoKeyMapIterate(Blackhole bh) {
+        twoKeyMap.forEach((k1, k2, v) -> bh.consume(v));
+    }
+
+    @Benchmark
+    public void multiMapPut(Blackhole bh) {
+        MultiMap<Element, Element> map = Maps.newMultiMap();
+        for (int i = 0; i < keys.length; ++i) {
+            for (Element v : values[i]) {
+                map.put(keys[i], v);
+            }
+        }
+        bh.consume(map);
+    }
+
+    /**
+     * Queries the values of each key (hits) and of its next key
+     * (mostly misses).
+     */
+    @Benchmark
+    public void multiMapContains(Blackhole bh) {
+        for (int i = 0; i + 1 < keys.length; ++i) {
+            for (Element v : values[i]) {
+                bh.consume(multiMap.contains(keys[i], v));
+            }
+            for (Element v : values[i + 1]) {
+                bh.consume(multiMap.contains(keys[i], v));
+            }
+        }
+    }
+
+    @Benchmark
+    public void multiMapIterate(Blackhole bh) {
+        multiMap.forEach((k, v) -> bh.consume(v));
+    }
+}
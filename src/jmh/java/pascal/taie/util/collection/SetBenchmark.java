@@ -0,0 +1,174 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.util.collection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pascal.taie.util.Indexer;
+import pascal.taie.util.collection.Workload.Element;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of key operations of {@link SetEx} implementations,
+ * including the ones backing points-to sets.
+ * Mutating operations are applied to copies of the sets,
+ * so {@link #copy(Blackhole)} is their baseline.
+ * <p>
+ * {@link ArraySet} is designed for small sets, thus for {@code array},
+ * only the sets with at most {@link #MAX_ARRAY_SET_SIZE} elements are used.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SetBenchmark {
+
+    private static final int MAX_ARRAY_SET_SIZE = 64;
+
+    @Param({"hybrid-bit", "hybrid-roaring", "hybrid-hash", "indexer-bit", "array"})
+    private String impl;
+
+    /**
+     * Path of the file of sampled points-to sets; empty for synthetic sets.
+     */
+    @Param("")
+    private String workload;
+
+    private Indexer<Element> indexer;
+
+    private Element[][] elements;
+
+    private SetEx<Element>[] sets;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        int[][] indexes = Workload.load(workload);
+        if (impl.equals("array")) {
+            indexes = Arrays.stream(indexes)
+                    .filter(set -> set.length <= MAX_ARRAY_SET_SIZE)
+                    .toArray(int[][]::new);
+        }
+        indexer = Workload.newIndexer(Workload.universe(indexes));
+        elements = new Element[indexes.length][];
+        sets = new SetEx[indexes.length];
+        for (int i = 0; i < indexes.length; ++i) {
+            elements[i] = Arrays.stream(indexes[i])
+                    .mapToObj(indexer::getObject)
+                    .toArray(Element[]::new);
+            sets[i] = newSet();
+            sets[i].addAll(Arrays.asList(elements[i]));
+        }
+    }
+
+    private SetEx<Element> newSet() {
+        return switch (impl) {
+            case "hybrid-bit" -> new HybridBitSet<>(indexer, true);
+            case "hybrid-roaring" -> new HybridBitSet<>(indexer, RoaringBitSet::new);
+            case "hybrid-hash" -> new HybridHashSet<>();
+            case "indexer-bit" -> new IndexerBitSet<>(indexer, true);
+            case "array" -> new ArraySet<>();
+            default -> throw new IllegalArgumentException(impl);
+        };
+    }
+
+    @Benchmark
+    public void add(Blackhole bh) {
+        for (Element[] elems : elements) {
+            SetEx<Element> set = newSet();
+            for (Element e : elems) {
+                set.add(e);
+            }
+            bh.consume(set);
+        }
+    }
+
+    @Benchmark
+    public void copy(Blackhole bh) {
+        for (SetEx<Element> set : sets) {
+            bh.consume(set.copy());
+        }
+    }
+
+    @Benchmark
+    public void addAll(Blackhole bh) {
+        for (int i = 0; i + 1 < sets.length; ++i) {
+            SetEx<Element> set = sets[i].copy();
+            bh.consume(set.addAll(sets[i + 1]));
+        }
+    }
+
+    @Benchmark
+    public void addAllDiff(Blackhole bh) {
+        for (int i = 0; i + 1 < sets.length; ++i) {
+            SetEx<Element> set = sets[i].copy();
+            bh.consume(set.addAllDiff(sets[i + 1]));
+        }
+    }
+
+    @Benchmark
+    public void hasOverlapWith(Blackhole bh) {
+        for (int i = 0; i + 1 < sets.length; ++i) {
+            bh.consume(sets[i].hasOverlapWith(sets[i + 1]));
+        }
+    }
+
+    @Benchmark
+    public void iterate(Blackhole bh) {
+        for (SetEx<Element> set : sets) {
+            for (Element e : set) {
+                bh.consume(e);
+            }
+        }
+    }
+
+    /**
+     * Queries the elements of each set (hits) and of its next set
+     * (mostly misses).
+     */
+    @Benchmark
+    public void contains(Blackhole bh) {
+        for (int i = 0; i + 1 < sets.length; ++i) {
+            SetEx<Element> set = sets[i];
+            for (Element e : elements[i]) {
+                bh.consume(set.contains(e));
+            }
+            for (Element e : elements[i + 1]) {
+                bh.consume(set.contains(e));
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.util.collection;
+
+import pascal.taie.util.Indexable;
+import pascal.taie.util.Indexer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Input sets of the benchmarks. Each set is an array of distinct
+ * indexes in ascending order.
+ * <p>
+ * The sets are either loaded from a file written by
+ * {@link pascal.taie.analysis.pta.pts.PointsToSetSampler}, which contains
+ * the points-to sets sampled from a real pointer analysis run, or generated
+ * synthetically (when no file is given) to mimic the shape of such sets:
+ * the sizes follow a log-uniform distribution (most sets are small and a
+ * few are large), and the indexes of each set cluster around a random base,
+ * as objects allocated in nearby methods tend to have nearby indexes.
+ */
+final class Workload {
+
+    /**
+     * Number of synthetic sets.
+     */
+    private static final int SYNTHETIC_SETS = 10_000;
+
+    /**
+     * Maximum size of synthetic sets.
+     */
+    private static final int SYNTHETIC_MAX_SIZE = 4096;
+
+    /**
+     * Number of distinct indexes used by synthetic sets.
+     */
+    private static final int SYNTHETIC_UNIVERSE = 1 << 20;
+
+    private Workload() {
+    }
+
+    /**
+     * Loads sets from given file, or generates synthetic sets
+     * if {@code file} is empty.
+     */
+    static int[][] load(String file) {
+        if (file.isEmpty()) {
+            return synthetic(SYNTHETIC_SETS, 0);
+        }
+        try {
+            List<String> lines = Files.readAllLines(Path.of(file));
+            return lines.stream()
+                    .filter(line -> !line.startsWith("#"))
+                    .map(line -> line.isBlank() ? new int[0] :
+                            Arrays.stream(line.trim().split(" "))
+                                    .mapToInt(Integer::parseInt)
+                                    .sorted()
+                                    .distinct()
+                                    .toArray())
+                    .toArray(int[][]::new);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static int[][] synthetic(int n, long seed) {
+        Random random = new Random(seed);
+        int[][] sets = new int[n][];
+        for (int i = 0; i < n; ++i) {
+            int size = (int) Math.exp(random.nextDouble() * Math.log(SYNTHETIC_MAX_SIZE));
+            int window = Math.min(SYNTHETIC_UNIVERSE, size * 8);
+            int base = random.nextInt(SYNTHETIC_UNIVERSE - window + 1);
+            sets[i] = random.ints(base, base + window)
+                    .distinct()
+                    .limit(size)
+                    .sorted()
+                    .toArray();
+        }
+        return sets;
+    }
+
+    /**
+     * @return the maximum index in given sets plus one.
+     */
+    static int universe(int[][] sets) {
+        int max = -1;
+        for (int[] set : sets) {
+            if (set.length > 0) {
+                max = Math.max(max, set[set.length - 1]);
+            }
+        }
+        return max + 1;
+    }
+
+    /**
+     * Creates {@code n} elements with indexes from 0 to {@code n - 1},
+     * and returns the indexer of the elements.
+     */
+    static Indexer<Element> newIndexer(int n) {
+        Element[] elements = new Element[n];
+        Arrays.setAll(elements, Element::new);
+        return new Indexer<>() {
+            @Override
+            public int getIndex(Element o) {
+                return o.getIndex();
+            }
+
+            @Override
+            public Element getObject(int index) {
+                return elements[index];
+            }
+        };
+    }
+
+    /**
+     * Set element which carries an index, like the objects in
+     * points-to sets.
+     */
+    static final class Element implements Indexable {
+
+        private final int index;
+
+        private Element(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public int getIndex() {
+            return index;
+        }
+    }
+}
@@ -37,6 +37,9 @@ import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.Timer;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
 import pascal.taie.util.graph.SimpleGraph;
 
 import java.lang.reflect.Constructor;
@@ -44,6 +47,14 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 /**
  * Creates and executes analyses based on given analysis plan.
@@ -99,14 +110,185 @@ public class AnalysisManager {
         classScope = null;
         methodScope = null;
         // execute analyses
-        plan.analyses().forEach(config -> {
-            Analysis analysis = Timer.runAndCount(
-                    () -> runAnalysis(config), config.getId(), Level.INFO);
-            if (!keepAllResults) {
-                executedAnalyses.add(analysis);
-                clearUnusedResults(analysis);
+        Map<AnalysisConfig, Set<AnalysisConfig>> dependencies = computeDependencies();
+        Map<AnalysisConfig, Long> elapsedTimes = Maps.newMap();
+        long start = System.currentTimeMillis();
+        if (World.get().getOptions().isParallelAnalyses()
+                && plan.analyses().size() > 1) {
+            executeInParallel(dependencies, elapsedTimes);
+        } else {
+            plan.analyses().forEach(config -> {
+                long begin = System.currentTimeMillis();
+                Analysis analysis = Timer.runAndCount(
+                        () -> runAnalysis(config), config.getId(), Level.INFO);
+                elapsedTimes.put(config, System.currentTimeMillis() - begin);
+                finishAnalysis(analysis);
+            });
+        }
+        logCriticalPath(dependencies, elapsedTimes,
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Computes the analyses that each analysis in the plan must wait for.
+     * Besides the analyses it requires, an analysis also waits for:
+     * <ul>
+     *     <li>call graph builder, if the analysis scope is reachable and
+     *     the analysis runs after call graph builder in the plan,
+     *     as the scope of class and method analyses is computed
+     *     from the call graph.</li>
+     *     <li>all analyses that run before it in the plan, if it declares
+     *     no required analyses. Such analyses (e.g., {@code process-result})
+     *     may consume the results of the preceding analyses without
+     *     declaring them, thus we conservatively respect the plan order.</li>
+     * </ul>
+     *
+     * @return a map from each analysis to the analyses it waits for.
+     * The keys are ordered as in the plan.
+     */
+    private Map<AnalysisConfig, Set<AnalysisConfig>> computeDependencies() {
+        List<AnalysisConfig> analyses = plan.analyses();
+        int cgIndex = -1;
+        if (World.get().getOptions().getScope() == Scope.REACHABLE) {
+            for (int i = 0; i < analyses.size(); ++i) {
+                if (analyses.get(i).getId().equals(CallGraphBuilder.ID)) {
+                    cgIndex = i;
+                    break;
+                }
             }
+        }
+        Map<AnalysisConfig, Set<AnalysisConfig>> dependencies = Maps.newLinkedHashMap();
+        for (int i = 0; i < analyses.size(); ++i) {
+            AnalysisConfig config = analyses.get(i);
+            Set<AnalysisConfig> deps = Sets.newSet(
+                    plan.dependenceGraph().getPredsOf(config));
+            if (deps.isEmpty()) {
+                deps.addAll(analyses.subList(0, i));
+            } else if (cgIndex != -1 && i > cgIndex) {
+                deps.add(analyses.get(cgIndex));
+            }
+            dependencies.put(config, deps);
+        }
+        return dependencies;
+    }
+
+    /**
+     * Executes the analyses in the plan on a shared thread pool.
+     * An analysis is submitted once all analyses it waits for finished.
+     * The bookkeeping of results (i.e., clearing unused results) is
+     * performed by the calling thread after each analysis finishes.
+     */
+    private void executeInParallel(
+            Map<AnalysisConfig, Set<AnalysisConfig>> dependencies,
+            Map<AnalysisConfig, Long> elapsedTimes) {
+        int nThreads = Math.min(plan.analyses().size(),
+                Runtime.getRuntime().availableProcessors());
+        logger.info("Executing analyses in parallel with {} threads", nThreads);
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        CompletionService<FinishedAnalysis> completionService =
+                new ExecutorCompletionService<>(executor);
+        Map<AnalysisConfig, Integer> waitCounts = Maps.newMap();
+        MultiMap<AnalysisConfig, AnalysisConfig> dependents = Maps.newMultiMap();
+        dependencies.forEach((config, deps) -> {
+            waitCounts.put(config, deps.size());
+            deps.forEach(dep -> dependents.put(dep, config));
         });
+        Consumer<AnalysisConfig> submit = config ->
+                completionService.submit(() -> {
+                    long begin = System.currentTimeMillis();
+                    Analysis analysis = Timer.runAndCount(
+                            () -> runAnalysis(config), config.getId(), Level.INFO);
+                    return new FinishedAnalysis(config, analysis,
+                            System.currentTimeMillis() - begin);
+                });
+        try {
+            dependencies.forEach((config, deps) -> {
+                if (deps.isEmpty()) {
+                    submit.accept(config);
+                }
+            });
+            for (int i = 0; i < dependencies.size(); ++i) {
+                FinishedAnalysis finished = completionService.take().get();
+                elapsedTimes.put(finished.config(), finished.elapsedTime());
+                finishAnalysis(finished.analysis());
+                for (AnalysisConfig dependent : dependents.get(finished.config())) {
+                    if (waitCounts.merge(dependent, -1, Integer::sum) == 0) {
+                        submit.accept(dependent);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisException("Analysis execution is interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            } else if (cause instanceof Error err) {
+                throw err;
+            } else {
+                throw new AnalysisException(cause);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private record FinishedAnalysis(
+            AnalysisConfig config, Analysis analysis, long elapsedTime) {
+    }
+
+    /**
+     * Records that the given analysis finished, and clears unused results
+     * if necessary.
+     */
+    private void finishAnalysis(Analysis analysis) {
+        if (!keepAllResults) {
+            executedAnalyses.add(analysis);
+            clearUnusedResults(analysis);
+        }
+    }
+
+    /**
+     * Logs the critical path of the executed analyses, i.e., the chain
+     * of dependent analyses with the largest total elapsed time. It is
+     * the lower bound of the time to execute the plan in parallel.
+     */
+    private static void logCriticalPath(
+            Map<AnalysisConfig, Set<AnalysisConfig>> dependencies,
+            Map<AnalysisConfig, Long> elapsedTimes, long totalTime) {
+        Map<AnalysisConfig, Long> finishTimes = Maps.newMap();
+        Map<AnalysisConfig, AnalysisConfig> prevs = Maps.newMap();
+        AnalysisConfig last = null;
+        // keys of dependencies are in plan order, which is a topological order
+        for (var entry : dependencies.entrySet()) {
+            AnalysisConfig config = entry.getKey();
+            long startTime = 0;
+            for (AnalysisConfig dep : entry.getValue()) {
+                if (finishTimes.get(dep) > startTime) {
+                    startTime = finishTimes.get(dep);
+                    prevs.put(config, dep);
+                }
+            }
+            finishTimes.put(config, startTime + elapsedTimes.get(config));
+            if (last == null || finishTimes.get(config) > finishTimes.get(last)) {
+                last = config;
+            }
+        }
+        if (last == null) {
+            return;
+        }
+        List<String> path = new ArrayList<>();
+        for (AnalysisConfig c = last; c != null; c = prevs.get(c)) {
+            path.add(0, String.format("%s (%.2fs)",
+                    c.getId(), elapsedTimes.get(c) / 1000F));
+        }
+        long sum = elapsedTimes.values().stream().mapToLong(t -> t).sum();
+        logger.info("Critical path of analyses: {}", String.join(" -> ", path));
+        logger.info("Analyses elapsed time: {} (critical path), {} (sum), {} (wall clock)",
+                String.format("%.2fs", finishTimes.get(last) / 1000F),
+                String.format("%.2fs", sum / 1000F),
+                String.format("%.2fs", totalTime / 1000F));
     }
 
     private Analysis runAnalysis(AnalysisConfig config) {
@@ -161,7 +343,7 @@ public class AnalysisManager {
                 });
     }
 
-    private List<JClass> getClassScope() {
+    private synchronized List<JClass> getClassScope() {
         if (classScope == null) {
             Scope scope = World.get().getOptions().getScope();
             classScope = switch (scope) {
@@ -199,7 +381,7 @@ public class AnalysisManager {
                 });
     }
 
-    private List<JMethod> getMethodScope() {
+    private synchronized List<JMethod> getMethodScope() {
         if (methodScope == null) {
             Scope scope = World.get().getOptions().getScope();
             methodScope = switch (scope) {
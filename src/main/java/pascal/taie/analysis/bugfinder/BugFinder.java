@@ -0,0 +1,445 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.bugfinder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.ProgramAnalysis;
+import pascal.taie.analysis.bugfinder.nullpointer.IsNullAnalysis;
+import pascal.taie.analysis.bugfinder.nullpointer.NullPointerDetection;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.Scope;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.annotation.Annotation;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs all enabled bug detectors in a single parallel pass over
+ * the classes in scope.
+ * <p>
+ * Compared to running {@link NullPointerDetection}, {@link CloneIdiom}
+ * and {@link DroppedException} as separate analyses, this analysis
+ * visits each class once, reuses the control-flow graph of each method
+ * for all detectors, and computes the {@code is-null} result on the fly
+ * instead of storing it in every IR.
+ * <p>
+ * Bug instances are appended to the report file (if specified) as soon as
+ * the detectors finish a class. If a cache file is specified, the findings
+ * of each class are stored in the cache together with a fingerprint of
+ * the class, and classes whose fingerprints are unchanged since the last
+ * run are not analyzed again.
+ */
+public class BugFinder extends ProgramAnalysis<List<BugInstance>> {
+
+    public static final String ID = "bug-finder";
+
+    /**
+     * Key of the number of classes whose bug instances were restored
+     * from the cache file in the last run, stored in {@link World}.
+     */
+    public static final String REUSED_CLASSES = ID + ".reused-classes";
+
+    private static final Logger logger = LogManager.getLogger(BugFinder.class);
+
+    private static final String CLASS_PREFIX = "C";
+
+    private static final String BUG_PREFIX = "B";
+
+    private static final String SEP = "\t";
+
+    /**
+     * Placeholder of method signature for class-level bug instances.
+     */
+    private static final String NO_METHOD = "-";
+
+    @Nullable
+    private final NullPointerDetection nullPointer;
+
+    @Nullable
+    private final IsNullAnalysis isNull;
+
+    @Nullable
+    private final CloneIdiom cloneIdiom;
+
+    @Nullable
+    private final DroppedException droppedException;
+
+    /**
+     * Maps names of the bug types of enabled detectors to the bug types,
+     * used to restore the cached bug instances.
+     */
+    private final Map<String, BugType> bugTypes = Maps.newMap();
+
+    public BugFinder(AnalysisConfig config) {
+        super(config);
+        if (getOptions().getBoolean("null-pointer")) {
+            nullPointer = new NullPointerDetection(
+                    AnalysisConfig.of(NullPointerDetection.ID));
+            isNull = new IsNullAnalysis(
+                    AnalysisConfig.of(IsNullAnalysis.ID, "persistent-fact", false));
+        } else {
+            nullPointer = null;
+            isNull = null;
+        }
+        cloneIdiom = getOptions().getBoolean("clone-idiom")
+                ? new CloneIdiom(AnalysisConfig.of(CloneIdiom.ID)) : null;
+        droppedException = getOptions().getBoolean("dropped-exception")
+                ? new DroppedException(AnalysisConfig.of(DroppedException.ID)) : null;
+        if (nullPointer != null) {
+            addBugTypes(NullPointerDetection.getBugTypes());
+        }
+        if (cloneIdiom != null) {
+            addBugTypes(CloneIdiom.getBugTypes());
+        }
+        if (droppedException != null) {
+            addBugTypes(DroppedException.getBugTypes());
+        }
+    }
+
+    private void addBugTypes(Collection<BugType> types) {
+        types.forEach(type -> bugTypes.put(type.toString(), type));
+    }
+
+    @Override
+    public List<BugInstance> analyze() {
+        List<JClass> classes = getClassScope();
+        File cacheFile = getFile("cache-file");
+        Map<String, CacheEntry> cache = cacheFile != null && cacheFile.exists()
+                ? loadCache(cacheFile) : Map.of();
+        Map<JClass, Set<BugInstance>> results = Maps.newConcurrentMap(classes.size());
+        Map<JClass, String> fingerprints = Maps.newConcurrentMap(classes.size());
+        AtomicInteger reused = new AtomicInteger();
+        try (Reporter reporter = new Reporter(getFile("report-file"))) {
+            classes.parallelStream().forEach(c -> {
+                Set<BugInstance> bugs = null;
+                if (cacheFile != null) {
+                    String fingerprint = fingerprint(c);
+                    fingerprints.put(c, fingerprint);
+                    CacheEntry cached = cache.get(c.getName());
+                    if (cached != null && cached.fingerprint().equals(fingerprint)) {
+                        bugs = cached.restore(c, bugTypes);
+                        if (bugs != null) {
+                            reused.incrementAndGet();
+                        }
+                    }
+                }
+                if (bugs == null) {
+                    bugs = analyze(c);
+                }
+                results.put(c, bugs);
+                reporter.report(bugs);
+            });
+        }
+        if (cacheFile != null) {
+            logger.info("{}/{} classes reused cached bug instances",
+                    reused.get(), classes.size());
+            writeCache(cacheFile, results, fingerprints);
+        }
+        World.get().storeResult(REUSED_CLASSES, reused.get());
+        return results.values()
+                .stream()
+                .flatMap(Collection::stream)
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * Runs all enabled detectors on given class.
+     */
+    private Set<BugInstance> analyze(JClass jclass) {
+        Set<BugInstance> bugs = Sets.newOrderedSet();
+        if (cloneIdiom != null) {
+            bugs.addAll(cloneIdiom.analyze(jclass));
+        }
+        if (nullPointer != null || droppedException != null) {
+            for (JMethod method : jclass.getDeclaredMethods()) {
+                if (method.isAbstract()) {
+                    continue;
+                }
+                IR ir = method.getIR();
+                if (nullPointer != null) {
+                    bugs.addAll(nullPointer.analyze(ir, isNull));
+                }
+                if (droppedException != null) {
+                    bugs.addAll(droppedException.analyze(ir));
+                }
+            }
+        }
+        return bugs;
+    }
+
+    private List<JClass> getClassScope() {
+        Scope scope = World.get().getOptions().getScope();
+        return switch (scope) {
+            case APP -> World.get()
+                    .getClassHierarchy()
+                    .applicationClasses()
+                    .toList();
+            case ALL -> World.get()
+                    .getClassHierarchy()
+                    .allClasses()
+                    .toList();
+            case REACHABLE -> {
+                CallGraph<?, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+                yield callGraph.reachableMethods()
+                        .map(JMethod::getDeclaringClass)
+                        .distinct()
+                        .toList();
+            }
+        };
+    }
+
+    @Nullable
+    private File getFile(String key) {
+        String path = getOptions().getString(key);
+        return path != null
+                ? new File(World.get().getOptions().getOutputDir(), path)
+                : null;
+    }
+
+    /**
+     * Computes the fingerprint of given class. The fingerprint covers
+     * everything the detectors depend on: the enabled detectors,
+     * the modifiers and super types of the class, the signatures,
+     * annotations and IR of its methods, and the annotations of
+     * the methods called by them.
+     */
+    private String fingerprint(JClass jclass) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(nullPointer != null)
+                .append(cloneIdiom != null)
+                .append(droppedException != null).append('\n');
+        sb.append(jclass.getModifiers()).append(' ').append(jclass).append('\n');
+        appendSuperTypes(sb, jclass, Sets.newSet());
+        for (JMethod method : jclass.getDeclaredMethods()) {
+            appendMethod(sb, method);
+            if (!method.isAbstract()) {
+                IR ir = method.getIR();
+                for (Stmt stmt : ir) {
+                    sb.append(stmt.getLineNumber()).append(' ')
+                            .append(stmt).append('\n');
+                    if (stmt instanceof Invoke invoke) {
+                        JMethod callee = invoke.getMethodRef().resolveNullable();
+                        if (callee != null) {
+                            appendMethod(sb, callee);
+                        }
+                    }
+                }
+                ir.getExceptionEntries().forEach(entry ->
+                        sb.append(entry).append('\n'));
+            }
+            digest.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+            sb.setLength(0);
+        }
+        digest.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void appendSuperTypes(
+            StringBuilder sb, JClass jclass, Set<JClass> visited) {
+        if (visited.add(jclass)) {
+            JClass superClass = jclass.getSuperClass();
+            if (superClass != null) {
+                sb.append("extends ").append(superClass).append('\n');
+                appendSuperTypes(sb, superClass, visited);
+            }
+            for (JClass iface : jclass.getInterfaces()) {
+                sb.append("implements ").append(iface).append('\n');
+                appendSuperTypes(sb, iface, visited);
+            }
+        }
+    }
+
+    private static void appendMethod(StringBuilder sb, JMethod method) {
+        sb.append(method.getModifiers()).append(' ').append(method);
+        method.getAnnotations().forEach(a -> sb.append(' ').append(a));
+        for (int i = 0; i < method.getParamCount(); ++i) {
+            for (Annotation a : method.getParamAnnotations(i)) {
+                sb.append(' ').append(i).append(':').append(a);
+            }
+        }
+        sb.append('\n');
+    }
+
+    private static Map<String, CacheEntry> loadCache(File cacheFile) {
+        Map<String, CacheEntry> cache = Maps.newMap();
+        try (BufferedReader reader = new BufferedReader(new FileReader(cacheFile))) {
+            String className = null;
+            String fingerprint = null;
+            List<String[]> bugs = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(SEP);
+                if (fields[0].equals(CLASS_PREFIX) && fields.length == 3) {
+                    if (className != null) {
+                        cache.put(className, new CacheEntry(fingerprint, bugs));
+                    }
+                    className = fields[1];
+                    fingerprint = fields[2];
+                    bugs = new ArrayList<>();
+                } else if (fields[0].equals(BUG_PREFIX) && fields.length == 6
+                        && bugs != null) {
+                    bugs.add(fields);
+                } else {
+                    logger.warn("Ignored malformed bug-finder cache file {}", cacheFile);
+                    return Map.of();
+                }
+            }
+            if (className != null) {
+                cache.put(className, new CacheEntry(fingerprint, bugs));
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read bug-finder cache file {}", cacheFile);
+            return Map.of();
+        }
+        return cache;
+    }
+
+    private static void writeCache(File cacheFile,
+                                   Map<JClass, Set<BugInstance>> results,
+                                   Map<JClass, String> fingerprints) {
+        try (PrintStream out = new PrintStream(new FileOutputStream(cacheFile))) {
+            logger.info("Dumping bug-finder cache to {}", cacheFile.getAbsolutePath());
+            results.forEach((c, bugs) -> {
+                out.println(String.join(SEP, CLASS_PREFIX, c.getName(), fingerprints.get(c)));
+                for (BugInstance bug : bugs) {
+                    JMethod method = bug.getJMethod();
+                    out.println(String.join(SEP, BUG_PREFIX,
+                            method != null ? method.getSubsignature().toString() : NO_METHOD,
+                            bug.getType().toString(),
+                            bug.getSeverity().name(),
+                            Integer.toString(bug.getSourceLineStart()),
+                            Integer.toString(bug.getSourceLineEnd())));
+                }
+            });
+        } catch (FileNotFoundException e) {
+            logger.error("Failed to open output file {}", cacheFile);
+        }
+    }
+
+    /**
+     * Cached findings of a class. The findings are kept as raw records
+     * until they are restored for the class.
+     */
+    private record CacheEntry(String fingerprint, List<String[]> records) {
+
+        /**
+         * @return the restored bug instances, or {@code null} if any record
+         * refers to a bug type or method that is unknown in current run.
+         */
+        @Nullable
+        private Set<BugInstance> restore(JClass jclass, Map<String, BugType> bugTypes) {
+            Set<BugInstance> restored = Sets.newOrderedSet();
+            for (String[] r : records) {
+                BugType type = bugTypes.get(r[2]);
+                if (type == null) {
+                    return null;
+                }
+                Severity severity = Severity.valueOf(r[3]);
+                BugInstance bug;
+                if (r[1].equals(NO_METHOD)) {
+                    bug = new BugInstance(type, severity, jclass);
+                } else {
+                    JMethod method = jclass.getDeclaredMethod(Subsignature.get(r[1]));
+                    if (method == null) {
+                        return null;
+                    }
+                    bug = new BugInstance(type, severity, method);
+                }
+                restored.add(bug.setSourceLine(
+                        Integer.parseInt(r[4]), Integer.parseInt(r[5])));
+            }
+            return restored;
+        }
+    }
+
+    /**
+     * Streams bug instances to the report file.
+     */
+    private static class Reporter implements AutoCloseable {
+
+        @Nullable
+        private final PrintStream out;
+
+        private Reporter(@Nullable File reportFile) {
+            PrintStream ps = null;
+            if (reportFile != null) {
+                try {
+                    ps = new PrintStream(new FileOutputStream(reportFile));
+                    logger.info("Reporting bug instances to {}",
+                            reportFile.getAbsolutePath());
+                } catch (FileNotFoundException e) {
+                    logger.error("Failed to open output file {}", reportFile);
+                }
+            }
+            out = ps;
+        }
+
+        private synchronized void report(Collection<BugInstance> bugs) {
+            if (out != null && !bugs.isEmpty()) {
+                bugs.forEach(out::println);
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+}
@@ -25,6 +25,7 @@ package pascal.taie.analysis.bugfinder;
 import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
 
+import javax.annotation.Nullable;
 import java.util.Objects;
 
 // TODO: refactor it with more precise context information.
@@ -56,6 +57,19 @@ public class BugInstance implements Comparable<BugInstance> {
         this.jMethod = jMethod;
     }
 
+    public JClass getJClass() {
+        return jClass;
+    }
+
+    /**
+     * @return the method where this bug instance is found, or {@code null}
+     * if this is a class-level bug instance.
+     */
+    @Nullable
+    public JMethod getJMethod() {
+        return jMethod;
+    }
+
     public BugType getType() {
         return type;
     }
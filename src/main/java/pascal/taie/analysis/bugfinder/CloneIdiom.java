@@ -35,6 +35,7 @@ import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.collection.Sets;
 
+import java.util.List;
 import java.util.Set;
 
 public class CloneIdiom extends ClassAnalysis<Set<BugInstance>> {
@@ -110,6 +111,13 @@ public class CloneIdiom extends ClassAnalysis<Set<BugInstance>> {
         return bugInstances;
     }
 
+    /**
+     * @return all bug types that this detector may report.
+     */
+    public static List<pascal.taie.analysis.bugfinder.BugType> getBugTypes() {
+        return List.of(BugType.values());
+    }
+
     private enum BugType implements pascal.taie.analysis.bugfinder.BugType {
         CN_IDIOM,
         CN_IDIOM_NO_SUPER_CALL,
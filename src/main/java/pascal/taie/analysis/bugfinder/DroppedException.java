@@ -33,6 +33,7 @@ import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.ClassNames;
 import pascal.taie.util.collection.Sets;
 
+import java.util.List;
 import java.util.Set;
 
 public class DroppedException extends MethodAnalysis<Set<BugInstance>> {
@@ -86,6 +87,13 @@ public class DroppedException extends MethodAnalysis<Set<BugInstance>> {
         return bugInstanceSet;
     }
 
+    /**
+     * @return all bug types that this detector may report.
+     */
+    public static List<pascal.taie.analysis.bugfinder.BugType> getBugTypes() {
+        return List.of(BugType.values());
+    }
+
     private enum BugType implements pascal.taie.analysis.bugfinder.BugType {
         DE_MIGHT_DROP,
         DE_MIGHT_IGNORE
@@ -63,13 +63,19 @@ public class IsNullAnalysis extends AnalysisDriver<Stmt, IsNullFact> {
 
     @Override
     protected DataflowAnalysis<Stmt, IsNullFact> makeAnalysis(CFG<Stmt> cfg) {
-        return new Analysis(cfg);
+        return new Analysis(cfg, getOptions().getBoolean("persistent-fact"));
     }
 
     private static class Analysis extends AbstractDataflowAnalysis<Stmt, IsNullFact> {
 
-        public Analysis(CFG<Stmt> cfg) {
+        /**
+         * Whether use {@link IsNullFact}s backed by persistent maps.
+         */
+        private final boolean persistentFact;
+
+        public Analysis(CFG<Stmt> cfg, boolean persistentFact) {
             super(cfg);
+            this.persistentFact = persistentFact;
         }
 
         @Override
@@ -119,7 +125,8 @@ public class IsNullAnalysis extends AnalysisDriver<Stmt, IsNullFact> {
 
         @Override
         public IsNullFact newInitialFact() {
-            return new IsNullFact();
+            return persistentFact ?
+                    new IsNullFact(cfg.getIR().getVarIndexer()) : new IsNullFact();
         }
 
         @Override
@@ -26,6 +26,8 @@ import pascal.taie.analysis.dataflow.fact.MapFact;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.language.type.ArrayType;
 import pascal.taie.language.type.ClassType;
+import pascal.taie.util.Indexer;
+import pascal.taie.util.collection.PersistentIndexMap;
 
 import java.util.Collections;
 import java.util.Map;
@@ -36,6 +38,16 @@ class IsNullFact extends MapFact<Var, IsNullValue> {
         this(Collections.emptyMap());
     }
 
+    /**
+     * Creates an IsNullFact backed by {@link PersistentIndexMap},
+     * which makes copy of this fact cheap.
+     *
+     * @param varIndexer indexer of the variables in this fact.
+     */
+    IsNullFact(Indexer<Var> varIndexer) {
+        this(new PersistentIndexMap<>(varIndexer));
+    }
+
     private IsNullFact(Map<Var, IsNullValue> map) {
         super(map);
     }
@@ -37,6 +37,7 @@ import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.type.NullType;
 import pascal.taie.util.collection.Sets;
 
+import java.util.List;
 import java.util.Set;
 
 public class NullPointerDetection extends MethodAnalysis<Set<BugInstance>> {
@@ -50,6 +51,19 @@ public class NullPointerDetection extends MethodAnalysis<Set<BugInstance>> {
     @Override
     public Set<BugInstance> analyze(IR ir) {
         NodeResult<Stmt, IsNullFact> nullValues = ir.getResult(IsNullAnalysis.ID);
+        return analyze(ir, nullValues);
+    }
+
+    /**
+     * Detects null pointer bugs in given IR by running {@code isNull}
+     * on the fly, without storing its result in the IR.
+     * This allows the detection to be fused with other bug detectors.
+     */
+    public Set<BugInstance> analyze(IR ir, IsNullAnalysis isNull) {
+        return analyze(ir, isNull.analyze(ir));
+    }
+
+    private Set<BugInstance> analyze(IR ir, NodeResult<Stmt, IsNullFact> nullValues) {
         Set<BugInstance> bugInstances = Sets.newOrderedSet();
         bugInstances.addAll(findNullDeref(ir, nullValues));
         bugInstances.addAll(findRedundantComparison(ir, nullValues));
@@ -136,6 +150,13 @@ public class NullPointerDetection extends MethodAnalysis<Set<BugInstance>> {
         return redundantComparisons;
     }
 
+    /**
+     * @return all bug types that this detector may report.
+     */
+    public static List<pascal.taie.analysis.bugfinder.BugType> getBugTypes() {
+        return List.of(BugType.values());
+    }
+
     private enum BugType implements pascal.taie.analysis.bugfinder.BugType {
         NP_ALWAYS_NULL,
         NP_MAY_NULL,
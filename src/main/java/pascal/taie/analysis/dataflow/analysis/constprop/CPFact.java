@@ -25,6 +25,8 @@ package pascal.taie.analysis.dataflow.analysis.constprop;
 import pascal.taie.analysis.dataflow.fact.MapFact;
 import pascal.taie.ir.exp.IntLiteral;
 import pascal.taie.ir.exp.Var;
+import pascal.taie.util.Indexer;
+import pascal.taie.util.collection.PersistentIndexMap;
 
 import java.util.Collections;
 import java.util.Map;
@@ -54,6 +56,16 @@ public class CPFact extends MapFact<Var, Value> {
         this(Collections.emptyMap());
     }
 
+    /**
+     * Creates a CPFact backed by {@link PersistentIndexMap},
+     * which makes copy of this fact cheap.
+     *
+     * @param varIndexer indexer of the variables in this fact.
+     */
+    public CPFact(Indexer<Var> varIndexer) {
+        this(new PersistentIndexMap<>(varIndexer));
+    }
+
     private CPFact(Map<Var, Value> map) {
         super(map);
     }
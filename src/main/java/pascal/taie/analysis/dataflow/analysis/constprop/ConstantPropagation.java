@@ -50,7 +50,8 @@ public class ConstantPropagation extends AnalysisDriver<Stmt, CPFact> {
 
     @Override
     protected Analysis makeAnalysis(CFG<Stmt> cfg) {
-        return new Analysis(cfg, getOptions().getBoolean("edge-refine"));
+        return new Analysis(cfg, getOptions().getBoolean("edge-refine"),
+                getOptions().getBoolean("persistent-fact"));
     }
 
     public static class Analysis extends AbstractDataflowAnalysis<Stmt, CPFact> {
@@ -60,9 +61,19 @@ public class ConstantPropagation extends AnalysisDriver<Stmt, CPFact> {
          */
         private final boolean edgeRefine;
 
+        /**
+         * Whether use {@link CPFact}s backed by persistent maps.
+         */
+        private final boolean persistentFact;
+
         public Analysis(CFG<Stmt> cfg, boolean edgeRefine) {
+            this(cfg, edgeRefine, false);
+        }
+
+        public Analysis(CFG<Stmt> cfg, boolean edgeRefine, boolean persistentFact) {
             super(cfg);
             this.edgeRefine = edgeRefine;
+            this.persistentFact = persistentFact;
         }
 
         @Override
@@ -87,7 +98,8 @@ public class ConstantPropagation extends AnalysisDriver<Stmt, CPFact> {
 
         @Override
         public CPFact newInitialFact() {
-            return new CPFact();
+            return persistentFact ?
+                    new CPFact(cfg.getIR().getVarIndexer()) : new CPFact();
         }
 
         @Override
@@ -120,6 +132,17 @@ public class ConstantPropagation extends AnalysisDriver<Stmt, CPFact> {
                 Exp lvalue = ((DefinitionStmt<?, ?>) stmt).getLValue();
                 if (lvalue instanceof Var lhs) {
                     Exp rhs = ((DefinitionStmt<?, ?>) stmt).getRValue();
+                    if (persistentFact) {
+                        // copy in to out as a whole, so that out shares
+                        // the structure with in
+                        CPFact newOut = in.copy();
+                        if (Exps.holdsInt(lhs)) {
+                            newOut.update(lhs, Evaluator.evaluate(rhs, in));
+                        } else {
+                            newOut.remove(lhs);
+                        }
+                        return out.copyFrom(newOut);
+                    }
                     boolean changed = false;
                     for (Var inVar : in.keySet()) {
                         if (!inVar.equals(lhs)) {
@@ -24,6 +24,7 @@ package pascal.taie.analysis.dataflow.fact;
 
 import pascal.taie.util.Copyable;
 import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.PersistentIndexMap;
 
 import java.util.Comparator;
 import java.util.ConcurrentModificationException;
@@ -49,11 +50,16 @@ public class MapFact<K, V> implements Copyable<MapFact<K, V>> {
 
     /**
      * Constructs a new MapFact with the same mappings as specified Map.
+     * If the specified map is a {@link PersistentIndexMap}, then this fact
+     * is also backed by a {@link PersistentIndexMap} which shares the
+     * structure with the specified map, so that copying such facts
+     * takes O(1) time.
      *
      * @param map the map whose mappings are to be placed in this map.
      */
     public MapFact(Map<K, V> map) {
-        this.map = Maps.newHybridMap(map);
+        this.map = map instanceof PersistentIndexMap<K, V> pmap ?
+                pmap.copy() : Maps.newHybridMap(map);
     }
 
     /**
@@ -85,10 +91,16 @@ public class MapFact<K, V> implements Copyable<MapFact<K, V>> {
 
     /**
      * Copies the content from given fact to this fact.
+     * If both facts are backed by {@link PersistentIndexMap}s, then
+     * this fact shares the structure with given fact after copying.
      *
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean copyFrom(MapFact<K, V> fact) {
+        if (map instanceof PersistentIndexMap<K, V> pmap
+                && fact.map instanceof PersistentIndexMap<K, V> other) {
+            return pmap.copyFrom(other);
+        }
         boolean changed = false;
         for (Map.Entry<K, V> entry : fact.map.entrySet()) {
             changed |= update(entry.getKey(), entry.getValue());
@@ -26,32 +26,60 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
 import pascal.taie.config.ConfigException;
-import pascal.taie.ir.proginfo.MemberRef;
 import pascal.taie.ir.proginfo.MethodRef;
 import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.ClassNames;
 import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.classes.Subsignature;
 import pascal.taie.util.AnalysisException;
+import pascal.taie.util.Timer;
 import pascal.taie.util.collection.Maps;
-import pascal.taie.util.collection.TwoKeyMap;
+import pascal.taie.util.collection.Sets;
 
+import javax.annotation.Nullable;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
  * Builds call graph via class hierarchy analysis.
+ * <p>
+ * If more than one thread is given, the builder first traverses the
+ * reachable methods in parallel, which builds the IR of the methods and
+ * resolves the call edges of each method, and then assembles the call
+ * graph sequentially from the resolved edges, without visiting the IR or
+ * resolving callees again. Thus, the resulting call graph (including the
+ * order of its methods and edges) is deterministic and the same as the
+ * one built by a single thread.
+ * <p>
+ * CHA resolves virtual calls on all subclasses of the declaring class of
+ * the method reference. To resolve virtual calls only on the classes
+ * instantiated in the reachable methods, use {@link XTABuilder} with
+ * algorithm {@code rta}, which discovers the instantiated classes on
+ * the fly together with reachable methods.
  */
 class CHABuilder implements CGBuilder<Invoke, JMethod> {
 
     private static final Logger logger = LogManager.getLogger(CHABuilder.class);
 
+    /**
+     * Orders the callees of a call site.
+     */
+    private static final Comparator<JMethod> CALLEE_ORDER =
+            Comparator.comparing(JMethod::getSignature);
+
     private ClassHierarchy hierarchy;
 
     /**
@@ -61,8 +89,9 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
 
     /**
      * Cache resolve results for interface/virtual invocations.
+     * As method references are unique, we use them as keys.
      */
-    private TwoKeyMap<JClass, MemberRef, Set<JMethod>> resolveTable;
+    private Map<MethodRef, List<JMethod>> resolveTable;
 
     /**
      * Whether ignore methods declared in java.lang.Object,
@@ -76,7 +105,27 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
      */
     private final int calleeLimit;
 
+    /**
+     * Number of threads used to traverse reachable methods.
+     */
+    private final int threads;
+
+    /**
+     * Call edges out of each reachable method, which are resolved by
+     * the parallel traversal, or {@code null} if only one thread is used.
+     */
+    @Nullable
+    private Map<JMethod, List<Edge<Invoke, JMethod>>> methodEdges;
+
     CHABuilder(String algorithm) {
+        this(algorithm, 1);
+    }
+
+    /**
+     * @param threads number of threads, 0 means the number of available
+     *                processors.
+     */
+    CHABuilder(String algorithm, int threads) {
         switch (algorithm) {
             case "cha" -> { // default setting, ignore Object's methods
                 ignoreObjectMethods = true;
@@ -95,6 +144,11 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
                 }
             }
         }
+        if (threads < 0) {
+            throw new ConfigException("Invalid number of threads: " + threads);
+        }
+        this.threads = threads == 0
+                ? Runtime.getRuntime().availableProcessors() : threads;
     }
 
     @Override
@@ -117,7 +171,24 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
                 .stream()
                 .map(JMethod::getSubsignature)
                 .collect(Collectors.toUnmodifiableSet());
-        resolveTable = Maps.newTwoKeyMap();
+        resolveTable = threads > 1
+                ? Maps.newConcurrentMap(4096) : Maps.newMap(4096);
+        if (threads > 1) {
+            logger.info("Traversing reachable methods with {} threads", threads);
+            Timer.runAndCount(() -> traverseInParallel(entry),
+                    "Parallel CHA traversal");
+        }
+        DefaultCallGraph callGraph = assembleCallGraph(entry);
+        methodEdges = null;
+        return callGraph;
+    }
+
+    /**
+     * Builds call graph by traversing reachable methods sequentially.
+     * If the call edges have been resolved by the parallel traversal,
+     * this method just adds them to the call graph.
+     */
+    private DefaultCallGraph assembleCallGraph(JMethod entry) {
         DefaultCallGraph callGraph = new DefaultCallGraph();
         callGraph.addEntryMethod(entry);
         Queue<JMethod> workList = new ArrayDeque<>();
@@ -125,49 +196,124 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
         while (!workList.isEmpty()) {
             JMethod method = workList.poll();
             if (callGraph.addReachableMethod(method)) {
-                callGraph.callSitesIn(method).forEach(invoke -> {
-                    Set<JMethod> callees = resolveCalleesOf(invoke);
-                    callees.forEach(callee -> {
-                        if (!callGraph.contains(callee)) {
-                            workList.add(callee);
-                        }
-                        callGraph.addEdge(new Edge<>(
-                                CallGraphs.getCallKind(invoke), invoke, callee));
-                    });
+                List<Edge<Invoke, JMethod>> edges = methodEdges != null
+                        ? methodEdges.get(method) : resolveEdgesOf(method);
+                edges.forEach(edge -> {
+                    JMethod callee = edge.getCallee();
+                    if (!callGraph.contains(callee)) {
+                        workList.add(callee);
+                    }
+                    callGraph.addEdge(edge);
                 });
             }
         }
         return callGraph;
     }
 
+    /**
+     * @return the call edges out of the call sites in given method,
+     * in the order of the call sites and their callees.
+     */
+    private List<Edge<Invoke, JMethod>> resolveEdgesOf(JMethod method) {
+        if (method.isAbstract()) {
+            return List.of();
+        }
+        List<Edge<Invoke, JMethod>> edges = new ArrayList<>();
+        for (Stmt stmt : method.getIR()) {
+            if (stmt instanceof Invoke invoke) {
+                CallKind kind = CallGraphs.getCallKind(invoke);
+                for (JMethod callee : resolveCalleesOf(invoke)) {
+                    edges.add(new Edge<>(kind, invoke, callee));
+                }
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Traverses the methods reachable from given entry in parallel,
+     * which fills {@link #resolveTable} and {@link #methodEdges}
+     * as a side effect.
+     */
+    private void traverseInParallel(JMethod entry) {
+        methodEdges = Maps.newConcurrentMap(4096);
+        Set<JMethod> reachable = Sets.newConcurrentSet();
+        reachable.add(entry);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new Traversal(null, entry, reachable));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Task that resolves the call sites in a method, and forks new tasks
+     * for the newly reachable callees. It completes after all tasks
+     * forked by it complete, without blocking any thread.
+     */
+    private class Traversal extends CountedCompleter<Void> {
+
+        private final JMethod method;
+
+        private final Set<JMethod> reachable;
+
+        private Traversal(@Nullable Traversal parent, JMethod method,
+                          Set<JMethod> reachable) {
+            super(parent);
+            this.method = method;
+            this.reachable = reachable;
+        }
+
+        @Override
+        public void compute() {
+            List<Edge<Invoke, JMethod>> edges = resolveEdgesOf(method);
+            methodEdges.put(method, edges);
+            for (Edge<Invoke, JMethod> edge : edges) {
+                JMethod callee = edge.getCallee();
+                if (reachable.add(callee)) {
+                    addToPendingCount(1);
+                    new Traversal(this, callee, reachable).fork();
+                }
+            }
+            tryComplete();
+        }
+    }
+
     /**
      * Resolves callees of a call site via class hierarchy analysis.
+     * This method can be called concurrently if {@link #resolveTable}
+     * is a concurrent map.
+     *
+     * @return the callees sorted by their signatures.
      */
-    private Set<JMethod> resolveCalleesOf(Invoke callSite) {
+    private List<JMethod> resolveCalleesOf(Invoke callSite) {
         CallKind kind = CallGraphs.getCallKind(callSite);
         return switch (kind) {
             case INTERFACE, VIRTUAL -> {
                 MethodRef methodRef = callSite.getMethodRef();
                 if (ignoreObjectMethods && isObjectMethod(methodRef)) {
-                    yield Set.of();
+                    yield List.of();
                 }
-                JClass cls = methodRef.getDeclaringClass();
-                Set<JMethod> callees = resolveTable.get(cls, methodRef);
+                List<JMethod> callees = resolveTable.get(methodRef);
                 if (callees == null) {
+                    JClass cls = methodRef.getDeclaringClass();
                     callees = hierarchy.getAllSubclassesOf(cls)
                             .stream()
                             .filter(Predicate.not(JClass::isAbstract))
                             .map(c -> hierarchy.dispatch(c, methodRef))
                             .filter(Objects::nonNull) // filter out null callees
-                            .collect(Collectors.toUnmodifiableSet());
-                    resolveTable.put(cls, methodRef, callees);
+                            .distinct()
+                            .sorted(CALLEE_ORDER)
+                            .toList();
+                    resolveTable.put(methodRef, callees);
                 }
-                yield callees.size() <= calleeLimit ? callees : Set.of();
+                yield callees.size() <= calleeLimit ? callees : List.of();
             }
-            case SPECIAL, STATIC -> Set.of(callSite.getMethodRef().resolve());
+            case SPECIAL, STATIC -> List.of(callSite.getMethodRef().resolve());
             case DYNAMIC -> {
                 logger.debug("CHA cannot resolve invokedynamic {}", callSite);
-                yield Set.of();
+                yield List.of();
             }
             default -> throw new AnalysisException(
                     "Failed to resolve call site: " + callSite);
@@ -26,6 +26,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
 import pascal.taie.analysis.ProgramAnalysis;
+import pascal.taie.analysis.misc.BinaryResultWriter;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.config.ConfigException;
@@ -46,11 +47,16 @@ public class CallGraphBuilder extends ProgramAnalysis<CallGraph<Invoke, JMethod>
 
     private static final String CALL_EDGES_FILE = "call-edges.txt";
 
+    private static final String CALL_GRAPH_BINARY_FILE = "call-graph.bin";
+
     private final String algorithm;
 
+    private final int threads;
+
     public CallGraphBuilder(AnalysisConfig config) {
         super(config);
         algorithm = config.getOptions().getString("algorithm");
+        threads = config.getOptions().getInt("threads");
     }
 
     @Override
@@ -59,7 +65,9 @@ public class CallGraphBuilder extends ProgramAnalysis<CallGraph<Invoke, JMethod>
         if (algorithm.equals("pta")) {
             builder = new PTABasedBuilder();
         } else if (algorithm.startsWith("cha")) {
-            builder = new CHABuilder(algorithm);
+            builder = new CHABuilder(algorithm, threads);
+        } else if (algorithm.equals("rta") || algorithm.equals("xta")) {
+            builder = new XTABuilder(algorithm);
         } else {
             throw new ConfigException(
                     "Unknown call graph building algorithm: " + algorithm);
@@ -91,5 +99,9 @@ public class CallGraphBuilder extends ProgramAnalysis<CallGraph<Invoke, JMethod>
             CallGraphs.dumpCallEdges(callGraph,
                     new File(outputDir, CALL_EDGES_FILE));
         }
+        if (options.getBoolean("dump-binary")) {
+            BinaryResultWriter.write(callGraph, null,
+                    new File(outputDir, CALL_GRAPH_BINARY_FILE));
+        }
     }
 }
@@ -0,0 +1,445 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.ir.exp.ReferenceLiteral;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.FieldStmt;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.ClassNames;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ArrayType;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.ReferenceType;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Builds call graph via Rapid Type Analysis (RTA) or XTA.
+ * <p>
+ * Both analyses track the instantiated classes, i.e., the classes of the
+ * objects created by {@link New} statements and reference literals in
+ * reachable methods, and resolve the callees of virtual calls only on the
+ * instantiated classes. RTA keeps one set of instantiated classes for the
+ * whole program, while XTA keeps a set for each method and each field
+ * (and one set for all array elements), and propagates the classes among
+ * the sets along calls, returns, exceptions and field/array accesses,
+ * filtered by the declared types. Thus, RTA is implemented as the special case of XTA
+ * where all methods and fields share the same set.
+ * <p>
+ * Different from {@link CHABuilder}, which resolves virtual calls on all
+ * subclasses of the declaring class regardless of instantiation, the
+ * instantiated classes are discovered on the fly together with the
+ * reachable methods, thus a class instantiated only in a method that is
+ * unreachable in RTA does not introduce callees.
+ * <p>
+ * The call sites are indexed by the declaring classes of their method
+ * references, so that when a class is instantiated, only the call sites
+ * that may be dispatched on the class are resolved (incrementally).
+ * Like other call graph builders, these analyses do not track the objects
+ * created by native code and reflection.
+ */
+class XTABuilder implements CGBuilder<Invoke, JMethod> {
+
+    private static final Logger logger = LogManager.getLogger(XTABuilder.class);
+
+    /**
+     * Whether run RTA (otherwise XTA).
+     */
+    private final boolean isRTA;
+
+    private ClassHierarchy hierarchy;
+
+    private JClass object;
+
+    /**
+     * Type of java.lang.Throwable, which filters the classes flowing
+     * from callees to callers as exceptions.
+     */
+    private List<Type> throwable;
+
+    private DefaultCallGraph callGraph;
+
+    /**
+     * The set shared by all methods and fields for RTA.
+     */
+    private TypeSet globalSet;
+
+    private Map<JMethod, TypeSet> methodSets;
+
+    private Map<JField, TypeSet> fieldSets;
+
+    private TypeSet arraySet;
+
+    /**
+     * Cache of {@link #getSuperTypesOf(JClass)}.
+     */
+    private Map<JClass, Set<JClass>> superTypes;
+
+    private Queue<JMethod> methodWorkList;
+
+    private Queue<TypeEntry> typeWorkList;
+
+    XTABuilder(String algorithm) {
+        isRTA = algorithm.equals("rta");
+    }
+
+    @Override
+    public CallGraph<Invoke, JMethod> build() {
+        return buildCallGraph(World.get().getMainMethod());
+    }
+
+    private CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
+        logger.info("Building call graph by {}", isRTA ? "RTA" : "XTA");
+        hierarchy = World.get().getClassHierarchy();
+        object = Objects.requireNonNull(hierarchy.getJREClass(ClassNames.OBJECT));
+        throwable = List.of(Objects.requireNonNull(
+                hierarchy.getJREClass(ClassNames.THROWABLE)).getType());
+        callGraph = new DefaultCallGraph();
+        globalSet = new TypeSet();
+        methodSets = Maps.newMap();
+        fieldSets = Maps.newMap();
+        arraySet = isRTA ? globalSet : new TypeSet();
+        superTypes = Maps.newMap();
+        methodWorkList = new ArrayDeque<>();
+        typeWorkList = new ArrayDeque<>();
+        callGraph.addEntryMethod(entry);
+        addReachableMethod(entry);
+        while (!methodWorkList.isEmpty() || !typeWorkList.isEmpty()) {
+            if (!methodWorkList.isEmpty()) {
+                processNewMethod(methodWorkList.poll());
+            } else {
+                TypeEntry typeEntry = typeWorkList.poll();
+                propagate(typeEntry.set(), typeEntry.type());
+            }
+        }
+        logStatistics();
+        return callGraph;
+    }
+
+    private void addReachableMethod(JMethod method) {
+        if (callGraph.addReachableMethod(method)) {
+            methodWorkList.add(method);
+        }
+    }
+
+    /**
+     * Processes the statements in a new reachable method.
+     */
+    private void processNewMethod(JMethod method) {
+        if (method.isAbstract()) {
+            return;
+        }
+        TypeSet set = getTypeSetOf(method);
+        for (Stmt stmt : method.getIR()) {
+            if (stmt instanceof New newStmt) {
+                addType(set, newStmt.getRValue().getType());
+            } else if (stmt instanceof AssignLiteral assign
+                    && assign.getRValue() instanceof ReferenceLiteral literal) {
+                addType(set, literal.getType());
+            } else if (stmt instanceof StoreField store) {
+                JField field = resolveField(store);
+                if (field != null) {
+                    addFlow(set, getTypeSetOf(field), List.of(field.getType()));
+                }
+            } else if (stmt instanceof LoadField load) {
+                JField field = resolveField(load);
+                if (field != null) {
+                    addFlow(getTypeSetOf(field), set, null);
+                }
+            } else if (stmt instanceof StoreArray store) {
+                if (store.getRValue().getType() instanceof ReferenceType) {
+                    addFlow(set, arraySet, null);
+                }
+            } else if (stmt instanceof LoadArray load) {
+                if (load.getLValue().getType() instanceof ReferenceType) {
+                    addFlow(arraySet, set, null);
+                }
+            } else if (stmt instanceof Invoke invoke) {
+                processInvoke(set, invoke);
+            }
+        }
+    }
+
+    /**
+     * @return the field accessed by given statement if it is of reference
+     * type and can be resolved, otherwise null.
+     */
+    @Nullable
+    private static JField resolveField(FieldStmt stmt) {
+        if (stmt.getFieldRef().getType() instanceof ReferenceType) {
+            return stmt.getFieldRef().resolveNullable();
+        }
+        return null;
+    }
+
+    private void processInvoke(TypeSet set, Invoke invoke) {
+        MethodRef methodRef = invoke.getMethodRef();
+        switch (CallGraphs.getCallKind(invoke)) {
+            case INTERFACE, VIRTUAL -> {
+                JClass cls = methodRef.getDeclaringClass();
+                set.callSites.put(cls, invoke);
+                // resolve the call site on the classes that are already
+                // in the set, and the classes added later will be handled
+                // by propagate()
+                for (JClass type : getInstantiatedSubclasses(set, cls)) {
+                    resolveCallSite(invoke, type);
+                }
+            }
+            case SPECIAL, STATIC -> {
+                JMethod callee = methodRef.resolveNullable();
+                if (callee != null) {
+                    addCallEdge(invoke, callee);
+                }
+            }
+            case DYNAMIC -> logger.debug("{} cannot resolve invokedynamic {}",
+                    isRTA ? "RTA" : "XTA", invoke);
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * @return the classes in given set which are subclasses of {@code cls}.
+     */
+    private List<JClass> getInstantiatedSubclasses(TypeSet set, JClass cls) {
+        List<JClass> result = new ArrayList<>();
+        Collection<JClass> subclasses = hierarchy.getAllSubclassesOf(cls);
+        // iterate the smaller collection
+        if (subclasses.size() <= set.types.size()) {
+            for (JClass subclass : subclasses) {
+                if (set.types.contains(subclass)) {
+                    result.add(subclass);
+                }
+            }
+        } else {
+            for (JClass type : set.types) {
+                if (hierarchy.isSubclass(cls, type)) {
+                    result.add(type);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void resolveCallSite(Invoke invoke, JClass type) {
+        JMethod callee = hierarchy.dispatch(type, invoke.getMethodRef());
+        if (callee != null) {
+            addCallEdge(invoke, callee);
+        }
+    }
+
+    private void addCallEdge(Invoke invoke, JMethod callee) {
+        addReachableMethod(callee);
+        if (callGraph.addEdge(new Edge<>(
+                CallGraphs.getCallKind(invoke), invoke, callee))) {
+            TypeSet callerSet = getTypeSetOf(invoke.getContainer());
+            TypeSet calleeSet = getTypeSetOf(callee);
+            // arguments (including the receiver object)
+            List<Type> paramTypes = new ArrayList<>();
+            if (!callee.isStatic()) {
+                paramTypes.add(callee.getDeclaringClass().getType());
+            }
+            callee.getParamTypes()
+                    .stream()
+                    .filter(t -> t instanceof ReferenceType)
+                    .forEach(paramTypes::add);
+            if (!paramTypes.isEmpty()) {
+                addFlow(callerSet, calleeSet, paramTypes);
+            }
+            // return value
+            if (invoke.getLValue() != null
+                    && callee.getReturnType() instanceof ReferenceType) {
+                addFlow(calleeSet, callerSet, List.of(callee.getReturnType()));
+            }
+            // exceptions thrown by the callee (and its callees), which
+            // may be caught and used by the caller
+            addFlow(calleeSet, callerSet, throwable);
+        }
+    }
+
+    private TypeSet getTypeSetOf(JMethod method) {
+        return isRTA ? globalSet
+                : methodSets.computeIfAbsent(method, __ -> new TypeSet());
+    }
+
+    private TypeSet getTypeSetOf(JField field) {
+        return isRTA ? globalSet
+                : fieldSets.computeIfAbsent(field, __ -> new TypeSet());
+    }
+
+    /**
+     * Adds a flow from {@code source} to {@code target}, which only allows
+     * the classes that are subclasses of the given types to pass.
+     *
+     * @param filter the allowed types, or {@code null} if all classes are allowed.
+     */
+    private void addFlow(TypeSet source, TypeSet target,
+                         @Nullable List<Type> filter) {
+        if (source != target) {
+            Flow flow = new Flow(target, filter);
+            if (source.flows.add(flow)) {
+                for (JClass type : List.copyOf(source.types)) {
+                    if (flow.allows(type)) {
+                        addType(target, type);
+                    }
+                }
+            }
+        }
+    }
+
+    private void addType(TypeSet set, Type type) {
+        if (type instanceof ClassType classType) {
+            addType(set, classType.getJClass());
+        } else if (type instanceof ArrayType) {
+            // methods on arrays are dispatched to java.lang.Object
+            addType(set, object);
+        }
+    }
+
+    private void addType(TypeSet set, JClass type) {
+        if (set.types.add(type)) {
+            typeWorkList.add(new TypeEntry(set, type));
+        }
+    }
+
+    /**
+     * Propagates a new class in given set to the call sites
+     * and the successors of the set.
+     */
+    private void propagate(TypeSet set, JClass type) {
+        for (JClass superType : getSuperTypesOf(type)) {
+            for (Invoke invoke : set.callSites.get(superType)) {
+                resolveCallSite(invoke, type);
+            }
+        }
+        for (Flow flow : List.copyOf(set.flows)) {
+            if (flow.allows(type)) {
+                addType(flow.target(), type);
+            }
+        }
+    }
+
+    /**
+     * @return given class, its all superclasses and superinterfaces.
+     */
+    private Set<JClass> getSuperTypesOf(JClass jclass) {
+        Set<JClass> result = superTypes.get(jclass);
+        if (result == null) {
+            result = Sets.newHybridSet();
+            result.add(jclass);
+            if (jclass.getSuperClass() != null) {
+                result.addAll(getSuperTypesOf(jclass.getSuperClass()));
+            }
+            for (JClass iface : jclass.getInterfaces()) {
+                result.addAll(getSuperTypesOf(iface));
+            }
+            superTypes.put(jclass, result);
+        }
+        return result;
+    }
+
+    private void logStatistics() {
+        Set<JClass> instantiated = isRTA ? globalSet.types : Sets.newSet();
+        if (!isRTA) {
+            methodSets.values().forEach(s -> instantiated.addAll(s.types));
+        }
+        logger.info("{} instantiated classes", instantiated.size());
+        if (!isRTA) {
+            logger.info("{} method type sets, {} field type sets",
+                    methodSets.size(), fieldSets.size());
+        }
+    }
+
+    /**
+     * Set of instantiated classes that flow to a method or a field.
+     */
+    private static class TypeSet {
+
+        private final Set<JClass> types = Sets.newHybridSet();
+
+        /**
+         * Virtual call sites in the methods of this set, indexed by
+         * the declaring classes of their method references.
+         */
+        private final MultiMap<JClass, Invoke> callSites = Maps.newMultiMap();
+
+        private final Set<Flow> flows = Sets.newHybridSet();
+    }
+
+    /**
+     * Flow of classes to {@code target}.
+     *
+     * @param filter the types that are allowed to pass, or {@code null}
+     *               if all classes are allowed.
+     */
+    private record Flow(TypeSet target, @Nullable List<Type> filter) {
+
+        boolean allows(JClass type) {
+            if (filter == null) {
+                return true;
+            }
+            ClassHierarchy hierarchy = World.get().getClassHierarchy();
+            for (Type t : filter) {
+                if (t instanceof ClassType classType) {
+                    if (hierarchy.isSubclass(classType.getJClass(), type)) {
+                        return true;
+                    }
+                } else if (t instanceof ArrayType
+                        && type.getName().equals(ClassNames.OBJECT)) {
+                    // arrays are represented by java.lang.Object
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private record TypeEntry(TypeSet set, JClass type) {
+    }
+}
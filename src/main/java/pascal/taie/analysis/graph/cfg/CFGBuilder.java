@@ -42,6 +42,7 @@ import pascal.taie.ir.stmt.SwitchStmt;
 import pascal.taie.ir.stmt.Throw;
 import pascal.taie.language.type.ClassType;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -60,6 +61,18 @@ public class CFGBuilder extends MethodAnalysis<CFG<Stmt>> {
 
     private final File dumpDir;
 
+    /**
+     * Whether store CFGs in compact form.
+     */
+    private final boolean isCompact;
+
+    /**
+     * If this field is not null, the built CFGs are kept in this bounded
+     * cache, and the evicted ones will be rebuilt on demand.
+     */
+    @Nullable
+    private final CFGCache cache;
+
     public CFGBuilder(AnalysisConfig config) {
         super(config);
         noException = getOptions().getString("exception") == null;
@@ -73,21 +86,44 @@ public class CFGBuilder extends MethodAnalysis<CFG<Stmt>> {
         } else {
             dumpDir = null;
         }
+        isCompact = getOptions().getBoolean("compact");
+        int cacheSize = getOptions().getInt("cache-size");
+        if (cacheSize > 0) {
+            cache = new CFGCache(cacheSize);
+            logger.info("Keeping at most {} CFGs in memory", cacheSize);
+        } else {
+            cache = null;
+        }
     }
 
     @Override
     public CFG<Stmt> analyze(IR ir) {
-        StmtCFG cfg = new StmtCFG(ir);
-        cfg.setEntry(new Nop());
-        cfg.setExit(new Nop());
-        buildNormalEdges(cfg);
-        if (!noException) {
-            buildExceptionalEdges(cfg);
-        }
+        ThrowResult throwResult = noException ? null :
+                ir.getResult(ThrowAnalysis.ID);
+        CFG<Stmt> cfg = build(ir, new Nop(), new Nop(), throwResult);
         if (isDump) {
             CFGDumper.dumpDotFile(cfg, dumpDir);
         }
-        return cfg;
+        return cache != null ?
+                new CachedCFG(this, cache, cfg, throwResult) : cfg;
+    }
+
+    /**
+     * Builds CFG for given IR.
+     *
+     * @param throwResult the result of throw analysis, or null if
+     *                    this builder ignores exceptions.
+     */
+    CFG<Stmt> build(IR ir, Stmt entry, Stmt exit,
+                    @Nullable ThrowResult throwResult) {
+        StmtCFG cfg = new StmtCFG(ir);
+        cfg.setEntry(entry);
+        cfg.setExit(exit);
+        buildNormalEdges(cfg);
+        if (throwResult != null) {
+            buildExceptionalEdges(cfg, throwResult);
+        }
+        return isCompact ? new CompactStmtCFG(cfg) : cfg;
     }
 
     private static void buildNormalEdges(StmtCFG cfg) {
@@ -144,12 +180,13 @@ public class CFGBuilder extends MethodAnalysis<CFG<Stmt>> {
      * since if {@code o.foo();} at line 3 throws a NPE, the method
      * invocation is not executed at all.
      *
-     * @param cfg the basic control-flow graph which the exceptional edges
-     *            are added to.
+     * @param cfg         the basic control-flow graph which the exceptional
+     *                    edges are added to.
+     * @param throwResult the result of throw analysis for the method of
+     *                    {@code cfg}.
      */
-    private static void buildExceptionalEdges(StmtCFG cfg) {
+    private static void buildExceptionalEdges(StmtCFG cfg, ThrowResult throwResult) {
         IR ir = cfg.getIR();
-        ThrowResult throwResult = ir.getResult(ThrowAnalysis.ID);
         CatchResult catchResult = CatchAnalysis.analyze(ir, throwResult);
         ir.forEach(stmt -> {
             // build edges for implicit exceptions
@@ -0,0 +1,59 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of CFGs. When the number of cached CFGs exceeds
+ * the capacity, the least-recently-used one is evicted, and it will be
+ * rebuilt by {@link CachedCFG} when it is accessed again.
+ * <p>
+ * This cache is shared by all methods, and may be accessed by multiple
+ * threads (e.g., method analyses run in parallel), thus it is synchronized.
+ */
+class CFGCache {
+
+    private final Map<IR, CFG<Stmt>> cfgs;
+
+    CFGCache(int capacity) {
+        cfgs = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<IR, CFG<Stmt>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    synchronized CFG<Stmt> get(IR ir) {
+        return cfgs.get(ir);
+    }
+
+    synchronized void put(IR ir, CFG<Stmt> cfg) {
+        cfgs.put(ir, cfg);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.analysis.exception.ThrowResult;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import javax.annotation.Nullable;
+import java.util.Set;
+
+/**
+ * CFG whose nodes and edges are obtained from a {@link CFGCache}.
+ * If the underlying CFG has been evicted from the cache, it is rebuilt
+ * on demand by {@link CFGBuilder}.
+ * <p>
+ * This class only keeps the information that is necessary to rebuild
+ * the CFG, i.e., the entry and exit nodes (which must be the same objects
+ * across rebuilds, since clients may use them as keys) and the throw
+ * result (which might have been cleared from the IR when the CFG is
+ * rebuilt).
+ */
+class CachedCFG implements CFG<Stmt> {
+
+    private final CFGBuilder builder;
+
+    private final CFGCache cache;
+
+    private final IR ir;
+
+    private final Stmt entry;
+
+    private final Stmt exit;
+
+    @Nullable
+    private final ThrowResult throwResult;
+
+    CachedCFG(CFGBuilder builder, CFGCache cache, CFG<Stmt> cfg,
+              @Nullable ThrowResult throwResult) {
+        this.builder = builder;
+        this.cache = cache;
+        this.ir = cfg.getIR();
+        this.entry = cfg.getEntry();
+        this.exit = cfg.getExit();
+        this.throwResult = throwResult;
+        cache.put(ir, cfg);
+    }
+
+    private CFG<Stmt> getCFG() {
+        CFG<Stmt> cfg = cache.get(ir);
+        if (cfg == null) {
+            cfg = builder.build(ir, entry, exit, throwResult);
+            cache.put(ir, cfg);
+        }
+        return cfg;
+    }
+
+    @Override
+    public IR getIR() {
+        return ir;
+    }
+
+    @Override
+    public JMethod getMethod() {
+        return ir.getMethod();
+    }
+
+    @Override
+    public Stmt getEntry() {
+        return entry;
+    }
+
+    @Override
+    public Stmt getExit() {
+        return exit;
+    }
+
+    @Override
+    public boolean isEntry(Stmt node) {
+        return node == entry;
+    }
+
+    @Override
+    public boolean isExit(Stmt node) {
+        return node == exit;
+    }
+
+    @Override
+    public int getIndex(Stmt node) {
+        return getCFG().getIndex(node);
+    }
+
+    @Override
+    public Stmt getNode(int index) {
+        return getCFG().getNode(index);
+    }
+
+    @Override
+    public boolean hasNode(Stmt node) {
+        return getCFG().hasNode(node);
+    }
+
+    @Override
+    public boolean hasEdge(Stmt source, Stmt target) {
+        return getCFG().hasEdge(source, target);
+    }
+
+    @Override
+    public Set<Stmt> getPredsOf(Stmt node) {
+        return getCFG().getPredsOf(node);
+    }
+
+    @Override
+    public Set<Stmt> getSuccsOf(Stmt node) {
+        return getCFG().getSuccsOf(node);
+    }
+
+    @Override
+    public Set<CFGEdge<Stmt>> getInEdgesOf(Stmt node) {
+        return getCFG().getInEdgesOf(node);
+    }
+
+    @Override
+    public int getInDegreeOf(Stmt node) {
+        return getCFG().getInDegreeOf(node);
+    }
+
+    @Override
+    public Set<CFGEdge<Stmt>> getOutEdgesOf(Stmt node) {
+        return getCFG().getOutEdgesOf(node);
+    }
+
+    @Override
+    public int getOutDegreeOf(Stmt node) {
+        return getCFG().getOutDegreeOf(node);
+    }
+
+    @Override
+    public Set<Stmt> getNodes() {
+        return getCFG().getNodes();
+    }
+
+    @Override
+    public int getNumberOfNodes() {
+        return getCFG().getNumberOfNodes();
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.util.collection.ArraySet;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Compact and immutable CFG with {@code Stmt} as nodes.
+ * <p>
+ * This class uses the same node-index mapping as {@link StmtCFG}, and
+ * stores the edges in compressed sparse row (CSR) format, i.e.,
+ * the out-edges of node {@code i} are {@code [outStarts[i], outStarts[i+1])}
+ * and each edge is represented by its target index and kind (the source
+ * index of an edge is found by binary search on {@code outStarts}).
+ * The in-edges are stored as edge ids in the same format. Edge objects are not stored
+ * in this CFG, instead, they are created on demand when clients call
+ * {@link #getInEdgesOf(Stmt)} or {@link #getOutEdgesOf(Stmt)}. Since
+ * {@link CFGEdge} compares edges by their contents, the created edges
+ * are equal to the edges of the CFG from which this CFG is compacted.
+ * <p>
+ * This CFG is preferable when a large number of CFGs need to be kept
+ * in memory, e.g., for {@code scope: ALL}, and clients mostly traverse
+ * nodes via {@link #getSuccsOf(Stmt)} and {@link #getPredsOf(Stmt)}.
+ */
+class CompactStmtCFG implements CFG<Stmt> {
+
+    private static final CFGEdge.Kind[] KINDS = CFGEdge.Kind.values();
+
+    private final IR ir;
+
+    private final Stmt entry;
+
+    private final Stmt exit;
+
+    /**
+     * Out-edges of node i are edge ids in [outStarts[i], outStarts[i+1]).
+     */
+    private final int[] outStarts;
+
+    /**
+     * Target index of each edge.
+     */
+    private final int[] targets;
+
+    /**
+     * Ordinal of {@link CFGEdge.Kind} of each edge.
+     */
+    private final byte[] kinds;
+
+    /**
+     * In-edges of node i are ids stored in inEdges[inStarts[i], inStarts[i+1]).
+     */
+    private final int[] inStarts;
+
+    private final int[] inEdges;
+
+    /**
+     * Case values of switch-case edges, null if this CFG has no such edges.
+     */
+    private final int[] caseValues;
+
+    /**
+     * Exceptions of exceptional edges, null if this CFG has no such edges.
+     */
+    private final Set<ClassType>[] exceptions;
+
+    /**
+     * Compacts the given CFG.
+     */
+    @SuppressWarnings("unchecked")
+    CompactStmtCFG(CFG<Stmt> cfg) {
+        ir = cfg.getIR();
+        entry = cfg.getEntry();
+        exit = cfg.getExit();
+        int nNodes = ir.getStmts().size() + 2;
+        // collect out-edges in the order of source indexes
+        outStarts = new int[nNodes + 1];
+        int nEdges = 0;
+        for (int i = 0; i < nNodes; ++i) {
+            outStarts[i] = nEdges;
+            nEdges += cfg.getOutDegreeOf(cfg.getNode(i));
+        }
+        outStarts[nNodes] = nEdges;
+        targets = new int[nEdges];
+        kinds = new byte[nEdges];
+        int[] cases = null;
+        Set<ClassType>[] excs = null;
+        int[] inDegrees = new int[nNodes];
+        int e = 0;
+        for (int i = 0; i < nNodes; ++i) {
+            for (CFGEdge<Stmt> edge : cfg.getOutEdgesOf(cfg.getNode(i))) {
+                int target = cfg.getIndex(edge.target());
+                targets[e] = target;
+                kinds[e] = (byte) edge.getKind().ordinal();
+                if (edge.isSwitchCase()) {
+                    if (cases == null) {
+                        cases = new int[nEdges];
+                    }
+                    cases[e] = edge.getCaseValue();
+                } else if (edge.isExceptional()) {
+                    if (excs == null) {
+                        excs = new Set[nEdges];
+                    }
+                    excs[e] = Set.copyOf(edge.getExceptions());
+                }
+                ++inDegrees[target];
+                ++e;
+            }
+        }
+        caseValues = cases;
+        exceptions = excs;
+        // build in-edges by bucketing edge ids by their targets
+        inStarts = new int[nNodes + 1];
+        for (int i = 0; i < nNodes; ++i) {
+            inStarts[i + 1] = inStarts[i] + inDegrees[i];
+        }
+        inEdges = new int[nEdges];
+        int[] next = Arrays.copyOf(inStarts, nNodes);
+        for (e = 0; e < nEdges; ++e) {
+            inEdges[next[targets[e]]++] = e;
+        }
+    }
+
+    @Override
+    public IR getIR() {
+        return ir;
+    }
+
+    @Override
+    public JMethod getMethod() {
+        return ir.getMethod();
+    }
+
+    @Override
+    public Stmt getEntry() {
+        return entry;
+    }
+
+    @Override
+    public Stmt getExit() {
+        return exit;
+    }
+
+    @Override
+    public boolean isEntry(Stmt node) {
+        return node == entry;
+    }
+
+    @Override
+    public boolean isExit(Stmt node) {
+        return node == exit;
+    }
+
+    @Override
+    public int getIndex(Stmt stmt) {
+        if (isEntry(stmt)) {
+            return 0;
+        } else if (isExit(stmt)) {
+            return ir.getStmts().size() + 1;
+        } else {
+            return stmt.getIndex() + 1;
+        }
+    }
+
+    @Override
+    public Stmt getNode(int index) {
+        if (index == 0) {
+            return entry;
+        } else if (index == ir.getStmts().size() + 1) {
+            return exit;
+        } else {
+            return ir.getStmt(index - 1);
+        }
+    }
+
+    @Override
+    public boolean hasNode(Stmt node) {
+        if (isEntry(node) || isExit(node)) {
+            return true;
+        }
+        int index = node.getIndex();
+        return 0 <= index && index < ir.getStmts().size()
+                && ir.getStmt(index) == node;
+    }
+
+    @Override
+    public boolean hasEdge(Stmt source, Stmt target) {
+        int s = getIndex(source), t = getIndex(target);
+        for (int e = outStarts[s]; e < outStarts[s + 1]; ++e) {
+            if (targets[e] == t) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Set<Stmt> getPredsOf(Stmt node) {
+        int t = getIndex(node);
+        Set<Stmt> preds = Sets.newHybridSet();
+        for (int i = inStarts[t]; i < inStarts[t + 1]; ++i) {
+            preds.add(getNode(getSourceOf(inEdges[i])));
+        }
+        return Collections.unmodifiableSet(preds);
+    }
+
+    @Override
+    public Set<Stmt> getSuccsOf(Stmt node) {
+        int s = getIndex(node);
+        Set<Stmt> succs = Sets.newHybridSet();
+        for (int e = outStarts[s]; e < outStarts[s + 1]; ++e) {
+            succs.add(getNode(targets[e]));
+        }
+        return Collections.unmodifiableSet(succs);
+    }
+
+    @Override
+    public Set<CFGEdge<Stmt>> getInEdgesOf(Stmt node) {
+        int t = getIndex(node);
+        ArrayList<CFGEdge<Stmt>> edges = new ArrayList<>(
+                inStarts[t + 1] - inStarts[t]);
+        for (int i = inStarts[t]; i < inStarts[t + 1]; ++i) {
+            int e = inEdges[i];
+            edges.add(getEdge(getSourceOf(e), e));
+        }
+        return Collections.unmodifiableSet(new ArraySet<>(edges, true));
+    }
+
+    @Override
+    public int getInDegreeOf(Stmt node) {
+        int t = getIndex(node);
+        return inStarts[t + 1] - inStarts[t];
+    }
+
+    @Override
+    public Set<CFGEdge<Stmt>> getOutEdgesOf(Stmt node) {
+        int s = getIndex(node);
+        ArrayList<CFGEdge<Stmt>> edges = new ArrayList<>(
+                outStarts[s + 1] - outStarts[s]);
+        for (int e = outStarts[s]; e < outStarts[s + 1]; ++e) {
+            edges.add(getEdge(s, e));
+        }
+        return Collections.unmodifiableSet(new ArraySet<>(edges, true));
+    }
+
+    @Override
+    public int getOutDegreeOf(Stmt node) {
+        int s = getIndex(node);
+        return outStarts[s + 1] - outStarts[s];
+    }
+
+    /**
+     * @return the source index of the edge of given id, i.e., the last
+     * node i such that {@code outStarts[i] <= e}.
+     */
+    private int getSourceOf(int e) {
+        int low = 0, high = outStarts.length - 2;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (outStarts[mid] <= e) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Materializes the edge of given id, whose source index is {@code s}.
+     */
+    private CFGEdge<Stmt> getEdge(int s, int e) {
+        CFGEdge.Kind kind = KINDS[kinds[e]];
+        Stmt source = getNode(s);
+        Stmt target = getNode(targets[e]);
+        return switch (kind) {
+            case SWITCH_CASE -> new SwitchCaseEdge<>(source, target, caseValues[e]);
+            case CAUGHT_EXCEPTION, UNCAUGHT_EXCEPTION ->
+                    new ExceptionalEdge<>(kind, source, target, exceptions[e]);
+            default -> new CFGEdge<>(kind, source, target);
+        };
+    }
+
+    @Override
+    public Set<Stmt> getNodes() {
+        // keep nodes sorted to ease debugging
+        int nNodes = ir.getStmts().size() + 2;
+        ArrayList<Stmt> nodes = new ArrayList<>(nNodes);
+        for (int i = 0; i < nNodes; ++i) {
+            nodes.add(getNode(i));
+        }
+        return Collections.unmodifiableSet(new ArraySet<>(nodes, true));
+    }
+
+    @Override
+    public int getNumberOfNodes() {
+        return ir.getStmts().size() + 2;
+    }
+}
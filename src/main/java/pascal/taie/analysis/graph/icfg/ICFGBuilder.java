@@ -49,15 +49,20 @@ public class ICFGBuilder extends ProgramAnalysis<ICFG<JMethod, Stmt>> {
 
     private final boolean isDump;
 
+    private final boolean isLazy;
+
     public ICFGBuilder(AnalysisConfig config) {
         super(config);
         isDump = getOptions().getBoolean("dump");
+        isLazy = getOptions().getBoolean("lazy");
     }
 
     @Override
     public ICFG<JMethod, Stmt> analyze() {
         CallGraph<Stmt, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
-        ICFG<JMethod, Stmt> icfg = new DefaultICFG(callGraph);
+        ICFG<JMethod, Stmt> icfg = isLazy ?
+                new LazyICFG(callGraph, getOptions().getInt("cache-size")) :
+                new DefaultICFG(callGraph);
         if (isDump) {
             dumpICFG(icfg);
         }
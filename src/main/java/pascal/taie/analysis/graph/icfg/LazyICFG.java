@@ -0,0 +1,468 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.icfg;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGEdge;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.Views;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static pascal.taie.analysis.graph.icfg.ICFGBuilder.getCFGOf;
+
+/**
+ * ICFG that is built on demand.
+ * <p>
+ * Different from {@link DefaultICFG} which builds all edges of all
+ * reachable methods up front, this ICFG creates the edges of a node
+ * (including the inter-procedural call and return edges) when they
+ * are first queried, and organizes the created edges by methods
+ * (i.e., method fragments). If {@code maxFragments} is positive,
+ * at most {@code maxFragments} method fragments are kept in memory,
+ * and the edges of the evicted (i.e., least-recently-used) fragments
+ * will be re-created when they are queried again.
+ * <p>
+ * To find the containing method of a node, this ICFG keeps an index from
+ * nodes to their methods, which is not affected by eviction. The nodes of
+ * a method are indexed when its fragment is first created, and when
+ * a node which is not indexed is queried, the statements of all
+ * reachable methods are indexed at once. Thus, the entry and exit nodes
+ * passed to this ICFG should be obtained from this ICFG, e.g., via
+ * {@link #getEntryOf(JMethod)}, {@link #getSuccsOf(Stmt)},
+ * or {@link #getNodes()}.
+ */
+class LazyICFG extends AbstractICFG<JMethod, Stmt> {
+
+    private static final Logger logger = LogManager.getLogger(LazyICFG.class);
+
+    /**
+     * Map from nodes to their containing methods. The nodes are never
+     * removed from this map, even if their fragments are evicted.
+     */
+    private final Map<Stmt, JMethod> stmtToMethod = Maps.newConcurrentMap();
+
+    /**
+     * Whether the statements of all reachable methods have been
+     * added to {@link #stmtToMethod}.
+     */
+    private boolean isFullyIndexed = false;
+
+    /**
+     * Method fragments which are currently kept in memory.
+     */
+    private final Map<JMethod, Fragment> fragments;
+
+    LazyICFG(CallGraph<Stmt, JMethod> callGraph, int maxFragments) {
+        super(callGraph);
+        fragments = maxFragments > 0 ?
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<JMethod, Fragment> eldest) {
+                        if (size() > maxFragments) {
+                            // evict the least-recently-used fragment
+                            // whose edges are not being built
+                            Iterator<Fragment> iter = values().iterator();
+                            while (iter.hasNext()) {
+                                if (!iter.next().isPinned()) {
+                                    iter.remove();
+                                    break;
+                                }
+                            }
+                        }
+                        return false;
+                    }
+                } :
+                Maps.newMap();
+    }
+
+    @Override
+    public synchronized Set<ICFGEdge<Stmt>> getInEdgesOf(Stmt stmt) {
+        Fragment fragment = getFragment(getContainingMethodOfNode(stmt));
+        return fragment == null ? Set.of() : fragment.getInEdgesOf(stmt);
+    }
+
+    @Override
+    public synchronized Set<ICFGEdge<Stmt>> getOutEdgesOf(Stmt stmt) {
+        Fragment fragment = getFragment(getContainingMethodOfNode(stmt));
+        return fragment == null ? Set.of() : fragment.getOutEdgesOf(stmt);
+    }
+
+    @Override
+    public Stmt getEntryOf(JMethod method) {
+        CFG<Stmt> cfg = getCFGOf(method);
+        register(method, cfg);
+        return cfg.getEntry();
+    }
+
+    @Override
+    public Stmt getExitOf(JMethod method) {
+        CFG<Stmt> cfg = getCFGOf(method);
+        register(method, cfg);
+        return cfg.getExit();
+    }
+
+    @Override
+    public Set<Stmt> getReturnSitesOf(Stmt callSite) {
+        assert isCallSite(callSite);
+        return getCFGOf(getContainingMethodOf(callSite)).getSuccsOf(callSite);
+    }
+
+    @Override
+    public JMethod getContainingMethodOf(Stmt stmt) {
+        JMethod method = stmtToMethod.get(stmt);
+        if (method == null) {
+            // call sites may be obtained via the call graph,
+            // e.g., getCallersOf(), and other nodes may be obtained
+            // without creating fragments, e.g., via getNodes()
+            method = stmt instanceof Invoke invoke ?
+                    invoke.getContainer() : findContainingMethodOf(stmt);
+            if (method != null) {
+                register(method, getCFGOf(method));
+            }
+        }
+        return method;
+    }
+
+    /**
+     * Indexes the statements of all reachable methods (only once),
+     * and looks up the containing method of given statement.
+     *
+     * @return the method whose IR contains given statement,
+     * or {@code null} if no reachable method contains it.
+     */
+    @Nullable
+    private synchronized JMethod findContainingMethodOf(Stmt stmt) {
+        if (!isFullyIndexed) {
+            callGraph.reachableMethods()
+                    .filter(method -> !method.isAbstract())
+                    .forEach(method -> method.getIR().forEach(s ->
+                            stmtToMethod.putIfAbsent(s, method)));
+            isFullyIndexed = true;
+        }
+        return stmtToMethod.get(stmt);
+    }
+
+    /**
+     * @return the containing method of given node.
+     * @throws IllegalArgumentException if the node is not in this ICFG.
+     */
+    private JMethod getContainingMethodOfNode(Stmt stmt) {
+        JMethod method = getContainingMethodOf(stmt);
+        if (method == null) {
+            throw new IllegalArgumentException(stmt + " is not a node of" +
+                    " this ICFG, the entry and exit nodes passed to lazy" +
+                    " ICFG should be obtained from the ICFG");
+        }
+        return method;
+    }
+
+    @Override
+    public boolean isCallSite(Stmt stmt) {
+        return stmt instanceof Invoke;
+    }
+
+    @Override
+    public boolean hasNode(Stmt stmt) {
+        JMethod method = getContainingMethodOf(stmt);
+        return method != null && callGraph.contains(method);
+    }
+
+    @Override
+    public boolean hasEdge(Stmt source, Stmt target) {
+        return getOutEdgesOf(source)
+                .stream()
+                .anyMatch(edge -> edge.target().equals(target));
+    }
+
+    @Override
+    public Set<Stmt> getPredsOf(Stmt stmt) {
+        return Views.toMappedSet(getInEdgesOf(stmt), ICFGEdge::source);
+    }
+
+    @Override
+    public Set<Stmt> getSuccsOf(Stmt stmt) {
+        return Views.toMappedSet(getOutEdgesOf(stmt), ICFGEdge::target);
+    }
+
+    @Override
+    public Set<Stmt> getNodes() {
+        return Collections.unmodifiableSet(new NodeSet());
+    }
+
+    /**
+     * Records the nodes of given method by creating its fragment.
+     */
+    private synchronized void register(JMethod method, @Nullable CFG<Stmt> cfg) {
+        if (cfg != null && !fragments.containsKey(method)) {
+            newFragment(method, cfg);
+        }
+    }
+
+    /**
+     * @return the fragment of given method, or {@code null} if the CFG
+     * of the method is absent.
+     */
+    @Nullable
+    private synchronized Fragment getFragment(JMethod method) {
+        Fragment fragment = fragments.get(method);
+        if (fragment == null) {
+            CFG<Stmt> cfg = getCFGOf(method);
+            if (cfg == null) {
+                logger.warn("CFG of {} is absent, try to fix this" +
+                        " by adding option: -scope REACHABLE", method);
+                return null;
+            }
+            fragment = newFragment(method, cfg);
+        }
+        return fragment;
+    }
+
+    private Fragment newFragment(JMethod method, CFG<Stmt> cfg) {
+        cfg.forEach(stmt -> stmtToMethod.put(stmt, method));
+        Fragment fragment = new Fragment(method, cfg);
+        fragments.put(method, fragment);
+        return fragment;
+    }
+
+    /**
+     * Edges of the nodes in a method. The edges of each node
+     * are created when they are first queried.
+     */
+    private class Fragment {
+
+        private final JMethod method;
+
+        private final CFG<Stmt> cfg;
+
+        private final Map<Stmt, Set<ICFGEdge<Stmt>>> inEdges = Maps.newHybridMap();
+
+        private final Map<Stmt, Set<ICFGEdge<Stmt>>> outEdges = Maps.newHybridMap();
+
+        /**
+         * Map from return sites to the return edges from the exit of
+         * this method, which are shared by the out edges of the exit and
+         * the in edges of the return sites.
+         */
+        private final Map<Stmt, ReturnEdge<Stmt>> returnEdges = Maps.newHybridMap();
+
+        /**
+         * Number of the edge sets of this fragment which are being built.
+         * The fragment is not evicted when it is positive.
+         */
+        private int pins = 0;
+
+        /**
+         * Return variables of the method, created on demand.
+         */
+        private Set<Var> retVars;
+
+        /**
+         * Exceptions that may be thrown out of the method, created on demand.
+         */
+        private Set<ClassType> exceptions;
+
+        private Fragment(JMethod method, CFG<Stmt> cfg) {
+            this.method = method;
+            this.cfg = cfg;
+        }
+
+        private boolean isPinned() {
+            return pins > 0;
+        }
+
+        private Set<ICFGEdge<Stmt>> getInEdgesOf(Stmt stmt) {
+            Set<ICFGEdge<Stmt>> edges = inEdges.get(stmt);
+            if (edges == null) {
+                ++pins;
+                try {
+                    edges = buildInEdgesOf(stmt);
+                } finally {
+                    --pins;
+                }
+                inEdges.put(stmt, edges);
+            }
+            return edges;
+        }
+
+        private Set<ICFGEdge<Stmt>> getOutEdgesOf(Stmt stmt) {
+            Set<ICFGEdge<Stmt>> edges = outEdges.get(stmt);
+            if (edges == null) {
+                ++pins;
+                try {
+                    edges = buildOutEdgesOf(stmt);
+                } finally {
+                    --pins;
+                }
+                outEdges.put(stmt, edges);
+            }
+            return edges;
+        }
+
+        private Set<ICFGEdge<Stmt>> buildInEdgesOf(Stmt stmt) {
+            Set<ICFGEdge<Stmt>> edges = Sets.newHybridSet();
+            cfg.getInEdgesOf(stmt).forEach(edge ->
+                    edges.add(isCallSite(edge.source()) ?
+                            new CallToReturnEdge<>(edge) :
+                            new NormalEdge<>(edge)));
+            if (cfg.isEntry(stmt)) {
+                // call edges from the callers of this method
+                getCallersOf(method).forEach(callSite -> {
+                    JMethod caller = getContainingMethodOf(callSite);
+                    if (caller != null && getCFGOf(caller) != null) {
+                        edges.add(new CallEdge<>(callSite, stmt, method));
+                    }
+                });
+            }
+            // return edges from the callees of the call sites
+            // whose return sites include stmt
+            cfg.getPredsOf(stmt).forEach(pred -> {
+                if (isCallSite(pred)) {
+                    getCalleesOf(pred).forEach(callee -> {
+                        Fragment calleeFragment = getFragment(callee);
+                        if (calleeFragment != null) {
+                            edges.add(calleeFragment.getReturnEdge(pred, stmt));
+                        }
+                    });
+                }
+            });
+            return Collections.unmodifiableSet(edges);
+        }
+
+        private Set<ICFGEdge<Stmt>> buildOutEdgesOf(Stmt stmt) {
+            Set<ICFGEdge<Stmt>> edges = Sets.newHybridSet();
+            cfg.getOutEdgesOf(stmt).forEach(edge ->
+                    edges.add(isCallSite(stmt) ?
+                            new CallToReturnEdge<>(edge) :
+                            new NormalEdge<>(edge)));
+            if (isCallSite(stmt)) {
+                // call edges to the callees
+                getCalleesOf(stmt).forEach(callee -> {
+                    CFG<Stmt> calleeCFG = getCFGOf(callee);
+                    if (calleeCFG == null) {
+                        logger.warn("CFG of {} is missing", callee);
+                        return;
+                    }
+                    register(callee, calleeCFG);
+                    edges.add(new CallEdge<>(stmt, calleeCFG.getEntry(), callee));
+                });
+            }
+            if (cfg.isExit(stmt)) {
+                // return edges to the return sites of the callers
+                getCallersOf(method).forEach(callSite -> {
+                    JMethod caller = getContainingMethodOf(callSite);
+                    if (caller != null && getCFGOf(caller) != null) {
+                        getReturnSitesOf(callSite).forEach(retSite ->
+                                edges.add(getReturnEdge(callSite, retSite)));
+                    }
+                });
+            }
+            return Collections.unmodifiableSet(edges);
+        }
+
+        /**
+         * @return the return edge from the exit of this method to
+         * given return site.
+         */
+        private ReturnEdge<Stmt> getReturnEdge(Stmt callSite, Stmt retSite) {
+            return returnEdges.computeIfAbsent(retSite,
+                    r -> newReturnEdge(callSite, r));
+        }
+
+        private ReturnEdge<Stmt> newReturnEdge(Stmt callSite, Stmt retSite) {
+            if (retVars == null) {
+                retVars = Sets.newHybridSet();
+                exceptions = Sets.newHybridSet();
+                // The exit node of CFG is mock, thus it is not
+                // a real return or excepting Stmt. We need to
+                // collect return and exception information from
+                // the real return and excepting Stmts, and attach
+                // them to the ReturnEdge.
+                cfg.getInEdgesOf(cfg.getExit()).forEach(retEdge -> {
+                    if (retEdge.getKind() == CFGEdge.Kind.RETURN) {
+                        Return ret = (Return) retEdge.source();
+                        if (ret.getValue() != null) {
+                            retVars.add(ret.getValue());
+                        }
+                    }
+                    if (retEdge.isExceptional()) {
+                        exceptions.addAll(retEdge.getExceptions());
+                    }
+                });
+            }
+            return new ReturnEdge<>(cfg.getExit(), retSite, callSite,
+                    retVars, exceptions);
+        }
+    }
+
+    /**
+     * Set view of all nodes in this ICFG, i.e., the nodes of the CFGs
+     * of all reachable methods.
+     */
+    private class NodeSet extends AbstractSet<Stmt> {
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Stmt stmt && hasNode(stmt);
+        }
+
+        @Override
+        @Nonnull
+        public Iterator<Stmt> iterator() {
+            return callGraph.reachableMethods()
+                    .flatMap(method -> {
+                        CFG<Stmt> cfg = getCFGOf(method);
+                        register(method, cfg);
+                        return cfg == null ?
+                                Stream.empty() : cfg.getNodes().stream();
+                    })
+                    .iterator();
+        }
+
+        @Override
+        public int size() {
+            return callGraph.reachableMethods()
+                    .map(ICFGBuilder::getCFGOf)
+                    .mapToInt(cfg -> cfg == null ? 0 : cfg.getNumberOfNodes())
+                    .sum();
+        }
+    }
+}
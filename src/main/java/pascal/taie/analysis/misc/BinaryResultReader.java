@@ -0,0 +1,529 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.misc;
+
+import pascal.taie.analysis.graph.callgraph.CallKind;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static pascal.taie.analysis.misc.BinaryResultWriter.CALL_EDGES;
+import static pascal.taie.analysis.misc.BinaryResultWriter.CALL_SITES;
+import static pascal.taie.analysis.misc.BinaryResultWriter.CALL_SITE_LABELS;
+import static pascal.taie.analysis.misc.BinaryResultWriter.FOOTER_SIZE;
+import static pascal.taie.analysis.misc.BinaryResultWriter.MAGIC;
+import static pascal.taie.analysis.misc.BinaryResultWriter.METHODS;
+import static pascal.taie.analysis.misc.BinaryResultWriter.OBJECTS;
+import static pascal.taie.analysis.misc.BinaryResultWriter.POINTS_TO;
+import static pascal.taie.analysis.misc.BinaryResultWriter.SECTION_ENTRY_SIZE;
+import static pascal.taie.analysis.misc.BinaryResultWriter.VARS;
+import static pascal.taie.analysis.misc.BinaryResultWriter.VAR_NAMES;
+import static pascal.taie.analysis.misc.BinaryResultWriter.VERSION;
+
+/**
+ * Reads binary result file written by {@link BinaryResultWriter}.
+ * <p>
+ * The sections of the file are memory-mapped, and the queries read
+ * the mapped buffers directly, thus the results need not be loaded
+ * into heap. Methods, call sites, variables and objects are
+ * represented by their ids, i.e., their indexes in the file.
+ * This class does not depend on {@link pascal.taie.World}, so that
+ * other tools can query the results without running Tai-e.
+ */
+public final class BinaryResultReader implements AutoCloseable {
+
+    private static final CallKind[] CALL_KINDS = CallKind.values();
+
+    private final FileChannel channel;
+
+    private final StringTable methods;
+
+    private final StringTable labels;
+
+    /**
+     * Layout: #methods, #call sites, site offsets[#methods + 1],
+     * labels[#call sites], line numbers[#call sites].
+     */
+    private final ByteBuffer callSites;
+
+    private final int numCallSites;
+
+    /**
+     * Layout: #call sites, #edges, callee offsets[#call sites + 1],
+     * callees[#edges], caller offsets[#methods + 1],
+     * callers[#edges], kinds[#edges].
+     */
+    private final ByteBuffer callEdges;
+
+    private final int numEdges;
+
+    private final StringTable varNames;
+
+    /**
+     * Layout: #vars, methods[#vars], names[#vars].
+     */
+    private final ByteBuffer vars;
+
+    private final int numVars;
+
+    private final StringTable objects;
+
+    /**
+     * Layout: #vars, #words, offsets[#vars + 1],
+     * word indexes[#words], words[#words].
+     */
+    private final ByteBuffer pointsTo;
+
+    private final int numWords;
+
+    private BinaryResultReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+        if (size < 2 * Integer.BYTES + FOOTER_SIZE) {
+            throw new IOException("Not a binary result file");
+        }
+        ByteBuffer header = map(0, 2 * Integer.BYTES);
+        ByteBuffer footer = map(size - FOOTER_SIZE, FOOTER_SIZE);
+        if (header.getInt(0) != MAGIC || footer.getInt(Long.BYTES) != MAGIC) {
+            throw new IOException("Not a binary result file");
+        }
+        int version = header.getInt(Integer.BYTES);
+        if (version != VERSION) {
+            throw new IOException("Unsupported version of binary result file: "
+                    + version);
+        }
+        long tableOffset = footer.getLong(0);
+        int numSections = map(tableOffset, Integer.BYTES).getInt(0);
+        ByteBuffer table = map(tableOffset + Integer.BYTES,
+                (long) numSections * SECTION_ENTRY_SIZE);
+        ByteBuffer[] sections = new ByteBuffer[POINTS_TO + 1];
+        for (int i = 0; i < numSections; ++i) {
+            int base = i * SECTION_ENTRY_SIZE;
+            int kind = table.getInt(base);
+            if (kind < sections.length) { // skip unknown sections
+                sections[kind] = map(table.getLong(base + Integer.BYTES),
+                        table.getLong(base + Integer.BYTES + Long.BYTES));
+            }
+        }
+        methods = new StringTable(sections[METHODS]);
+        labels = new StringTable(sections[CALL_SITE_LABELS]);
+        callSites = sections[CALL_SITES];
+        numCallSites = callSites.getInt(Integer.BYTES);
+        callEdges = sections[CALL_EDGES];
+        numEdges = callEdges.getInt(Integer.BYTES);
+        if (sections[POINTS_TO] != null) {
+            varNames = new StringTable(sections[VAR_NAMES]);
+            vars = sections[VARS];
+            numVars = vars.getInt(0);
+            objects = new StringTable(sections[OBJECTS]);
+            pointsTo = sections[POINTS_TO];
+            numWords = pointsTo.getInt(Integer.BYTES);
+        } else {
+            varNames = null;
+            vars = null;
+            numVars = 0;
+            objects = null;
+            pointsTo = null;
+            numWords = 0;
+        }
+    }
+
+    /**
+     * Opens a binary result file.
+     *
+     * @throws IOException if the file cannot be read or is not
+     *                     a valid binary result file.
+     */
+    public static BinaryResultReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new BinaryResultReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private ByteBuffer map(long offset, long length) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+
+    // ---------- methods ----------
+
+    public int getNumberOfMethods() {
+        return methods.size();
+    }
+
+    /**
+     * @return signature of the method with given id.
+     */
+    public String getMethod(int method) {
+        return methods.get(method);
+    }
+
+    /**
+     * @return id of the method with given signature, or -1 if
+     * the method is not reachable.
+     */
+    public int getMethodId(String signature) {
+        return methods.indexOf(signature);
+    }
+
+    // ---------- call graph ----------
+
+    public int getNumberOfCallSites() {
+        return numCallSites;
+    }
+
+    public int getNumberOfEdges() {
+        return numEdges;
+    }
+
+    /**
+     * @return ids of call sites in given method, in the order
+     * they appear in the method.
+     */
+    public int[] getCallSitesIn(int method) {
+        int start = callSiteOffset(method);
+        int end = callSiteOffset(method + 1);
+        int[] result = new int[end - start];
+        Arrays.setAll(result, i -> start + i);
+        return result;
+    }
+
+    /**
+     * @return id of the method containing given call site.
+     */
+    public int getContainerOf(int callSite) {
+        // binary search the last method whose first call site <= callSite
+        int low = 0, high = getNumberOfMethods() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (callSiteOffset(mid) <= callSite) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return label of given call site, in the same form as
+     * the call sites dumped by option {@code dump-call-edges} of
+     * call graph builder, i.e., {@code <caller>/<class>.<method>/<n>}.
+     */
+    public String getCallSiteLabel(int callSite) {
+        int label = callSites.getInt(callSiteBase(callSite));
+        return getMethod(getContainerOf(callSite)) + "/" + labels.get(label);
+    }
+
+    public int getLineNumber(int callSite) {
+        return callSites.getInt(callSiteBase(callSite)
+                + numCallSites * Integer.BYTES);
+    }
+
+    /**
+     * @return ids of callees of given call site, sorted by their signatures.
+     */
+    public int[] getCalleesOf(int callSite) {
+        int start = calleeOffset(callSite);
+        int end = calleeOffset(callSite + 1);
+        int base = calleesBase();
+        int[] result = new int[end - start];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = callEdges.getInt(base + (start + i) * Integer.BYTES);
+        }
+        return result;
+    }
+
+    /**
+     * @return kinds of call edges from given call site, which correspond
+     * to the callees returned by {@link #getCalleesOf(int)}.
+     */
+    public CallKind[] getCallKindsOf(int callSite) {
+        int start = calleeOffset(callSite);
+        int end = calleeOffset(callSite + 1);
+        int base = kindsBase();
+        CallKind[] result = new CallKind[end - start];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = CALL_KINDS[callEdges.get(base + start + i)];
+        }
+        return result;
+    }
+
+    /**
+     * @return ids of call sites that call given method.
+     */
+    public int[] getCallersOf(int method) {
+        int offsetsBase = callersBase() - (getNumberOfMethods() + 1) * Integer.BYTES;
+        int start = callEdges.getInt(offsetsBase + method * Integer.BYTES);
+        int end = callEdges.getInt(offsetsBase + (method + 1) * Integer.BYTES);
+        int base = callersBase();
+        int[] result = new int[end - start];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = callEdges.getInt(base + (start + i) * Integer.BYTES);
+        }
+        return result;
+    }
+
+    private int callSiteOffset(int method) {
+        return callSites.getInt((2 + method) * Integer.BYTES);
+    }
+
+    private int callSiteBase(int callSite) {
+        return (2 + getNumberOfMethods() + 1 + callSite) * Integer.BYTES;
+    }
+
+    private int calleeOffset(int callSite) {
+        return callEdges.getInt((2 + callSite) * Integer.BYTES);
+    }
+
+    private int calleesBase() {
+        return (2 + numCallSites + 1) * Integer.BYTES;
+    }
+
+    private int callersBase() {
+        return calleesBase() + (numEdges + getNumberOfMethods() + 1) * Integer.BYTES;
+    }
+
+    private int kindsBase() {
+        return callersBase() + numEdges * Integer.BYTES;
+    }
+
+    // ---------- points-to sets ----------
+
+    /**
+     * @return {@code true} if the file contains points-to sets.
+     */
+    public boolean hasPointsToSets() {
+        return pointsTo != null;
+    }
+
+    public int getNumberOfVars() {
+        return numVars;
+    }
+
+    /**
+     * @return id of the method containing given variable.
+     */
+    public int getVarMethod(int var) {
+        return vars.getInt((1 + var) * Integer.BYTES);
+    }
+
+    public String getVarName(int var) {
+        return varNames.get(vars.getInt((1 + numVars + var) * Integer.BYTES));
+    }
+
+    /**
+     * @return id of the variable with given name in given method,
+     * or -1 if such variable does not exist.
+     */
+    public int getVarId(int method, String name) {
+        if (!hasPointsToSets()) {
+            return -1;
+        }
+        int nameId = varNames.indexOf(name);
+        if (nameId < 0) {
+            return -1;
+        }
+        // variables are sorted by (method, name), and name table is
+        // sorted, thus variables are also sorted by (method, name id)
+        int low = 0, high = numVars - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = Integer.compare(getVarMethod(mid), method);
+            if (cmp == 0) {
+                cmp = Integer.compare(
+                        vars.getInt((1 + numVars + mid) * Integer.BYTES), nameId);
+            }
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public int getNumberOfObjects() {
+        return hasPointsToSets() ? objects.size() : 0;
+    }
+
+    /**
+     * @return string representation of the object with given id.
+     */
+    public String getObject(int obj) {
+        return objects.get(obj);
+    }
+
+    /**
+     * @return id of the object with given string representation,
+     * or -1 if such object does not exist.
+     */
+    public int getObjectId(String obj) {
+        return hasPointsToSets() ? objects.indexOf(obj) : -1;
+    }
+
+    /**
+     * @return ids of objects pointed to by given variable, in ascending order.
+     */
+    public int[] getPointsToSet(int var) {
+        int start = wordOffset(var);
+        int end = wordOffset(var + 1);
+        int size = 0;
+        for (int i = start; i < end; ++i) {
+            size += Long.bitCount(getWord(i));
+        }
+        int[] result = new int[size];
+        int n = 0;
+        for (int i = start; i < end; ++i) {
+            int base = getWordIndex(i) << 6;
+            for (long w = getWord(i); w != 0; w &= w - 1) {
+                result[n++] = base + Long.numberOfTrailingZeros(w);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return {@code true} if given variable points to given object.
+     */
+    public boolean pointsTo(int var, int obj) {
+        int i = findWord(var, obj >>> 6);
+        return i >= 0 && (getWord(i) & (1L << obj)) != 0;
+    }
+
+    /**
+     * @return {@code true} if the points-to sets of given variables intersect.
+     */
+    public boolean mayAlias(int v1, int v2) {
+        int i = wordOffset(v1), end1 = wordOffset(v1 + 1);
+        int j = wordOffset(v2), end2 = wordOffset(v2 + 1);
+        while (i < end1 && j < end2) {
+            int index1 = getWordIndex(i), index2 = getWordIndex(j);
+            if (index1 < index2) {
+                ++i;
+            } else if (index1 > index2) {
+                ++j;
+            } else {
+                if ((getWord(i) & getWord(j)) != 0) {
+                    return true;
+                }
+                ++i;
+                ++j;
+            }
+        }
+        return false;
+    }
+
+    private int findWord(int var, int wordIndex) {
+        int low = wordOffset(var), high = wordOffset(var + 1) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int index = getWordIndex(mid);
+            if (index < wordIndex) {
+                low = mid + 1;
+            } else if (index > wordIndex) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int wordOffset(int var) {
+        return pointsTo.getInt((2 + var) * Integer.BYTES);
+    }
+
+    private int getWordIndex(int i) {
+        return pointsTo.getInt((2 + numVars + 1 + i) * Integer.BYTES);
+    }
+
+    private long getWord(int i) {
+        return pointsTo.getLong((2 + numVars + 1 + numWords) * Integer.BYTES
+                + i * Long.BYTES);
+    }
+
+    /**
+     * Closes the file channel. The mapped buffers are released
+     * when this reader becomes unreachable.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Sorted table of UTF-8 strings.
+     */
+    private static final class StringTable {
+
+        private final ByteBuffer buffer;
+
+        private final int size;
+
+        private final int dataBase;
+
+        private StringTable(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.size = buffer.getInt(0);
+            this.dataBase = (2 + size) * Integer.BYTES;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private String get(int i) {
+            int start = buffer.getInt((1 + i) * Integer.BYTES);
+            int end = buffer.getInt((2 + i) * Integer.BYTES);
+            byte[] bytes = new byte[end - start];
+            buffer.get(dataBase + start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private int indexOf(String s) {
+            int low = 0, high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = get(mid).compareTo(s);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.misc;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Writes call graph and points-to sets to a compact binary file,
+ * which can be queried by {@link BinaryResultReader} without
+ * re-running the analyses.
+ * <p>
+ * A binary result file consists of a header (magic number and version),
+ * a sequence of sections, and a section table at the end of the file.
+ * All numbers are written in big-endian order. The sections are:
+ * <ul>
+ *     <li>{@link #METHODS}: string table of signatures of reachable methods;</li>
+ *     <li>{@link #CALL_SITE_LABELS}: string table of call-site labels,
+ *     i.e., {@code <declaring class>.<method name>/<n>} where {@code n}
+ *     is the number of preceding call sites to the same method in the caller;</li>
+ *     <li>{@link #CALL_SITES}: call sites of each method in CSR form,
+ *     together with their labels and line numbers. Like the call edges
+ *     dumped by {@link pascal.taie.analysis.graph.callgraph.CallGraphs},
+ *     invokedynamic call sites (and their call edges) are skipped,
+ *     and are not counted in the labels;</li>
+ *     <li>{@link #CALL_EDGES}: callees of each call site and callers
+ *     of each method in CSR form, together with the call kinds;</li>
+ *     <li>{@link #VAR_NAMES}, {@link #VARS}: variables as pairs of
+ *     containing method and name;</li>
+ *     <li>{@link #OBJECTS}: string table of abstract objects;</li>
+ *     <li>{@link #POINTS_TO}: context-insensitive points-to set of each
+ *     variable, encoded as the non-zero words of a bit set over objects.</li>
+ * </ul>
+ * The last four sections are present only if pointer analysis result is given.
+ * All string tables are sorted, so that they can be searched by
+ * binary search without loading them into heap.
+ */
+public final class BinaryResultWriter {
+
+    private static final Logger logger = LogManager.getLogger(BinaryResultWriter.class);
+
+    static final int MAGIC = 0x54414945; // "TAIE"
+
+    static final int VERSION = 1;
+
+    // section kinds
+    static final int METHODS = 1;
+
+    static final int CALL_SITE_LABELS = 2;
+
+    static final int CALL_SITES = 3;
+
+    static final int CALL_EDGES = 4;
+
+    static final int VAR_NAMES = 5;
+
+    static final int VARS = 6;
+
+    static final int OBJECTS = 7;
+
+    static final int POINTS_TO = 8;
+
+    /**
+     * Size of section table entry: kind (int), offset (long), length (long).
+     */
+    static final int SECTION_ENTRY_SIZE = 20;
+
+    /**
+     * Size of footer: offset of section table (long) and magic number (int).
+     */
+    static final int FOOTER_SIZE = 12;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private final List<long[]> sections = new ArrayList<>();
+
+    private BinaryResultWriter(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Writes given call graph, and (if given) points-to sets of variables
+     * in pointer analysis result, to {@code outFile}.
+     */
+    public static void write(CallGraph<Invoke, JMethod> callGraph,
+                             @Nullable PointerAnalysisResult pta,
+                             File outFile) {
+        logger.info("Dumping binary results to {}", outFile.getAbsolutePath());
+        try (FileChannel channel = FileChannel.open(outFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            BinaryResultWriter writer = new BinaryResultWriter(channel);
+            writer.putInt(MAGIC);
+            writer.putInt(VERSION);
+            Map<JMethod, Integer> methodIds = writer.writeCallGraph(callGraph);
+            if (pta != null) {
+                writer.writePointsToSets(pta, methodIds);
+            }
+            writer.writeSectionTable();
+            writer.flush();
+        } catch (IOException e) {
+            logger.warn("Failed to dump binary results to "
+                    + outFile.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * @return the labels of the call sites (except invokedynamic)
+     * in given method, which number the call sites in the order
+     * of the IR, as {@link pascal.taie.analysis.graph.callgraph.CallGraphs}
+     * does when dumping call edges.
+     */
+    private static Map<Invoke, String> getCallSiteLabels(JMethod method) {
+        Map<Invoke, String> labels = Maps.newMap();
+        if (!method.isAbstract()) {
+            Map<String, Integer> counter = Maps.newMap();
+            method.getIR().invokes(false).forEach(invoke -> {
+                MethodRef ref = invoke.getMethodRef();
+                String target = ref.getDeclaringClass().getName()
+                        + "." + ref.getName();
+                int n = counter.merge(target, 1, Integer::sum) - 1;
+                labels.put(invoke, target + "/" + n);
+            });
+        }
+        return labels;
+    }
+
+    private Map<JMethod, Integer> writeCallGraph(CallGraph<Invoke, JMethod> callGraph) {
+        JMethod[] methods = callGraph.reachableMethods()
+                .sorted(Comparator.comparing(JMethod::getSignature))
+                .toArray(JMethod[]::new);
+        Map<JMethod, Integer> methodIds = Maps.newMap(methods.length);
+        for (int i = 0; i < methods.length; ++i) {
+            methodIds.put(methods[i], i);
+        }
+        beginSection(METHODS);
+        writeStringTable(Arrays.stream(methods).map(JMethod::getSignature).toList());
+        endSection();
+
+        // collect call sites and their labels
+        List<Invoke> callSites = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        int[] siteOffsets = new int[methods.length + 1];
+        for (int i = 0; i < methods.length; ++i) {
+            Map<Invoke, String> siteLabels = getCallSiteLabels(methods[i]);
+            callGraph.callSitesIn(methods[i])
+                    .filter(callSite -> !callSite.isDynamic())
+                    .sorted(Comparator.comparingInt(Invoke::getIndex))
+                    .forEach(callSite -> {
+                        callSites.add(callSite);
+                        labels.add(siteLabels.get(callSite));
+                    });
+            siteOffsets[i + 1] = callSites.size();
+        }
+        List<String> labelTable = new ArrayList<>(new TreeSet<>(labels));
+        Map<String, Integer> labelIds = Maps.newMap(labelTable.size());
+        for (int i = 0; i < labelTable.size(); ++i) {
+            labelIds.put(labelTable.get(i), i);
+        }
+        beginSection(CALL_SITE_LABELS);
+        writeStringTable(labelTable);
+        endSection();
+        beginSection(CALL_SITES);
+        putInt(methods.length);
+        putInt(callSites.size());
+        putInts(siteOffsets);
+        labels.forEach(label -> putInt(labelIds.get(label)));
+        callSites.forEach(callSite -> putInt(callSite.getLineNumber()));
+        endSection();
+
+        // collect call edges in CSR form (call site -> callees),
+        // and reversed CSR form (callee -> call sites)
+        int[] calleeOffsets = new int[callSites.size() + 1];
+        List<int[]> edges = new ArrayList<>(); // [call site, callee, kind]
+        for (int i = 0; i < callSites.size(); ++i) {
+            int site = i;
+            callGraph.edgesOutOf(callSites.get(i))
+                    .sorted(Comparator.comparing(
+                            (Edge<Invoke, JMethod> e) -> e.getCallee().getSignature()))
+                    .forEach(e -> edges.add(new int[]{
+                            site, methodIds.get(e.getCallee()), e.getKind().ordinal()}));
+            calleeOffsets[i + 1] = edges.size();
+        }
+        int[] callerOffsets = new int[methods.length + 1];
+        edges.forEach(e -> ++callerOffsets[e[1] + 1]);
+        for (int i = 0; i < methods.length; ++i) {
+            callerOffsets[i + 1] += callerOffsets[i];
+        }
+        int[] callers = new int[edges.size()];
+        int[] next = Arrays.copyOf(callerOffsets, methods.length);
+        edges.forEach(e -> callers[next[e[1]]++] = e[0]);
+        beginSection(CALL_EDGES);
+        putInt(callSites.size());
+        putInt(edges.size());
+        putInts(calleeOffsets);
+        edges.forEach(e -> putInt(e[1]));
+        putInts(callerOffsets);
+        putInts(callers);
+        edges.forEach(e -> putByte(e[2]));
+        endSection();
+        return methodIds;
+    }
+
+    private void writePointsToSets(PointerAnalysisResult pta,
+                                   Map<JMethod, Integer> methodIds) {
+        // only variables in reachable methods are written
+        Var[] vars = pta.getVars()
+                .stream()
+                .filter(v -> methodIds.containsKey(v.getMethod()))
+                .sorted(Comparator.comparingInt((Var v) -> methodIds.get(v.getMethod()))
+                        .thenComparing(Var::getName))
+                .toArray(Var[]::new);
+        List<String> names = new ArrayList<>(new TreeSet<>(
+                Arrays.stream(vars).map(Var::getName).toList()));
+        Map<String, Integer> nameIds = Maps.newMap(names.size());
+        for (int i = 0; i < names.size(); ++i) {
+            nameIds.put(names.get(i), i);
+        }
+        beginSection(VAR_NAMES);
+        writeStringTable(names);
+        endSection();
+        beginSection(VARS);
+        putInt(vars.length);
+        for (Var var : vars) {
+            putInt(methodIds.get(var.getMethod()));
+        }
+        for (Var var : vars) {
+            putInt(nameIds.get(var.getName()));
+        }
+        endSection();
+
+        Obj[] objs = pta.getObjects()
+                .stream()
+                .map(obj -> Map.entry(obj.toString(), obj))
+                .sorted(Map.Entry.comparingByKey())
+                .map(Map.Entry::getValue)
+                .toArray(Obj[]::new);
+        Map<Obj, Integer> objIds = Maps.newMap(objs.length);
+        for (int i = 0; i < objs.length; ++i) {
+            objIds.put(objs[i], i);
+        }
+        beginSection(OBJECTS);
+        writeStringTable(Arrays.stream(objs).map(Obj::toString).toList());
+        endSection();
+
+        // encode each points-to set as the non-zero words of a bit set
+        int[] offsets = new int[vars.length + 1];
+        List<int[]> wordIndexes = new ArrayList<>(vars.length);
+        List<long[]> words = new ArrayList<>(vars.length);
+        int numWords = 0;
+        for (int i = 0; i < vars.length; ++i) {
+            int[] ids = pta.getPointsToSet(vars[i])
+                    .stream()
+                    .mapToInt(objIds::get)
+                    .sorted()
+                    .toArray();
+            int[] indexes = new int[ids.length];
+            long[] bits = new long[ids.length];
+            int n = 0;
+            for (int id : ids) {
+                int index = id >>> 6;
+                if (n == 0 || indexes[n - 1] != index) {
+                    indexes[n++] = index;
+                }
+                bits[n - 1] |= 1L << id;
+            }
+            wordIndexes.add(Arrays.copyOf(indexes, n));
+            words.add(Arrays.copyOf(bits, n));
+            numWords += n;
+            offsets[i + 1] = numWords;
+        }
+        beginSection(POINTS_TO);
+        putInt(vars.length);
+        putInt(numWords);
+        putInts(offsets);
+        wordIndexes.forEach(this::putInts);
+        for (long[] bits : words) {
+            for (long w : bits) {
+                putLong(w);
+            }
+        }
+        endSection();
+    }
+
+    /**
+     * Writes a string table: number of strings, offsets of each string
+     * (relative to the start of string data), and UTF-8 string data.
+     */
+    private void writeStringTable(List<String> strings) {
+        byte[][] data = new byte[strings.size()][];
+        int[] offsets = new int[strings.size() + 1];
+        long size = 0;
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            size += data[i].length;
+            if (size > Integer.MAX_VALUE) {
+                throw new AnalysisException("String table is too large");
+            }
+            offsets[i + 1] = (int) size;
+        }
+        putInt(data.length);
+        putInts(offsets);
+        for (byte[] bytes : data) {
+            putBytes(bytes);
+        }
+    }
+
+    private void beginSection(int kind) {
+        sections.add(new long[]{ kind, position(), 0 });
+    }
+
+    private void endSection() {
+        long[] section = sections.get(sections.size() - 1);
+        section[2] = position() - section[1];
+        if (section[2] > Integer.MAX_VALUE) {
+            throw new AnalysisException("Section " + section[0] + " is too large");
+        }
+    }
+
+    private void writeSectionTable() {
+        long tableOffset = position();
+        putInt(sections.size());
+        for (long[] section : sections) {
+            putInt((int) section[0]);
+            putLong(section[1]);
+            putLong(section[2]);
+        }
+        putLong(tableOffset);
+        putInt(MAGIC);
+    }
+
+    private long position() {
+        try {
+            return channel.position() + buffer.position();
+        } catch (IOException e) {
+            throw new AnalysisException(e);
+        }
+    }
+
+    private void ensureRemaining(int n) {
+        if (buffer.remaining() < n) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new AnalysisException(e);
+        }
+        buffer.clear();
+    }
+
+    private void putByte(int b) {
+        ensureRemaining(Byte.BYTES);
+        buffer.put((byte) b);
+    }
+
+    private void putInt(int i) {
+        ensureRemaining(Integer.BYTES);
+        buffer.putInt(i);
+    }
+
+    private void putInts(int[] ints) {
+        for (int i : ints) {
+            putInt(i);
+        }
+    }
+
+    private void putLong(long l) {
+        ensureRemaining(Long.BYTES);
+        buffer.putLong(l);
+    }
+
+    private void putBytes(byte[] bytes) {
+        int offset = 0;
+        while (offset < bytes.length) {
+            ensureRemaining(1);
+            int n = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, n);
+            offset += n;
+        }
+    }
+}
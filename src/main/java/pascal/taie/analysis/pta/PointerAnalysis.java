@@ -29,6 +29,7 @@ import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelectorFactory;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.ContainerSummaryModel;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.solver.DefaultSolver;
 import pascal.taie.analysis.pta.core.solver.Solver;
@@ -72,7 +73,7 @@ public class PointerAnalysis extends ProgramAnalysis<PointerAnalysisResult> {
     @Override
     public PointerAnalysisResult analyze() {
         AnalysisOptions options = getOptions();
-        HeapModel heapModel = new AllocationSiteBasedModel(options);
+        HeapModel heapModel = makeHeapModel(options);
         ContextSelector selector = null;
         String advanced = options.getString("advanced");
         String cs = options.getString("cs");
@@ -80,6 +81,10 @@ public class PointerAnalysis extends ProgramAnalysis<PointerAnalysisResult> {
             if (advanced.equals("collection")) {
                 selector = ContextSelectorFactory.makeSelectiveSelector(cs,
                         new CollectionMethods(World.get().getClassHierarchy()).get());
+            } else if (advanced.equals("adaptive")) {
+                selector = ContextSelectorFactory.makeAdaptiveSelector(cs,
+                        options.getInt("adaptive-time-budget"),
+                        options.getInt("adaptive-memory-budget"));
             } else {
                 // run context-insensitive analysis as pre-analysis
                 PointerAnalysisResult preResult = runAnalysis(heapModel,
@@ -107,6 +112,16 @@ public class PointerAnalysis extends ProgramAnalysis<PointerAnalysisResult> {
         return runAnalysis(heapModel, selector);
     }
 
+    private static HeapModel makeHeapModel(AnalysisOptions options) {
+        String heapModel = options.getString("heap-model");
+        return switch (heapModel) {
+            case "allocation-site" -> new AllocationSiteBasedModel(options);
+            case "container-summary" -> new ContainerSummaryModel(options);
+            default -> throw new ConfigException(
+                    "Unexpected heap model: " + heapModel);
+        };
+    }
+
     private PointerAnalysisResult runAnalysis(HeapModel heapModel,
                                               ContextSelector selector) {
         AnalysisOptions options = getOptions();
@@ -117,6 +132,9 @@ public class PointerAnalysis extends ProgramAnalysis<PointerAnalysisResult> {
         // after setting all other fields of solver.
         setPlugin(solver, options);
         solver.solve();
+        if (heapModel instanceof ContainerSummaryModel summaryModel) {
+            summaryModel.logStatistics();
+        }
         return solver.getResult();
     }
 
@@ -155,6 +173,10 @@ public class PointerAnalysis extends ProgramAnalysis<PointerAnalysisResult> {
                 || !((List<String>) options.get("taint-config-providers")).isEmpty()) {
             plugin.addPlugin(new TaintAnalysis());
         }
+        if (solver.getContextSelector() instanceof Plugin selectorPlugin) {
+            // e.g., adaptive context selector, which monitors the solving
+            plugin.addPlugin(selectorPlugin);
+        }
         plugin.addPlugin(new ResultProcessor());
         // add plugins specified in options
         // noinspection unchecked
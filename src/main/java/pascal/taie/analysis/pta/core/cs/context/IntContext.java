@@ -0,0 +1,267 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.context;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An implementation of {@link Context}, which interns contexts as
+ * dense integers. The contexts produced by a {@link Factory} are organized
+ * as Trie, which is stored in primitive arrays of the factory, and each
+ * context is just a light handle of its id in the Trie.
+ * <p>
+ * A factory never produces two handles for the same context, thus contexts
+ * of the same factory can be compared by identity, and are hashed by ids.
+ */
+public final class IntContext implements Context {
+
+    private final Factory<?> factory;
+
+    private final int id;
+
+    private IntContext(Factory<?> factory, int id) {
+        this.factory = factory;
+        this.id = id;
+    }
+
+    /**
+     * @return the id of this context, which is unique among the contexts
+     * produced by the same factory. The id of the empty context is 0.
+     */
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public int getLength() {
+        return factory.lengths[id];
+    }
+
+    @Override
+    public Object getElementAt(int i) {
+        int length = getLength();
+        assert 0 <= i && i < length;
+        int c = id;
+        for (int j = length - 1; j > i; --j) {
+            c = factory.parents[c];
+        }
+        return factory.elems[c];
+    }
+
+    @Override
+    public int hashCode() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        Object[] elems = new Object[getLength()];
+        int c = id;
+        for (int i = elems.length - 1; i >= 0; --i) {
+            elems[i] = factory.elems[c];
+            c = factory.parents[c];
+        }
+        return Arrays.toString(elems);
+    }
+
+    public static class Factory<T> implements ContextFactory<T> {
+
+        /**
+         * Id of the empty context, i.e., root of the Trie.
+         */
+        private static final int ROOT = 0;
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        /**
+         * Number of contexts produced by this factory.
+         */
+        private int size;
+
+        /**
+         * Maps id of each context to id of its parent context.
+         */
+        private int[] parents;
+
+        /**
+         * Maps id of each context to its length.
+         */
+        private int[] lengths;
+
+        /**
+         * Maps id of each context to its last element.
+         */
+        private Object[] elems;
+
+        /**
+         * Maps id of each context to its handle.
+         */
+        private IntContext[] contexts;
+
+        /**
+         * Open-addressing hash table of all non-empty contexts,
+         * keyed by (parent id, last element). Each slot holds
+         * the id of a context, and 0 (i.e., {@link #ROOT}) means
+         * the slot is empty.
+         */
+        private int[] children;
+
+        public Factory() {
+            parents = new int[INITIAL_CAPACITY];
+            lengths = new int[INITIAL_CAPACITY];
+            elems = new Object[INITIAL_CAPACITY];
+            contexts = new IntContext[INITIAL_CAPACITY];
+            children = new int[INITIAL_CAPACITY * 2];
+            contexts[ROOT] = new IntContext(this, ROOT);
+            size = 1;
+        }
+
+        /**
+         * @return number of contexts produced by this factory.
+         */
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public IntContext getEmptyContext() {
+            return contexts[ROOT];
+        }
+
+        @Override
+        public IntContext make(T elem) {
+            return getContext(getChild(ROOT, elem));
+        }
+
+        @Override
+        public IntContext make(T... elems) {
+            int result = ROOT;
+            for (T elem : elems) {
+                result = getChild(result, elem);
+            }
+            return getContext(result);
+        }
+
+        @Override
+        public IntContext makeLastK(Context context, int k) {
+            return getContext(makeLastK(getId(context), k));
+        }
+
+        @Override
+        public IntContext append(Context parent, T elem, int limit) {
+            int p = getId(parent);
+            if (lengths[p] >= limit) {
+                p = makeLastK(p, limit - 1);
+            }
+            return getContext(getChild(p, elem));
+        }
+
+        /**
+         * @return handle of the context with given id. The id must be
+         * computed before reading {@link #contexts}, as the computation
+         * may grow the array.
+         */
+        private IntContext getContext(int id) {
+            return contexts[id];
+        }
+
+        private int getId(Context context) {
+            IntContext c = (IntContext) context;
+            assert c.factory == this;
+            return c.id;
+        }
+
+        /**
+         * @return id of the context with last k elements of given context.
+         */
+        private int makeLastK(int context, int k) {
+            if (k == 0) {
+                return ROOT;
+            }
+            if (lengths[context] <= k) {
+                return context;
+            }
+            // last k elements of a context are last k - 1 elements
+            // of its parent followed by its last element
+            return getChild(makeLastK(parents[context], k - 1), elems[context]);
+        }
+
+        /**
+         * @return id of the context by appending elem to given parent context.
+         */
+        private int getChild(int parent, Object elem) {
+            int mask = children.length - 1;
+            int i = hash(parent, elem) & mask;
+            int c;
+            while ((c = children[i]) != ROOT) {
+                if (parents[c] == parent && Objects.equals(elems[c], elem)) {
+                    return c;
+                }
+                i = (i + 1) & mask;
+            }
+            c = newContext(parent, elem);
+            children[i] = c;
+            if (size * 2 > children.length) {
+                rehash();
+            }
+            return c;
+        }
+
+        private int newContext(int parent, Object elem) {
+            int c = size++;
+            if (c == parents.length) {
+                int newLength = parents.length * 2;
+                parents = Arrays.copyOf(parents, newLength);
+                lengths = Arrays.copyOf(lengths, newLength);
+                elems = Arrays.copyOf(elems, newLength);
+                contexts = Arrays.copyOf(contexts, newLength);
+            }
+            parents[c] = parent;
+            lengths[c] = lengths[parent] + 1;
+            elems[c] = elem;
+            contexts[c] = new IntContext(this, c);
+            return c;
+        }
+
+        private void rehash() {
+            int[] newChildren = new int[children.length * 2];
+            int mask = newChildren.length - 1;
+            for (int c = ROOT + 1; c < size; ++c) {
+                int i = hash(parents[c], elems[c]) & mask;
+                while (newChildren[i] != ROOT) {
+                    i = (i + 1) & mask;
+                }
+                newChildren[i] = c;
+            }
+            children = newChildren;
+        }
+
+        private static int hash(int parent, Object elem) {
+            int h = parent * 31 + Objects.hashCode(elem);
+            // spread the bits as the table size is a power of two
+            h *= 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.selector;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ContextFactory;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.core.solver.Solver;
+import pascal.taie.analysis.pta.plugin.Plugin;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Context selector which adapts context sensitivity during solving.
+ * <p>
+ * It starts with the context sensitivity variant of a k-limiting selector,
+ * and monitors the growth of pointer analysis online, i.e., the number of
+ * contexts and the volume of points-to sets of the variables of each method,
+ * which are aggregated by the declaring types of the methods for logging.
+ * When the time or memory budget is exceeded, it downgrades the methods
+ * which grow fastest to shorter contexts (at most one element shorter
+ * in each round, and down to context insensitivity), so that a single run
+ * of pointer analysis can finish within the budget, at the cost of precision.
+ * <p>
+ * This selector also acts as a {@link Plugin} to receive the growth of
+ * pointer analysis, and it should be added to the plugins of the solver.
+ * After solving, the context length limits of the downgraded methods are
+ * stored in the pointer analysis result with key
+ * {@link ContextSelectorFactory#ADAPTIVE_LIMITS}.
+ */
+class AdaptiveSelector implements ContextSelector, Plugin {
+
+    private static final Logger logger = LogManager.getLogger(AdaptiveSelector.class);
+
+    /**
+     * Minimum number of updates (i.e., new CS methods and points-to set
+     * changes) between two rounds of downgrading.
+     */
+    private static final int ROUND_INTERVAL = 10000;
+
+    /**
+     * Number of updates between two checks of memory usage, which is
+     * also the interval of retries when no method can be downgraded.
+     */
+    private static final int CHECK_INTERVAL = 1024;
+
+    /**
+     * Ratio of the methods that are downgraded in each round,
+     * among the methods that grow in the round.
+     */
+    private static final double DOWNGRADE_RATIO = 0.1;
+
+    /**
+     * Number of hottest types reported in each round.
+     */
+    private static final int REPORTED_TYPES = 5;
+
+    private final KLimitingSelector<?> delegate;
+
+    private final ContextFactory<?> factory;
+
+    /**
+     * Time budget in milliseconds, -1 means no limit.
+     */
+    private final long timeBudget;
+
+    /**
+     * Memory budget in bytes, -1 means no limit.
+     */
+    private final long memoryBudget;
+
+    /**
+     * Context length limits of the downgraded methods.
+     */
+    private final Map<JMethod, Integer> limits = Maps.newMap();
+
+    private final Map<JMethod, Growth> growths = Maps.newMap();
+
+    private Solver solver;
+
+    private long startTime;
+
+    private long updates = 0;
+
+    /**
+     * Number of updates when the next round of downgrading can start.
+     */
+    private long nextRound = 0;
+
+    private int rounds = 0;
+
+    private boolean isOverMemory = false;
+
+    /**
+     * Growth of pointer analysis in a method.
+     */
+    private static class Growth {
+
+        private int contexts;
+
+        private long volume;
+
+        /**
+         * Volume at the end of last round.
+         */
+        private long lastVolume;
+    }
+
+    /**
+     * @param delegate     the selector whose context sensitivity is adapted.
+     * @param timeBudget   time budget in seconds, -1 means no limit.
+     * @param memoryBudget memory budget in MB, -1 means no limit.
+     */
+    AdaptiveSelector(KLimitingSelector<?> delegate,
+                     long timeBudget, long memoryBudget) {
+        this.delegate = delegate;
+        this.factory = delegate.factory;
+        this.timeBudget = timeBudget < 0 ? -1 : timeBudget * 1000;
+        this.memoryBudget = memoryBudget < 0 ? -1 : memoryBudget * 1024 * 1024;
+    }
+
+    @Override
+    public Context getEmptyContext() {
+        return delegate.getEmptyContext();
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, JMethod callee) {
+        return limit(delegate.selectContext(callSite, callee), callee);
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
+        return limit(delegate.selectContext(callSite, recv, callee), callee);
+    }
+
+    @Override
+    public Context selectHeapContext(CSMethod method, Obj obj) {
+        return delegate.selectHeapContext(method, obj);
+    }
+
+    private Context limit(Context context, JMethod callee) {
+        Integer limit = limits.get(callee);
+        return limit == null ? context : factory.makeLastK(context, limit);
+    }
+
+    @Override
+    public void setSolver(Solver solver) {
+        this.solver = solver;
+    }
+
+    @Override
+    public void onStart() {
+        startTime = System.currentTimeMillis();
+    }
+
+    @Override
+    public void onNewCSMethod(CSMethod csMethod) {
+        ++getGrowth(csMethod.getMethod()).contexts;
+        update();
+    }
+
+    @Override
+    public void onNewPointsToSet(CSVar csVar, PointsToSet pts) {
+        getGrowth(csVar.getVar().getMethod()).volume += pts.size();
+        update();
+    }
+
+    private Growth getGrowth(JMethod method) {
+        return growths.computeIfAbsent(method, __ -> new Growth());
+    }
+
+    private void update() {
+        ++updates;
+        if (memoryBudget >= 0 && updates % CHECK_INTERVAL == 0) {
+            Runtime runtime = Runtime.getRuntime();
+            isOverMemory = runtime.totalMemory() - runtime.freeMemory() > memoryBudget;
+        }
+        if (updates >= nextRound) {
+            if (isOverMemory) {
+                downgrade("memory");
+            } else if (timeBudget >= 0
+                    && System.currentTimeMillis() - startTime > timeBudget) {
+                downgrade("time");
+            }
+        }
+    }
+
+    /**
+     * Downgrades the methods which grow fastest since last round.
+     */
+    private void downgrade(String budget) {
+        List<Map.Entry<JMethod, Growth>> candidates = growths.entrySet()
+                .stream()
+                .filter(e -> getLimit(e.getKey()) > 0
+                        && e.getValue().volume > e.getValue().lastVolume)
+                .sorted(Comparator.comparingLong((Map.Entry<JMethod, Growth> e) ->
+                        e.getValue().volume - e.getValue().lastVolume).reversed())
+                .toList();
+        if (candidates.isEmpty()) {
+            nextRound = updates + CHECK_INTERVAL;
+            return;
+        }
+        ++rounds;
+        nextRound = updates + ROUND_INTERVAL;
+        int n = Math.max(1, (int) Math.ceil(candidates.size() * DOWNGRADE_RATIO));
+        Map<JClass, Long> typeVolumes = Maps.newMap();
+        for (Map.Entry<JMethod, Growth> e : candidates.subList(0, n)) {
+            JMethod method = e.getKey();
+            Growth growth = e.getValue();
+            int limit = getLimit(method) - 1;
+            limits.put(method, limit);
+            typeVolumes.merge(method.getDeclaringClass(),
+                    growth.volume - growth.lastVolume, Long::sum);
+            logger.debug("Downgrade {} to {}-limiting contexts" +
+                            " (contexts: {}, points-to volume: {})",
+                    method, limit, growth.contexts, growth.volume);
+        }
+        growths.values().forEach(growth -> growth.lastVolume = growth.volume);
+        logger.info("Adaptive context sensitivity: {} budget is exceeded" +
+                        " (elapsed time: {}s), downgrade {} methods in round {}," +
+                        " hottest types: {}",
+                budget, (System.currentTimeMillis() - startTime) / 1000.0,
+                n, rounds, typeVolumes.entrySet()
+                        .stream()
+                        .sorted(Map.Entry.<JClass, Long>comparingByValue().reversed())
+                        .limit(REPORTED_TYPES)
+                        .map(e -> e.getKey() + "(" + e.getValue() + ")")
+                        .toList());
+    }
+
+    private int getLimit(JMethod method) {
+        return limits.getOrDefault(method, delegate.limit);
+    }
+
+    @Override
+    public void onFinish() {
+        if (rounds > 0) {
+            long ciMethods = limits.values()
+                    .stream()
+                    .filter(limit -> limit == 0)
+                    .count();
+            logger.info("Adaptive context sensitivity: downgraded {} methods" +
+                            " ({} to context insensitivity) in {} rounds",
+                    limits.size(), ciMethods, rounds);
+        }
+        solver.getResult().storeResult(
+                ContextSelectorFactory.ADAPTIVE_LIMITS, Map.copyOf(limits));
+    }
+}
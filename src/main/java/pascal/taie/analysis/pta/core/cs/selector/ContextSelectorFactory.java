@@ -38,6 +38,12 @@ import java.util.function.Predicate;
  */
 public class ContextSelectorFactory {
 
+    /**
+     * Key of the result of adaptive context sensitivity, i.e., the map
+     * from the downgraded methods to their context length limits.
+     */
+    public static final String ADAPTIVE_LIMITS = AdaptiveSelector.class.getName();
+
     /**
      * @return selector for context insensitivity.
      */
@@ -109,4 +115,23 @@ public class ContextSelectorFactory {
     public static ContextSelector makeGuidedSelector(Map<JMethod, String> csMap) {
         return new GuidedSelector(csMap);
     }
+
+    /**
+     * @return an adaptive context selector which starts with given context
+     * sensitivity variant, and downgrades the fastest-growing methods to
+     * shorter contexts when the time or memory budget is exceeded.
+     * If the variant is not k-limiting (e.g., ci), the plain selector
+     * is returned. The adaptive selector also acts as a
+     * {@link pascal.taie.analysis.pta.plugin.Plugin}, which should be
+     * added to the solver.
+     * @param timeBudget   time budget in seconds, -1 means no limit.
+     * @param memoryBudget memory budget in MB, -1 means no limit.
+     */
+    public static ContextSelector makeAdaptiveSelector(
+            String cs, long timeBudget, long memoryBudget) {
+        ContextSelector selector = makePlainSelector(cs);
+        return selector instanceof KLimitingSelector<?> kSelector
+                ? new AdaptiveSelector(kSelector, timeBudget, memoryBudget)
+                : selector;
+    }
 }
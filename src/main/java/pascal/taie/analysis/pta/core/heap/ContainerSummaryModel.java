@@ -0,0 +1,204 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.heap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.pta.toolkit.CollectionMethods;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.SignatureMatcher;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Heap model which summarizes the objects allocated inside a declared set
+ * of classes (e.g., internals of library collections such as
+ * {@code HashMap$Node}, backing arrays and iterators), and models other
+ * objects by their allocation sites.
+ * <p>
+ * The classes are declared by rules, each of which is of form
+ * {@code <classes>[=<granularity>]}, where {@code <classes>} is either
+ * {@code collection} (the library collection classes and their inner
+ * classes computed by {@link CollectionMethods}; application classes
+ * are excluded as their objects are usually of interest to clients)
+ * or a class pattern (e.g., {@code java.util.concurrent.*}, which may
+ * match application classes as well), and {@code <granularity>} is
+ * either {@code class} (default, objects of the same type allocated in the
+ * same class are merged) or {@code type} (objects of the same type allocated
+ * in any class of the rule are merged). For each allocation site, the first
+ * rule matching the declaring class of its container method is applied.
+ * <p>
+ * The summarized objects are {@link MergedObj}s, thus they are not
+ * qualified by heap contexts, which further cuts the number of
+ * context-sensitive objects and the volume of points-to sets.
+ */
+public class ContainerSummaryModel extends AbstractHeapModel {
+
+    private static final Logger logger = LogManager.getLogger(ContainerSummaryModel.class);
+
+    private final List<Rule> rules;
+
+    /**
+     * Cache of the rule applied to each class, {@code null} if none.
+     */
+    private final Map<JClass, Rule> classRules = Maps.newMap();
+
+    /**
+     * Cache of the objects for allocation sites, as {@link #doGetObj(New)}
+     * may be called multiple times for the same site.
+     */
+    private final Map<New, Obj> siteObjs = Maps.newMap();
+
+    private static class Rule {
+
+        private final String spec;
+
+        private final Set<JClass> classes;
+
+        private final boolean isPerClass;
+
+        private final Map<Type, MergedObj> typeSummaries = Maps.newMap();
+
+        private final TwoKeyMap<JClass, Type, MergedObj> classSummaries =
+                Maps.newTwoKeyMap();
+
+        /**
+         * Number of allocation sites summarized by this rule.
+         */
+        private int sites = 0;
+
+        private Rule(String spec, Set<JClass> classes, boolean isPerClass) {
+            this.spec = spec;
+            this.classes = classes;
+            this.isPerClass = isPerClass;
+        }
+
+        private int getSummaries() {
+            return isPerClass ? classSummaries.size() : typeSummaries.size();
+        }
+    }
+
+    public ContainerSummaryModel(AnalysisOptions options) {
+        super(options);
+        @SuppressWarnings("unchecked")
+        List<String> specs = (List<String>) options.get("container-summary-rules");
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        SignatureMatcher matcher = new SignatureMatcher(hierarchy);
+        rules = new ArrayList<>(specs.size());
+        for (String spec : specs) {
+            rules.add(parseRule(spec, hierarchy, matcher));
+        }
+    }
+
+    private static Rule parseRule(String spec, ClassHierarchy hierarchy,
+                                  SignatureMatcher matcher) {
+        String classes = spec;
+        boolean isPerClass = true;
+        int i = spec.lastIndexOf('=');
+        if (i >= 0) {
+            classes = spec.substring(0, i);
+            isPerClass = switch (spec.substring(i + 1)) {
+                case "class" -> true;
+                case "type" -> false;
+                default -> throw new ConfigException(
+                        "Illegal granularity of container summary rule: " + spec);
+            };
+        }
+        Set<JClass> classSet = classes.equals("collection")
+                ? new CollectionMethods(hierarchy).get()
+                .stream()
+                .map(JMethod::getDeclaringClass)
+                .filter(c -> !c.isApplication())
+                .collect(Collectors.toUnmodifiableSet())
+                : matcher.getClasses(classes);
+        return new Rule(spec, classSet, isPerClass);
+    }
+
+    @Override
+    protected Obj doGetObj(New allocSite) {
+        return siteObjs.computeIfAbsent(allocSite, site -> {
+            JClass jclass = site.getContainer().getDeclaringClass();
+            Rule rule;
+            if (classRules.containsKey(jclass)) {
+                rule = classRules.get(jclass);
+            } else {
+                rule = getRule(jclass);
+                classRules.put(jclass, rule);
+            }
+            return rule != null ? summarize(rule, site) : getNewObj(site);
+        });
+    }
+
+    @Nullable
+    private Rule getRule(JClass jclass) {
+        for (Rule rule : rules) {
+            if (rule.classes.contains(jclass)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private MergedObj summarize(Rule rule, New allocSite) {
+        Type type = allocSite.getRValue().getType();
+        MergedObj summary;
+        if (rule.isPerClass) {
+            JClass jclass = allocSite.getContainer().getDeclaringClass();
+            summary = rule.classSummaries.computeIfAbsent(jclass, type,
+                    (c, t) -> add(new MergedObj(t,
+                            "<Summarized " + t + " in " + c + ">")));
+        } else {
+            summary = rule.typeSummaries.computeIfAbsent(type,
+                    t -> add(new MergedObj(t,
+                            "<Summarized " + t + " by " + rule.spec + ">")));
+        }
+        summary.addRepresentedObj(getNewObj(allocSite));
+        ++rule.sites;
+        return summary;
+    }
+
+    /**
+     * Logs the statistics of each rule.
+     */
+    public void logStatistics() {
+        for (Rule rule : rules) {
+            logger.info("Container summary rule {}: {} classes," +
+                            " {} allocation sites summarized by {} objects",
+                    rule.spec, rule.classes.size(), rule.sites, rule.getSummaries());
+        }
+    }
+}
@@ -141,6 +141,11 @@ public class DefaultSolver implements Solver {
      */
     private volatile boolean isTimeout;
 
+    /**
+     * Whether the analysis has been requested to stop via {@link #stop()}.
+     */
+    private volatile boolean isStopped;
+
     private Plugin plugin;
 
     private WorkList workList;
@@ -174,7 +179,8 @@ public class DefaultSolver implements Solver {
         this.csManager = csManager;
         hierarchy = World.get().getClassHierarchy();
         typeSystem = World.get().getTypeSystem();
-        ptsFactory = new PointsToSetFactory(csManager.getObjectIndexer());
+        ptsFactory = new PointsToSetFactory(csManager.getObjectIndexer(),
+                options.getString("pts-bit-set"));
         propTypes = new PropagateTypes(
                 (List<String>) options.get("propagate-types"),
                 typeSystem);
@@ -260,6 +266,7 @@ public class DefaultSolver implements Solver {
         ignoredMethods = Sets.newSet();
         stmtProcessor = new StmtProcessor();
         isTimeout = false;
+        isStopped = false;
         if (timeLimit != UNLIMITED) {
             timeLimiter = new TimeLimiter(timeLimit);
             timeLimiter.countDown();
@@ -305,9 +312,17 @@ public class DefaultSolver implements Solver {
      * Processes work list entries until the work list is empty.
      */
     private void analyze() {
-        while (!workList.isEmpty() && !isTimeout) {
+        while (!workList.isEmpty() && !isTimeout && !isStopped) {
             // phase starts
-            while (!workList.isEmpty() && !isTimeout) {
+            while (!isTimeout && !isStopped) {
+                if (workList.isEmpty()) {
+                    // let plugins flush their batched work, and finish
+                    // the phase only if no more entries are added
+                    plugin.onWorkListEmpty();
+                    if (workList.isEmpty()) {
+                        break;
+                    }
+                }
                 WorkList.Entry entry = workList.pollEntry();
                 if (entry instanceof WorkList.PointerEntry pEntry) {
                     Pointer p = pEntry.pointer();
@@ -333,6 +348,10 @@ public class DefaultSolver implements Solver {
         } else if (timeLimiter != null) { // finish normally but time limiter is still running
             timeLimiter.stop();
         }
+        if (!workList.isEmpty() && isStopped) {
+            logger.warn("Pointer analysis stops early as it is requested to stop," +
+                    " and the result may be unsound!");
+        }
         plugin.onFinish();
     }
 
@@ -878,6 +897,16 @@ public class DefaultSolver implements Solver {
         }
     }
 
+    @Override
+    public void stop() {
+        isStopped = true;
+    }
+
+    @Override
+    public void resume() {
+        isStopped = false;
+    }
+
     @Override
     public PointerAnalysisResult getResult() {
         if (result == null) {
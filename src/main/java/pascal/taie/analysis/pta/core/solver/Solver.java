@@ -225,6 +225,21 @@ public interface Solver {
      * @param cls the class to be initialized.
      */
     void initializeClass(JClass cls);
+
+    /**
+     * Requests this solver to stop the analysis early. The solver stops
+     * processing the work list after the current entry, and then finishes
+     * the analysis as usual, thus the result may be unsound.
+     */
+    void stop();
+
+    /**
+     * Cancels the previous request to stop the analysis, so that the
+     * solver continues processing the work list. This is useful for
+     * the plugins which re-run the analysis in {@link Plugin#onPhaseFinish()}
+     * after it has been stopped.
+     */
+    void resume();
     // ---------- side-effect APIs (end) ----------
 
     /**
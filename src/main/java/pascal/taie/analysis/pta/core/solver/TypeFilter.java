@@ -22,6 +22,7 @@
 
 package pascal.taie.analysis.pta.core.solver;
 
+import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.language.type.NullType;
 import pascal.taie.language.type.ReferenceType;
@@ -55,11 +56,19 @@ public class TypeFilter implements Transfer {
     public PointsToSet apply(PointerFlowEdge edge, PointsToSet input) {
         PointsToSet result = ptsFactory.get();
         input.objects()
-                .filter(o -> isAssignable(o.getObject().getType(), type))
+                .filter(o -> accepts(o.getObject()))
                 .forEach(result::addObject);
         return result;
     }
 
+    /**
+     * @return {@code true} if the type of given object is a subtype of
+     * the guard type, i.e., the object passes this filter.
+     */
+    public boolean accepts(Obj obj) {
+        return isAssignable(obj.getType(), type);
+    }
+
     private boolean isAssignable(Type from, Type to) {
         return (from instanceof NullType)
                 ? to instanceof ReferenceType
@@ -90,6 +90,13 @@ public class CompositePlugin implements Plugin {
         }
     }
 
+    public void removePlugin(Plugin plugin) {
+        Stream.of(allPlugins,
+                onNewPointsToSetPlugins, onNewCallEdgePlugins, onNewMethodPlugins,
+                onNewStmtPlugins, onNewCSMethodPlugins, onUnresolvedCallPlugins
+        ).forEach(plugins -> plugins.remove(plugin));
+    }
+
     public void clearPlugins() {
         Stream.of(allPlugins,
                 onNewPointsToSetPlugins, onNewCallEdgePlugins, onNewMethodPlugins,
@@ -107,6 +114,11 @@ public class CompositePlugin implements Plugin {
         allPlugins.forEach(Plugin::onStart);
     }
 
+    @Override
+    public void onWorkListEmpty() {
+        allPlugins.forEach(Plugin::onWorkListEmpty);
+    }
+
     @Override
     public void onPhaseFinish() {
         allPlugins.forEach(Plugin::onPhaseFinish);
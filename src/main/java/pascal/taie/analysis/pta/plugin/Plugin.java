@@ -58,6 +58,17 @@ public interface Plugin {
     default void onStart() {
     }
 
+    /**
+     * Invoked when the work list of pointer analysis becomes empty,
+     * before the current phase finishes. Plugins which batch up the work
+     * triggered by other callbacks should flush it here; if any entries
+     * are added to the work list, pointer analysis continues the current
+     * phase, so the batched work reaches fixpoint before
+     * {@link #onPhaseFinish()} is invoked.
+     */
+    default void onWorkListEmpty() {
+    }
+
     /**
      * Invoked when pointer analysis has processed all entries in the work list.
      * Some plugins need to perform certain computation at this stage
@@ -28,6 +28,7 @@ import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
+import pascal.taie.analysis.misc.BinaryResultWriter;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
@@ -79,6 +80,8 @@ public class ResultProcessor implements Plugin {
 
     public static final String RESULTS_YAML_FILE = "pta-results.yml";
 
+    public static final String RESULTS_BINARY_FILE = "pta-results.bin";
+
     private static final String CI_RESULTS_FILE = "pta-ci-results.txt";
 
     private static final String HEADER = "Points-to sets of all ";
@@ -120,6 +123,12 @@ public class ResultProcessor implements Plugin {
             dumpPointsToSetInYaml(result);
         }
 
+        if (options.getBoolean("dump-binary")) {
+            BinaryResultWriter.write(result.getCallGraph(), result,
+                    new File(World.get().getOptions().getOutputDir(),
+                            RESULTS_BINARY_FILE));
+        }
+
         String expectedFile = options.getString("expected-file");
         if (expectedFile != null) {
             if (taintEnabled) {
@@ -46,7 +46,7 @@ public class CSMethodThrowResult {
         uncaughtExceptions = setFactory.get();
     }
 
-    Set<CSObj> propagate(Stmt stmt, Set<CSObj> exceptions) {
+    SetEx<CSObj> propagate(Stmt stmt, Set<CSObj> exceptions) {
         return explicitExceptions.computeIfAbsent(stmt, __ -> setFactory.get())
                 .addAllDiff(exceptions);
     }
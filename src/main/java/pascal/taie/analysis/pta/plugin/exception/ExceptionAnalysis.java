@@ -31,23 +31,22 @@ import pascal.taie.analysis.pta.core.cs.element.CSManager;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
 import pascal.taie.analysis.pta.core.cs.element.CSVar;
-import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.core.solver.Solver;
 import pascal.taie.analysis.pta.plugin.Plugin;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.proginfo.ExceptionEntry;
-import pascal.taie.ir.stmt.Catch;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.ir.stmt.Throw;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
 import pascal.taie.language.type.TypeSystem;
 import pascal.taie.util.collection.IndexerBitSet;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
 import pascal.taie.util.collection.SetEx;
-import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.TwoKeyMap;
 
 import java.util.ArrayDeque;
 import java.util.List;
@@ -79,14 +78,74 @@ public class ExceptionAnalysis implements Plugin {
             Maps.newMap(1024);
 
     /**
-     * Work-list of exception entries to be propagated.
+     * Map from each callee to the call sites calling it, i.e., reverse
+     * call edges along which exceptions are propagated.
+     */
+    private MultiMap<CSMethod, CSCallSite> callers = Maps.newMultiMap();
+
+    /**
+     * Map from each catch type to its filter.
+     */
+    private Map<Type, CatchFilter> catchFilters = Maps.newMap();
+
+    /**
+     * Exceptions which are thrown by statements but have not been
+     * propagated yet. Exceptions thrown by the same statement (in the
+     * same context) are merged until they are propagated.
+     */
+    private TwoKeyMap<CSMethod, Stmt, SetEx<CSObj>> pendingExceptions =
+            Maps.newTwoKeyMap();
+
+    /**
+     * Work-list of statements which have pending exceptions.
      */
     private Queue<Entry> workList = new ArrayDeque<>();
 
     /**
      * Work-list entries.
      */
-    private record Entry(CSMethod csMethod, Stmt stmt, Set<CSObj> exceptions) {
+    private record Entry(CSMethod csMethod, Stmt stmt) {
+    }
+
+    /**
+     * Filter of a catch type. It caches the results of subtype checks
+     * as bit masks over the index of exception objects, so that
+     * the exceptions caught by the type can be computed by bit operations.
+     */
+    private class CatchFilter {
+
+        private final Type catchType;
+
+        /**
+         * Exception objects which have been checked.
+         */
+        private final SetEx<CSObj> checked = setFactory.get();
+
+        /**
+         * Exception objects which are caught by the catch type.
+         */
+        private final SetEx<CSObj> caught = setFactory.get();
+
+        private CatchFilter(Type catchType) {
+            this.catchType = catchType;
+        }
+
+        /**
+         * @return the exceptions in given set which are caught by the catch type.
+         */
+        private SetEx<CSObj> filter(SetEx<CSObj> exceptions) {
+            if (!checked.containsAll(exceptions)) {
+                for (CSObj exception : exceptions) {
+                    if (checked.add(exception) && typeSystem.isSubtype(
+                            catchType, exception.getObject().getType())) {
+                        caught.add(exception);
+                    }
+                }
+            }
+            SetEx<CSObj> result = exceptions.copy();
+            result.retainAll(caught);
+            return result;
+        }
     }
 
     @Override
@@ -125,8 +184,9 @@ public class ExceptionAnalysis implements Plugin {
     }
 
     /**
-     * If the csVar is an exception reference, propagate all the exception
-     * it newly throws.
+     * If the csVar is an exception reference, records all the exceptions
+     * it newly throws, which will be propagated when the work list of
+     * the solver becomes empty.
      *
      * @param csVar variable pointer
      * @param pts   objects added to the csVar points to set
@@ -139,16 +199,16 @@ public class ExceptionAnalysis implements Plugin {
             Context ctx = csVar.getContext();
             JMethod currentMethod = exceptionRef.getMethod();
             CSMethod currentCSMethod = csManager.getCSMethod(ctx, currentMethod);
-            throwStmts.forEach(throwStmt -> workList.add(
-                    new Entry(currentCSMethod, throwStmt, pts.getObjects())));
-            propagateExceptions();
+            Set<CSObj> exceptions = pts.getObjects();
+            throwStmts.forEach(throwStmt ->
+                    addPendingExceptions(currentCSMethod, throwStmt, exceptions));
         }
     }
 
     /**
      * For a new call edge, the exception thrown by the callee method should be
      * propagated to its callers, and thrown by the invoke statement,
-     * then we propagate the thrown exceptions accordingly.
+     * then we record the thrown exceptions accordingly.
      *
      * @param edge the newly established call edge
      */
@@ -157,16 +217,39 @@ public class ExceptionAnalysis implements Plugin {
         if (edge.getKind() != CallKind.OTHER) {
             // currently, don't propagate exceptions along OTHER edges
             CSMethod callee = edge.getCallee();
+            CSCallSite callSite = edge.getCallSite();
+            callers.put(callee, callSite);
             Optional<CSMethodThrowResult> csResult =
                     callee.getResult(getClass().getName());
-            csResult.ifPresent(result -> {
-                CSMethod caller = edge.getCallSite().getContainer();
-                Invoke invoke = edge.getCallSite().getCallSite();
-                Set<CSObj> exceptions = result.mayThrowUncaught();
-                workList.add(new Entry(caller, invoke, exceptions));
-                propagateExceptions();
-            });
+            csResult.ifPresent(result -> addPendingExceptions(
+                    callSite.getContainer(), callSite.getCallSite(),
+                    result.mayThrowUncaught()));
+        }
+    }
+
+    /**
+     * Propagates the exceptions recorded so far in batch. The caught
+     * exceptions flowing to catch variables are added to the work list,
+     * so the solver continues current phase until both the work list
+     * and the pending exceptions are exhausted.
+     */
+    @Override
+    public void onWorkListEmpty() {
+        propagateExceptions();
+    }
+
+    private void addPendingExceptions(
+            CSMethod csMethod, Stmt stmt, Set<CSObj> exceptions) {
+        if (exceptions.isEmpty()) {
+            return;
         }
+        SetEx<CSObj> pending = pendingExceptions.get(csMethod, stmt);
+        if (pending == null) {
+            pending = setFactory.get();
+            pendingExceptions.put(csMethod, stmt, pending);
+            workList.add(new Entry(csMethod, stmt));
+        }
+        pending.addAll(exceptions);
     }
 
     /**
@@ -181,25 +264,18 @@ public class ExceptionAnalysis implements Plugin {
             Entry entry = workList.poll();
             CSMethod csMethod = entry.csMethod();
             Stmt stmt = entry.stmt();
-            Set<CSObj> exceptions = entry.exceptions();
+            SetEx<CSObj> exceptions = pendingExceptions.remove(csMethod, stmt);
             CSMethodThrowResult result = csMethod.getResult(getClass().getName(),
                     () -> new CSMethodThrowResult(setFactory));
-            Set<CSObj> diff = result.propagate(stmt, exceptions);
+            SetEx<CSObj> diff = result.propagate(stmt, exceptions);
             if (!diff.isEmpty()) {
                 Set<CSObj> uncaught = analyzeIntraUncaught(
                         stmt, diff, csMethod);
                 if (!uncaught.isEmpty()) {
                     result.addUncaughtExceptions(uncaught);
-                    solver.getCallGraph()
-                            .edgesInTo(csMethod)
-                            // currently, don't propagate exceptions along OTHER edges
-                            .filter(edge -> edge.getKind() != CallKind.OTHER)
-                            .forEach(edge -> {
-                                CSCallSite callSite = edge.getCallSite();
-                                CSMethod caller = callSite.getContainer();
-                                Invoke invoke = callSite.getCallSite();
-                                workList.add(new Entry(caller, invoke, uncaught));
-                            });
+                    callers.get(csMethod).forEach(callSite ->
+                            addPendingExceptions(callSite.getContainer(),
+                                    callSite.getCallSite(), uncaught));
                 }
             }
         }
@@ -216,25 +292,26 @@ public class ExceptionAnalysis implements Plugin {
      */
     private Set<CSObj> analyzeIntraUncaught(
             Stmt currentStmt,
-            Set<CSObj> newExceptions,
+            SetEx<CSObj> newExceptions,
             CSMethod csMethod) {
         List<ExceptionEntry> entries = catchers.get(csMethod.getMethod())
                 .get(currentStmt);
         if (entries != null) {
             Context ctx = csMethod.getContext();
             for (ExceptionEntry entry : entries) {
-                Set<CSObj> uncaughtExceptions = Sets.newHybridSet();
-                newExceptions.forEach(newException -> {
-                    Obj exObj = newException.getObject();
-                    if (typeSystem.isSubtype(entry.catchType(), exObj.getType())) {
-                        Catch catchStmt = entry.handler();
-                        Var exceptionRef = catchStmt.getExceptionRef();
-                        solver.addVarPointsTo(ctx, exceptionRef, newException);
-                    } else {
-                        uncaughtExceptions.add(newException);
+                SetEx<CSObj> caught = catchFilters.computeIfAbsent(
+                                entry.catchType(), CatchFilter::new)
+                        .filter(newExceptions);
+                if (!caught.isEmpty()) {
+                    Var exceptionRef = entry.handler().getExceptionRef();
+                    PointsToSet pts = solver.makePointsToSet();
+                    caught.forEach(pts::addObject);
+                    solver.addVarPointsTo(ctx, exceptionRef, pts);
+                    newExceptions.removeAll(caught);
+                    if (newExceptions.isEmpty()) {
+                        break;
                     }
-                });
-                newExceptions = uncaughtExceptions;
+                }
             }
         }
         return newExceptions;
@@ -259,6 +336,9 @@ public class ExceptionAnalysis implements Plugin {
     private void clear() {
         var2Throws = null;
         catchers = null;
+        callers = null;
+        catchFilters = null;
+        pendingExceptions = null;
         workList = null;
     }
 }
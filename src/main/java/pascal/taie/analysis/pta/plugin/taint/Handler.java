@@ -23,8 +23,12 @@
 package pascal.taie.analysis.pta.plugin.taint;
 
 import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.core.solver.Solver;
 
+import javax.annotation.Nullable;
+
 /**
  * Abstract class for taint analysis handlers.
  */
@@ -38,10 +42,26 @@ abstract class Handler {
 
     protected final boolean callSiteMode;
 
+    @Nullable
+    protected final TaintLane lane;
+
     protected Handler(HandlerContext context) {
         solver = context.solver();
         csManager = solver.getCSManager();
         manager = context.manager();
         callSiteMode = context.config().callSiteMode();
+        lane = context.lane();
+    }
+
+    /**
+     * Adds a taint object to given pointer, either to its points-to set
+     * or to the taint lane (if it is enabled).
+     */
+    protected void addTaint(Pointer pointer, Obj taint) {
+        if (lane != null) {
+            lane.addTaint(pointer, taint);
+        } else {
+            solver.addPointsTo(pointer, taint);
+        }
     }
 }
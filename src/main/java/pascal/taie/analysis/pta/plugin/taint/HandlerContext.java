@@ -24,10 +24,17 @@ package pascal.taie.analysis.pta.plugin.taint;
 
 import pascal.taie.analysis.pta.core.solver.Solver;
 
+import javax.annotation.Nullable;
+
 /**
  * Contains information used by taint analysis handlers.
+ *
+ * @param lane the lane which propagates taint objects separately from
+ *             points-to sets, or {@code null} if taint objects are
+ *             propagated in points-to sets.
  */
 public record HandlerContext(Solver solver,
                       TaintManager manager,
-                      TaintConfig config) {
+                      TaintConfig config,
+                      @Nullable TaintLane lane) {
 }
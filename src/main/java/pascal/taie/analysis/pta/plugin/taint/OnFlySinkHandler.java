@@ -0,0 +1,213 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.plugin.util.InvokeUtils;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Detects taint flows on the fly with pointer analysis, so that taint flows
+ * are reported as soon as taint objects reach the arguments of sink calls.
+ * <p>
+ * This handler also supports stopping pointer analysis early, once given
+ * number of taint flows are detected or all sinks have been reached by
+ * taint objects. It only checks sinks whose {@link IndexRef} kind is
+ * {@link IndexRef.Kind#VAR}, as the other kinds involve points-to sets of
+ * array indexes and instance fields, which are not notified to plugins.
+ * Each detected taint flow is passed to a consumer immediately, e.g.,
+ * to stream it to the report file. The complete taint flows are still
+ * collected by {@link SinkHandler} after pointer analysis finishes.
+ */
+class OnFlySinkHandler extends OnFlyHandler {
+
+    private static final Logger logger = LogManager.getLogger(OnFlySinkHandler.class);
+
+    /**
+     * Map from a sink method to its sinks.
+     */
+    private final MultiMap<JMethod, Sink> sinks = Maps.newMultiMap();
+
+    /**
+     * Map from a method to {@link Invoke} statements in the method
+     * which matches any sink.
+     * This map matters only when call-site mode is enabled.
+     */
+    private final MultiMap<JMethod, Invoke> callSiteSinks = Maps.newMultiMap();
+
+    /**
+     * Map from a sink argument to corresponding sink points.
+     */
+    private final MultiMap<CSVar, SinkPoint> sinkArgs = Maps.newMultiMap();
+
+    private final Set<TaintFlow> taintFlows = Sets.newSet();
+
+    /**
+     * Consumer of the newly detected taint flows.
+     */
+    private final Consumer<TaintFlow> flowConsumer;
+
+    private final Set<Sink> reachedSinks = Sets.newSet();
+
+    /**
+     * Number of sinks that can be checked by this handler.
+     */
+    private final int numVarSinks;
+
+    /**
+     * Pointer analysis stops after detecting this number of taint flows.
+     * Non-positive value means no limit.
+     */
+    private final int maxFlows;
+
+    /**
+     * Whether pointer analysis stops after all sinks have been reached.
+     */
+    private final boolean stopOnAllSinks;
+
+    private boolean isStopped = false;
+
+    OnFlySinkHandler(HandlerContext context, Consumer<TaintFlow> flowConsumer) {
+        super(context);
+        this.flowConsumer = flowConsumer;
+        context.config().sinks().forEach(s -> sinks.put(s.method(), s));
+        numVarSinks = (int) context.config().sinks()
+                .stream()
+                .filter(s -> s.indexRef().kind() == IndexRef.Kind.VAR)
+                .count();
+        AnalysisOptions options = solver.getOptions();
+        maxFlows = options.getInt("taint-max-flows");
+        stopOnAllSinks = options.getBoolean("taint-stop-on-all-sinks");
+    }
+
+    @Override
+    public void onNewCallEdge(Edge<CSCallSite, CSMethod> edge) {
+        if (edge.getKind() == CallKind.OTHER) {
+            return;
+        }
+        Set<Sink> calleeSinks = sinks.get(edge.getCallee().getMethod());
+        if (!calleeSinks.isEmpty()) {
+            Context context = edge.getCallSite().getContext();
+            Invoke callSite = edge.getCallSite().getCallSite();
+            calleeSinks.forEach(sink -> processSinkCall(context, callSite, sink));
+        }
+    }
+
+    @Override
+    public void onNewStmt(Stmt stmt, JMethod container) {
+        if (callSiteMode &&
+                stmt instanceof Invoke invoke &&
+                !invoke.isDynamic()) {
+            JMethod callee = invoke.getMethodRef().resolveNullable();
+            if (sinks.containsKey(callee)) {
+                callSiteSinks.put(container, invoke);
+            }
+        }
+    }
+
+    @Override
+    public void onNewCSMethod(CSMethod csMethod) {
+        if (callSiteMode) {
+            Set<Invoke> callSites = callSiteSinks.get(csMethod.getMethod());
+            if (!callSites.isEmpty()) {
+                Context context = csMethod.getContext();
+                callSites.forEach(callSite -> {
+                    JMethod callee = callSite.getMethodRef().resolve();
+                    sinks.get(callee).forEach(sink ->
+                            processSinkCall(context, callSite, sink));
+                });
+            }
+        }
+    }
+
+    private void processSinkCall(Context context, Invoke callSite, Sink sink) {
+        IndexRef indexRef = sink.indexRef();
+        if (indexRef.kind() != IndexRef.Kind.VAR) {
+            return;
+        }
+        Var arg = InvokeUtils.getVar(callSite, indexRef.index());
+        if (arg == null) {
+            return;
+        }
+        CSVar csArg = csManager.getCSVar(context, arg);
+        SinkPoint sinkPoint = new SinkPoint(callSite, indexRef, sink);
+        if (sinkArgs.put(csArg, sinkPoint)) {
+            checkTaints(solver.getPointsToSetOf(csArg), sinkPoint);
+        }
+    }
+
+    @Override
+    public void onNewPointsToSet(CSVar csVar, PointsToSet pts) {
+        sinkArgs.get(csVar).forEach(sinkPoint -> checkTaints(pts, sinkPoint));
+    }
+
+    private void checkTaints(PointsToSet pts, SinkPoint sinkPoint) {
+        for (CSObj csObj : pts) {
+            if (manager.isTaint(csObj.getObject())) {
+                TaintFlow taintFlow = new TaintFlow(
+                        manager.getSourcePoint(csObj.getObject()), sinkPoint);
+                if (taintFlows.add(taintFlow)) {
+                    logger.info("Detected taint flow on the fly: {}", taintFlow);
+                    flowConsumer.accept(taintFlow);
+                    reachedSinks.add(sinkPoint.sink());
+                    stopIfNeeded();
+                }
+            }
+        }
+    }
+
+    private void stopIfNeeded() {
+        if (isStopped) {
+            return;
+        }
+        if (maxFlows > 0 && taintFlows.size() >= maxFlows) {
+            logger.info("Stop pointer analysis as {} taint flow(s) have been detected",
+                    taintFlows.size());
+        } else if (stopOnAllSinks && reachedSinks.size() == numVarSinks) {
+            logger.info("Stop pointer analysis as all {} sink(s) have been reached",
+                    reachedSinks.size());
+        } else {
+            return;
+        }
+        isStopped = true;
+        solver.stop();
+    }
+}
@@ -68,7 +68,11 @@ class SanitizerHandler extends OnFlyHandler {
             paramSanitizers.get(method).forEach(sanitizer -> {
                 Var param = getParam(ir, sanitizer.index());
                 CSVar csParam = csManager.getCSVar(context, param);
-                solver.addPointerFilter(csParam, taintFilter);
+                if (lane != null) {
+                    lane.addSanitizedPointer(csParam);
+                } else {
+                    solver.addPointerFilter(csParam, taintFilter);
+                }
             });
         }
     }
@@ -25,9 +25,7 @@ package pascal.taie.analysis.pta.plugin.taint;
 import pascal.taie.analysis.graph.callgraph.CallKind;
 import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
-import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
-import pascal.taie.analysis.pta.core.cs.element.InstanceField;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.plugin.util.InvokeUtils;
@@ -41,6 +39,7 @@ import pascal.taie.util.collection.Sets;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Handles sinks in taint analysis.
@@ -90,32 +89,33 @@ class SinkHandler extends Handler {
         IndexRef indexRef = sink.indexRef();
         Var arg = InvokeUtils.getVar(sinkCall, indexRef.index());
         SinkPoint sinkPoint = new SinkPoint(sinkCall, indexRef, sink);
-        // obtain objects to check for different IndexRef.Kind
-        Set<Obj> objs = switch (indexRef.kind()) {
+        // obtain pointers to check for different IndexRef.Kind
+        Stream<Pointer> pointers = switch (indexRef.kind()) {
             case VAR -> csManager.getCSVarsOf(arg)
                     .stream()
-                    .flatMap(Pointer::objects)
-                    .map(CSObj::getObject)
-                    .collect(Collectors.toUnmodifiableSet());
+                    .map(Pointer.class::cast);
             case ARRAY -> csManager.getCSVarsOf(arg)
                     .stream()
                     .flatMap(Pointer::objects)
-                    .map(csManager::getArrayIndex)
-                    .flatMap(ArrayIndex::objects)
-                    .map(CSObj::getObject)
-                    .collect(Collectors.toUnmodifiableSet());
+                    .map(csManager::getArrayIndex);
             case FIELD -> csManager.getCSVarsOf(arg)
                     .stream()
                     .flatMap(Pointer::objects)
-                    .map(o -> csManager.getInstanceField(o, indexRef.field()))
-                    .flatMap(InstanceField::objects)
-                    .map(CSObj::getObject)
-                    .collect(Collectors.toUnmodifiableSet());
+                    .map(o -> csManager.getInstanceField(o, indexRef.field()));
         };
+        Set<Obj> objs = pointers
+                .flatMap(this::getTaints)
+                .collect(Collectors.toUnmodifiableSet());
         return objs.stream()
                 .filter(manager::isTaint)
                 .map(manager::getSourcePoint)
                 .map(sourcePoint -> new TaintFlow(sourcePoint, sinkPoint))
                 .collect(Collectors.toSet());
     }
+
+    private Stream<Obj> getTaints(Pointer pointer) {
+        return lane != null
+                ? lane.getTaints(pointer).stream()
+                : pointer.objects().map(CSObj::getObject);
+    }
 }
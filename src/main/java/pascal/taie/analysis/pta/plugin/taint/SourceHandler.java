@@ -40,7 +40,10 @@ import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Pair;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -101,6 +104,30 @@ class SourceHandler extends OnFlyHandler {
         handleFieldSources = !fieldSources.isEmpty();
     }
 
+    /**
+     * Stops handling given sources, and forgets the taint objects
+     * generated by them. This is used to apply configuration changes
+     * incrementally in interactive mode.
+     */
+    void removeSources(Set<Source> removed) {
+        removed.forEach(src -> {
+            if (src instanceof CallSource callSrc) {
+                callSources.remove(callSrc.method(), callSrc);
+            } else if (src instanceof ParamSource paramSrc) {
+                paramSources.remove(paramSrc.method(), paramSrc);
+            } else if (src instanceof FieldSource fieldSrc) {
+                fieldSources.remove(fieldSrc.field());
+            }
+        });
+        List<Pair<Var, SourceInfo>> removedInfos = new ArrayList<>();
+        sourceInfos.forEach((var, info) -> {
+            if (removed.contains(manager.getSourcePoint(info.taint()).source())) {
+                removedInfos.add(new Pair<>(var, info));
+            }
+        });
+        removedInfos.forEach(p -> sourceInfos.remove(p.first(), p.second()));
+    }
+
     /**
      * Handles call sources.
      */
@@ -131,7 +158,7 @@ class SourceHandler extends OnFlyHandler {
         SourcePoint sourcePoint = new CallSourcePoint(callSite, indexRef, source);
         Obj taint = manager.makeTaint(sourcePoint, source.type());
         switch (indexRef.kind()) {
-            case VAR -> solver.addVarPointsTo(context, var, taint);
+            case VAR -> addTaint(csManager.getCSVar(context, var), taint);
             case ARRAY, FIELD -> {
                 SourceInfo info = new SourceInfo(indexRef, taint);
                 sourceInfos.put(var, info);
@@ -147,13 +174,12 @@ class SourceHandler extends OnFlyHandler {
         switch (indexRef.kind()) {
             case ARRAY -> baseObjs.objects()
                     .map(csManager::getArrayIndex)
-                    .forEach(arrayIndex -> solver.addPointsTo(arrayIndex, taint));
+                    .forEach(arrayIndex -> addTaint(arrayIndex, taint));
             case FIELD -> {
                 JField f = indexRef.field();
                 baseObjs.objects()
                         .map(o -> csManager.getInstanceField(o, f))
-                        .forEach(oDotF ->
-                                solver.addPointsTo(oDotF, taint));
+                        .forEach(oDotF -> addTaint(oDotF, taint));
             }
         }
     }
@@ -210,7 +236,7 @@ class SourceHandler extends OnFlyHandler {
                 SourcePoint sourcePoint = new ParamSourcePoint(method, indexRef, source);
                 Obj taint = manager.makeTaint(sourcePoint, source.type());
                 switch (indexRef.kind()) {
-                    case VAR -> solver.addVarPointsTo(context, param, taint);
+                    case VAR -> addTaint(csManager.getCSVar(context, param), taint);
                     case ARRAY, FIELD -> sourceInfos.put(
                             param, new SourceInfo(indexRef, taint));
                 }
@@ -231,9 +257,12 @@ class SourceHandler extends OnFlyHandler {
                 Var lhs = load.getLValue();
                 JField field = load.getFieldRef().resolve();
                 FieldSource fieldSrc = fieldSources.get(field);
+                if (fieldSrc == null) { // the source has been removed
+                    return;
+                }
                 SourcePoint sourcePoint = new FieldSourcePoint(method, load, fieldSrc);
                 Obj taint = manager.makeTaint(sourcePoint, fieldSrc.type());
-                solver.addVarPointsTo(context, lhs, taint);
+                addTaint(csManager.getCSVar(context, lhs), taint);
             });
         }
     }
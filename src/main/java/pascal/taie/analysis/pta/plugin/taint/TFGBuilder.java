@@ -37,13 +37,15 @@ import pascal.taie.analysis.pta.plugin.util.InvokeUtils;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.Indexer;
+import pascal.taie.util.SimpleIndexer;
+import pascal.taie.util.collection.IndexerBitSet;
 import pascal.taie.util.collection.Maps;
-import pascal.taie.util.collection.Sets;
-import pascal.taie.util.graph.Reachability;
+import pascal.taie.util.collection.SetEx;
 
+import javax.annotation.Nullable;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Deque;
 import java.util.List;
 import java.util.Map;
@@ -66,6 +68,13 @@ public class TFGBuilder {
 
     private final TaintManager taintManager;
 
+    /**
+     * The lane which holds taint objects, or {@code null} if
+     * taint objects are held in points-to sets.
+     */
+    @Nullable
+    private final TaintLane lane;
+
     /**
      * Whether only track taint flow in application code.
      */
@@ -79,15 +88,28 @@ public class TFGBuilder {
     /**
      * Map from a node to set of taint objects pointed to by the node.
      */
-    private Map<Node, Set<Obj>> node2TaintSet;
+    private Map<Node, SetEx<Obj>> node2TaintSet;
+
+    /**
+     * Indexer for taint objects, used to represent taint sets as bit sets.
+     */
+    private Indexer<Obj> taintIndexer;
 
     public TFGBuilder(PointerAnalysisResult pta,
                Set<TaintFlow> taintFlows,
                TaintManager taintManager) {
+        this(pta, taintFlows, taintManager, null);
+    }
+
+    public TFGBuilder(PointerAnalysisResult pta,
+                      Set<TaintFlow> taintFlows,
+                      TaintManager taintManager,
+                      @Nullable TaintLane lane) {
         this.pta = pta;
         this.ofg = pta.getObjectFlowGraph();
         this.taintFlows = taintFlows;
         this.taintManager = taintManager;
+        this.lane = lane;
     }
 
     /**
@@ -96,9 +118,10 @@ public class TFGBuilder {
     private TaintFlowGraph buildComplete() {
         // builds taint flow graph
         node2TaintSet = Maps.newMap();
+        taintIndexer = new SimpleIndexer<>(taintManager.getTaintObjs());
         TaintFlowGraph tfg = new TaintFlowGraph(
                 collectSourceNodes(), collectSinkNode());
-        Set<Node> visitedNodes = Sets.newSet();
+        Set<Node> visitedNodes = new IndexerBitSet<>(ofg, true);
         Deque<Node> workList = new ArrayDeque<>(
                 tfg.getSourceNodes());
         while (!workList.isEmpty()) {
@@ -116,6 +139,7 @@ public class TFGBuilder {
             }
         }
         node2TaintSet = null;
+        taintIndexer = null;
         return tfg;
     }
 
@@ -181,7 +205,7 @@ public class TFGBuilder {
     }
 
     private List<FlowEdge> getOutEdges(Node source) {
-        Set<Obj> sourceTaintSet = getTaintSet(source);
+        SetEx<Obj> sourceTaintSet = getTaintSet(source);
         List<FlowEdge> edges = new ArrayList<>();
         // collect OFG edges
         ofg.getOutEdgesOf(source).forEach(edge -> {
@@ -193,8 +217,7 @@ public class TFGBuilder {
                 case CAST, INSTANCE_LOAD, ARRAY_LOAD, RETURN -> {
                     // check whether target node also contains the same
                     // taint objects as source node to filter spurious edges
-                    Set<Obj> targetTaintSet = getTaintSet(edge.target());
-                    if (!Collections.disjoint(sourceTaintSet, targetTaintSet)) {
+                    if (sourceTaintSet.hasOverlapWith(getTaintSet(edge.target()))) {
                         edges.add(edge);
                     }
                 }
@@ -203,15 +226,17 @@ public class TFGBuilder {
         return edges;
     }
 
-    private Set<Obj> getTaintSet(Node node) {
-        Set<Obj> taintSet = node2TaintSet.get(node);
+    private SetEx<Obj> getTaintSet(Node node) {
+        SetEx<Obj> taintSet = node2TaintSet.get(node);
         if (taintSet == null) {
-            taintSet = getPointsToSet(node)
-                    .stream()
-                    .filter(taintManager::isTaint)
-                    .collect(Sets::newHybridSet, Set::add, Set::addAll);
-            if (taintSet.isEmpty()) {
-                taintSet = Set.of();
+            Set<Obj> objs = lane != null
+                    ? lane.getTaints(node)
+                    : getPointsToSet(node);
+            taintSet = new IndexerBitSet<>(taintIndexer, false);
+            for (Obj obj : objs) {
+                if (taintManager.isTaint(obj)) {
+                    taintSet.add(obj);
+                }
             }
             node2TaintSet.put(node, taintSet);
         }
@@ -235,15 +260,9 @@ public class TFGBuilder {
         TaintFlowGraph tfg = new TaintFlowGraph(
                 complete.getSourceNode2SourcePoint(),
                 complete.getSinkNode2SinkPoint());
-        Set<Node> nodesReachSink = null;
-        if (onlyReachSink) {
-            nodesReachSink = Sets.newHybridSet();
-            Reachability<Node> reachability = new Reachability<>(complete);
-            for (Node sink : complete.getSinkNodes()) {
-                nodesReachSink.addAll(reachability.nodesCanReach(sink));
-            }
-        }
-        Set<Node> visitedNodes = Sets.newSet();
+        Set<Node> nodesReachSink = onlyReachSink
+                ? getNodesReachSink(complete) : null;
+        Set<Node> visitedNodes = new IndexerBitSet<>(ofg, true);
         Deque<Node> workList = new ArrayDeque<>(complete.getSourceNodes());
         while (!workList.isEmpty()) {
             Node node = workList.poll();
@@ -262,6 +281,30 @@ public class TFGBuilder {
         return tfg;
     }
 
+    /**
+     * Collects the nodes that can reach any sink node in given graph
+     * by a single backward traversal from all sink nodes.
+     */
+    private Set<Node> getNodesReachSink(TaintFlowGraph graph) {
+        Set<Node> visited = new IndexerBitSet<>(ofg, true);
+        Deque<Node> stack = new ArrayDeque<>();
+        graph.getSinkNodes().forEach(sink -> {
+            if (visited.add(sink)) {
+                stack.push(sink);
+            }
+        });
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            for (FlowEdge edge : graph.getInEdgesOf(node)) {
+                Node pred = edge.source();
+                if (visited.add(pred)) {
+                    stack.push(pred);
+                }
+            }
+        }
+        return visited;
+    }
+
     private static boolean isApp(Node node) {
         if (node instanceof VarNode varNode) {
             return varNode.getVar().getMethod().isApplication();
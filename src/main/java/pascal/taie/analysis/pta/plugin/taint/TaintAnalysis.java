@@ -31,8 +31,10 @@ import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSManager;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.core.solver.Solver;
 import pascal.taie.analysis.pta.plugin.CompositePlugin;
+import pascal.taie.analysis.pta.plugin.Plugin;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.config.ConfigException;
@@ -42,11 +44,13 @@ import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.TypeSystem;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.Timer;
+import pascal.taie.util.collection.Sets;
 
 import javax.annotation.Nullable;
 import java.io.File;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -83,9 +87,18 @@ import java.util.Set;
  *   └►│     reportTaintFlows()    ├───┤and report taint flows       │
  *     └───────────────────────────┘   └─────────────────────────────┘
  * </code></pre>
+ * When the analysis is re-run in interactive mode, only the difference
+ * between the old and new taint configurations is applied if possible,
+ * instead of cleaning up and starting up from scratch.
  */
 public class TaintAnalysis extends CompositePlugin {
 
+    /**
+     * Key of the taint flows detected on the fly in the pointer analysis
+     * result. The flows are stored as a list in the order of detection.
+     */
+    public static final String ON_THE_FLY_FLOWS = TaintAnalysis.class.getName() + ".onTheFly";
+
     private static final Logger logger = LogManager.getLogger(TaintAnalysis.class);
 
     private static final String TAINT_FLOW_GRAPH_FILE = "taint-flow-graph.dot";
@@ -103,28 +116,114 @@ public class TaintAnalysis extends CompositePlugin {
 
     private HandlerContext context;
 
+    /**
+     * Source handlers created for the current taint analysis, which are
+     * notified when sources are removed in interactive mode.
+     */
+    private final List<SourceHandler> sourceHandlers = new ArrayList<>();
+
+    /**
+     * Number of the runs of taint analysis which have been reported.
+     * Each run in interactive mode writes its own report file.
+     */
+    private int reportedRuns = 0;
+
+    /**
+     * Reporter of the taint flows in the current run, which is opened
+     * on the first taint flow and closed when the taint flows are reported.
+     */
+    @Nullable
+    private TaintFlowReporter reporter;
+
+    /**
+     * Taint flows detected on the fly in the order of detection.
+     */
+    private final List<TaintFlow> onTheFlyFlows = new ArrayList<>();
+
+    /**
+     * Handler which detects taint flows on the fly, or null if
+     * on-the-fly sink detection is disabled.
+     */
+    @Nullable
+    private OnFlySinkHandler onFlySinkHandler;
+
     @Override
     public void setSolver(Solver solver) {
         this.solver = solver;
         isInteractive = solver.getOptions().getBoolean("taint-interactive-mode");
-        initialize();
+        initialize(loadConfig());
     }
 
-    private void initialize() {
+    private void initialize(TaintConfig config) {
         // clean composited plugins, taint objects and taint transfer edges
         isReported = false;
         clearPlugins();
+        sourceHandlers.clear();
+        onTheFlyFlows.clear();
         if (context != null) {
+            // the call edges resolved on taint receiver objects are kept,
+            // as call graph never shrinks, but the receivers are removed
             TaintManager manager = context.manager();
+            // taint objects are not in points-to sets if the lane is used
+            boolean cleanPts = context.lane() == null;
             solver.getCSManager().pointers().forEach(p -> {
                 PointsToSet pts = p.getPointsToSet();
-                if (pts != null) {
+                if (cleanPts && pts != null) {
                     pts.removeIf(csObj -> manager.isTaint(csObj.getObject()));
                 }
                 p.removeEdgesIf(TaintTransferEdge.class::isInstance);
             });
         }
-        // load taint configuration and create new handlers
+        // create new handlers
+        TaintManager manager = new TaintManager(solver.getHeapModel());
+        TaintLane lane = solver.getOptions().getBoolean("taint-lane")
+                ? new TaintLane(solver, manager) : null;
+        context = new HandlerContext(solver, manager, config, lane);
+        CompositePlugin handlers = createHandlers(context);
+        addPlugin(handlers);
+        // trigger the creation of taint objects
+        replay(handlers, config);
+        onFlySinkHandler = null;
+        if (isOnFlySinkDetectionEnabled(lane)) {
+            onFlySinkHandler = new OnFlySinkHandler(context, this::onNewTaintFlow);
+            addPlugin(onFlySinkHandler);
+            replay(onFlySinkHandler, sinksOf(config));
+        }
+    }
+
+    /**
+     * @return the configuration which contains only the sinks
+     * (and call-site mode) of given configuration.
+     */
+    private static TaintConfig sinksOf(TaintConfig config) {
+        return new TaintConfig(List.of(), config.sinks(),
+                List.of(), List.of(), config.callSiteMode());
+    }
+
+    /**
+     * @return true if taint flows should be detected on the fly
+     * with pointer analysis.
+     */
+    private boolean isOnFlySinkDetectionEnabled(@Nullable TaintLane lane) {
+        AnalysisOptions options = solver.getOptions();
+        if (options.getBoolean("taint-onfly-sinks")
+                || options.getInt("taint-max-flows") > 0
+                || options.getBoolean("taint-stop-on-all-sinks")) {
+            if (lane != null) {
+                logger.warn("Taint flows cannot be detected on the fly"
+                        + " when taint lane is enabled");
+                return false;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Loads taint configuration from the configuration file and
+     * the programmatic configuration providers.
+     */
+    private TaintConfig loadConfig() {
         AnalysisOptions options = solver.getOptions();
         TaintConfig config = TaintConfig.EMPTY;
         if (options.getString("taint-config") != null) {
@@ -156,31 +255,208 @@ public class TaintAnalysis extends CompositePlugin {
             }
         }
         logger.info(config);
-        context = new HandlerContext(solver, new TaintManager(
-                solver.getHeapModel()), config);
-        addPlugin(new SourceHandler(context),
+        return config;
+    }
+
+    /**
+     * Creates handlers for the configuration in given context.
+     */
+    private CompositePlugin createHandlers(HandlerContext context) {
+        SourceHandler sourceHandler = new SourceHandler(context);
+        sourceHandlers.add(sourceHandler);
+        CompositePlugin handlers = new CompositePlugin();
+        handlers.addPlugin(sourceHandler,
                 new TransferHandler(context),
                 new SanitizerHandler(context));
-        // trigger the creation of taint objects
+        return handlers;
+    }
+
+    /**
+     * Replays the events of pointer analysis happened so far to given
+     * handlers, so that they can take effect on the existing results.
+     * The events are replayed only on the methods relevant to given
+     * configuration, unless the handlers need to inspect statements.
+     */
+    private void replay(Plugin handlers, TaintConfig config) {
         CallGraph<CSCallSite, CSMethod> cg = solver.getCallGraph();
-        if (cg != null) {
-            CSManager csManager = solver.getCSManager();
-            boolean handleStmt = context.config().callSiteMode()
-                    || context.config().sources().stream().anyMatch(FieldSource.class::isInstance);
-            cg.reachableMethods().forEach(csMethod -> {
-                JMethod method = csMethod.getMethod();
-                Context ctxt = csMethod.getContext();
-                IR ir = csMethod.getMethod().getIR();
-                if (handleStmt) {
-                    ir.forEach(stmt -> onNewStmt(stmt, method));
-                }
-                this.onNewCSMethod(csMethod);
-                csMethod.getEdges().forEach(this::onNewCallEdge);
-                ir.getParams().forEach(param -> {
-                    CSVar csParam = csManager.getCSVar(ctxt, param);
-                    onNewPointsToSet(csParam, csParam.getPointsToSet());
-                });
+        if (cg == null) {
+            return;
+        }
+        CSManager csManager = solver.getCSManager();
+        boolean handleStmt = config.callSiteMode()
+                || config.sources().stream().anyMatch(FieldSource.class::isInstance);
+        Set<JMethod> relevantMethods = getRelevantMethods(config);
+        cg.reachableMethods().forEach(csMethod -> {
+            JMethod method = csMethod.getMethod();
+            if (!handleStmt && !relevantMethods.contains(method)) {
+                return;
+            }
+            Context ctxt = csMethod.getContext();
+            IR ir = method.getIR();
+            if (handleStmt) {
+                ir.forEach(stmt -> handlers.onNewStmt(stmt, method));
+            }
+            handlers.onNewCSMethod(csMethod);
+            csMethod.getEdges().forEach(handlers::onNewCallEdge);
+            ir.getParams().forEach(param -> {
+                CSVar csParam = csManager.getCSVar(ctxt, param);
+                handlers.onNewPointsToSet(csParam, csParam.getPointsToSet());
             });
+        });
+    }
+
+    /**
+     * @return the methods that are handled on-the-fly for given configuration.
+     */
+    private static Set<JMethod> getRelevantMethods(TaintConfig config) {
+        Set<JMethod> methods = Sets.newSet();
+        config.sources().forEach(src -> {
+            if (src instanceof CallSource callSrc) {
+                methods.add(callSrc.method());
+            } else if (src instanceof ParamSource paramSrc) {
+                methods.add(paramSrc.method());
+            }
+        });
+        config.transfers().forEach(t -> methods.add(t.method()));
+        config.paramSanitizers().forEach(s -> methods.add(s.method()));
+        config.sinks().forEach(s -> methods.add(s.method()));
+        return methods;
+    }
+
+    /**
+     * Applies the change from current configuration to given configuration.
+     * Removed sources retract the taint objects generated by them, and
+     * added sources and transfers are handled by new handlers replayed on
+     * the existing results. Changes whose effects cannot be retracted
+     * incrementally, i.e., removed transfers, changed sanitizers,
+     * switched call-site mode, and removed sources whose taint objects
+     * have been used as base or receiver objects, fall back to
+     * re-initialization. If sinks or sources are removed or sinks are
+     * added, the on-the-fly sink handler is rebuilt for the new
+     * configuration and the taint flows it has detected are discarded.
+     *
+     * @return true if the change may lead to further propagation.
+     */
+    private boolean reinitialize(TaintConfig config) {
+        ConfigChange change = ConfigChange.of(context.config(), config);
+        if (change.requiresReset()) {
+            logger.info("Re-initializing taint analysis");
+            initialize(config);
+            return true;
+        }
+        isReported = false;
+        TaintManager manager = context.manager();
+        TaintLane lane = context.lane();
+        Set<Source> removedSources = Set.copyOf(change.removed().sources());
+        if (!removedSources.isEmpty()) {
+            logger.info("Removing {} source(s)", removedSources.size());
+            sourceHandlers.forEach(h -> h.removeSources(removedSources));
+            Set<Obj> removedTaints = manager.removeTaints(removedSources);
+            if (lane == null && isUsedAsBaseOrReceiver(removedTaints)) {
+                logger.info("Re-initializing taint analysis as removed taint"
+                        + " objects have been used as base or receiver objects");
+                initialize(config);
+                return true;
+            }
+            if (lane != null) {
+                lane.removeTaints(removedTaints);
+            } else if (!removedTaints.isEmpty()) {
+                solver.getCSManager().pointers().forEach(p -> {
+                    PointsToSet pts = p.getPointsToSet();
+                    if (pts != null) {
+                        pts.removeIf(csObj -> removedTaints.contains(csObj.getObject()));
+                    }
+                });
+            }
+        }
+        context = new HandlerContext(solver, manager, config, lane);
+        TaintConfig added = change.added();
+        boolean changed = false;
+        if (!added.sources().isEmpty() || !added.transfers().isEmpty()) {
+            logger.info("Adding {} source(s) and {} transfer(s)",
+                    added.sources().size(), added.transfers().size());
+            CompositePlugin handlers = createHandlers(
+                    new HandlerContext(solver, manager, added, lane));
+            addPlugin(handlers);
+            replay(handlers, added);
+            changed = true;
+        }
+        boolean sinksChanged = !added.sinks().isEmpty()
+                || !change.removed().sinks().isEmpty();
+        if (onFlySinkHandler != null && (sinksChanged || !removedSources.isEmpty())) {
+            // the flows detected so far may involve removed sinks or
+            // sources, thus detect them again with the new configuration
+            logger.info("Rebuilding on-the-fly sink handler");
+            removePlugin(onFlySinkHandler);
+            onTheFlyFlows.clear();
+            onFlySinkHandler = new OnFlySinkHandler(context, this::onNewTaintFlow);
+            addPlugin(onFlySinkHandler);
+            replay(onFlySinkHandler, sinksOf(config));
+            changed |= sinksChanged;
+        }
+        return changed;
+    }
+
+    /**
+     * Checks whether any of given taint objects has been used as the base
+     * object of instance fields or array indexes (e.g., by taint transfers
+     * to/from fields), or as the receiver object of call sites. Besides
+     * points-to sets, such taint objects have affected the pointer flow
+     * graph and the call graph, thus they cannot be retracted by removing
+     * them from points-to sets.
+     */
+    private boolean isUsedAsBaseOrReceiver(Set<Obj> taints) {
+        if (taints.isEmpty()) {
+            return false;
+        }
+        CSManager csManager = solver.getCSManager();
+        return csManager.getInstanceFields()
+                .stream()
+                .anyMatch(f -> taints.contains(f.getBase().getObject()))
+                || csManager.getArrayIndexes()
+                .stream()
+                .anyMatch(a -> taints.contains(a.getArray().getObject()))
+                || csManager.getCSVars()
+                .stream()
+                .filter(v -> !v.getVar().getInvokes().isEmpty())
+                .anyMatch(v -> v.objects().anyMatch(
+                        o -> taints.contains(o.getObject())));
+    }
+
+    /**
+     * Difference between two taint configurations.
+     *
+     * @param added   the entries only in the new configuration.
+     * @param removed the entries only in the old configuration.
+     */
+    private record ConfigChange(TaintConfig added, TaintConfig removed) {
+
+        private static ConfigChange of(TaintConfig oldConfig, TaintConfig newConfig) {
+            return new ConfigChange(subtract(newConfig, oldConfig),
+                    subtract(oldConfig, newConfig));
+        }
+
+        private static TaintConfig subtract(TaintConfig c1, TaintConfig c2) {
+            return new TaintConfig(
+                    subtract(c1.sources(), c2.sources()),
+                    subtract(c1.sinks(), c2.sinks()),
+                    subtract(c1.transfers(), c2.transfers()),
+                    subtract(c1.paramSanitizers(), c2.paramSanitizers()),
+                    c1.callSiteMode() && !c2.callSiteMode());
+        }
+
+        private static <T> List<T> subtract(List<T> l1, List<T> l2) {
+            Set<T> s2 = Sets.newSet(l2);
+            return l1.stream()
+                    .filter(e -> !s2.contains(e))
+                    .toList();
+        }
+
+        private boolean requiresReset() {
+            return added.callSiteMode() || removed.callSiteMode()
+                    || !removed.transfers().isEmpty()
+                    || !added.paramSanitizers().isEmpty()
+                    || !removed.paramSanitizers().isEmpty();
         }
     }
 
@@ -199,8 +475,10 @@ public class TaintAnalysis extends CompositePlugin {
                 input = input.strip();
                 System.out.println("You have entered: '" + input + "'");
                 if ("r".equals(input)) {
-                    initialize();
-                    if (!context.manager().getTaintObjs().isEmpty()) {
+                    if (reinitialize(loadConfig())
+                            && !context.manager().getTaintObjs().isEmpty()) {
+                        // the analysis may have been stopped by OnFlySinkHandler
+                        solver.resume();
                         break;
                     }
                 } else if ("e".equals(input)) {
@@ -241,6 +519,37 @@ public class TaintAnalysis extends CompositePlugin {
         reportTaintFlows();
     }
 
+    /**
+     * Reports given taint flow, which is detected on the fly with
+     * pointer analysis, to the report file immediately.
+     */
+    private void onNewTaintFlow(TaintFlow taintFlow) {
+        TaintFlowReporter reporter = getReporter();
+        onTheFlyFlows.add(taintFlow);
+        if (reporter != null) {
+            reporter.report(taintFlow);
+        }
+    }
+
+    /**
+     * @return the reporter of the current run, or {@code null}
+     * if option {@code taint-report} is not given. When the reporter of
+     * a run is opened, the taint flows detected on the fly in previous
+     * runs (and still valid) are reported to it first.
+     */
+    @Nullable
+    private TaintFlowReporter getReporter() {
+        String reportFormat = solver.getOptions().getString("taint-report");
+        if (reporter == null && reportFormat != null) {
+            reporter = new TaintFlowReporter(
+                    TaintFlowReporter.Format.of(reportFormat),
+                    World.get().getOptions().getOutputDir(), reportedRuns + 1,
+                    context, solver.getOptions().getInt("taint-report-paths"));
+            onTheFlyFlows.forEach(reporter::report);
+        }
+        return reporter;
+    }
+
     private void reportTaintFlows() {
         if (isReported) {
             return;
@@ -250,10 +559,27 @@ public class TaintAnalysis extends CompositePlugin {
         logger.info("Detected {} taint flow(s):", taintFlows.size());
         taintFlows.forEach(logger::info);
         solver.getResult().storeResult(getClass().getName(), taintFlows);
-        TaintManager manager = context.manager();
-        Timer.runAndCount(() -> new TFGDumper().dump(
-                        new TFGBuilder(solver.getResult(), taintFlows, manager).build(),
-                        new File(World.get().getOptions().getOutputDir(), TAINT_FLOW_GRAPH_FILE)),
-                "TFGDumper");
+        solver.getResult().storeResult(ON_THE_FLY_FLOWS, List.copyOf(onTheFlyFlows));
+        // report the taint flows that have not been reported on the fly
+        TaintFlowReporter reporter = getReporter();
+        if (reporter != null) {
+            Set<TaintFlow> reported = Set.copyOf(onTheFlyFlows);
+            Timer.runAndCount(() -> {
+                taintFlows.stream()
+                        .filter(f -> !reported.contains(f))
+                        .forEach(reporter::report);
+                reporter.close();
+            }, "TaintFlowReporter");
+            this.reporter = null;
+        }
+        ++reportedRuns;
+        if (solver.getOptions().getBoolean("taint-dump-tfg")) {
+            File outputDir = World.get().getOptions().getOutputDir();
+            TaintFlowGraph tfg = new TFGBuilder(solver.getResult(), taintFlows,
+                    context.manager(), context.lane()).build();
+            Timer.runAndCount(() -> new TFGDumper().dump(tfg,
+                            new File(outputDir, TAINT_FLOW_GRAPH_FILE)),
+                    "TFGDumper");
+        }
     }
 }
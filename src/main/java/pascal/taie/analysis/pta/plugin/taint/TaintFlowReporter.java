@@ -0,0 +1,492 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.pta.plugin.taint;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.core.solver.PointerFlowEdge;
+import pascal.taie.analysis.pta.plugin.util.InvokeUtils;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Writes taint flows to a report file one by one, in JSON Lines or
+ * SARIF format. Each reported taint flow contains the locations of
+ * its source and sink, and up to k shortest witness paths from the
+ * source to the sink.
+ * <p>
+ * The witness paths are searched on the pointer flow graph of the solver,
+ * through the pointers that hold taint objects of the source, so that
+ * taint flows can be reported as soon as they are detected during
+ * pointer analysis (see {@link OnFlySinkHandler}), without building
+ * the {@link TaintFlowGraph}. The reporter keeps no taint flows, and
+ * writes every given flow, thus its callers are responsible for passing
+ * each taint flow only once.
+ * <p>
+ * Each run of taint analysis (which may be re-run in interactive mode)
+ * writes its own report file, i.e., {@code taint-flows.<ext>} for the
+ * first run, and {@code taint-flows-<n>.<ext>} for the n-th run.
+ */
+class TaintFlowReporter implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(TaintFlowReporter.class);
+
+    private static final String SARIF_SCHEMA =
+            "https://json.schemastore.org/sarif-2.1.0.json";
+
+    private static final String SARIF_RULE_ID = "taint-flow";
+
+    enum Format {
+
+        /**
+         * One JSON object per taint flow per line.
+         */
+        JSONL("jsonl"),
+
+        /**
+         * Static Analysis Results Interchange Format 2.1.0.
+         */
+        SARIF("sarif");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        /**
+         * @return the name of the report file of given run (starting from 1).
+         */
+        String getFileName(int run) {
+            return run == 1 ? "taint-flows." + extension
+                    : "taint-flows-" + run + "." + extension;
+        }
+
+        static Format of(String format) {
+            return switch (format) {
+                case "jsonl" -> JSONL;
+                case "sarif" -> SARIF;
+                default -> throw new ConfigException(
+                        "Unknown taint report format: " + format);
+            };
+        }
+    }
+
+    private final Format format;
+
+    private final CSManager csManager;
+
+    private final TaintManager manager;
+
+    /**
+     * The lane which holds taint objects, or {@code null} if
+     * taint objects are held in points-to sets.
+     */
+    @Nullable
+    private final TaintLane lane;
+
+    /**
+     * Maximum number of witness paths reported for each taint flow.
+     */
+    private final int maxPaths;
+
+    @Nullable
+    private final JsonGenerator out;
+
+    /**
+     * @param run the number of the current run of taint analysis,
+     *            starting from 1.
+     */
+    TaintFlowReporter(Format format, File outputDir, int run,
+                      HandlerContext context, int maxPaths) {
+        this.format = format;
+        this.csManager = context.solver().getCSManager();
+        this.manager = context.manager();
+        this.lane = context.lane();
+        this.maxPaths = maxPaths;
+        File reportFile = new File(outputDir, format.getFileName(run));
+        JsonGenerator gen = null;
+        try {
+            gen = new JsonFactory().createGenerator(reportFile, JsonEncoding.UTF8);
+            if (format == Format.JSONL) {
+                // taint flows are separated by line breaks instead of spaces
+                gen.setRootValueSeparator(null);
+            } else {
+                writeSarifHeader(gen);
+            }
+            logger.info("Reporting taint flows to {}", reportFile.getAbsolutePath());
+        } catch (IOException e) {
+            logger.error("Failed to open output file {}", reportFile, e);
+            gen = null;
+        }
+        out = gen;
+    }
+
+    /**
+     * Writes given taint flow to the report file.
+     * The flow is flushed to the file immediately.
+     */
+    void report(TaintFlow taintFlow) {
+        if (out == null) {
+            return;
+        }
+        List<List<Pointer>> paths = findPaths(taintFlow);
+        try {
+            switch (format) {
+                case JSONL -> {
+                    writeJsonLine(out, taintFlow, paths);
+                    out.writeRaw('\n');
+                }
+                case SARIF -> writeSarifResult(out, taintFlow, paths);
+            }
+            out.flush();
+        } catch (IOException e) {
+            logger.error("Failed to report taint flow {}", taintFlow, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (out != null) {
+            try {
+                if (format == Format.SARIF) {
+                    out.writeEndArray(); // results
+                    out.writeEndObject(); // run
+                    out.writeEndArray(); // runs
+                    out.writeEndObject();
+                }
+                out.close();
+            } catch (IOException e) {
+                logger.error("Failed to close taint flow report", e);
+            }
+        }
+    }
+
+    /**
+     * Finds up to {@link #maxPaths} shortest paths from the source pointers
+     * to the sink pointers of given taint flow by breadth-first search on
+     * the pointer flow graph. The search only visits the pointers holding
+     * taint objects of the source, and each pointer is expanded at most
+     * {@link #maxPaths} times, thus its cost is bounded by the part of
+     * the graph reached by the source, instead of the whole graph.
+     */
+    private List<List<Pointer>> findPaths(TaintFlow taintFlow) {
+        if (maxPaths <= 0) {
+            return List.of();
+        }
+        SourcePoint sourcePoint = taintFlow.sourcePoint();
+        SinkPoint sinkPoint = taintFlow.sinkPoint();
+        Set<Pointer> sinks = Sets.newHybridSet();
+        getPointers(InvokeUtils.getVar(sinkPoint.sinkCall(),
+                sinkPoint.indexRef().index()), sinkPoint.indexRef())
+                .forEach(sinks::add);
+        Map<Pointer, Integer> expanded = Maps.newMap();
+        Deque<PathNode> queue = new ArrayDeque<>();
+        getSourcePointers(sourcePoint)
+                .filter(p -> holdsTaint(p, sourcePoint))
+                .forEach(p -> queue.add(new PathNode(p, null)));
+        List<List<Pointer>> paths = new ArrayList<>();
+        while (!queue.isEmpty() && paths.size() < maxPaths) {
+            PathNode pathNode = queue.poll();
+            Pointer pointer = pathNode.pointer();
+            if (sinks.contains(pointer)) {
+                paths.add(pathNode.toPath());
+                continue;
+            }
+            if (expanded.merge(pointer, 1, Integer::sum) > maxPaths) {
+                continue;
+            }
+            for (PointerFlowEdge edge : pointer.getOutEdges()) {
+                Pointer target = edge.target();
+                if (!pathNode.contains(target)
+                        && holdsTaint(target, sourcePoint)) {
+                    queue.add(new PathNode(target, pathNode));
+                }
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * @return the pointers where the taint objects of given source point
+     * are generated.
+     */
+    private Stream<? extends Pointer> getSourcePointers(SourcePoint sourcePoint) {
+        if (sourcePoint instanceof CallSourcePoint csp) {
+            return getPointers(InvokeUtils.getVar(csp.sourceCall(),
+                    csp.indexRef().index()), csp.indexRef());
+        } else if (sourcePoint instanceof ParamSourcePoint psp) {
+            return getPointers(psp.sourceMethod().getIR()
+                    .getParam(psp.indexRef().index()), psp.indexRef());
+        } else if (sourcePoint instanceof FieldSourcePoint fsp) {
+            return csManager.getCSVarsOf(fsp.loadField().getLValue()).stream();
+        } else {
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * @return the pointers (in all contexts) referenced by given variable
+     * and index reference.
+     */
+    private Stream<? extends Pointer> getPointers(@Nullable Var var, IndexRef indexRef) {
+        if (var == null) {
+            return Stream.empty();
+        }
+        Collection<CSVar> csVars = csManager.getCSVarsOf(var);
+        return switch (indexRef.kind()) {
+            case VAR -> csVars.stream();
+            case ARRAY -> csVars.stream()
+                    .flatMap(Pointer::objects)
+                    .map(csManager::getArrayIndex);
+            case FIELD -> csVars.stream()
+                    .flatMap(Pointer::objects)
+                    .map(o -> csManager.getInstanceField(o, indexRef.field()));
+        };
+    }
+
+    /**
+     * @return {@code true} if given pointer holds any taint object
+     * generated at given source point.
+     */
+    private boolean holdsTaint(Pointer pointer, SourcePoint sourcePoint) {
+        Stream<Obj> objs = lane != null
+                ? lane.getTaints(pointer).stream()
+                : pointer.objects().map(CSObj::getObject);
+        return objs.anyMatch(o -> manager.isTaint(o)
+                && manager.getSourcePoint(o).equals(sourcePoint));
+    }
+
+    /**
+     * A node on a path being searched, linked to its predecessor.
+     */
+    private record PathNode(Pointer pointer, @Nullable PathNode prev) {
+
+        private boolean contains(Pointer pointer) {
+            for (PathNode p = this; p != null; p = p.prev) {
+                if (p.pointer.equals(pointer)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private List<Pointer> toPath() {
+            List<Pointer> path = new ArrayList<>();
+            for (PathNode p = this; p != null; p = p.prev) {
+                path.add(p.pointer);
+            }
+            Collections.reverse(path);
+            return path;
+        }
+    }
+
+    private static void writeJsonLine(JsonGenerator gen, TaintFlow taintFlow,
+                                      List<List<Pointer>> paths) throws IOException {
+        SourcePoint source = taintFlow.sourcePoint();
+        SinkPoint sink = taintFlow.sinkPoint();
+        gen.writeStartObject();
+        gen.writeFieldName("source");
+        writeJsonPoint(gen, source.toString(),
+                source.getContainer(), getLineNumber(source));
+        gen.writeFieldName("sink");
+        writeJsonPoint(gen, sink.toString(),
+                sink.sinkCall().getContainer(), sink.sinkCall().getLineNumber());
+        gen.writeArrayFieldStart("paths");
+        for (List<Pointer> path : paths) {
+            gen.writeStartArray();
+            for (Pointer node : path) {
+                JMethod method = getMethod(node);
+                gen.writeStartObject();
+                gen.writeStringField("node", node.toString());
+                gen.writeStringField("method",
+                        method != null ? method.toString() : null);
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+    private static void writeJsonPoint(JsonGenerator gen, String point,
+                                       JMethod method, int line) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("point", point);
+        gen.writeStringField("method", method.toString());
+        gen.writeNumberField("line", line);
+        gen.writeEndObject();
+    }
+
+    /**
+     * Writes the beginning of a SARIF log with one run,
+     * up to the start of its results.
+     */
+    private static void writeSarifHeader(JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("version", "2.1.0");
+        gen.writeStringField("$schema", SARIF_SCHEMA);
+        gen.writeArrayFieldStart("runs");
+        gen.writeStartObject();
+        gen.writeObjectFieldStart("tool");
+        gen.writeObjectFieldStart("driver");
+        gen.writeStringField("name", "Tai-e");
+        gen.writeArrayFieldStart("rules");
+        gen.writeStartObject();
+        gen.writeStringField("id", SARIF_RULE_ID);
+        gen.writeEndObject();
+        gen.writeEndArray();
+        gen.writeEndObject(); // driver
+        gen.writeEndObject(); // tool
+        gen.writeArrayFieldStart("results");
+    }
+
+    private static void writeSarifResult(JsonGenerator gen, TaintFlow taintFlow,
+                                         List<List<Pointer>> paths) throws IOException {
+        SourcePoint source = taintFlow.sourcePoint();
+        SinkPoint sink = taintFlow.sinkPoint();
+        gen.writeStartObject();
+        gen.writeStringField("ruleId", SARIF_RULE_ID);
+        gen.writeStringField("level", "warning");
+        writeSarifMessage(gen, taintFlow.toString());
+        gen.writeArrayFieldStart("locations");
+        writeSarifLocation(gen, sink.toString(),
+                sink.sinkCall().getContainer(), sink.sinkCall().getLineNumber());
+        gen.writeEndArray();
+        gen.writeArrayFieldStart("relatedLocations");
+        writeSarifLocation(gen, source.toString(),
+                source.getContainer(), getLineNumber(source));
+        gen.writeEndArray();
+        if (!paths.isEmpty()) {
+            gen.writeArrayFieldStart("codeFlows");
+            for (List<Pointer> path : paths) {
+                gen.writeStartObject();
+                gen.writeArrayFieldStart("threadFlows");
+                gen.writeStartObject();
+                gen.writeArrayFieldStart("locations");
+                for (Pointer node : path) {
+                    gen.writeStartObject();
+                    gen.writeFieldName("location");
+                    writeSarifLocation(gen, node.toString(), getMethod(node), -1);
+                    gen.writeEndObject();
+                }
+                gen.writeEndArray();
+                gen.writeEndObject();
+                gen.writeEndArray();
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeSarifLocation(JsonGenerator gen, String message,
+                                           @Nullable JMethod method, int line)
+            throws IOException {
+        gen.writeStartObject();
+        if (method != null) {
+            String uri = method.getDeclaringClass().getName()
+                    .replace('.', '/') + ".java";
+            gen.writeObjectFieldStart("physicalLocation");
+            gen.writeObjectFieldStart("artifactLocation");
+            gen.writeStringField("uri", uri);
+            gen.writeEndObject();
+            if (line > 0) {
+                gen.writeObjectFieldStart("region");
+                gen.writeNumberField("startLine", line);
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+            gen.writeArrayFieldStart("logicalLocations");
+            gen.writeStartObject();
+            gen.writeStringField("fullyQualifiedName", method.toString());
+            gen.writeStringField("kind", "function");
+            gen.writeEndObject();
+            gen.writeEndArray();
+        }
+        writeSarifMessage(gen, message);
+        gen.writeEndObject();
+    }
+
+    private static void writeSarifMessage(JsonGenerator gen, String text)
+            throws IOException {
+        gen.writeObjectFieldStart("message");
+        gen.writeStringField("text", text);
+        gen.writeEndObject();
+    }
+
+    /**
+     * @return the line number of given source point, or -1 if it is unknown.
+     */
+    private static int getLineNumber(SourcePoint sourcePoint) {
+        if (sourcePoint instanceof CallSourcePoint csp) {
+            return csp.sourceCall().getLineNumber();
+        } else if (sourcePoint instanceof FieldSourcePoint fsp) {
+            return fsp.loadField().getLineNumber();
+        } else {
+            return -1;
+        }
+    }
+
+    /**
+     * @return the method containing given pointer, or {@code null}
+     * if it is unknown, e.g., for static fields.
+     */
+    @Nullable
+    private static JMethod getMethod(Pointer pointer) {
+        if (pointer instanceof CSVar csVar) {
+            return csVar.getVar().getMethod();
+        } else if (pointer instanceof InstanceField iField) {
+            return iField.getBase().getObject().getContainerMethod().orElse(null);
+        } else if (pointer instanceof ArrayIndex arrayIndex) {
+            return arrayIndex.getArray().getObject().getContainerMethod().orElse(null);
+        } else {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.analysis.graph.flowgraph.ArrayIndexNode;
+import pascal.taie.analysis.graph.flowgraph.InstanceFieldNode;
+import pascal.taie.analysis.graph.flowgraph.Node;
+import pascal.taie.analysis.graph.flowgraph.VarNode;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.core.solver.Identity;
+import pascal.taie.analysis.pta.core.solver.PointerFlowEdge;
+import pascal.taie.analysis.pta.core.solver.Solver;
+import pascal.taie.analysis.pta.core.solver.Transfer;
+import pascal.taie.analysis.pta.core.solver.TypeFilter;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.IndexerBitSet;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.SetEx;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Propagates taint objects in a lane separated from the points-to sets
+ * of pointer analysis.
+ * <p>
+ * When the lane is enabled, taint objects never enter the points-to sets
+ * maintained by the solver. Instead, handlers record the pointers where
+ * taint objects are generated via {@link #addTaint(Pointer, Obj)}, and
+ * {@link TaintTransferEdge}s are added to the pointer flow graph with
+ * the transfer functions returned by {@link #getTransfer(Type)}, which
+ * propagate nothing in pointer analysis. After pointer analysis reaches
+ * a fixed point, {@link #propagate()} propagates the taint objects along
+ * the pointer flow graph, and keeps them in compact per-pointer sets.
+ * <p>
+ * Since the pointer flow graph does not depend on taint objects in this
+ * mode, a single propagation over the final graph is sufficient.
+ * As a consequence, taint objects do not act as receiver objects of
+ * method calls, or as base objects of field/array accesses, and the flows
+ * through calls or fields on taint objects are not detected in this mode.
+ * <p>
+ * Taint objects are kept as {@link Obj}s, and the lane avoids creating
+ * {@link CSObj}s for them: sanitized pointers are registered to the lane
+ * via {@link #addSanitizedPointer(Pointer)} instead of as pointer filters,
+ * and type filters on the edges are applied on the taint objects directly.
+ */
+public class TaintLane {
+
+    private final Solver solver;
+
+    private final CSManager csManager;
+
+    private final TaintManager manager;
+
+    private final Context emptyContext;
+
+    /**
+     * Map from a pointer to set of taint objects pointed to by the pointer.
+     */
+    private final Map<Pointer, SetEx<Obj>> taintSets = Maps.newMap();
+
+    /**
+     * Taint objects generated at pointers, which are the seeds of propagation.
+     */
+    private final Map<Pointer, SetEx<Obj>> seeds = Maps.newMap();
+
+    private final Map<Type, Transfer> transfers = Maps.newHybridMap();
+
+    /**
+     * Pointers which never point to taint objects, e.g., parameters
+     * of sanitizers.
+     */
+    private final Set<Pointer> sanitizedPointers = Sets.newSet();
+
+    /**
+     * Whether the taint sets are consistent with the seeds and
+     * current pointer flow graph.
+     */
+    private boolean isPropagated = false;
+
+    TaintLane(Solver solver, TaintManager manager) {
+        this.solver = solver;
+        this.csManager = solver.getCSManager();
+        this.manager = manager;
+        this.emptyContext = solver.getContextSelector().getEmptyContext();
+    }
+
+    /**
+     * Records that given pointer points to given taint object.
+     */
+    void addTaint(Pointer pointer, Obj taint) {
+        if (seeds.computeIfAbsent(pointer, __ -> newTaintSet()).add(taint)) {
+            isPropagated = false;
+        }
+    }
+
+    /**
+     * Records that given pointer is sanitized, i.e., taint objects
+     * are not propagated to it.
+     */
+    void addSanitizedPointer(Pointer pointer) {
+        if (sanitizedPointers.add(pointer)) {
+            isPropagated = false;
+        }
+    }
+
+    /**
+     * Removes given taint objects from this lane.
+     */
+    void removeTaints(Set<Obj> taints) {
+        seeds.values().forEach(seed -> {
+            if (seed.removeAll(taints)) {
+                isPropagated = false;
+            }
+        });
+    }
+
+    /**
+     * @return the transfer function for {@link TaintTransferEdge}s that
+     * converts taint objects to given type. The function propagates
+     * nothing in pointer analysis, and it is interpreted by this lane.
+     */
+    Transfer getTransfer(Type type) {
+        return transfers.computeIfAbsent(type, TypeTransfer::new);
+    }
+
+    /**
+     * Transfer function which marks the taint conversion on an edge.
+     */
+    private class TypeTransfer implements Transfer {
+
+        private final Type type;
+
+        private TypeTransfer(Type type) {
+            this.type = type;
+        }
+
+        @Override
+        public PointsToSet apply(PointerFlowEdge edge, PointsToSet input) {
+            return solver.makePointsToSet();
+        }
+
+        private Obj convert(Obj taint) {
+            return manager.convertTaint(taint, type);
+        }
+    }
+
+    /**
+     * Propagates taint objects from the seeds along the pointer flow graph
+     * until reaching a fixed point.
+     */
+    void propagate() {
+        if (isPropagated) {
+            return;
+        }
+        taintSets.clear();
+        Deque<Pointer> workList = new ArrayDeque<>();
+        Map<Pointer, SetEx<Obj>> deltas = Maps.newMap();
+        seeds.forEach((pointer, taints) -> {
+            if (addTaints(pointer, taints, deltas)) {
+                workList.add(pointer);
+            }
+        });
+        while (!workList.isEmpty()) {
+            Pointer pointer = workList.poll();
+            SetEx<Obj> delta = deltas.remove(pointer);
+            for (PointerFlowEdge edge : pointer.getOutEdges()) {
+                Pointer target = edge.target();
+                for (Transfer transfer : edge.getTransfers()) {
+                    if (addTaints(target, apply(transfer, edge, delta), deltas)) {
+                        workList.add(target);
+                    }
+                }
+            }
+        }
+        isPropagated = true;
+    }
+
+    /**
+     * Adds taint objects to given pointer, and records the newly-added
+     * taint objects in {@code deltas}.
+     *
+     * @return true if the pointer has no pending delta before this call
+     * and some taint objects are newly added, i.e., the pointer should be
+     * added to the work list.
+     */
+    private boolean addTaints(Pointer pointer, Collection<Obj> taints,
+                              Map<Pointer, SetEx<Obj>> deltas) {
+        if (taints.isEmpty() || sanitizedPointers.contains(pointer)) {
+            return false;
+        }
+        SetEx<Obj> diff = taintSets.computeIfAbsent(pointer, __ -> newTaintSet())
+                .addAllDiff(taints);
+        if (diff.isEmpty()) {
+            return false;
+        }
+        SetEx<Obj> delta = deltas.get(pointer);
+        if (delta == null) {
+            deltas.put(pointer, diff);
+            return true;
+        } else {
+            delta.addAll(diff);
+            return false;
+        }
+    }
+
+    private Collection<Obj> apply(Transfer transfer, PointerFlowEdge edge,
+                                  SetEx<Obj> taints) {
+        if (transfer == Identity.get()) {
+            return taints;
+        } else if (transfer instanceof TaintLane.TypeTransfer typeTransfer) {
+            SetEx<Obj> result = newTaintSet();
+            taints.forEach(t -> result.add(typeTransfer.convert(t)));
+            return result;
+        } else if (transfer instanceof TypeFilter typeFilter) {
+            SetEx<Obj> result = newTaintSet();
+            taints.forEach(t -> {
+                if (typeFilter.accepts(t)) {
+                    result.add(t);
+                }
+            });
+            return result;
+        } else {
+            // other transfer functions (e.g., added by other plugins)
+            // can only be applied on the context-sensitive taint objects
+            PointsToSet input = solver.makePointsToSet();
+            taints.forEach(t -> input.addObject(
+                    csManager.getCSObj(emptyContext, t)));
+            SetEx<Obj> result = newTaintSet();
+            transfer.apply(edge, input)
+                    .objects()
+                    .map(CSObj::getObject)
+                    .filter(manager::isTaint)
+                    .forEach(result::add);
+            return result;
+        }
+    }
+
+    /**
+     * @return taint objects pointed to by given pointer.
+     */
+    Set<Obj> getTaints(Pointer pointer) {
+        propagate();
+        Set<Obj> taints = taintSets.get(pointer);
+        return taints != null ? taints : Set.of();
+    }
+
+    /**
+     * @return taint objects pointed to by the pointers which
+     * correspond to given node of object flow graph.
+     */
+    Set<Obj> getTaints(Node node) {
+        propagate();
+        Set<Obj> taints = Sets.newHybridSet();
+        if (node instanceof VarNode varNode) {
+            csManager.getCSVarsOf(varNode.getVar())
+                    .forEach(p -> taints.addAll(getTaints(p)));
+        } else if (node instanceof InstanceFieldNode ifNode) {
+            csManager.getCSObjsOf(ifNode.getBase())
+                    .forEach(o -> taints.addAll(getTaints(
+                            csManager.getInstanceField(o, ifNode.getField()))));
+        } else if (node instanceof ArrayIndexNode aiNode) {
+            csManager.getCSObjsOf(aiNode.getBase())
+                    .forEach(o -> taints.addAll(getTaints(
+                            csManager.getArrayIndex(o))));
+        }
+        return taints;
+    }
+
+    private SetEx<Obj> newTaintSet() {
+        return new IndexerBitSet<>(solver.getHeapModel(), true);
+    }
+}
@@ -28,9 +28,11 @@ import pascal.taie.analysis.pta.core.heap.MockObj;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.language.type.Type;
 import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.Sets;
 
 import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -44,6 +46,17 @@ public class TaintManager {
 
     private final Set<Obj> taintObjs = Sets.newHybridSet();
 
+    /**
+     * Map from a type to the memo of taint objects converted to the type,
+     * i.e., map from a taint object to the taint object of the same
+     * source point and the type.
+     */
+    private final Map<Type, Map<Obj, Obj>> convertedTaints = Maps.newHybridMap();
+
+    private long conversions = 0;
+
+    private long conversionHits = 0;
+
     public TaintManager(HeapModel heapModel) {
         this.heapModel = heapModel;
     }
@@ -61,6 +74,44 @@ public class TaintManager {
         return taint;
     }
 
+    /**
+     * Converts given taint object to given type. The conversions are
+     * memoized, and the memo entries of removed taint objects are
+     * dropped by {@link #removeTaints(Set)}, so that the converted taint
+     * objects are always registered in this manager.
+     *
+     * @return the taint object of the same source point as {@code taint}
+     * and the type {@code type}.
+     */
+    Obj convertTaint(Obj taint, Type type) {
+        ++conversions;
+        Map<Obj, Obj> converted = convertedTaints.computeIfAbsent(
+                type, t -> Maps.newMap());
+        Obj result = converted.get(taint);
+        if (result == null) {
+            result = makeTaint(getSourcePoint(taint), type);
+            converted.put(taint, result);
+        } else {
+            ++conversionHits;
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of calls to {@link #convertTaint(Obj, Type)}.
+     */
+    long getConversions() {
+        return conversions;
+    }
+
+    /**
+     * @return the number of calls to {@link #convertTaint(Obj, Type)}
+     * which are answered by the memo.
+     */
+    long getConversionHits() {
+        return conversionHits;
+    }
+
     /**
      * @return true if given obj represents a taint object, otherwise false.
      */
@@ -80,6 +131,25 @@ public class TaintManager {
         throw new AnalysisException(obj + " is not a taint object");
     }
 
+    /**
+     * Removes the taint objects generated from given sources.
+     *
+     * @return the removed taint objects.
+     */
+    Set<Obj> removeTaints(Set<Source> sources) {
+        Set<Obj> removed = Sets.newHybridSet();
+        taintObjs.removeIf(taint -> {
+            if (sources.contains(getSourcePoint(taint).source())) {
+                removed.add(taint);
+                return true;
+            }
+            return false;
+        });
+        convertedTaints.values().forEach(converted ->
+                converted.keySet().removeIf(removed::contains));
+        return removed;
+    }
+
     /**
      * @return all taint objects generated via this manager.
      */
@@ -31,11 +31,11 @@ import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
 import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.core.solver.Transfer;
 import pascal.taie.analysis.pta.plugin.util.InvokeUtils;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.ir.exp.CastExp;
-import pascal.taie.ir.exp.FieldAccess;
 import pascal.taie.ir.exp.InstanceFieldAccess;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Cast;
@@ -51,6 +51,7 @@ import pascal.taie.util.AnalysisException;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -65,19 +66,28 @@ class TransferHandler extends OnFlyHandler {
 
     private final Context emptyContext;
 
+    private enum Kind {
+        VAR_TO_VAR, VAR_TO_ARRAY, VAR_TO_FIELD, ARRAY_TO_VAR, FIELD_TO_VAR
+    }
+
     /**
-     * Map from method (which causes taint transfer) to set of relevant
-     * {@link TaintTransfer}.
+     * A {@link TaintTransfer} specialized with its kind, transfer function
+     * and whether it requires back propagation, which are computed once
+     * when this handler is created.
      */
-    private final MultiMap<JMethod, TaintTransfer> transfers = Maps.newMultiMap();
+    private record CompiledTransfer(TaintTransfer transfer, Kind kind,
+                                    Transfer function, boolean backPropagate) {
+    }
 
-    private final Map<Type, Transfer> transferFunctions = Maps.newHybridMap();
+    /**
+     * Dispatch table from method (which causes taint transfer) to
+     * relevant compiled transfers.
+     */
+    private final Map<JMethod, CompiledTransfer[]> dispatchTable = Maps.newMap();
 
-    private enum Kind {
-        VAR_TO_ARRAY, VAR_TO_FIELD, ARRAY_TO_VAR, FIELD_TO_VAR
-    }
+    private final Map<Type, Transfer> transferFunctions = Maps.newHybridMap();
 
-    private record TransferInfo(Kind kind, Var var, TaintTransfer transfer) {
+    private record TransferInfo(Kind kind, Var var, CompiledTransfer transfer) {
     }
 
     private final MultiMap<Var, TransferInfo> transferInfos = Maps.newMultiMap();
@@ -100,59 +110,69 @@ class TransferHandler extends OnFlyHandler {
      */
     private final Map<Var, List<Stmt>> backPropStmts = Maps.newMap();
 
+    /**
+     * Map from a method to the {@link LoadField} statements on instance
+     * fields in the method, which are collected once per method and
+     * used to generate statements for back propagation.
+     */
+    private final Map<JMethod, List<LoadField>> instanceLoads = Maps.newMap();
+
     /**
      * Counter for generating temporary variables.
      */
     private int counter = 0;
 
+    // counters for statistics of the dispatch table and the caches
+    private long callEdges = 0;
+
+    private long transferCallEdges = 0;
+
+    private long backPropLookups = 0;
+
+    private long backPropHits = 0;
+
     TransferHandler(HandlerContext context) {
         super(context);
         emptyContext = solver.getContextSelector().getEmptyContext();
-        context.config().transfers()
-                .forEach(t -> this.transfers.put(t.method(), t));
+        MultiMap<JMethod, CompiledTransfer> compiled = Maps.newMultiMap();
+        context.config().transfers().forEach(t -> {
+            CompiledTransfer ct = compile(t);
+            if (ct != null) {
+                compiled.put(t.method(), ct);
+            }
+        });
+        compiled.forEachSet((method, cts) -> dispatchTable.put(
+                method, cts.toArray(new CompiledTransfer[0])));
     }
 
-    private void processTransfer(Context context, Invoke callSite, TaintTransfer transfer) {
+    /**
+     * Specializes given transfer.
+     *
+     * @return the compiled transfer, or {@code null} if given transfer
+     * is not supported.
+     */
+    @Nullable
+    private CompiledTransfer compile(TaintTransfer transfer) {
         IndexRef from = transfer.from();
         IndexRef to = transfer.to();
-        Var toVar = InvokeUtils.getVar(callSite, to.index());
-        if (toVar == null) {
-            return;
-        }
-        Var fromVar = InvokeUtils.getVar(callSite, from.index());
-        CSVar csFrom = csManager.getCSVar(context, fromVar);
-        CSVar csTo = csManager.getCSVar(context, toVar);
+        Kind kind;
         if (from.kind() == IndexRef.Kind.VAR) { // Var -> Var/Array/Field
-            Kind kind = switch (to.kind()) {
-                case VAR -> {
-                    Transfer tf = getTransferFunction(transfer.type());
-                    solver.addPFGEdge(
-                            new TaintTransferEdge(csFrom, csTo, transfer),
-                            tf);
-                    yield null;
-                }
+            kind = switch (to.kind()) {
+                case VAR -> Kind.VAR_TO_VAR;
                 case ARRAY -> Kind.VAR_TO_ARRAY;
                 case FIELD -> Kind.VAR_TO_FIELD;
             };
-            if (kind != null) {
-                TransferInfo info = new TransferInfo(kind, fromVar, transfer);
-                transferInfos.put(toVar, info);
-                transferTaint(solver.getPointsToSetOf(csTo), context, info);
-            }
         } else if (to.kind() == IndexRef.Kind.VAR) { // Array/Field -> Var
-            Kind kind = switch (from.kind()) {
+            kind = switch (from.kind()) {
                 case ARRAY -> Kind.ARRAY_TO_VAR;
                 case FIELD -> Kind.FIELD_TO_VAR;
                 default -> throw new AnalysisException(); // unreachable
             };
-            TransferInfo info = new TransferInfo(kind, toVar, transfer);
-            transferInfos.put(fromVar, info);
-            transferTaint(solver.getPointsToSetOf(csFrom), context, info);
         } else { // ignore other cases
             logger.warn("TaintTransfer {} -> {} (in {}) is not supported",
                     transfer, from.kind(), to.kind());
+            return null;
         }
-
         // If the taint is transferred to base or argument, it means
         // that the objects pointed to by "to" were mutated
         // by the invocation. For such cases, we need to propagate the
@@ -160,34 +180,65 @@ class TransferHandler extends OnFlyHandler {
         // whose objects come from "to" will be naturally handled by
         // pointer analysis, and we just need to specially handle the
         // pointers whose objects flow to "to", i.e., back propagation.
-        if (enableBackPropagate
+        boolean backPropagate = enableBackPropagate
                 && to.index() != InvokeUtils.RESULT
                 && to.kind() == IndexRef.Kind.VAR
                 && !(to.index() == InvokeUtils.BASE
-                && transfer.method().isConstructor())) {
+                && transfer.method().isConstructor());
+        return new CompiledTransfer(transfer, kind,
+                getTransferFunction(transfer.type()), backPropagate);
+    }
+
+    private void processTransfer(Context context, Invoke callSite, CompiledTransfer ct) {
+        TaintTransfer transfer = ct.transfer();
+        Var toVar = InvokeUtils.getVar(callSite, transfer.to().index());
+        if (toVar == null) {
+            return;
+        }
+        Var fromVar = InvokeUtils.getVar(callSite, transfer.from().index());
+        switch (ct.kind()) {
+            case VAR_TO_VAR -> solver.addPFGEdge(
+                    new TaintTransferEdge(csManager.getCSVar(context, fromVar),
+                            csManager.getCSVar(context, toVar), transfer),
+                    ct.function());
+            case VAR_TO_ARRAY, VAR_TO_FIELD -> {
+                TransferInfo info = new TransferInfo(ct.kind(), fromVar, ct);
+                transferInfos.put(toVar, info);
+                CSVar csTo = csManager.getCSVar(context, toVar);
+                transferTaint(solver.getPointsToSetOf(csTo), context, info);
+            }
+            case ARRAY_TO_VAR, FIELD_TO_VAR -> {
+                TransferInfo info = new TransferInfo(ct.kind(), toVar, ct);
+                transferInfos.put(fromVar, info);
+                CSVar csFrom = csManager.getCSVar(context, fromVar);
+                transferTaint(solver.getPointsToSetOf(csFrom), context, info);
+            }
+        }
+        if (ct.backPropagate()) {
             backPropagateTaint(toVar, context);
         }
     }
 
     private void transferTaint(PointsToSet baseObjs, Context ctx, TransferInfo info) {
         CSVar csVar = csManager.getCSVar(ctx, info.var());
-        Transfer tf = getTransferFunction(info.transfer().type());
+        TaintTransfer transfer = info.transfer().transfer();
+        Transfer tf = info.transfer().function();
         switch (info.kind()) {
             case VAR_TO_ARRAY -> {
                 baseObjs.objects()
                         .map(csManager::getArrayIndex)
                         .forEach(arrayIndex ->
                                 solver.addPFGEdge(
-                                        new TaintTransferEdge(csVar, arrayIndex, info.transfer()),
+                                        new TaintTransferEdge(csVar, arrayIndex, transfer),
                                         tf));
             }
             case VAR_TO_FIELD -> {
-                JField f = info.transfer().to().field();
+                JField f = transfer.to().field();
                 baseObjs.objects()
                         .map(o -> csManager.getInstanceField(o, f))
                         .forEach(oDotF ->
                                 solver.addPFGEdge(
-                                        new TaintTransferEdge(csVar, oDotF, info.transfer()),
+                                        new TaintTransferEdge(csVar, oDotF, transfer),
                                         tf));
             }
             case ARRAY_TO_VAR -> {
@@ -195,40 +246,50 @@ class TransferHandler extends OnFlyHandler {
                         .map(csManager::getArrayIndex)
                         .forEach(arrayIndex ->
                                 solver.addPFGEdge(
-                                        new TaintTransferEdge(arrayIndex, csVar, info.transfer()),
+                                        new TaintTransferEdge(arrayIndex, csVar, transfer),
                                         tf));
             }
             case FIELD_TO_VAR -> {
-                JField f = info.transfer().from().field();
+                JField f = transfer.from().field();
                 baseObjs.objects()
                         .map(o -> csManager.getInstanceField(o, f))
                         .forEach(oDotF ->
                                 solver.addPFGEdge(
-                                        new TaintTransferEdge(oDotF, csVar, info.transfer()),
+                                        new TaintTransferEdge(oDotF, csVar, transfer),
                                         tf));
             }
         }
     }
 
     private Transfer getTransferFunction(Type toType) {
-        return transferFunctions.computeIfAbsent(toType,
-                type -> ((edge, input) -> {
+        if (lane != null) {
+            return lane.getTransfer(toType);
+        }
+        return transferFunctions.computeIfAbsent(toType, type ->
+                (edge, input) -> {
                     PointsToSet newTaints = solver.makePointsToSet();
-                    input.objects()
-                            .map(CSObj::getObject)
-                            .filter(manager::isTaint)
-                            .map(manager::getSourcePoint)
-                            .map(source -> manager.makeTaint(source, type))
-                            .map(taint -> csManager.getCSObj(emptyContext, taint))
-                            .forEach(newTaints::addObject);
+                    for (CSObj csObj : input) {
+                        Obj obj = csObj.getObject();
+                        if (manager.isTaint(obj)) {
+                            newTaints.addObject(csManager.getCSObj(emptyContext,
+                                    manager.convertTaint(obj, type)));
+                        }
+                    }
                     return newTaints;
-                }));
+                });
     }
 
     private void backPropagateTaint(Var to, Context ctx) {
         CSMethod csMethod = csManager.getCSMethod(ctx, to.getMethod());
-        solver.addStmts(csMethod,
-                backPropStmts.computeIfAbsent(to, this::getBackPropagateStmts));
+        ++backPropLookups;
+        List<Stmt> stmts = backPropStmts.get(to);
+        if (stmts == null) {
+            stmts = getBackPropagateStmts(to);
+            backPropStmts.put(to, stmts);
+        } else {
+            ++backPropHits;
+        }
+        solver.addStmts(csMethod, stmts);
     }
 
     private List<Stmt> getBackPropagateStmts(Var var) {
@@ -237,36 +298,51 @@ class TransferHandler extends OnFlyHandler {
         // For simplicity, we add artificial statement like base.field = var
         // for back propagation.
         JMethod container = var.getMethod();
+        List<LoadField> loads = instanceLoads.computeIfAbsent(container,
+                TransferHandler::getInstanceLoads);
+        if (loads.isEmpty()) {
+            return List.of();
+        }
         List<Stmt> stmts = new ArrayList<>();
-        container.getIR().forEach(stmt -> {
-            if (stmt instanceof LoadField load) {
-                FieldAccess fieldAccess = load.getFieldAccess();
-                if (fieldAccess instanceof InstanceFieldAccess ifa) {
-                    // found var = base.field;
-                    Var base = ifa.getBase();
-                    // generate a temp base to avoid polluting original base
-                    Var taintBase = getTempVar(container, base.getType());
-                    stmts.add(new Copy(taintBase, base)); // %taint-temp = base;
-                    // generate field store statements to back propagate taint
-                    Var from;
-                    Type fieldType = ifa.getType();
-                    // since var may point to the objects that are not from
-                    // base.field, we use type to filter some spurious objects
-                    if (fieldType.equals(var.getType())) {
-                        from = var;
-                    } else {
-                        Var tempFrom = getTempVar(container, fieldType);
-                        stmts.add(new Cast(tempFrom, new CastExp(var, fieldType)));
-                        from = tempFrom;
-                    }
-                    // back propagate taint from var to base.field
-                    stmts.add(new StoreField(
-                            new InstanceFieldAccess(ifa.getFieldRef(), taintBase),
-                            from)); // %taint-temp.field = from;
-                }
+        for (LoadField load : loads) {
+            // found var = base.field;
+            InstanceFieldAccess ifa = (InstanceFieldAccess) load.getFieldAccess();
+            Var base = ifa.getBase();
+            // generate a temp base to avoid polluting original base
+            Var taintBase = getTempVar(container, base.getType());
+            stmts.add(new Copy(taintBase, base)); // %taint-temp = base;
+            // generate field store statements to back propagate taint
+            Var from;
+            Type fieldType = ifa.getType();
+            // since var may point to the objects that are not from
+            // base.field, we use type to filter some spurious objects
+            if (fieldType.equals(var.getType())) {
+                from = var;
+            } else {
+                Var tempFrom = getTempVar(container, fieldType);
+                stmts.add(new Cast(tempFrom, new CastExp(var, fieldType)));
+                from = tempFrom;
+            }
+            // back propagate taint from var to base.field
+            stmts.add(new StoreField(
+                    new InstanceFieldAccess(ifa.getFieldRef(), taintBase),
+                    from)); // %taint-temp.field = from;
+        }
+        return stmts;
+    }
+
+    /**
+     * @return the {@link LoadField} statements on instance fields in given method.
+     */
+    private static List<LoadField> getInstanceLoads(JMethod method) {
+        List<LoadField> loads = new ArrayList<>();
+        method.getIR().forEach(stmt -> {
+            if (stmt instanceof LoadField load
+                    && load.getFieldAccess() instanceof InstanceFieldAccess) {
+                loads.add(load);
             }
         });
-        return stmts.isEmpty() ? List.of() : stmts;
+        return loads.isEmpty() ? List.of() : loads;
     }
 
     private Var getTempVar(JMethod container, Type type) {
@@ -282,11 +358,15 @@ class TransferHandler extends OnFlyHandler {
             // TODO: handle OTHER call edges
             return;
         }
-        Set<TaintTransfer> tfs = transfers.get(edge.getCallee().getMethod());
-        if (!tfs.isEmpty()) {
+        ++callEdges;
+        CompiledTransfer[] cts = dispatchTable.get(edge.getCallee().getMethod());
+        if (cts != null) {
+            ++transferCallEdges;
             Context context = edge.getCallSite().getContext();
             Invoke callSite = edge.getCallSite().getCallSite();
-            tfs.forEach(tf -> processTransfer(context, callSite, tf));
+            for (CompiledTransfer ct : cts) {
+                processTransfer(context, callSite, ct);
+            }
         }
     }
 
@@ -303,7 +383,7 @@ class TransferHandler extends OnFlyHandler {
                 stmt instanceof Invoke invoke &&
                 !invoke.isDynamic()) {
             JMethod callee = invoke.getMethodRef().resolveNullable();
-            if (transfers.containsKey(callee)) {
+            if (dispatchTable.containsKey(callee)) {
                 callSiteTransfers.put(container, invoke);
             }
         }
@@ -318,10 +398,26 @@ class TransferHandler extends OnFlyHandler {
                 Context context = csMethod.getContext();
                 callSites.forEach(callSite -> {
                     JMethod callee = callSite.getMethodRef().resolve();
-                    transfers.get(callee).forEach(transfer ->
-                            processTransfer(context, callSite, transfer));
+                    for (CompiledTransfer ct : dispatchTable.get(callee)) {
+                        processTransfer(context, callSite, ct);
+                    }
                 });
             }
         }
     }
+
+    @Override
+    public void onFinish() {
+        logger.info("Taint transfer statistics: call edges to transfer methods {}," +
+                        " converted taint cache hits {}," +
+                        " back-propagation statement cache hits {}",
+                hitRate(transferCallEdges, callEdges),
+                hitRate(manager.getConversionHits(), manager.getConversions()),
+                hitRate(backPropHits, backPropLookups));
+    }
+
+    private static String hitRate(long hits, long lookups) {
+        return lookups == 0 ? "0/0" : String.format("%d/%d (%.1f%%)",
+                hits, lookups, hits * 100.0 / lookups);
+    }
 }
@@ -52,6 +52,8 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import static pascal.taie.analysis.pta.plugin.taint.IndexRef.ARRAY_SUFFIX;
@@ -134,6 +136,18 @@ public class YamlTaintConfigProvider extends TaintConfigProvider {
 
         private final TypeSystem typeSystem;
 
+        /**
+         * Methods matching the method signatures in the config being
+         * deserialized, which are resolved in one pass.
+         */
+        private Map<String, Set<JMethod>> methods = Map.of();
+
+        /**
+         * Fields matching the field signatures in the config being
+         * deserialized, which are resolved in one pass.
+         */
+        private Map<String, Set<JField>> fields = Map.of();
+
         private Deserializer(SignatureMatcher matcher, TypeSystem typeSystem) {
             this.matcher = matcher;
             this.typeSystem = typeSystem;
@@ -144,6 +158,7 @@ public class YamlTaintConfigProvider extends TaintConfigProvider {
                 throws IOException {
             ObjectCodec oc = p.getCodec();
             JsonNode node = oc.readTree(p);
+            resolveSignatures(node);
             List<Source> sources = deserializeSources(node.get("sources"));
             List<Sink> sinks = deserializeSinks(node.get("sinks"));
             List<TaintTransfer> transfers = deserializeTransfers(node.get("transfers"));
@@ -154,6 +169,42 @@ public class YamlTaintConfigProvider extends TaintConfigProvider {
                     sources, sinks, transfers, sanitizers, callSiteMode);
         }
 
+        /**
+         * Resolves the method and field signatures of all entries in
+         * the config in one pass. The signatures are matched in parallel,
+         * and share the indexes built by the matcher.
+         */
+        private void resolveSignatures(JsonNode node) {
+            List<String> methodSigs = new ArrayList<>();
+            List<String> fieldSigs = new ArrayList<>();
+            for (String key : List.of("sources", "sinks", "transfers", "sanitizers")) {
+                if (node.get(key) instanceof ArrayNode arrayNode) {
+                    for (JsonNode elem : arrayNode) {
+                        JsonNode methodNode = elem.get("method");
+                        if (methodNode != null) {
+                            methodSigs.add(methodNode.asText());
+                        }
+                        JsonNode fieldNode = elem.get("field");
+                        if (fieldNode != null) {
+                            fieldSigs.add(fieldNode.asText());
+                        }
+                    }
+                }
+            }
+            methods = matcher.getMethods(methodSigs);
+            fields = matcher.getFields(fieldSigs);
+        }
+
+        private Set<JMethod> getMethods(String methodSig) {
+            Set<JMethod> result = methods.get(methodSig);
+            return result != null ? result : matcher.getMethods(methodSig);
+        }
+
+        private Set<JField> getFields(String fieldSig) {
+            Set<JField> result = fields.get(fieldSig);
+            return result != null ? result : matcher.getFields(fieldSig);
+        }
+
         /**
          * Deserializes a {@link JsonNode} (assume it is an {@link ArrayNode})
          * to a list of {@link Source}.
@@ -194,7 +245,7 @@ public class YamlTaintConfigProvider extends TaintConfigProvider {
 
         private List<CallSource> deserializeCallSources(JsonNode node) {
             String methodSig = node.get("method").asText();
-            List<CallSource> result = matcher.getMethods(methodSig).stream().map(method -> {
+            List<CallSource> result = getMethods(methodSig).stream().map(method -> {
                 IndexRef indexRef = toIndexRef(method, node.get("index").asText());
                 JsonNode typeNode = node.get("type");
                 Type type = (typeNode != null)
@@ -213,7 +264,7 @@ public class YamlTaintConfigProvider extends TaintConfigProvider {
 
         private List<ParamSource> deserializeParamSources(JsonNode node) {
             String methodSig = node.get("method").asText();
-            List<ParamSource> result = matcher.getMethods(methodSig).stream().map(method -> {
+            List<ParamSource> result = getMethods(methodSig).stream().map(method -> {
                 IndexRef indexRef = toIndexRef(method, node.get("index").asText());
                 JsonNode typeNode = node.get("type");
                 Type type = (typeNode != null)
@@ -232,7 +283,7 @@ public class YamlTaintConfigProvider extends TaintConfigProvider {
 
         private List<FieldSource> deserializeFieldSources(JsonNode node) {
             String fieldSig = node.get("field").asText();
-            List<FieldSource> result = matcher.getFields(fieldSig).stream().map(field -> {
+            List<FieldSource> result = getFields(fieldSig).stream().map(field -> {
                 JsonNode typeNode = node.get("type");
                 Type type = (typeNode != null)
                         ? typeSystem.getType(typeNode.asText())
@@ -270,7 +321,7 @@ public class YamlTaintConfigProvider extends TaintConfigProvider {
                 List<Sink> result = new ArrayList<>();
                 for (JsonNode elem : arrayNode) {
                     String methodSig = elem.get("method").asText();
-                    List<Sink> sinks = matcher.getMethods(methodSig).stream().map(method -> {
+                    List<Sink> sinks = getMethods(methodSig).stream().map(method -> {
                         IndexRef indexRef = toIndexRef(method, elem.get("index").asText());
                         return new Sink(method, indexRef);
                     }).toList();
@@ -300,7 +351,7 @@ public class YamlTaintConfigProvider extends TaintConfigProvider {
                 List<TaintTransfer> result = new ArrayList<>();
                 for (JsonNode elem : arrayNode) {
                     String methodSig = elem.get("method").asText();
-                    List<TaintTransfer> transfers = matcher.getMethods(methodSig).stream().map(method -> {
+                    List<TaintTransfer> transfers = getMethods(methodSig).stream().map(method -> {
                         IndexRef from = toIndexRef(method, elem.get("from").asText());
                         IndexRef to = toIndexRef(method, elem.get("to").asText());
                         JsonNode typeNode = elem.get("type");
@@ -388,7 +439,7 @@ public class YamlTaintConfigProvider extends TaintConfigProvider {
                 List<ParamSanitizer> result = new ArrayList<>();
                 for (JsonNode elem : arrayNode) {
                     String methodSig = elem.get("method").asText();
-                    List<ParamSanitizer> sanitizers = matcher.getMethods(methodSig).stream().map(method -> {
+                    List<ParamSanitizer> sanitizers = getMethods(methodSig).stream().map(method -> {
                         int index = InvokeUtils.toInt(elem.get("index").asText());
                         return new ParamSanitizer(method, index);
                     }).toList();
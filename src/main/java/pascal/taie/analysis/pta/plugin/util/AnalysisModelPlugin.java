@@ -26,16 +26,15 @@ import pascal.taie.analysis.pta.core.cs.context.Context;
 import pascal.taie.analysis.pta.core.cs.element.CSVar;
 import pascal.taie.analysis.pta.core.solver.Solver;
 import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.config.ConfigException;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.classes.SignatureMatcher;
-import pascal.taie.util.AnalysisException;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Map;
 import java.util.stream.IntStream;
@@ -55,27 +54,67 @@ public abstract class AnalysisModelPlugin extends ModelPlugin {
 
     protected final Map<JMethod, int[]> relevantVarIndexes = Maps.newMap();
 
-    protected final MultiMap<Var, Invoke> relevantVars = Maps.newMultiMap();
+    /**
+     * Map from API method to its compiled handler.
+     */
+    private final Map<JMethod, CompiledHandlers.Handler> compiledHandlers = Maps.newMap();
+
+    /**
+     * Whether the handlers are called via reflection instead of being
+     * compiled, which is controlled by option {@code model-handler-dispatch}.
+     */
+    private final boolean reflectiveDispatch;
+
+    /**
+     * Map from a relevant variable to the handler calls which are
+     * relevant to the variable.
+     */
+    private final MultiMap<Var, HandlerCall> handlerCalls = Maps.newMultiMap();
+
+    /**
+     * Call of a compiled handler at an invocation, with the relevant
+     * arguments resolved when the invocation is found.
+     */
+    private record HandlerCall(Invoke invoke, CompiledHandlers.Handler handler,
+                               Var[] args) {
+    }
 
     protected AnalysisModelPlugin(Solver solver) {
         super(solver);
+        String dispatch = solver.getOptions().getString("model-handler-dispatch");
+        reflectiveDispatch = switch (dispatch) {
+            case "compiled" -> false;
+            case "reflective" -> true;
+            default -> throw new ConfigException(
+                    "Unexpected dispatch of model handlers: " + dispatch);
+        };
         registerHandlers();
     }
 
     @Override
     protected void registerHandler(InvokeHandler invokeHandler, Method handler) {
-        SignatureMatcher matcher = new SignatureMatcher(hierarchy);
+        SignatureMatcher matcher = getSignatureMatcher();
+        int[] argIndexes = invokeHandler.argIndexes();
+        Method validated = validate(handler, invokeHandler);
+        CompiledHandlers.Handler compiled = null;
         for (String signature : invokeHandler.signature()) {
-            matcher.getMethods(signature).forEach(api -> {
+            for (JMethod api : matcher.getMethods(signature)) {
                 if (handlers.containsKey(api)) {
                     throw new RuntimeException(this +
                             " registers multiple handlers for " +
                             api + " (in a Model, at most one handler" +
                             " can be registered for a method)");
                 }
-                handlers.put(api, validate(handler, invokeHandler));
-                relevantVarIndexes.put(api, invokeHandler.argIndexes());
-            });
+                if (compiled == null) {
+                    compiled = reflectiveDispatch
+                            ? new CompiledHandlers.ReflectiveHandler(this, validated)
+                            : CompiledHandlers.compile(
+                                    this, validated, argIndexes.length);
+                }
+                handlers.put(api, validated);
+                relevantVarIndexes.put(api, argIndexes);
+                compiledHandlers.put(api, compiled);
+            }
         }
     }
 
@@ -103,10 +142,16 @@ public abstract class AnalysisModelPlugin extends ModelPlugin {
         if (stmt instanceof Invoke invoke && !invoke.isDynamic()) {
             JMethod target = invoke.getMethodRef().resolveNullable();
             if (target != null) {
-                int[] indexes = relevantVarIndexes.get(target);
-                if (indexes != null) {
-                    for (int i : indexes) {
-                        relevantVars.put(InvokeUtils.getVar(invoke, i), invoke);
+                CompiledHandlers.Handler handler = compiledHandlers.get(target);
+                if (handler != null) {
+                    int[] indexes = relevantVarIndexes.get(target);
+                    Var[] args = new Var[indexes.length];
+                    for (int i = 0; i < indexes.length; ++i) {
+                        args[i] = InvokeUtils.getVar(invoke, indexes[i]);
+                    }
+                    HandlerCall call = new HandlerCall(invoke, handler, args);
+                    for (Var arg : args) {
+                        handlerCalls.put(arg, call);
                     }
                 }
             }
@@ -115,55 +160,56 @@ public abstract class AnalysisModelPlugin extends ModelPlugin {
 
     @Override
     public void onNewPointsToSet(CSVar csVar, PointsToSet pts) {
-        relevantVars.get(csVar.getVar()).forEach(invoke -> {
-            JMethod target = invoke.getMethodRef().resolve();
-            Method handler = handlers.get(target);
-            if (handler != null) {
-                int[] indexes = relevantVarIndexes.get(target);
-                invokeHandler(handler, invoke, csVar, pts, indexes);
-            }
-        });
+        for (HandlerCall call : handlerCalls.get(csVar.getVar())) {
+            invokeHandler(call, csVar, pts);
+        }
     }
 
-    private void invokeHandler(Method handler, Invoke invoke,
-                               CSVar csVar, PointsToSet pts, int[] indexes) {
-        PointsToSet[] args = getArgs(csVar, pts, invoke, indexes);
-        Object[] invokeArgs = new Object[2 + args.length];
-        invokeArgs[0] = csVar.getContext();
-        invokeArgs[1] = invoke;
-        System.arraycopy(args, 0, invokeArgs, 2, args.length);
-        try {
-            handler.invoke(this, invokeArgs);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw new AnalysisException(e);
+    private void invokeHandler(HandlerCall call, CSVar csVar, PointsToSet pts) {
+        Context context = csVar.getContext();
+        Invoke invoke = call.invoke();
+        Var[] args = call.args();
+        CompiledHandlers.Handler handler = call.handler();
+        if (handler instanceof CompiledHandlers.Handler1 h) {
+            h.handle(context, invoke, getArg(csVar, pts, args[0]));
+        } else if (handler instanceof CompiledHandlers.Handler2 h) {
+            h.handle(context, invoke, getArg(csVar, pts, args[0]),
+                    getArg(csVar, pts, args[1]));
+        } else if (handler instanceof CompiledHandlers.Handler0 h) {
+            h.handle(context, invoke);
+        } else if (handler instanceof CompiledHandlers.Handler3 h) {
+            h.handle(context, invoke, getArg(csVar, pts, args[0]),
+                    getArg(csVar, pts, args[1]), getArg(csVar, pts, args[2]));
+        } else {
+            PointsToSet[] argPts = new PointsToSet[args.length];
+            for (int i = 0; i < args.length; ++i) {
+                argPts[i] = getArg(csVar, pts, args[i]);
+            }
+            if (handler instanceof CompiledHandlers.SpreadHandler h) {
+                h.handle(context, invoke, argPts);
+            } else {
+                ((CompiledHandlers.ReflectiveHandler) handler).handle(context, invoke, argPts);
+            }
         }
     }
 
     /**
      * For invocation r = v.foo(a0, a1, ..., an);
      * when points-to set of v or any ai (0 &le; i &le; n) changes,
-     * this convenient method returns points-to sets relevant arguments.
+     * this convenient method returns points-to set of a relevant argument.
      * For case v/ai == csVar.getVar(), this method returns pts,
      * otherwise, it just returns current points-to set of v/ai.
      *
-     * @param csVar   may be v or any ai.
-     * @param pts     changed part of csVar
-     * @param invoke  the call site which contain csVar
-     * @param indexes indexes of the relevant arguments
+     * @param csVar may be v or any ai.
+     * @param pts   changed part of csVar
+     * @param arg   the relevant argument
      */
-    private PointsToSet[] getArgs(
-            CSVar csVar, PointsToSet pts, Invoke invoke, int[] indexes) {
-        PointsToSet[] args = new PointsToSet[indexes.length];
-        for (int i = 0; i < args.length; ++i) {
-            int index = indexes[i];
-            Var arg = InvokeUtils.getVar(invoke, index);
-            if (arg.equals(csVar.getVar())) {
-                args[i] = pts;
-            } else {
-                CSVar csArg = csManager.getCSVar(csVar.getContext(), arg);
-                args[i] = solver.getPointsToSetOf(csArg);
-            }
+    private PointsToSet getArg(CSVar csVar, PointsToSet pts, Var arg) {
+        if (arg.equals(csVar.getVar())) {
+            return pts;
+        } else {
+            CSVar csArg = csManager.getCSVar(csVar.getContext(), arg);
+            return solver.getPointsToSetOf(csArg);
         }
-        return args;
     }
 }
@@ -0,0 +1,167 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.util;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.util.AnalysisException;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Compiles invoke handler methods (annotated by {@link InvokeHandler})
+ * of {@link AnalysisModelPlugin} into functional interfaces bound to
+ * the plugin instance, so that the handlers can be called directly
+ * instead of via {@link Method#invoke(Object, Object...)}.
+ * <p>
+ * Handlers with at most {@link #MAX_DIRECT_ARGS} points-to set arguments
+ * are compiled by {@link LambdaMetafactory} to {@link Handler0},
+ * {@link Handler1}, {@link Handler2} or {@link Handler3}.
+ * Other handlers are compiled to {@link SpreadHandler}, which calls
+ * the handler via a spreading {@link MethodHandle}.
+ * <p>
+ * For comparison, handlers can also be dispatched reflectively by
+ * {@link ReflectiveHandler} (option {@code model-handler-dispatch:reflective}).
+ */
+final class CompiledHandlers {
+
+    static final int MAX_DIRECT_ARGS = 3;
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private CompiledHandlers() {
+    }
+
+    /**
+     * Marker interface of compiled handlers.
+     */
+    interface Handler {
+    }
+
+    @FunctionalInterface
+    interface Handler0 extends Handler {
+        void handle(Context context, Invoke invoke);
+    }
+
+    @FunctionalInterface
+    interface Handler1 extends Handler {
+        void handle(Context context, Invoke invoke, PointsToSet pts0);
+    }
+
+    @FunctionalInterface
+    interface Handler2 extends Handler {
+        void handle(Context context, Invoke invoke,
+                    PointsToSet pts0, PointsToSet pts1);
+    }
+
+    @FunctionalInterface
+    interface Handler3 extends Handler {
+        void handle(Context context, Invoke invoke,
+                    PointsToSet pts0, PointsToSet pts1, PointsToSet pts2);
+    }
+
+    /**
+     * Handler with more than {@link #MAX_DIRECT_ARGS} points-to set arguments.
+     *
+     * @param handle method handle of type (Context,Invoke,PointsToSet[])void.
+     */
+    record SpreadHandler(MethodHandle handle) implements Handler {
+
+        void handle(Context context, Invoke invoke, PointsToSet[] args) {
+            try {
+                handle.invoke(context, invoke, args);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Handler which is called via {@link Method#invoke(Object, Object...)}.
+     */
+    record ReflectiveHandler(Object receiver, Method method) implements Handler {
+
+        void handle(Context context, Invoke invoke, PointsToSet[] args) {
+            Object[] invokeArgs = new Object[2 + args.length];
+            invokeArgs[0] = context;
+            invokeArgs[1] = invoke;
+            System.arraycopy(args, 0, invokeArgs, 2, args.length);
+            try {
+                method.invoke(receiver, invokeArgs);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new AnalysisException(e);
+            }
+        }
+    }
+
+    /**
+     * Compiles a handler method.
+     *
+     * @param receiver the object on which the handler is called
+     * @param method   the handler method, which has been validated
+     *                 to be declared as (Context,Invoke,(PointsToSet,)*)
+     * @param nArgs    number of points-to set arguments of the handler
+     * @return the compiled handler bound to {@code receiver}.
+     */
+    static Handler compile(Object receiver, Method method, int nArgs) {
+        try {
+            MethodHandle handler = LOOKUP.unreflect(method);
+            if (nArgs > MAX_DIRECT_ARGS) {
+                return new SpreadHandler(handler.bindTo(receiver)
+                        .asSpreader(PointsToSet[].class, nArgs));
+            }
+            Class<?> handlerClass = switch (nArgs) {
+                case 0 -> Handler0.class;
+                case 1 -> Handler1.class;
+                case 2 -> Handler2.class;
+                default -> Handler3.class;
+            };
+            MethodType handlerType = MethodType.methodType(
+                    void.class, method.getParameterTypes());
+            CallSite callSite = LambdaMetafactory.metafactory(LOOKUP,
+                    "handle",
+                    MethodType.methodType(handlerClass, method.getDeclaringClass()),
+                    handlerType, handler, handlerType);
+            return (Handler) callSite.getTarget().invoke(receiver);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Failed to access " + method +
+                    ", please make sure that the plugin class and the handler" +
+                    " method are public", e);
+        } catch (LambdaConversionException e) {
+            throw new RuntimeException("Failed to create lambda function for " +
+                    method, e);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -59,7 +59,7 @@ public abstract class IRModelPlugin extends ModelPlugin {
 
     @Override
     protected void registerHandler(InvokeHandler invokeHandler, Method handler) {
-        SignatureMatcher matcher = new SignatureMatcher(hierarchy);
+        SignatureMatcher matcher = getSignatureMatcher();
         for (String signature : invokeHandler.signature()) {
             matcher.getMethods(signature).forEach(api -> {
                 if (handlers.containsKey(api)) {
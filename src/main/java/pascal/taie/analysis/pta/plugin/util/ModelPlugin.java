@@ -24,6 +24,7 @@ package pascal.taie.analysis.pta.plugin.util;
 
 import pascal.taie.analysis.pta.core.solver.Solver;
 import pascal.taie.analysis.pta.plugin.Plugin;
+import pascal.taie.language.classes.SignatureMatcher;
 
 import java.lang.reflect.Method;
 
@@ -34,10 +35,23 @@ import java.lang.reflect.Method;
  */
 abstract class ModelPlugin extends SolverHolder implements Plugin {
 
+    /**
+     * Signature matcher shared by all handlers during registration,
+     * so that its caches of classes and methods are reused.
+     */
+    private SignatureMatcher matcher;
+
     protected ModelPlugin(Solver solver) {
         super(solver);
     }
 
+    protected SignatureMatcher getSignatureMatcher() {
+        if (matcher == null) {
+            matcher = new SignatureMatcher(hierarchy);
+        }
+        return matcher;
+    }
+
     protected void registerHandlers() {
         Class<?> clazz = getClass();
         for (Method method : clazz.getMethods()) {
@@ -48,6 +62,7 @@ abstract class ModelPlugin extends SolverHolder implements Plugin {
                 }
             }
         }
+        matcher = null; // release the caches after registration
     }
 
     protected abstract void registerHandler(InvokeHandler invokeHandler, Method handler);
@@ -25,7 +25,9 @@ package pascal.taie.analysis.pta.pts;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
 import pascal.taie.util.Indexer;
 import pascal.taie.util.collection.HybridBitSet;
+import pascal.taie.util.collection.IBitSet;
 import pascal.taie.util.collection.SetEx;
+import pascal.taie.util.function.SSupplier;
 
 class HybridBitPointsToSet extends DelegatePointsToSet {
 
@@ -33,6 +35,11 @@ class HybridBitPointsToSet extends DelegatePointsToSet {
         this(new HybridBitSet<>(indexer, isSparse));
     }
 
+    public HybridBitPointsToSet(Indexer<CSObj> indexer,
+                                SSupplier<IBitSet> bitSetFactory) {
+        this(new HybridBitSet<>(indexer, bitSetFactory));
+    }
+
     private HybridBitPointsToSet(SetEx<CSObj> set) {
         super(set);
     }
@@ -23,7 +23,12 @@
 package pascal.taie.analysis.pta.pts;
 
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.config.ConfigException;
 import pascal.taie.util.Indexer;
+import pascal.taie.util.collection.IBitSet;
+import pascal.taie.util.collection.RoaringBitSet;
+import pascal.taie.util.collection.SparseBitSet;
+import pascal.taie.util.function.SSupplier;
 
 import java.util.function.Supplier;
 
@@ -38,6 +43,21 @@ public class PointsToSetFactory {
         factory = () -> new HybridBitPointsToSet(objIndexer, true);
     }
 
+    /**
+     * @param bitSet kind of the bit sets backing large points-to sets,
+     *               either "sparse" ({@link SparseBitSet})
+     *               or "roaring" ({@link RoaringBitSet}).
+     */
+    public PointsToSetFactory(Indexer<CSObj> objIndexer, String bitSet) {
+        SSupplier<IBitSet> bitSetFactory = switch (bitSet) {
+            case "sparse" -> SparseBitSet::new;
+            case "roaring" -> RoaringBitSet::new;
+            default -> throw new ConfigException(
+                    "Unexpected bit set of points-to sets: " + bitSet);
+        };
+        factory = () -> new HybridBitPointsToSet(objIndexer, bitSetFactory);
+    }
+
     public PointsToSet make() {
         return factory.get();
     }
@@ -24,9 +24,6 @@ package pascal.taie.analysis.pta.toolkit.scaler;
 
 import pascal.taie.analysis.pta.toolkit.PointerAnalysisResultEx;
 import pascal.taie.language.classes.JMethod;
-import pascal.taie.util.collection.Maps;
-
-import java.util.Map;
 
 /**
  * This class computes (estimates) the number of contexts for given method
@@ -36,23 +33,10 @@ abstract class ContextComputer {
 
     final PointerAnalysisResultEx pta;
 
-    /**
-     * Map from a method to its context number.
-     */
-    final Map<JMethod, Integer> method2ctxNumber = Maps.newMap();
-
     ContextComputer(PointerAnalysisResultEx pta) {
         this.pta = pta;
     }
 
-    /**
-     * @return the number of contexts of the given method.
-     */
-    int contextNumberOf(JMethod method) {
-        return method2ctxNumber.computeIfAbsent(
-                method, this::computeContextNumberOf);
-    }
-
     /**
      * @return name of the context sensitivity variant.
      */
@@ -61,6 +45,8 @@ abstract class ContextComputer {
     /**
      * Computes (estimates) the number of contexts for the given method
      * using the context sensitivity variant.
+     * This method may be called concurrently for different methods,
+     * and the results are cached by {@link Scaler}.
      */
     abstract int computeContextNumberOf(JMethod method);
 }
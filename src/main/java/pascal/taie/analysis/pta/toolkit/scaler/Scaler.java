@@ -34,17 +34,24 @@ import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.NullType;
 import pascal.taie.language.type.ReferenceType;
 import pascal.taie.language.type.Type;
+import pascal.taie.util.Timer;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.graph.Graph;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Given a TST (Total Scalability Threshold), select the ST (Scalability Threshold),
  * then select context-sensitivity based on the selected ST value.
+ * <p>
+ * The weights of all methods under all context sensitivity variants are
+ * computed once (in parallel) and stored in primitive arrays, and the
+ * total accumulative size of points-to sets, as a function of ST, is
+ * precomputed as a {@link StepFunction}, so that selecting ST does not
+ * rescan the methods.
  */
 public class Scaler {
 
@@ -60,18 +67,38 @@ public class Scaler {
     private final long tst;
 
     /**
-     * Context computer for the fastest and the most imprecise
-     * context sensitivity variant.
+     * Context computers, from the most precise variant to the least
+     * precise one. The last one is the bottom line, i.e., the context
+     * computer for the fastest and the most imprecise variant.
      */
-    private final ContextComputer bottomLine;
-
     private final List<ContextComputer> ctxComputers;
 
     /**
-     * Map from a method to total size of points-to sets of all (concerned)
-     * variables in the method.
+     * Index of the bottom line in {@link #ctxComputers}.
+     */
+    private final int bottomLine;
+
+    /**
+     * The (instance) methods to select context sensitivity for.
+     */
+    private JMethod[] methods;
+
+    /**
+     * Whether each method in {@link #methods} is special.
      */
-    private final Map<JMethod, Integer> ptsSize = Maps.newMap();
+    private boolean[] special;
+
+    /**
+     * {@code weights[c][i]} is the weight of {@code methods[i]}
+     * when analyzed using the variant of {@code ctxComputers.get(c)}.
+     */
+    private long[][] weights;
+
+    /**
+     * {@code ctxNumbers[c][i]} is the number of contexts of {@code methods[i]}
+     * when analyzed using the variant of {@code ctxComputers.get(c)}.
+     */
+    private int[][] ctxNumbers;
 
     /**
      * Parses Scaler argument and runs Scaler.
@@ -91,14 +118,15 @@ public class Scaler {
     public Scaler(PointerAnalysisResult ptaBase, long tst) {
         this.pta = new PointerAnalysisResultExImpl(ptaBase, true);
         this.tst = tst;
-        bottomLine = new _InsensitiveContextComputer(pta);
         // From the most precise analysis to the least precise analysis
         Graph<Obj> oag = OAGs.build(pta);
         // TODO - make ctxComputers configurable
         ctxComputers = List.of(
                 new _2ObjContextComputer(pta, oag),
                 new _2TypeContextComputer(pta, oag),
-                new _1TypeContextComputer(pta));
+                new _1TypeContextComputer(pta),
+                new _InsensitiveContextComputer(pta));
+        bottomLine = ctxComputers.size() - 1;
     }
 
     /**
@@ -110,36 +138,59 @@ public class Scaler {
      */
     public Map<JMethod, String> selectContext() {
         logger.info("Scaler TST: {}", tst);
-        Set<JMethod> instanceMethods = pta.getBase()
+        methods = pta.getBase()
                 .getCallGraph()
                 .reachableMethods()
                 .filter(m -> !m.isStatic())
-                .collect(Collectors.toUnmodifiableSet());
-        long st = binarySearch(instanceMethods, tst);
-        Map<JMethod, String> csMap = instanceMethods.stream()
-                .collect(Collectors.toMap(m -> m, m -> selectVariantFor(m, st)));
+                .toArray(JMethod[]::new);
+        Timer.runAndCount(this::computeWeights, "Computing Scaler weights");
+        long st = binarySearch(buildTotalAccumulativePTS(), tst);
+        logger.info("Scaler ST: {}", st);
+        Map<JMethod, String> csMap = Maps.newMap(methods.length);
+        for (int i = 0; i < methods.length; ++i) {
+            csMap.put(methods[i], selectVariantFor(i, st));
+        }
         logCSMap(csMap);
         return csMap;
     }
 
+    /**
+     * Computes context numbers and weights of all methods under all
+     * context sensitivity variants in parallel. Each task writes only
+     * its own slots of the arrays, thus no synchronization is needed.
+     */
+    private void computeWeights() {
+        int nMethods = methods.length;
+        int nComputers = ctxComputers.size();
+        special = new boolean[nMethods];
+        weights = new long[nComputers][nMethods];
+        ctxNumbers = new int[nComputers][nMethods];
+        IntStream.range(0, nMethods).parallel().forEach(i -> {
+            JMethod method = methods[i];
+            special[i] = isSpecialMethod(method);
+            long ptsSize = getCIPTSSizeOf(method);
+            for (int c = 0; c < nComputers; ++c) {
+                int ctxNumber = ctxComputers.get(c).computeContextNumberOf(method);
+                ctxNumbers[c][i] = ctxNumber;
+                weights[c][i] = ctxNumber * ptsSize;
+            }
+        });
+    }
+
     /**
      * Search the suitable st such that the accumulative size of
      * context-sensitive points to sets of given methods is less than given tst.
      *
      * @return the st for every method
      */
-    private long binarySearch(Set<JMethod> methods, long tst) {
+    private long binarySearch(StepFunction totalPTS, long tst) {
         // Select the max value and make it as end
-        @SuppressWarnings("OptionalGetWithoutIsPresent")
-        long end = methods.stream()
-                .mapToLong(m -> getWeight(m, ctxComputers.get(0)))
-                .max()
-                .getAsLong();
+        long end = Arrays.stream(weights[0]).max().orElse(0);
         long start = 0;
         long mid, ret = 0;
         while (start <= end) {
             mid = (start + end) / 2;
-            long totalSize = getTotalAccumulativePTS(methods, mid);
+            long totalSize = totalPTS.valueAt(mid);
             if (totalSize < tst) {
                 ret = mid;
                 start = mid + 1;
@@ -154,45 +205,82 @@ public class Scaler {
     }
 
     /**
-     * Given a set of methods and a st (scalability threshold),
-     * computes the total size of all (concerned) variables in the program.
+     * Builds the function that maps a st (scalability threshold) to
+     * the total accumulative size of all (concerned) variables in the program.
+     * <p>
+     * For each method, the selected context computer (and thus its weight)
+     * can change only at st values that equal to its weights, so we record
+     * the change of weight at each such value, and accumulate all changes
+     * into a step function.
      */
-    private long getTotalAccumulativePTS(Set<JMethod> methods, long st) {
-        long total = 0;
-        for (JMethod method : methods) {
-            if (!isSpecialMethod(method)) {
+    private StepFunction buildTotalAccumulativePTS() {
+        int nComputers = ctxComputers.size();
+        long initial = 0;
+        long[] points = new long[methods.length * bottomLine];
+        long[] deltas = new long[points.length];
+        int nPoints = 0;
+        for (int i = 0; i < methods.length; ++i) {
+            if (special[i]) {
                 // special methods are excluded from this computation
-                ContextComputer cc = selectContextComputer(method, st);
-                total += getWeight(method, cc);
+                continue;
+            }
+            // when st is less than all weights, bottom line is selected
+            initial += weights[bottomLine][i];
+            for (int c = 0; c < bottomLine; ++c) {
+                long point = weights[c][i];
+                if (isFirstOccurrence(i, c, point)) {
+                    long delta = getSelectedWeight(i, point)
+                            - getSelectedWeight(i, point - 1);
+                    if (delta != 0) {
+                        points[nPoints] = point;
+                        deltas[nPoints] = delta;
+                        ++nPoints;
+                    }
+                }
             }
         }
-        return total;
+        return StepFunction.of(initial,
+                Arrays.copyOf(points, nPoints), Arrays.copyOf(deltas, nPoints));
+    }
+
+    /**
+     * @return {@code true} if given weight of i-th method does not equal
+     * any weight of the method computed by the context computers before
+     * {@code ctxComputers.get(c)}.
+     */
+    private boolean isFirstOccurrence(int i, int c, long weight) {
+        for (int prev = 0; prev < c; ++prev) {
+            if (weights[prev][i] == weight) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long getSelectedWeight(int i, long st) {
+        return weights[selectContextComputer(i, st)][i];
     }
 
     /**
-     * Selects a suitable context computer for given method and st.
+     * Selects a suitable context computer for i-th method and given st.
      * If there are any ContextComputers which can satisfy that the weight
      * of given method can be less than or equal to given st, then the
      * most expensive (and precise) ContextComputer is returned;
      * otherwise, bottom line is returned.
      *
-     * @return the selected context computer for method according to tst
+     * @return index of the selected context computer for method according to tst
      */
-    private ContextComputer selectContextComputer(JMethod method, long st) {
-        ContextComputer ctxComp;
-        if (isSpecialMethod(method)) {
+    private int selectContextComputer(int i, long st) {
+        if (special[i]) {
             // special methods will be analyzed with the most precise variant
-            ctxComp = ctxComputers.get(0);
-        } else {
-            ctxComp = bottomLine;
-            for (ContextComputer cc : ctxComputers) {
-                if (getWeight(method, cc) <= st) {
-                    ctxComp = cc;
-                    break;
-                }
+            return 0;
+        }
+        for (int c = 0; c < bottomLine; ++c) {
+            if (weights[c][i] <= st) {
+                return c;
             }
         }
-        return ctxComp;
+        return bottomLine;
     }
 
     /**
@@ -205,30 +293,17 @@ public class Scaler {
                 .startsWith("java.util.");
     }
 
-    /**
-     * @return the weight of given method when analyzed using the
-     * context sensitivity variant that corresponds to given ContextComputer.
-     */
-    private long getWeight(JMethod method, ContextComputer cc) {
-        return ((long) cc.contextNumberOf(method))
-                * ((long) getCIPTSSizeOf(method));
-    }
-
     /**
      * @return total size of points-to sets of all (concerned) variables
      * in given method when analyzed using context insensitivity.
      */
     private int getCIPTSSizeOf(JMethod method) {
-        if (!ptsSize.containsKey(method)) {
-            int size = method.getIR()
-                    .getVars()
-                    .stream()
-                    .filter(Scaler::isConcerned)
-                    .mapToInt(v -> pta.getBase().getPointsToSet(v).size())
-                    .sum();
-            ptsSize.put(method, size);
-        }
-        return ptsSize.get(method);
+        return method.getIR()
+                .getVars()
+                .stream()
+                .filter(Scaler::isConcerned)
+                .mapToInt(v -> pta.getBase().getPointsToSet(v).size())
+                .sum();
     }
 
     /**
@@ -240,15 +315,15 @@ public class Scaler {
     }
 
     /**
-     * Given st, selects suitable context sensitivity variant for given method.
+     * Given st, selects suitable context sensitivity variant for i-th method.
      */
-    private String selectVariantFor(JMethod method, long st) {
-        ContextComputer ctxComp = selectContextComputer(method, st);
-        logger.debug("{}, {}, {}", method,
-                ctxComp.getVariantName(), ctxComp.contextNumberOf(method));
+    private String selectVariantFor(int i, long st) {
+        int c = selectContextComputer(i, st);
+        ContextComputer ctxComp = ctxComputers.get(c);
+        logger.debug("{}, {}, {}", methods[i],
+                ctxComp.getVariantName(), ctxNumbers[c][i]);
         return ctxComp.getVariantName();
     }
-
     private static void logCSMap(Map<JMethod, String> csMap) {
         if (logger.isDebugEnabled()) {
             csMap.entrySet()
@@ -265,4 +340,72 @@ public class Scaler {
                     .forEach(logger::debug);
         }
     }
+
+    /**
+     * Step function over {@code long} values,
+     * represented by sorted change points and prefix sums of changes.
+     * Evaluating the function costs O(log n), where n is the number
+     * of change points.
+     */
+    static final class StepFunction {
+
+        /**
+         * Value of the function before the first change point.
+         */
+        private final long initial;
+
+        /**
+         * Sorted distinct change points.
+         */
+        private final long[] points;
+
+        /**
+         * {@code values[j]} is the value of the function in
+         * {@code [points[j], points[j + 1])}.
+         */
+        private final long[] values;
+
+        private StepFunction(long initial, long[] points, long[] values) {
+            this.initial = initial;
+            this.points = points;
+            this.values = values;
+        }
+
+        /**
+         * Creates a step function whose value is {@code initial} at
+         * negative infinity, and changes by {@code deltas[j]} at
+         * {@code points[j]}. The points can be unsorted or duplicate.
+         */
+        static StepFunction of(long initial, long[] points, long[] deltas) {
+            long[] sorted = points.clone();
+            Arrays.sort(sorted);
+            int n = 0;
+            for (int j = 0; j < sorted.length; ++j) {
+                if (n == 0 || sorted[n - 1] != sorted[j]) {
+                    sorted[n++] = sorted[j];
+                }
+            }
+            long[] distinct = Arrays.copyOf(sorted, n);
+            long[] values = new long[n];
+            for (int j = 0; j < points.length; ++j) {
+                values[Arrays.binarySearch(distinct, points[j])] += deltas[j];
+            }
+            long value = initial;
+            for (int j = 0; j < n; ++j) {
+                value += values[j];
+                values[j] = value;
+            }
+            return new StepFunction(initial, distinct, values);
+        }
+
+        /**
+         * @return value of this function at x.
+         */
+        long valueAt(long x) {
+            int r = Arrays.binarySearch(points, x);
+            // number of points that are less than or equal to x
+            int n = r >= 0 ? r + 1 : -(r + 1);
+            return n == 0 ? initial : values[n - 1];
+        }
+    }
 }
@@ -0,0 +1,296 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.toolkit.zipper;
+
+import pascal.taie.analysis.graph.flowgraph.FlowEdge;
+import pascal.taie.analysis.graph.flowgraph.FlowKind;
+import pascal.taie.analysis.graph.flowgraph.InstanceNode;
+import pascal.taie.analysis.graph.flowgraph.Node;
+import pascal.taie.analysis.graph.flowgraph.ObjectFlowGraph;
+import pascal.taie.analysis.graph.flowgraph.VarNode;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.classes.JMethod;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Read-only, index-based adjacency of an {@link ObjectFlowGraph}.
+ * <p>
+ * Nodes are represented by their indexes in the OFG, and edges are stored
+ * in compressed sparse row (CSR) form. This structure is built once and
+ * shared by all (concurrently built) {@link PrecisionFlowGraph}s, so that
+ * each precision flow graph only needs to keep a few bit sets over the
+ * node indexes instead of re-deriving the OFG neighborhoods.
+ */
+final class IndexedObjectFlowGraph {
+
+    private static final FlowKind[] KINDS = FlowKind.values();
+
+    private final ObjectFlowGraph ofg;
+
+    private final int nodeCount;
+
+    private final int[] outOffsets;
+
+    private final int[] outTargets;
+
+    private final byte[] outKinds;
+
+    private final int[] inOffsets;
+
+    private final int[] inSources;
+
+    /**
+     * Containing method of each node, or {@code null} if absent.
+     */
+    private final JMethod[] methods;
+
+    /**
+     * For each var node, the nodes of the variables that receive
+     * return values of the invocations on the var.
+     */
+    private final int[] returnToOffsets;
+
+    private final int[] returnToNodes;
+
+    /**
+     * Inverse of {@link #returnToNodes}.
+     */
+    private final int[] returnFromOffsets;
+
+    private final int[] returnFromNodes;
+
+    /**
+     * For each instance node, the node of the variable that is assigned
+     * the base object of the instance node at its allocation site,
+     * or -1 if absent.
+     */
+    private final int[] assignedNodes;
+
+    /**
+     * Inverse of {@link #assignedNodes}.
+     */
+    private final int[] assignedFromOffsets;
+
+    private final int[] assignedFromNodes;
+
+    IndexedObjectFlowGraph(ObjectFlowGraph ofg) {
+        this.ofg = ofg;
+        nodeCount = ofg.getNodes().size();
+        // build out and in edges
+        outOffsets = new int[nodeCount + 1];
+        inOffsets = new int[nodeCount + 1];
+        for (int i = 0; i < nodeCount; ++i) {
+            for (FlowEdge edge : ofg.getOutEdgesOf(ofg.getObject(i))) {
+                ++outOffsets[i + 1];
+                ++inOffsets[edge.target().getIndex() + 1];
+            }
+        }
+        prefixSum(outOffsets);
+        prefixSum(inOffsets);
+        outTargets = new int[outOffsets[nodeCount]];
+        outKinds = new byte[outTargets.length];
+        inSources = new int[inOffsets[nodeCount]];
+        int[] inCursors = Arrays.copyOf(inOffsets, nodeCount);
+        for (int i = 0, e = 0; i < nodeCount; ++i) {
+            for (FlowEdge edge : ofg.getOutEdgesOf(ofg.getObject(i))) {
+                int target = edge.target().getIndex();
+                outTargets[e] = target;
+                outKinds[e] = (byte) edge.kind().ordinal();
+                ++e;
+                inSources[inCursors[target]++] = i;
+            }
+        }
+        // build node information
+        methods = new JMethod[nodeCount];
+        assignedNodes = new int[nodeCount];
+        Arrays.fill(assignedNodes, -1);
+        returnToOffsets = new int[nodeCount + 1];
+        returnFromOffsets = new int[nodeCount + 1];
+        int[][] returnTos = new int[nodeCount][];
+        assignedFromOffsets = new int[nodeCount + 1];
+        for (int i = 0; i < nodeCount; ++i) {
+            Node node = ofg.getObject(i);
+            if (node instanceof VarNode varNode) {
+                Var var = varNode.getVar();
+                methods[i] = var.getMethod();
+                returnTos[i] = var.getInvokes()
+                        .stream()
+                        .map(Invoke::getLValue)
+                        .filter(lhs -> lhs != null && ofg.getVarNode(lhs) != null)
+                        .mapToInt(lhs -> ofg.getVarNode(lhs).getIndex())
+                        .distinct()
+                        .toArray();
+                returnToOffsets[i + 1] = returnTos[i].length;
+                for (int to : returnTos[i]) {
+                    ++returnFromOffsets[to + 1];
+                }
+            } else if (node instanceof InstanceNode instanceNode) {
+                Obj base = instanceNode.getBase();
+                if (base.getAllocation() instanceof New newStmt) {
+                    methods[i] = newStmt.getContainer();
+                    VarNode assigned = ofg.getVarNode(newStmt.getLValue());
+                    if (assigned != null) {
+                        assignedNodes[i] = assigned.getIndex();
+                        ++assignedFromOffsets[assignedNodes[i] + 1];
+                    }
+                }
+            }
+        }
+        prefixSum(returnToOffsets);
+        prefixSum(returnFromOffsets);
+        prefixSum(assignedFromOffsets);
+        returnToNodes = new int[returnToOffsets[nodeCount]];
+        returnFromNodes = new int[returnFromOffsets[nodeCount]];
+        assignedFromNodes = new int[assignedFromOffsets[nodeCount]];
+        int[] returnFromCursors = Arrays.copyOf(returnFromOffsets, nodeCount);
+        int[] assignedFromCursors = Arrays.copyOf(assignedFromOffsets, nodeCount);
+        for (int i = 0; i < nodeCount; ++i) {
+            if (returnTos[i] != null) {
+                System.arraycopy(returnTos[i], 0, returnToNodes,
+                        returnToOffsets[i], returnTos[i].length);
+                for (int to : returnTos[i]) {
+                    returnFromNodes[returnFromCursors[to]++] = i;
+                }
+            }
+            if (assignedNodes[i] != -1) {
+                assignedFromNodes[assignedFromCursors[assignedNodes[i]]++] = i;
+            }
+        }
+    }
+
+    private static void prefixSum(int[] offsets) {
+        for (int i = 1; i < offsets.length; ++i) {
+            offsets[i] += offsets[i - 1];
+        }
+    }
+
+    ObjectFlowGraph getOFG() {
+        return ofg;
+    }
+
+    int getNumberOfNodes() {
+        return nodeCount;
+    }
+
+    int getNumberOfEdges() {
+        return outTargets.length;
+    }
+
+    Node getNode(int node) {
+        return ofg.getObject(node);
+    }
+
+    /**
+     * @return index of the node of given variable, or -1 if absent.
+     */
+    int getVarNode(Var var) {
+        VarNode node = ofg.getVarNode(var);
+        return node != null ? node.getIndex() : -1;
+    }
+
+    @Nullable
+    JMethod getMethod(int node) {
+        return methods[node];
+    }
+
+    // The following methods return the start (inclusive) and end (exclusive)
+    // positions of the adjacency of given node, which can be used to access
+    // the adjacent nodes via the corresponding getters.
+
+    int outStart(int node) {
+        return outOffsets[node];
+    }
+
+    int outEnd(int node) {
+        return outOffsets[node + 1];
+    }
+
+    int outTarget(int pos) {
+        return outTargets[pos];
+    }
+
+    FlowKind outKind(int pos) {
+        return KINDS[outKinds[pos]];
+    }
+
+    int inStart(int node) {
+        return inOffsets[node];
+    }
+
+    int inEnd(int node) {
+        return inOffsets[node + 1];
+    }
+
+    int inSource(int pos) {
+        return inSources[pos];
+    }
+
+    int returnToStart(int node) {
+        return returnToOffsets[node];
+    }
+
+    int returnToEnd(int node) {
+        return returnToOffsets[node + 1];
+    }
+
+    int returnTo(int pos) {
+        return returnToNodes[pos];
+    }
+
+    int returnFromStart(int node) {
+        return returnFromOffsets[node];
+    }
+
+    int returnFromEnd(int node) {
+        return returnFromOffsets[node + 1];
+    }
+
+    int returnFrom(int pos) {
+        return returnFromNodes[pos];
+    }
+
+    /**
+     * @return index of the node assigned by the base of given instance node
+     * at its allocation site, or -1 if absent.
+     */
+    int getAssignedNode(int node) {
+        return assignedNodes[node];
+    }
+
+    int assignedFromStart(int node) {
+        return assignedFromOffsets[node];
+    }
+
+    int assignedFromEnd(int node) {
+        return assignedFromOffsets[node + 1];
+    }
+
+    int assignedFrom(int pos) {
+        return assignedFromNodes[pos];
+    }
+}
@@ -24,43 +24,39 @@ package pascal.taie.analysis.pta.toolkit.zipper;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import pascal.taie.analysis.graph.flowgraph.FlowEdge;
 import pascal.taie.analysis.graph.flowgraph.InstanceNode;
 import pascal.taie.analysis.graph.flowgraph.Node;
-import pascal.taie.analysis.graph.flowgraph.ObjectFlowGraph;
 import pascal.taie.analysis.graph.flowgraph.VarNode;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.toolkit.PointerAnalysisResultEx;
 import pascal.taie.ir.exp.Var;
-import pascal.taie.ir.stmt.Invoke;
-import pascal.taie.ir.stmt.New;
 import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.ClassType;
 import pascal.taie.language.type.Type;
-import pascal.taie.util.collection.IndexerBitSet;
-import pascal.taie.util.collection.Maps;
-import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.IBitSet;
 import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.SparseBitSet;
 
-import javax.annotation.Nullable;
-import java.util.ArrayDeque;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Deque;
-import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+/**
+ * Builds {@link PrecisionFlowGraph} of a type on the shared
+ * {@link IndexedObjectFlowGraph}. All nodes are represented by their
+ * indexes, and the results are kept in (sparse) bit sets.
+ */
 class PFGBuilder {
 
     private static final Logger logger = LogManager.getLogger(PFGBuilder.class);
 
     private final PointerAnalysisResultEx pta;
 
-    private final ObjectFlowGraph ofg;
+    private final IndexedObjectFlowGraph iofg;
 
     private final ObjectAllocationGraph oag;
 
@@ -77,21 +73,36 @@ class PFGBuilder {
     private final Set<JMethod> invokeMethods;
 
     /**
-     * Stores wrapped and unwrapped flow edges.
+     * PCE methods of the input type.
      */
-    private MultiMap<Node, FlowEdge> wuEdges;
+    private final Set<JMethod> pceMethods;
 
-    private Set<Node> visitedNodes;
+    private IBitSet visitedNodes;
 
     private Set<VarNode> inNodes;
 
-    private Set<VarNode> outNodes;
+    private IBitSet outNodes;
+
+    private int[] thisNodes;
+
+    private IBitSet unwrappedSources;
+
+    private IBitSet wrappedToThisSources;
+
+    private IBitSet wrappedToAssignedSources;
+
+    /**
+     * Stack of nodes to be visited.
+     */
+    private int[] stack;
+
+    private int stackSize;
 
-    PFGBuilder(PointerAnalysisResultEx pta, ObjectFlowGraph ofg,
+    PFGBuilder(PointerAnalysisResultEx pta, IndexedObjectFlowGraph iofg,
                ObjectAllocationGraph oag, PotentialContextElement pce,
                Type type) {
         this.pta = pta;
-        this.ofg = ofg;
+        this.iofg = iofg;
         this.oag = oag;
         this.pce = pce;
         this.type = type;
@@ -100,17 +111,30 @@ class PFGBuilder {
                 .map(pta::getMethodsInvokedOn)
                 .flatMap(Set::stream)
                 .collect(Collectors.toUnmodifiableSet());
+        this.pceMethods = pce.pceMethodsOf(type);
     }
 
     PrecisionFlowGraph build() {
         inNodes = obtainInNodes();
-        outNodes = obtainOutNodes();
-        visitedNodes = new IndexerBitSet<>(ofg, true);
-        wuEdges = Maps.newMultiMap();
+        outNodes = new SparseBitSet();
+        obtainOutNodes().forEach(node -> outNodes.set(node.getIndex()));
+        thisNodes = invokeMethods.stream()
+                .map(m -> m.getIR().getThis())
+                .mapToInt(iofg::getVarNode)
+                .filter(i -> i != -1) // filter this variable of native methods
+                .toArray();
+        visitedNodes = new SparseBitSet();
+        unwrappedSources = new SparseBitSet();
+        wrappedToThisSources = new SparseBitSet();
+        wrappedToAssignedSources = new SparseBitSet();
+        stack = new int[64];
         for (VarNode inNode : inNodes) {
-            dfs(inNode);
+            dfs(inNode.getIndex());
         }
-        return new PrecisionFlowGraph(type, ofg, visitedNodes, outNodes, wuEdges);
+        stack = null;
+        return new PrecisionFlowGraph(type, iofg, visitedNodes, outNodes,
+                thisNodes, unwrappedSources, wrappedToThisSources,
+                wrappedToAssignedSources);
     }
 
     private Set<JMethod> obtainMethods() {
@@ -127,7 +151,7 @@ class PFGBuilder {
                 .stream()
                 .flatMap(method -> method.getIR().getParams().stream())
                 .filter(param -> !pta.getBase().getPointsToSet(param).isEmpty())
-                .map(ofg::getVarNode)
+                .map(iofg.getOFG()::getVarNode)
                 .filter(Objects::nonNull)
                 .collect(Collectors.toUnmodifiableSet());
     }
@@ -150,7 +174,7 @@ class PFGBuilder {
         return outMethods.stream()
                 .flatMap(method -> method.getIR().getReturnVars().stream())
                 .filter(ret -> !pta.getBase().getPointsToSet(ret).isEmpty())
-                .map(ofg::getVarNode)
+                .map(iofg.getOFG()::getVarNode)
                 .filter(Objects::nonNull)
                 .collect(Collectors.toUnmodifiableSet());
     }
@@ -172,124 +196,110 @@ class PFGBuilder {
         return false;
     }
 
-    private void dfs(Node startNode) {
-        Deque<Node> stack = new ArrayDeque<>();
-        stack.push(startNode);
-        while (!stack.isEmpty()) {
-            Node node = stack.pop();
-            if (visitedNodes.contains(node)) {
+    private void dfs(int startNode) {
+        push(startNode);
+        while (stackSize > 0) {
+            int node = stack[--stackSize];
+            if (!visitedNodes.set(node)) {
                 continue;
             }
-            logger.trace("dfs on {}", node);
-            visitedNodes.add(node);
+            Node n = iofg.getNode(node);
+            logger.trace("dfs on {}", n);
             // add unwrapped flow edges
-            if (node instanceof VarNode varNode) {
-                Var var = varNode.getVar();
-                Set<Obj> varPts = pta.getBase().getPointsToSet(var);
-                // Optimization: approximate unwrapped flows to make
-                // Zipper and pointer analysis run faster
-                getReturnToVariablesOf(var).forEach(toVar -> {
-                    VarNode toNode = ofg.getVarNode(toVar);
-                    if (toNode != null && outNodes.contains(toNode)) {
-                        for (VarNode inNode : inNodes) {
-                            Var inVar = inNode.getVar();
-                            if (!Collections.disjoint(
-                                    pta.getBase().getPointsToSet(inVar), varPts)) {
-                                wuEdges.put(node, new UnwrappedFlowEdge(node, toNode));
-                                break;
-                            }
-                        }
-                    }
-                });
+            if (n instanceof VarNode varNode) {
+                addUnwrappedFlowEdges(node, varNode.getVar());
             }
-            List<FlowEdge> nextEdges = new ArrayList<>();
-            for (FlowEdge edge : getOutEdgesOf(node)) {
-                switch (edge.kind()) {
-                    case LOCAL_ASSIGN, CAST -> {
-                        nextEdges.add(edge);
-                    }
+            for (int pos = iofg.outStart(node); pos < iofg.outEnd(node); ++pos) {
+                int target = iofg.outTarget(pos);
+                switch (iofg.outKind(pos)) {
+                    case LOCAL_ASSIGN, CAST -> push(target);
                     case INSTANCE_LOAD, ARRAY_LOAD,
                             THIS_PASSING, PARAMETER_PASSING, RETURN -> {
                         // target node must be a VarNode
-                        VarNode toNode = (VarNode) edge.target();
-                        Var toVar = toNode.getVar();
                         // Optimization: filter out some potential spurious flows due to
                         // the imprecision of context-insensitive pre-analysis, which
                         // helps improve the performance of Zipper and pointer analysis.
-                        if (pce.pceMethodsOf(type).contains(toVar.getMethod())) {
-                            nextEdges.add(edge);
+                        if (pceMethods.contains(iofg.getMethod(target))) {
+                            push(target);
                         }
                     }
                     case INSTANCE_STORE, ARRAY_STORE -> {
-                        InstanceNode toNode = (InstanceNode) edge.target();
-                        Obj base = toNode.getBase();
+                        Obj base = ((InstanceNode) iofg.getNode(target)).getBase();
                         if (base.getType().equals(type)) {
                             // add wrapped flow edges to this variable
-                            invokeMethods.stream()
-                                    .map(m -> m.getIR().getThis())
-                                    .map(ofg::getVarNode)
-                                    .filter(Objects::nonNull) // filter this variable of native methods
-                                    .forEach(nextNode -> wuEdges.put(toNode,
-                                            new WrappedFlowEdge(toNode, nextNode)));
-                            nextEdges.add(edge);
+                            wrappedToThisSources.set(target);
+                            push(target);
                         } else if (oag.getAllocateesOf(type).contains(base)) {
                             // Optimization, similar as above.
-                            VarNode assignedNode = getAssignedNode(base);
-                            if (assignedNode != null) {
-                                wuEdges.put(toNode,
-                                        new WrappedFlowEdge(toNode, assignedNode));
+                            if (iofg.getAssignedNode(target) != -1) {
+                                wrappedToAssignedSources.set(target);
                             }
-                            nextEdges.add(edge);
+                            push(target);
                         }
                     }
-                    case OTHER -> {
-                        if (edge instanceof WrappedFlowEdge) {
-                            // same as INSTANCE_STORE
-                            // target node must be a VarNode
-                            VarNode toNode = (VarNode) edge.target();
-                            Var toVar = toNode.getVar();
-                            // Optimization: filter out some potential spurious flows due to
-                            // the imprecision of context-insensitive pre-analysis, which
-                            // helps improve the performance of Zipper and pointer analysis.
-                            if (pce.pceMethodsOf(type).contains(toVar.getMethod())) {
-                                nextEdges.add(edge);
-                            }
-                        } else if (edge instanceof UnwrappedFlowEdge) {
-                            // same as LOCAL_ASSIGN
-                            nextEdges.add(edge);
-                        }
+                    default -> {
                     }
                 }
             }
-            for (FlowEdge nextEdge : nextEdges) {
-                stack.push(nextEdge.target());
+            // follow wrapped flow edges, which have been added when
+            // visiting the store edges to this node
+            if (wrappedToThisSources.get(node)) {
+                for (int thisNode : thisNodes) {
+                    pushIfInPCEMethod(thisNode);
+                }
+            }
+            if (wrappedToAssignedSources.get(node)) {
+                pushIfInPCEMethod(iofg.getAssignedNode(node));
             }
         }
     }
 
-    public Set<FlowEdge> getOutEdgesOf(Node node) {
-        Set<FlowEdge> outEdges = ofg.getOutEdgesOf(node);
-        if (wuEdges.containsKey(node)) {
-            outEdges = Sets.newSet(outEdges);
-            outEdges.addAll(wuEdges.get(node));
+    /**
+     * Adds unwrapped flow edges from given node, and pushes their targets.
+     */
+    private void addUnwrappedFlowEdges(int node, Var var) {
+        Boolean hasFlow = null;
+        for (int pos = iofg.returnToStart(node); pos < iofg.returnToEnd(node); ++pos) {
+            int toNode = iofg.returnTo(pos);
+            if (outNodes.get(toNode)) {
+                if (hasFlow == null) {
+                    // Optimization: approximate unwrapped flows to make
+                    // Zipper and pointer analysis run faster
+                    hasFlow = hasFlowFromInNodes(var);
+                }
+                if (hasFlow) {
+                    unwrappedSources.set(node);
+                    push(toNode);
+                } else {
+                    return;
+                }
+            }
         }
-        return outEdges;
     }
 
-    @Nullable
-    private VarNode getAssignedNode(Obj obj) {
-        if (obj.getAllocation() instanceof New newStmt) {
-            Var lhs = newStmt.getLValue();
-            return ofg.getVarNode(lhs);
+    private boolean hasFlowFromInNodes(Var var) {
+        Set<Obj> varPts = pta.getBase().getPointsToSet(var);
+        for (VarNode inNode : inNodes) {
+            Var inVar = inNode.getVar();
+            if (!Collections.disjoint(
+                    pta.getBase().getPointsToSet(inVar), varPts)) {
+                return true;
+            }
         }
-        return null;
+        return false;
     }
 
-    private static List<Var> getReturnToVariablesOf(Var var) {
-        return var.getInvokes()
-                .stream()
-                .map(Invoke::getLValue)
-                .filter(Objects::nonNull)
-                .toList();
+    private void pushIfInPCEMethod(int varNode) {
+        // same as INSTANCE_LOAD, see the comments in dfs()
+        if (pceMethods.contains(iofg.getMethod(varNode))) {
+            push(varNode);
+        }
+    }
+
+    private void push(int node) {
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize << 1);
+        }
+        stack[stackSize++] = node;
     }
 }
@@ -27,50 +27,180 @@ import pascal.taie.analysis.graph.flowgraph.Node;
 import pascal.taie.analysis.graph.flowgraph.ObjectFlowGraph;
 import pascal.taie.analysis.graph.flowgraph.VarNode;
 import pascal.taie.language.type.Type;
-import pascal.taie.util.collection.Maps;
-import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.IBitSet;
+import pascal.taie.util.collection.IndexerBitSet;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.SparseBitSet;
 import pascal.taie.util.collection.Views;
 import pascal.taie.util.graph.Graph;
 
+import java.util.Collection;
 import java.util.Set;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
+/**
+ * Precision flow graph of a type.
+ * <p>
+ * A precision flow graph is a lightweight overlay on the shared
+ * {@link IndexedObjectFlowGraph}: it consists of the OFG edges among its
+ * nodes (kept in a bit set), and the wrapped and unwrapped flow edges,
+ * which are derived from the shared index and a few bit sets that record
+ * their source nodes. The {@link Graph} view (and the edge objects)
+ * is created on demand.
+ */
 class PrecisionFlowGraph implements Graph<Node> {
 
     private final Type type;
 
-    private final ObjectFlowGraph ofg;
+    private final IndexedObjectFlowGraph iofg;
+
+    private final IBitSet nodes;
+
+    private final IBitSet outNodes;
 
-    private final Set<Node> nodes;
+    /**
+     * Nodes of this variables of the methods invoked on objects of {@link #type}.
+     */
+    private final int[] thisNodes;
 
-    private final Set<VarNode> outNodes;
+    private final IBitSet thisNodeSet;
 
-    private final MultiMap<Node, FlowEdge> inWUEdges;
+    /**
+     * Var nodes which have unwrapped flow edges to the nodes in
+     * {@link #outNodes} that receive the results of invocations on them.
+     */
+    private final IBitSet unwrappedSources;
 
-    private final MultiMap<Node, FlowEdge> outWUEdges;
+    /**
+     * Instance nodes which have wrapped flow edges to {@link #thisNodes}.
+     */
+    private final IBitSet wrappedToThisSources;
 
-    PrecisionFlowGraph(Type type, ObjectFlowGraph ofg,
-                       Set<Node> nodes, Set<VarNode> outNodes,
-                       MultiMap<Node, FlowEdge> outWUEdges) {
+    /**
+     * Instance nodes which have wrapped flow edges to the nodes
+     * assigned by their bases at allocation sites.
+     */
+    private final IBitSet wrappedToAssignedSources;
+
+    PrecisionFlowGraph(Type type, IndexedObjectFlowGraph iofg,
+                       IBitSet nodes, IBitSet outNodes, int[] thisNodes,
+                       IBitSet unwrappedSources, IBitSet wrappedToThisSources,
+                       IBitSet wrappedToAssignedSources) {
         this.type = type;
-        this.ofg = ofg;
+        this.iofg = iofg;
         this.nodes = nodes;
-        this.outNodes = outNodes
-                .stream()
-                .filter(nodes::contains)
-                .collect(Collectors.toUnmodifiableSet());
-        this.outWUEdges = outWUEdges;
-        this.inWUEdges = Maps.newMultiMap();
-        outWUEdges.values()
-                .forEach(edge -> inWUEdges.put(edge.target(), edge));
+        this.outNodes = outNodes;
+        this.thisNodes = thisNodes;
+        this.thisNodeSet = new SparseBitSet();
+        for (int thisNode : thisNodes) {
+            thisNodeSet.set(thisNode);
+        }
+        this.unwrappedSources = unwrappedSources;
+        this.wrappedToThisSources = wrappedToThisSources;
+        this.wrappedToAssignedSources = wrappedToAssignedSources;
     }
 
     Type getType() {
         return type;
     }
 
+    /**
+     * @return indexes of the nodes in this graph.
+     */
+    IBitSet getNodeIndexes() {
+        return nodes;
+    }
+
+    /**
+     * @return indexes of the OUT nodes in this graph.
+     */
+    IBitSet getOutNodeIndexes() {
+        IBitSet result = outNodes.copy();
+        result.and(nodes);
+        return result;
+    }
+
     Set<VarNode> getOutNodes() {
-        return outNodes;
+        Set<VarNode> result = Sets.newSet();
+        IBitSet indexes = getOutNodeIndexes();
+        for (int i = indexes.nextSetBit(0); i >= 0; i = indexes.nextSetBit(i + 1)) {
+            result.add((VarNode) iofg.getNode(i));
+        }
+        return result;
+    }
+
+    @Override
+    public int getNumberOfNodes() {
+        return nodes.cardinality();
+    }
+
+    int getNumberOfEdges() {
+        int count = 0;
+        for (int i = nodes.nextSetBit(0); i >= 0; i = nodes.nextSetBit(i + 1)) {
+            for (int pos = iofg.outStart(i); pos < iofg.outEnd(i); ++pos) {
+                if (nodes.get(iofg.outTarget(pos))) {
+                    ++count;
+                }
+            }
+            if (unwrappedSources.get(i)) {
+                for (int pos = iofg.returnToStart(i); pos < iofg.returnToEnd(i); ++pos) {
+                    if (outNodes.get(iofg.returnTo(pos))) {
+                        ++count;
+                    }
+                }
+            }
+            if (wrappedToThisSources.get(i)) {
+                count += thisNodes.length;
+            }
+            if (wrappedToAssignedSources.get(i)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Applies given action to the index of each predecessor of given node.
+     * A predecessor may be visited more than once.
+     */
+    void forEachPredOf(int node, IntConsumer action) {
+        for (int pos = iofg.inStart(node); pos < iofg.inEnd(node); ++pos) {
+            int source = iofg.inSource(pos);
+            if (nodes.get(source)) {
+                action.accept(source);
+            }
+        }
+        forEachWUPredOf(node, action);
+    }
+
+    /**
+     * Applies given action to the index of the source of each wrapped
+     * or unwrapped flow edge to given node.
+     */
+    private void forEachWUPredOf(int node, IntConsumer action) {
+        if (outNodes.get(node)) {
+            for (int pos = iofg.returnFromStart(node);
+                 pos < iofg.returnFromEnd(node); ++pos) {
+                int source = iofg.returnFrom(pos);
+                if (unwrappedSources.get(source)) {
+                    action.accept(source);
+                }
+            }
+        }
+        if (thisNodeSet.get(node)) {
+            for (int source = wrappedToThisSources.nextSetBit(0); source >= 0;
+                 source = wrappedToThisSources.nextSetBit(source + 1)) {
+                action.accept(source);
+            }
+        }
+        for (int pos = iofg.assignedFromStart(node);
+             pos < iofg.assignedFromEnd(node); ++pos) {
+            int source = iofg.assignedFrom(pos);
+            if (wrappedToAssignedSources.get(source)) {
+                action.accept(source);
+            }
+        }
     }
 
     @Override
@@ -85,11 +215,19 @@ class PrecisionFlowGraph implements Graph<Node> {
 
     @Override
     public Set<FlowEdge> getInEdgesOf(Node node) {
+        ObjectFlowGraph ofg = iofg.getOFG();
         Set<FlowEdge> inEdges = ofg.getInEdgesOf(node)
                 .stream()
-                .filter(e -> nodes.contains(e.source()))
+                .filter(e -> nodes.get(e.source().getIndex()))
                 .collect(Collectors.toSet());
-        inEdges.addAll(inWUEdges.get(node));
+        forEachWUPredOf(node.getIndex(), source -> {
+            // sources of unwrapped flow edges are var nodes, and
+            // sources of wrapped flow edges are instance nodes
+            Node sourceNode = iofg.getNode(source);
+            inEdges.add(sourceNode instanceof VarNode
+                    ? new UnwrappedFlowEdge(sourceNode, node)
+                    : new WrappedFlowEdge(sourceNode, node));
+        });
         return inEdges;
     }
 
@@ -100,16 +238,43 @@ class PrecisionFlowGraph implements Graph<Node> {
 
     @Override
     public Set<FlowEdge> getOutEdgesOf(Node node) {
+        ObjectFlowGraph ofg = iofg.getOFG();
         Set<FlowEdge> outEdges = ofg.getOutEdgesOf(node)
                 .stream()
-                .filter(e -> nodes.contains(e.target()))
+                .filter(e -> nodes.get(e.target().getIndex()))
                 .collect(Collectors.toSet());
-        outEdges.addAll(outWUEdges.get(node));
+        addWUOutEdges(node, outEdges);
         return outEdges;
     }
 
+    private void addWUOutEdges(Node node, Collection<FlowEdge> edges) {
+        int index = node.getIndex();
+        if (unwrappedSources.get(index)) {
+            for (int pos = iofg.returnToStart(index);
+                 pos < iofg.returnToEnd(index); ++pos) {
+                int target = iofg.returnTo(pos);
+                if (outNodes.get(target)) {
+                    edges.add(new UnwrappedFlowEdge(node, iofg.getNode(target)));
+                }
+            }
+        }
+        if (wrappedToThisSources.get(index)) {
+            for (int target : thisNodes) {
+                edges.add(new WrappedFlowEdge(node, iofg.getNode(target)));
+            }
+        }
+        if (wrappedToAssignedSources.get(index)) {
+            edges.add(new WrappedFlowEdge(node,
+                    iofg.getNode(iofg.getAssignedNode(index))));
+        }
+    }
+
     @Override
     public Set<Node> getNodes() {
-        return nodes;
+        Set<Node> result = new IndexerBitSet<>(iofg.getOFG(), true);
+        for (int i = nodes.nextSetBit(0); i >= 0; i = nodes.nextSetBit(i + 1)) {
+            result.add(iofg.getNode(i));
+        }
+        return result;
     }
 }
@@ -25,32 +25,34 @@ package pascal.taie.analysis.pta.toolkit.zipper;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import pascal.taie.analysis.graph.flowgraph.InstanceNode;
-import pascal.taie.analysis.graph.flowgraph.Node;
 import pascal.taie.analysis.graph.flowgraph.ObjectFlowGraph;
-import pascal.taie.analysis.graph.flowgraph.VarNode;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
-import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.toolkit.PointerAnalysisResultEx;
 import pascal.taie.analysis.pta.toolkit.PointerAnalysisResultExImpl;
 import pascal.taie.ir.exp.Var;
-import pascal.taie.ir.stmt.New;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
 import pascal.taie.util.MutableInt;
 import pascal.taie.util.Timer;
+import pascal.taie.util.collection.IBitSet;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.Sets;
 
-import javax.annotation.Nullable;
-import java.util.ArrayDeque;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Deque;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Predicate;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class Zipper {
@@ -59,6 +61,12 @@ public class Zipper {
 
     private static final float DEFAULT_PV = 0.05f;
 
+    /**
+     * Estimated maximum bytes per OFG node taken by building and
+     * analyzing a precision flow graph.
+     */
+    private static final int PFG_BYTES_PER_NODE = 8;
+
     private final PointerAnalysisResultEx pta;
 
     private final boolean isExpress;
@@ -72,7 +80,7 @@ public class Zipper {
 
     private final PotentialContextElement pce;
 
-    private final ObjectFlowGraph ofg;
+    private final IndexedObjectFlowGraph iofg;
 
     private AtomicInteger totalPFGNodes;
 
@@ -110,14 +118,15 @@ public class Zipper {
         this.pta = new PointerAnalysisResultExImpl(ptaBase, true);
         this.isExpress = isExpress;
         this.pv = pv;
-        this.oag = Timer.runAndCount(() -> new ObjectAllocationGraph(pta),
-                "Building OAG", Level.INFO);
-        this.pce = Timer.runAndCount(() -> new PotentialContextElement(pta, oag),
-                "Building PCE", Level.INFO);
-        this.ofg = ptaBase.getObjectFlowGraph();
-        logger.info("{} nodes in OFG", ofg.getNodes().size());
-        logger.info("{} edges in OFG",
-                ofg.getNodes().stream().mapToInt(ofg::getOutDegreeOf).sum());
+        this.oag = runPhase(() -> new ObjectAllocationGraph(pta),
+                "Building OAG");
+        this.pce = runPhase(() -> new PotentialContextElement(pta, oag),
+                "Building PCE");
+        ObjectFlowGraph ofg = ptaBase.getObjectFlowGraph();
+        this.iofg = runPhase(() -> new IndexedObjectFlowGraph(ofg),
+                "Building OFG index");
+        logger.info("{} nodes in OFG", iofg.getNumberOfNodes());
+        logger.info("{} edges in OFG", iofg.getNumberOfEdges());
     }
 
     /**
@@ -148,8 +157,10 @@ public class Zipper {
 
         // build and analyze precision-flow graphs
         Set<Type> types = pta.getObjectTypes();
-        Timer.runAndCount(() -> types.parallelStream().forEach(this::analyze),
-                "Building and analyzing PFG", Level.INFO);
+        runPhase(() -> {
+            analyzeInParallel(types);
+            return null;
+        }, "Building and analyzing PFG");
         logger.info("#types: {}", types.size());
         logger.info("#avg. nodes in PFG: {}", totalPFGNodes.get() / types.size());
         logger.info("#avg. edges in PFG: {}", totalPFGEdges.get() / types.size());
@@ -163,13 +174,62 @@ public class Zipper {
         return pcms;
     }
 
+    /**
+     * Analyzes given types with a bounded pool of workers. The number of
+     * workers is limited by both the available processors and the free
+     * memory, so that the precision flow graphs alive at the same time
+     * are not likely to exceed the heap.
+     */
+    private void analyzeInParallel(Collection<Type> types) {
+        int nThreads = getNumberOfWorkers();
+        logger.info("Analyzing PFG with {} workers", nThreads);
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(types.size());
+            for (Type type : types) {
+                futures.add(executor.submit(() -> analyze(type)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            } else if (e.getCause() instanceof Error err) {
+                throw err;
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the number of workers that can build precision flow graphs
+     * concurrently within the free memory.
+     */
+    private int getNumberOfWorkers() {
+        Runtime runtime = Runtime.getRuntime();
+        long free = runtime.maxMemory()
+                - (runtime.totalMemory() - runtime.freeMemory());
+        // The bit sets of a precision flow graph (and the stack of its
+        // builder) take at most about this many bytes, and we reserve
+        // half of the free memory for the others (e.g., pointer analysis
+        // results queried by the builders).
+        long pfgBytes = Math.max(1,
+                (long) iofg.getNumberOfNodes() * PFG_BYTES_PER_NODE);
+        long byMemory = free / 2 / pfgBytes;
+        return (int) Math.max(1,
+                Math.min(runtime.availableProcessors(), byMemory));
+    }
+
     private void analyze(Type type) {
-        PrecisionFlowGraph pfg = new PFGBuilder(pta, ofg, oag, pce, type).build();
+        PrecisionFlowGraph pfg = new PFGBuilder(pta, iofg, oag, pce, type).build();
         totalPFGNodes.addAndGet(pfg.getNumberOfNodes());
-        totalPFGEdges.addAndGet(pfg.getNodes()
-                .stream()
-                .mapToInt(pfg::getOutDegreeOf)
-                .sum());
+        totalPFGEdges.addAndGet(pfg.getNumberOfEdges());
         Set<JMethod> pcms = getPrecisionCriticalMethods(pfg);
         if (!pcms.isEmpty()) {
             pcmMap.put(type, pcms);
@@ -177,12 +237,15 @@ public class Zipper {
     }
 
     private Set<JMethod> getPrecisionCriticalMethods(PrecisionFlowGraph pfg) {
-        Set<JMethod> pcms = getFlowNodes(pfg)
-                .stream()
-                .map(Zipper::node2Method)
-                .filter(Objects::nonNull)
-                .filter(pce.pceMethodsOf(pfg.getType())::contains)
-                .collect(Collectors.toUnmodifiableSet());
+        Set<JMethod> pceMethods = pce.pceMethodsOf(pfg.getType());
+        Set<JMethod> pcms = Sets.newHybridSet();
+        IBitSet flowNodes = getFlowNodes(pfg);
+        for (int i = flowNodes.nextSetBit(0); i >= 0; i = flowNodes.nextSetBit(i + 1)) {
+            JMethod method = iofg.getMethod(i);
+            if (method != null && pceMethods.contains(method)) {
+                pcms.add(method);
+            }
+        }
         if (isExpress) {
             int accPts = 0;
             for (JMethod m : pcms) {
@@ -197,37 +260,73 @@ public class Zipper {
         return pcms;
     }
 
-    private static Set<Node> getFlowNodes(PrecisionFlowGraph pfg) {
-        Set<Node> visited = Sets.newSet();
-        for (VarNode outNode : pfg.getOutNodes()) {
-            Deque<Node> workList = new ArrayDeque<>();
-            workList.add(outNode);
-            while (!workList.isEmpty()) {
-                Node node = workList.poll();
-                if (visited.add(node)) {
-                    pfg.getPredsOf(node)
-                            .stream()
-                            .filter(Predicate.not(visited::contains))
-                            .forEach(workList::add);
-                }
-            }
+    /**
+     * @return indexes of the nodes that can flow to the OUT nodes of given PFG.
+     */
+    private static IBitSet getFlowNodes(PrecisionFlowGraph pfg) {
+        IBitSet visited = pfg.getOutNodeIndexes();
+        // each node is pushed at most once, as it is marked when pushed
+        WorkList workList = new WorkList(visited, pfg.getNumberOfNodes());
+        for (int i = visited.nextSetBit(0); i >= 0; i = visited.nextSetBit(i + 1)) {
+            workList.push(i);
+        }
+        while (!workList.isEmpty()) {
+            pfg.forEachPredOf(workList.pop(), workList);
         }
         return visited;
     }
 
     /**
-     * @return containing method of {@code node}.
+     * Work list of node indexes, which accepts only unvisited nodes.
      */
-    @Nullable
-    private static JMethod node2Method(Node node) {
-        if (node instanceof VarNode varNode) {
-            return varNode.getVar().getMethod();
-        } else {
-            Obj base = ((InstanceNode) node).getBase();
-            if (base.getAllocation() instanceof New newStmt) {
-                return newStmt.getContainer();
+    private static class WorkList implements IntConsumer {
+
+        private final IBitSet visited;
+
+        private final int[] nodes;
+
+        private int size;
+
+        private WorkList(IBitSet visited, int capacity) {
+            this.visited = visited;
+            this.nodes = new int[capacity];
+        }
+
+        @Override
+        public void accept(int node) {
+            if (visited.set(node)) {
+                push(node);
             }
         }
-        return null;
+
+        private void push(int node) {
+            nodes[size++] = node;
+        }
+
+        private int pop() {
+            return nodes[--size];
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+    }
+
+    /**
+     * Runs a phase of Zipper and logs its elapsed time and peak heap usage.
+     */
+    private static <T> T runPhase(Supplier<T> phase, String phaseName) {
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans()
+                .stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        T result = Timer.runAndCount(phase, phaseName, Level.INFO);
+        long peak = heapPools.stream()
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+        logger.info("{} peak memory: {}", phaseName,
+                String.format("%.1fMB", peak / (1024.0 * 1024.0)));
+        return result;
     }
 }
@@ -287,6 +287,17 @@ public class Options implements Serializable {
         return keepResult;
     }
 
+    @JsonProperty
+    @Option(names = "--parallel-analyses",
+            description = "Run independent analyses in the plan concurrently" +
+                    " (default: ${DEFAULT-VALUE})",
+            defaultValue = "false")
+    private boolean parallelAnalyses;
+
+    public boolean isParallelAnalyses() {
+        return parallelAnalyses;
+    }
+
     /**
      * Parses arguments and return the parsed and post-processed Options.
      */
@@ -516,6 +527,7 @@ public class Options implements Serializable {
                 ", analyses=" + analyses +
                 ", onlyGenPlan=" + onlyGenPlan +
                 ", keepResult=" + keepResult +
+                ", parallelAnalyses=" + parallelAnalyses +
                 '}';
     }
 }
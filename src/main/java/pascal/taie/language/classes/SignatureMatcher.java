@@ -24,23 +24,64 @@ package pascal.taie.language.classes;
 
 import pascal.taie.language.type.ClassType;
 import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.Sets;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 /**
  * Provides functionality to match signatures by given patterns.
+ * <p>
+ * To efficiently match large number of patterns (e.g., taint rules),
+ * this matcher builds indexes over the class hierarchy on demand:
+ * a sorted index of class names, which finds the classes matching
+ * a wildcard pattern by prefix, and per-class tables of methods keyed
+ * by their names. Besides, the classes matching each class pattern and
+ * the compiled name/type matchers are cached, so that they are shared
+ * by the patterns that contain the same sub-patterns.
+ * All the above data structures are thread-safe, thus the patterns can
+ * be resolved in parallel, e.g., by {@link #getMethods(Collection)}.
+ * <p>
+ * Note that the indexes are built from the classes that exist in the
+ * hierarchy when they are first needed, and the classes added to the
+ * hierarchy afterwards are not matched by wildcard patterns.
  */
 public class SignatureMatcher {
 
     private final ClassHierarchy hierarchy;
 
+    /**
+     * Sorted index of all classes, built on demand.
+     */
+    private volatile ClassIndex classIndex;
+
+    /**
+     * Map from each class to the table of its declared methods.
+     */
+    private final Map<JClass, Map<String, List<JMethod>>> methodTables =
+            Maps.newConcurrentMap();
+
+    /**
+     * Cache of the classes that match each class pattern.
+     */
+    private final Map<Pattern.ClassPattern, Set<JClass>> classCache =
+            Maps.newConcurrentMap();
+
+    private final Map<Pattern.NamePattern, NameMatcher> nameMatchers =
+            Maps.newConcurrentMap();
+
+    private final Map<Pattern.TypePattern, TypeMatcher> typeMatchers =
+            Maps.newConcurrentMap();
+
     public SignatureMatcher(ClassHierarchy hierarchy) {
         this.hierarchy = hierarchy;
     }
@@ -53,6 +94,10 @@ public class SignatureMatcher {
     }
 
     private Set<JClass> getClasses(Pattern.ClassPattern classPattern) {
+        return classCache.computeIfAbsent(classPattern, this::computeClasses);
+    }
+
+    private Set<JClass> computeClasses(Pattern.ClassPattern classPattern) {
         Set<JClass> result = Sets.newLinkedSet();
         Pattern.NamePattern name = classPattern.name();
         if (!name.hasWildcard()) {
@@ -61,18 +106,35 @@ public class SignatureMatcher {
                 result.add(klass);
             }
         } else {
-            // Iterate the whole class hierarchy to find matched classes.
-            // This operation MAY cause performance issues.
-            Predicate<String> nameMatcher = new NameMatcher(name);
-            hierarchy.allClasses()
-                    .filter(c -> nameMatcher.test(c.getName()))
-                    .forEach(result::add);
+            // Only check the classes whose names start with
+            // the leading string of the pattern.
+            Predicate<String> nameMatcher = getNameMatcher(name);
+            String prefix = name.units().get(0) instanceof Pattern.StringUnit s
+                    ? s.content() : "";
+            getClassIndex().forEachWithPrefix(prefix, c -> {
+                if (nameMatcher.test(c.getName())) {
+                    result.add(c);
+                }
+            });
         }
         if (classPattern.includeSubclasses()) {
             new ArrayList<>(result).forEach(c ->
                     result.addAll(hierarchy.getAllSubclassesOf(c)));
         }
-        return result;
+        return Collections.unmodifiableSet(result);
+    }
+
+    private ClassIndex getClassIndex() {
+        ClassIndex index = classIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = classIndex;
+                if (index == null) {
+                    classIndex = index = new ClassIndex(hierarchy);
+                }
+            }
+        }
+        return index;
     }
 
     /**
@@ -87,21 +149,50 @@ public class SignatureMatcher {
                 result.add(method);
             }
         } else {
-            Predicate<Type> typeMatcher = new TypeMatcher(pattern.retType());
-            Predicate<String> nameMatcher = new NameMatcher(pattern.name());
-            Predicate<List<Type>> paramsMatcher = new ParamsMatcher(pattern.params());
-            getClasses(pattern.klass())
-                    .stream()
-                    .map(JClass::getDeclaredMethods)
-                    .flatMap(Collection::stream)
-                    .filter(method -> typeMatcher.test(method.getReturnType())
-                            && nameMatcher.test(method.getName())
-                            && paramsMatcher.test(method.getParamTypes()))
-                    .forEach(result::add);
+            Predicate<Type> typeMatcher = getTypeMatcher(pattern.retType());
+            Pattern.NamePattern name = pattern.name();
+            Predicate<String> nameMatcher = name.hasWildcard()
+                    ? getNameMatcher(name) : null;
+            ParamsMatcher paramsMatcher = new ParamsMatcher(pattern.params());
+            for (JClass klass : getClasses(pattern.klass())) {
+                Collection<JMethod> candidates = nameMatcher != null
+                        ? klass.getDeclaredMethods()
+                        : getMethodTable(klass).getOrDefault(name.toString(), List.of());
+                for (JMethod method : candidates) {
+                    if (paramsMatcher.isArityMatched(method.getParamCount())
+                            && (nameMatcher == null || nameMatcher.test(method.getName()))
+                            && typeMatcher.test(method.getReturnType())
+                            && paramsMatcher.test(method.getParamTypes())) {
+                        result.add(method);
+                    }
+                }
+            }
         }
         return result;
     }
 
+    /**
+     * Resolves given method patterns in parallel.
+     *
+     * @return a map from each given pattern to the methods that match it.
+     */
+    public Map<String, Set<JMethod>> getMethods(Collection<String> methodPatterns) {
+        Map<String, Set<JMethod>> result = Maps.newConcurrentMap();
+        methodPatterns.parallelStream()
+                .distinct()
+                .forEach(p -> result.put(p, getMethods(p)));
+        return result;
+    }
+
+    private Map<String, List<JMethod>> getMethodTable(JClass klass) {
+        return methodTables.computeIfAbsent(klass, c -> {
+            Map<String, List<JMethod>> table = Maps.newHybridMap();
+            c.getDeclaredMethods().forEach(m -> table.computeIfAbsent(
+                    m.getName(), __ -> new ArrayList<>(1)).add(m));
+            return table;
+        });
+    }
+
     /**
      * @return the fields that match given pattern.
      */
@@ -114,19 +205,81 @@ public class SignatureMatcher {
                 result.add(field);
             }
         } else {
-            Predicate<Type> typeMatcher = new TypeMatcher(pattern.type());
-            Predicate<String> nameMatcher = new NameMatcher(pattern.name());
-            getClasses(pattern.klass())
-                    .stream()
-                    .map(JClass::getDeclaredFields)
-                    .flatMap(Collection::stream)
-                    .filter(field -> typeMatcher.test(field.getType())
-                            && nameMatcher.test(field.getName()))
-                    .forEach(result::add);
+            Predicate<Type> typeMatcher = getTypeMatcher(pattern.type());
+            Pattern.NamePattern name = pattern.name();
+            if (name.hasWildcard()) {
+                Predicate<String> nameMatcher = getNameMatcher(name);
+                getClasses(pattern.klass())
+                        .stream()
+                        .map(JClass::getDeclaredFields)
+                        .flatMap(Collection::stream)
+                        .filter(field -> typeMatcher.test(field.getType())
+                                && nameMatcher.test(field.getName()))
+                        .forEach(result::add);
+            } else {
+                for (JClass klass : getClasses(pattern.klass())) {
+                    JField field = klass.getDeclaredField(name.toString());
+                    if (field != null && typeMatcher.test(field.getType())) {
+                        result.add(field);
+                    }
+                }
+            }
         }
         return result;
     }
 
+    /**
+     * Resolves given field patterns in parallel.
+     *
+     * @return a map from each given pattern to the fields that match it.
+     */
+    public Map<String, Set<JField>> getFields(Collection<String> fieldPatterns) {
+        Map<String, Set<JField>> result = Maps.newConcurrentMap();
+        fieldPatterns.parallelStream()
+                .distinct()
+                .forEach(p -> result.put(p, getFields(p)));
+        return result;
+    }
+
+    private NameMatcher getNameMatcher(Pattern.NamePattern pattern) {
+        return nameMatchers.computeIfAbsent(pattern, NameMatcher::new);
+    }
+
+    private TypeMatcher getTypeMatcher(Pattern.TypePattern pattern) {
+        return typeMatchers.computeIfAbsent(pattern, TypeMatcher::new);
+    }
+
+    /**
+     * Index of classes sorted by their names. The classes whose names
+     * start with the same prefix are stored consecutively.
+     */
+    private static class ClassIndex {
+
+        private final String[] names;
+
+        private final JClass[] classes;
+
+        private ClassIndex(ClassHierarchy hierarchy) {
+            classes = hierarchy.allClasses()
+                    .sorted(Comparator.comparing(JClass::getName))
+                    .toArray(JClass[]::new);
+            names = new String[classes.length];
+            for (int i = 0; i < classes.length; ++i) {
+                names[i] = classes[i].getName();
+            }
+        }
+
+        private void forEachWithPrefix(String prefix, Consumer<JClass> action) {
+            int i = Arrays.binarySearch(names, prefix);
+            if (i < 0) { // prefix is not a class name, start from insertion point
+                i = -i - 1;
+            }
+            for (; i < names.length && names[i].startsWith(prefix); ++i) {
+                action.accept(classes[i]);
+            }
+        }
+    }
+
     private static class NameMatcher implements Predicate<String> {
 
         private final Predicate<String> matcher;
@@ -171,7 +324,7 @@ public class SignatureMatcher {
                 matcher = null;
             } else {
                 superClasses = null;
-                matcher = new NameMatcher(pattern.name());
+                matcher = getNameMatcher(pattern.name());
             }
         }
 
@@ -195,16 +348,24 @@ public class SignatureMatcher {
 
         private final List<Pattern.ParamUnit> units;
 
-        private final Map<Pattern.TypePattern, TypeMatcher> typeMatchers;
+        /**
+         * Minimum and maximum numbers of parameters matched by the units.
+         */
+        private final int minArity, maxArity;
 
         private ParamsMatcher(List<Pattern.ParamUnit> units) {
             this.units = units;
-            this.typeMatchers = units.stream()
-                    .map(Pattern.ParamUnit::type)
-                    .collect(Collectors.toMap(
-                            tp -> tp,
-                            TypeMatcher::new,
-                            (tm1, tm2) -> tm1));
+            int min = 0, max = 0;
+            for (Pattern.ParamUnit unit : units) {
+                min += unit.repeat().min();
+                max += unit.repeat().max();
+            }
+            this.minArity = min;
+            this.maxArity = max;
+        }
+
+        private boolean isArityMatched(int arity) {
+            return minArity <= arity && arity <= maxArity;
         }
 
         @Override
@@ -217,7 +378,7 @@ public class SignatureMatcher {
                 return paramIndex == params.size();
             }
             Pattern.ParamUnit currentUnit = units.get(unitIndex);
-            TypeMatcher typeMatcher = typeMatchers.get(currentUnit.type());
+            TypeMatcher typeMatcher = getTypeMatcher(currentUnit.type());
             Pattern.Repeat repeat = currentUnit.repeat();
             // iterate over times of repetition
             for (int count = repeat.min(); count <= repeat.max(); ++count) {
@@ -25,11 +25,14 @@ package pascal.taie.util;
 import pascal.taie.util.collection.Maps;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
 
 /**
  * Map-based implementation for {@link ResultHolder}.
+ * The accesses to results are synchronized, so that multiple analyses
+ * can store results in the same holder concurrently.
  */
 public abstract class AbstractResultHolder implements ResultHolder {
 
@@ -39,42 +42,64 @@ public abstract class AbstractResultHolder implements ResultHolder {
     private final transient Map<String, Object> results = Maps.newHybridMap();
 
     @Override
-    public <R> void storeResult(String key, R result) {
+    public synchronized <R> void storeResult(String key, R result) {
         results.put(key, result);
     }
 
     @Override
-    public boolean hasResult(String key) {
+    public synchronized boolean hasResult(String key) {
         return results.containsKey(key);
     }
 
     @Override
-    public <R> R getResult(String key) {
+    public synchronized <R> R getResult(String key) {
         return (R) results.get(key);
     }
 
     @Override
-    public <R> R getResult(String key, R defaultResult) {
+    public synchronized <R> R getResult(String key, R defaultResult) {
         return (R) results.getOrDefault(key, defaultResult);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The supplier is called without holding the lock of this holder,
+     * so that a slow supplier does not block other analyses. If multiple
+     * threads create the result for the same key concurrently, only the
+     * first stored result is kept and returned to all of them.
+     */
     @Override
     public <R> R getResult(String key, Supplier<R> supplier) {
-        return (R) results.computeIfAbsent(key, __ -> supplier.get());
+        R result = getResult(key);
+        if (result != null) {
+            return result;
+        }
+        R newResult = supplier.get();
+        if (newResult == null) {
+            return null;
+        }
+        synchronized (this) {
+            R oldResult = (R) results.putIfAbsent(key, newResult);
+            return oldResult != null ? oldResult : newResult;
+        }
     }
 
+    /**
+     * @return a snapshot of the keys in this holder.
+     */
     @Override
-    public Collection<String> getKeys() {
-        return results.keySet();
+    public synchronized Collection<String> getKeys() {
+        return List.copyOf(results.keySet());
     }
 
     @Override
-    public void clearResult(String key) {
+    public synchronized void clearResult(String key) {
         results.remove(key);
     }
 
     @Override
-    public void clearAll() {
+    public synchronized void clearAll() {
         results.clear();
     }
 }
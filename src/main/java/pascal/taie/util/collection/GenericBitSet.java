@@ -58,7 +58,11 @@ public abstract class GenericBitSet<E> extends AbstractSetEx<E>
     protected IBitSet bitSet;
 
     protected GenericBitSet(boolean isSparse) {
-        bitSet = IBitSet.newBitSet(isSparse);
+        this(IBitSet.newBitSet(isSparse));
+    }
+
+    protected GenericBitSet(IBitSet bitSet) {
+        this.bitSet = bitSet;
     }
 
     @Override
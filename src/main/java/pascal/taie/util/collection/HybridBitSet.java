@@ -23,6 +23,7 @@
 package pascal.taie.util.collection;
 
 import pascal.taie.util.Indexer;
+import pascal.taie.util.function.SSupplier;
 
 import javax.annotation.Nonnull;
 import java.io.Serializable;
@@ -52,16 +53,25 @@ public final class HybridBitSet<E> extends AbstractHybridSet<E>
 
     private final Indexer<E> indexer;
 
-    private final boolean isSparse;
+    private final SSupplier<IBitSet> bitSetFactory;
 
     public HybridBitSet(Indexer<E> indexer, boolean isSparse) {
+        this(indexer, IndexerBitSet.getBitSetFactory(isSparse));
+    }
+
+    /**
+     * @param bitSetFactory creates the underlying bit sets when
+     *                      this set becomes large.
+     * @see IndexerBitSet#IndexerBitSet(Indexer, SSupplier)
+     */
+    public HybridBitSet(Indexer<E> indexer, SSupplier<IBitSet> bitSetFactory) {
         this.indexer = indexer;
-        this.isSparse = isSparse;
+        this.bitSetFactory = bitSetFactory;
     }
 
     @Override
     protected Set<E> newLargeSet(int unused) {
-        return new IndexerBitSet<>(indexer, isSparse);
+        return new IndexerBitSet<>(indexer, bitSetFactory);
     }
 
     @Override
@@ -110,7 +120,7 @@ public final class HybridBitSet<E> extends AbstractHybridSet<E>
 
     @Override
     public HybridBitSet<E> addAllDiff(Collection<? extends E> c) {
-        HybridBitSet<E> diff = new HybridBitSet<>(indexer, isSparse);
+        HybridBitSet<E> diff = new HybridBitSet<>(indexer, bitSetFactory);
         if (c instanceof HybridBitSet other && other.isLargeSet) {
             //noinspection unchecked
             SetEx<E> otherSet = (SetEx<E>) other.set;
@@ -148,7 +158,7 @@ public final class HybridBitSet<E> extends AbstractHybridSet<E>
 
     @Override
     public HybridBitSet<E> copy() {
-        HybridBitSet<E> copy = new HybridBitSet<>(indexer, isSparse);
+        HybridBitSet<E> copy = new HybridBitSet<>(indexer, bitSetFactory);
         copy.singleton = singleton;
         copy.isLargeSet = isLargeSet;
         if (set != null) {
@@ -23,6 +23,7 @@
 package pascal.taie.util.collection;
 
 import pascal.taie.util.Indexer;
+import pascal.taie.util.function.SSupplier;
 
 import java.io.Serializable;
 
@@ -36,11 +37,38 @@ import java.io.Serializable;
 public class IndexerBitSet<E> extends GenericBitSet<E>
         implements Serializable {
 
+    private static final SSupplier<IBitSet> SPARSE_FACTORY = SparseBitSet::new;
+
+    private static final SSupplier<IBitSet> REGULAR_FACTORY = RegularBitSet::new;
+
     private final Indexer<E> indexer;
 
+    /**
+     * Factory of the underlying bit sets.
+     */
+    private final SSupplier<IBitSet> bitSetFactory;
+
     public IndexerBitSet(Indexer<E> indexer, boolean isSparse) {
-        super(isSparse);
+        this(indexer, getBitSetFactory(isSparse));
+    }
+
+    /**
+     * @param bitSetFactory creates the (empty) underlying bit sets
+     *                      of this set and the sets derived from it,
+     *                      e.g., {@code RoaringBitSet::new}.
+     */
+    public IndexerBitSet(Indexer<E> indexer, SSupplier<IBitSet> bitSetFactory) {
+        super(bitSetFactory.get());
         this.indexer = indexer;
+        this.bitSetFactory = bitSetFactory;
+    }
+
+    /**
+     * @return the factory of {@link SparseBitSet} if {@code isSparse}
+     * is {@code true}, otherwise, the factory of {@link RegularBitSet}.
+     */
+    static SSupplier<IBitSet> getBitSetFactory(boolean isSparse) {
+        return isSparse ? SPARSE_FACTORY : REGULAR_FACTORY;
     }
 
     @Override
@@ -60,6 +88,6 @@ public class IndexerBitSet<E> extends GenericBitSet<E>
 
     @Override
     protected GenericBitSet<E> newSet() {
-        return new IndexerBitSet<>(indexer, IBitSet.isSparse(bitSet));
+        return new IndexerBitSet<>(indexer, bitSetFactory);
     }
 }
@@ -0,0 +1,576 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import pascal.taie.util.Copyable;
+import pascal.taie.util.Indexer;
+
+import javax.annotation.Nonnull;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Map implementation based on a persistent (i.e., immutable and
+ * structure-sharing) trie over the indexes of keys.
+ * <p>
+ * Similar to {@link IndexMap}, this implementation requires a
+ * {@link Indexer} which provides a unique index for each key object,
+ * so that it does not need to store the keys. The values are stored in
+ * a bitmap-compressed trie, where each level consumes 5 bits of the index,
+ * and each node only keeps the present children (or values at the
+ * leaf level). The trie nodes are never modified after creation, and
+ * updates create new nodes on the path from root to the updated leaf
+ * (i.e., path copying). Hence:
+ * <ul>
+ *     <li>{@link #copy()} takes O(1) time, as the copy shares the trie
+ *     with this map;</li>
+ *     <li>{@link #get(Object)}, {@link #put(Object, Object)} and
+ *     {@link #remove(Object)} take O(log<sub>32</sub>(index)) time;</li>
+ *     <li>{@link #equals(Object)} of two maps skips the shared subtries,
+ *     thus it is cheap for the maps that are copied from each other;</li>
+ *     <li>{@link #copyFrom(PersistentIndexMap)} merges the tries of two
+ *     maps, and shares (instead of copying) the subtries which are shared
+ *     by both maps or only present in one of them.</li>
+ * </ul>
+ * This implementation is designed for the maps which are frequently copied
+ * and slightly changed after copy, e.g., the data-flow facts.
+ * It does not permit {@code null} values.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ * @see Indexer
+ */
+public class PersistentIndexMap<K, V> extends AbstractMap<K, V>
+        implements Copyable<PersistentIndexMap<K, V>>, Serializable {
+
+    private static final String NULL_VALUE_MSG = "PersistentIndexMap does not permit null values";
+
+    /**
+     * Number of index bits consumed by each level of the trie.
+     */
+    private static final int BITS = 5;
+
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final Indexer<K> indexer;
+
+    /**
+     * Root of the trie, or {@code null} if this map is empty.
+     * The trie is always of minimal height, i.e., if {@code shift > 0},
+     * then root has at least one child other than the 0-th child.
+     * This guarantees that the maps with the same contents have
+     * the tries of the same shape.
+     */
+    private Node root;
+
+    /**
+     * Shift of the index bits at root level. The shift of leaf level is 0.
+     */
+    private int shift;
+
+    private int size;
+
+    /**
+     * The cache of {@link PersistentIndexMap#entrySet()}.
+     */
+    private transient Set<Entry<K, V>> entrySet;
+
+    public PersistentIndexMap(Indexer<K> indexer) {
+        this(indexer, null, 0, 0);
+    }
+
+    private PersistentIndexMap(Indexer<K> indexer, Node root, int shift, int size) {
+        this.indexer = indexer;
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    /**
+     * Trie node. For inner nodes, {@code slots} holds the present children;
+     * for leaf nodes, {@code slots} holds the present values. The i-th bit
+     * of {@code bitmap} is set if the i-th child/value is present, and
+     * its position in {@code slots} is the number of set bits below i.
+     */
+    private record Node(int bitmap, Object[] slots) implements Serializable {
+    }
+
+    private static int bitOf(int index, int shift) {
+        return 1 << ((index >>> shift) & MASK);
+    }
+
+    private static int posOf(int bitmap, int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    /**
+     * Creates and returns a copy of this map, which shares
+     * the underlying trie with this map.
+     */
+    @Override
+    public PersistentIndexMap<K, V> copy() {
+        return new PersistentIndexMap<>(indexer, root, shift, size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V get(Object key) {
+        return get(indexer.getIndex((K) key));
+    }
+
+    private V get(int index) {
+        if (root == null || index < 0 || ((index >>> shift) >>> BITS) != 0) {
+            return null;
+        }
+        Node node = root;
+        for (int s = shift; ; s -= BITS) {
+            int bit = bitOf(index, s);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = node.slots[posOf(node.bitmap, bit)];
+            if (s == 0) {
+                return (V) slot;
+            }
+            node = (Node) slot;
+        }
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Objects.requireNonNull(value, NULL_VALUE_MSG);
+        int index = indexer.getIndex(key);
+        if (index < 0) {
+            throw new IllegalArgumentException("index of " + key +
+                    " is negative: " + index);
+        }
+        V oldV = get(index);
+        if (value.equals(oldV)) {
+            // avoid copying the path for unchanged value
+            return oldV;
+        }
+        if (root == null) {
+            shift = 0;
+            while (((index >>> shift) >>> BITS) != 0) {
+                shift += BITS;
+            }
+            root = newPath(index, shift, value);
+        } else {
+            while (((index >>> shift) >>> BITS) != 0) {
+                // grow the trie
+                root = new Node(1, new Object[]{ root });
+                shift += BITS;
+            }
+            root = put(root, shift, index, value);
+        }
+        if (oldV == null) {
+            ++size;
+        }
+        return oldV;
+    }
+
+    private static Node newPath(int index, int shift, Object value) {
+        Object slot = value;
+        for (int s = 0; s <= shift; s += BITS) {
+            slot = new Node(bitOf(index, s), new Object[]{ slot });
+        }
+        return (Node) slot;
+    }
+
+    private static Node put(Node node, int shift, int index, Object value) {
+        int bit = bitOf(index, shift);
+        int pos = posOf(node.bitmap, bit);
+        Object[] slots = node.slots;
+        if ((node.bitmap & bit) != 0) {
+            Object[] newSlots = slots.clone();
+            newSlots[pos] = shift == 0 ? value :
+                    put((Node) slots[pos], shift - BITS, index, value);
+            return new Node(node.bitmap, newSlots);
+        } else {
+            Object[] newSlots = new Object[slots.length + 1];
+            System.arraycopy(slots, 0, newSlots, 0, pos);
+            newSlots[pos] = shift == 0 ? value :
+                    newPath(index, shift - BITS, value);
+            System.arraycopy(slots, pos, newSlots, pos + 1, slots.length - pos);
+            return new Node(node.bitmap | bit, newSlots);
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        int index = indexer.getIndex((K) key);
+        V oldV = get(index);
+        if (oldV != null) {
+            root = remove(root, shift, index);
+            --size;
+            if (root == null) {
+                shift = 0;
+            } else {
+                // shrink the trie to keep it of minimal height
+                while (shift > 0 && root.bitmap == 1) {
+                    root = (Node) root.slots[0];
+                    shift -= BITS;
+                }
+            }
+        }
+        return oldV;
+    }
+
+    /**
+     * Removes the value of given index from the trie rooted by {@code node}.
+     * The caller should guarantee that the value is present.
+     *
+     * @return the new root of the trie, or {@code null} if it becomes empty.
+     */
+    private static Node remove(Node node, int shift, int index) {
+        int bit = bitOf(index, shift);
+        int pos = posOf(node.bitmap, bit);
+        Object[] slots = node.slots;
+        Node newChild = shift == 0 ? null :
+                remove((Node) slots[pos], shift - BITS, index);
+        if (newChild != null) {
+            Object[] newSlots = slots.clone();
+            newSlots[pos] = newChild;
+            return new Node(node.bitmap, newSlots);
+        } else if (slots.length == 1) {
+            return null;
+        } else {
+            Object[] newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, pos);
+            System.arraycopy(slots, pos + 1, newSlots, pos, slots.length - pos - 1);
+            return new Node(node.bitmap & ~bit, newSlots);
+        }
+    }
+
+    /**
+     * Copies all mappings from given map to this map. The mappings of this
+     * map are replaced by the ones of the same keys in given map, and the
+     * other mappings of this map are kept. If the maps use the same indexer,
+     * the tries are merged without visiting the subtries shared by the maps,
+     * and the result shares the subtries with both maps, so that copying
+     * between the maps which are copied from each other is cheap.
+     *
+     * @return true if this map changed as a result of the call, otherwise false.
+     */
+    public boolean copyFrom(PersistentIndexMap<K, V> other) {
+        if (indexer != other.indexer) {
+            boolean changed = false;
+            for (Entry<K, V> e : other.entrySet()) {
+                changed |= !e.getValue().equals(put(e.getKey(), e.getValue()));
+            }
+            return changed;
+        }
+        if (other.root == null || root == other.root) {
+            return false;
+        }
+        if (root == null) {
+            root = other.root;
+            shift = other.shift;
+            size = other.size;
+            return true;
+        }
+        // lift the lower trie to the same height
+        Node otherRoot = other.root;
+        while (shift < other.shift) {
+            root = new Node(1, new Object[]{ root });
+            shift += BITS;
+        }
+        for (int s = other.shift; s < shift; s += BITS) {
+            otherRoot = new Node(1, new Object[]{ otherRoot });
+        }
+        Node oldRoot = root;
+        root = merge(root, otherRoot, shift);
+        return root != oldRoot;
+    }
+
+    /**
+     * Merges two tries of the same height. The values in {@code n2} override
+     * the ones of the same indexes in {@code n1}, and {@link #size} is
+     * increased by the number of the indexes only in {@code n2}.
+     *
+     * @return the merged trie, which is {@code n1} itself if it already
+     * contains all mappings of {@code n2}.
+     */
+    private Node merge(Node n1, Node n2, int shift) {
+        if (n1 == n2) {
+            return n1;
+        }
+        int bitmap = n1.bitmap | n2.bitmap;
+        Object[] slots = new Object[Integer.bitCount(bitmap)];
+        boolean same1 = bitmap == n1.bitmap;
+        boolean same2 = bitmap == n2.bitmap;
+        for (int i = 0, rest = bitmap; rest != 0; ++i) {
+            int bit = Integer.lowestOneBit(rest);
+            rest &= ~bit;
+            Object s1 = (n1.bitmap & bit) != 0 ?
+                    n1.slots[posOf(n1.bitmap, bit)] : null;
+            Object s2 = (n2.bitmap & bit) != 0 ?
+                    n2.slots[posOf(n2.bitmap, bit)] : null;
+            Object slot;
+            if (s1 == null) {
+                slot = s2;
+                size += shift == 0 ? 1 : count((Node) s2, shift - BITS);
+            } else if (s2 == null) {
+                slot = s1;
+            } else if (shift == 0) {
+                slot = s1.equals(s2) ? s1 : s2;
+            } else {
+                slot = merge((Node) s1, (Node) s2, shift - BITS);
+            }
+            slots[i] = slot;
+            same1 &= slot == s1;
+            same2 &= slot == s2;
+        }
+        return same1 ? n1 : same2 ? n2 : new Node(bitmap, slots);
+    }
+
+    /**
+     * @return the number of values in the trie rooted by given node.
+     */
+    private static int count(Node node, int shift) {
+        if (shift == 0) {
+            return node.slots.length;
+        }
+        int count = 0;
+        for (Object child : node.slots) {
+            count += count((Node) child, shift - BITS);
+        }
+        return count;
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        shift = 0;
+        size = 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof PersistentIndexMap<?, ?> that
+                && indexer == that.indexer) {
+            return size == that.size && shift == that.shift
+                    && equals(root, that.root, shift);
+        }
+        return super.equals(o);
+    }
+
+    private static boolean equals(Node n1, Node n2, int shift) {
+        if (n1 == n2) {
+            // shared subtrie
+            return true;
+        }
+        if (n1 == null || n2 == null || n1.bitmap != n2.bitmap) {
+            return false;
+        }
+        for (int i = 0; i < n1.slots.length; ++i) {
+            if (shift == 0 ? !n1.slots[i].equals(n2.slots[i]) :
+                    !equals((Node) n1.slots[i], (Node) n2.slots[i], shift - BITS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Map.Entry<K, V>> es;
+        return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+    }
+
+    private class EntrySet extends AbstractSet<Entry<K, V>> {
+
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof Map.Entry<?, ?> e) {
+                V value = get(e.getKey());
+                return value != null && value.equals(e.getValue());
+            }
+            return false;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (contains(o)) {
+                PersistentIndexMap.this.remove(((Map.Entry<?, ?>) o).getKey());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void clear() {
+            PersistentIndexMap.this.clear();
+        }
+
+        @Override
+        @Nonnull
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Iterates the entries in ascending order of their indexes.
+     * Since the trie is immutable, the iterator works on the snapshot
+     * of the map when it is created, and the modifications via
+     * {@link Entry#setValue(Object)} and {@link Iterator#remove()}
+     * are applied to the map without disturbing the iteration.
+     */
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+
+        /**
+         * Nodes on the path from root to current leaf.
+         */
+        private final Node[] nodes;
+
+        /**
+         * Positions of the slots being visited in {@link #nodes}.
+         */
+        private final int[] positions;
+
+        /**
+         * Index bits (of the levels above) of the slots being visited.
+         */
+        private final int[] prefixes;
+
+        /**
+         * Depth of the current leaf, -1 if iteration has finished.
+         */
+        private int depth;
+
+        private Entry<K, V> lastRet;
+
+        private EntryIterator() {
+            int height = shift / BITS + 1;
+            nodes = new Node[height];
+            positions = new int[height];
+            prefixes = new int[height];
+            if (root != null) {
+                nodes[0] = root;
+                positions[0] = 0;
+                depth = descend(0);
+            } else {
+                depth = -1;
+            }
+        }
+
+        /**
+         * Descends along the first slots from given depth to the leaf level.
+         */
+        private int descend(int d) {
+            while (d < nodes.length - 1) {
+                Node child = (Node) nodes[d].slots[positions[d]];
+                prefixes[d + 1] = (prefixes[d] << BITS)
+                        | bitIndex(nodes[d].bitmap, positions[d]);
+                ++d;
+                nodes[d] = child;
+                positions[d] = 0;
+            }
+            return d;
+        }
+
+        /**
+         * @return the bit index of the {@code pos}-th set bit in bitmap.
+         */
+        private static int bitIndex(int bitmap, int pos) {
+            for (int i = 0; i < pos; ++i) {
+                bitmap &= bitmap - 1; // clear lowest set bit
+            }
+            return Integer.numberOfTrailingZeros(bitmap);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth != -1;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (depth == -1) {
+                throw new NoSuchElementException();
+            }
+            Node leaf = nodes[depth];
+            int pos = positions[depth];
+            int index = (prefixes[depth] << BITS) | bitIndex(leaf.bitmap, pos);
+            lastRet = new IndexEntry(indexer.getObject(index), (V) leaf.slots[pos]);
+            // advance to next value
+            int d = depth;
+            while (d >= 0 && ++positions[d] == nodes[d].slots.length) {
+                --d;
+            }
+            depth = d < 0 ? -1 : descend(d);
+            return lastRet;
+        }
+
+        @Override
+        public void remove() {
+            if (lastRet == null) {
+                throw new IllegalStateException();
+            }
+            PersistentIndexMap.this.remove(lastRet.getKey());
+            lastRet = null;
+        }
+    }
+
+    private class IndexEntry extends AbstractMap.SimpleEntry<K, V> {
+
+        private IndexEntry(K key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
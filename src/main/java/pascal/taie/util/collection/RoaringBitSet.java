@@ -0,0 +1,1503 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import javax.annotation.Nullable;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Compressed bit set in the style of Roaring bitmaps.
+ * <p>
+ * The bit indexes are partitioned into chunks of 2<sup>16</sup> bits by
+ * their high 16 bits, and each non-empty chunk is stored in one of the
+ * following containers, whichever is the most compact:
+ * <ul>
+ *     <li>array container: sorted array of the low 16 bits of set bits,
+ *     for chunks with at most {@link #ARRAY_MAX_SIZE} set bits;</li>
+ *     <li>bitmap container: plain bitmap of 2<sup>16</sup> bits;</li>
+ *     <li>run container: sorted array of runs of consecutive set bits.</li>
+ * </ul>
+ * Compared to {@link SparseBitSet}, this bit set is more compact for
+ * the sets whose bits are very sparse (array containers) or cover long
+ * contiguous ranges (run containers). The representation of a chunk is
+ * re-selected after each bulk operation, and single-bit operations only
+ * switch the representation when the current one overflows.
+ */
+public class RoaringBitSet extends AbstractBitSet
+        implements Serializable {
+
+    /**
+     * Number of low bits of bit indexes, which are stored in containers.
+     */
+    private static final int CHUNK_BITS = 16;
+
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private static final int LOW_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * Maximum number of bits in an array container.
+     */
+    private static final int ARRAY_MAX_SIZE = 4096;
+
+    private static final int BITMAP_WORDS = CHUNK_SIZE / BITS_PER_WORD;
+
+    /**
+     * Maximum number of runs in a run container, with which the run
+     * container is as large as a bitmap container.
+     */
+    private static final int MAX_RUNS = BITMAP_WORDS * Long.BYTES / (2 * Character.BYTES);
+
+    private static final char[] EMPTY_KEYS = new char[0];
+
+    private static final Container[] EMPTY_CONTAINERS = new Container[0];
+
+    /**
+     * Sorted high 16 bits of the chunks.
+     */
+    private char[] keys = EMPTY_KEYS;
+
+    /**
+     * Containers of the chunks, which correspond to {@link #keys}.
+     */
+    private Container[] containers = EMPTY_CONTAINERS;
+
+    /**
+     * Number of non-empty chunks.
+     */
+    private int size;
+
+    // ------------------------------------------------------------------------
+    // single-bit operations
+    // ------------------------------------------------------------------------
+
+    @Override
+    public boolean set(int bitIndex) {
+        // same as SparseBitSet, Integer.MAX_VALUE is not a valid bit index
+        if ((bitIndex + 1) < 1) {
+            throw new IndexOutOfBoundsException("bitIndex=" + bitIndex);
+        }
+        int i = findKey(bitIndex >>> CHUNK_BITS);
+        int low = bitIndex & LOW_MASK;
+        if (i < 0) {
+            ArrayContainer c = new ArrayContainer(1);
+            c.add(low);
+            insertContainer(-i - 1, bitIndex >>> CHUNK_BITS, c);
+            return true;
+        }
+        Container c = containers[i];
+        if (c.contains(low)) {
+            return false;
+        }
+        containers[i] = c.add(low);
+        return true;
+    }
+
+    @Override
+    public boolean clear(int bitIndex) {
+        checkIndex(bitIndex);
+        int i = findKey(bitIndex >>> CHUNK_BITS);
+        int low = bitIndex & LOW_MASK;
+        if (i < 0 || !containers[i].contains(low)) {
+            return false;
+        }
+        Container c = containers[i].remove(low);
+        if (c.cardinality() == 0) {
+            removeContainer(i);
+        } else {
+            containers[i] = c;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean get(int bitIndex) {
+        checkIndex(bitIndex);
+        int i = findKey(bitIndex >>> CHUNK_BITS);
+        return i >= 0 && containers[i].contains(bitIndex & LOW_MASK);
+    }
+
+    @Override
+    public void flip(int bitIndex) {
+        if (!set(bitIndex)) {
+            clear(bitIndex);
+        }
+    }
+
+    @Override
+    public int nextSetBit(int fromIndex) {
+        if (fromIndex < 0) {
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        }
+        int key = fromIndex >>> CHUNK_BITS;
+        int i = findKey(key);
+        if (i >= 0) {
+            int next = containers[i].next(fromIndex & LOW_MASK);
+            if (next >= 0) {
+                return (key << CHUNK_BITS) | next;
+            }
+            ++i;
+        } else {
+            i = -i - 1;
+        }
+        return i < size ? (keys[i] << CHUNK_BITS) | containers[i].next(0) : -1;
+    }
+
+    @Override
+    public int nextClearBit(int fromIndex) {
+        if (fromIndex < 0) {
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        }
+        int key = fromIndex >>> CHUNK_BITS;
+        int i = findKey(key);
+        if (i < 0) {
+            return fromIndex;
+        }
+        int next = containers[i].nextAbsent(fromIndex & LOW_MASK);
+        // skip the following full chunks
+        while (next == CHUNK_SIZE) {
+            ++key;
+            ++i;
+            if (i >= size || keys[i] != key) {
+                next = 0;
+                break;
+            }
+            next = containers[i].nextAbsent(0);
+        }
+        int result = (key << CHUNK_BITS) | next;
+        return result >= 0 && result != Integer.MAX_VALUE ? result : -1;
+    }
+
+    @Override
+    public int previousSetBit(int fromIndex) {
+        if (fromIndex < 0) {
+            if (fromIndex == -1) {
+                return -1;
+            }
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        }
+        int key = fromIndex >>> CHUNK_BITS;
+        int i = findKey(key);
+        if (i >= 0) {
+            int prev = containers[i].previous(fromIndex & LOW_MASK);
+            if (prev >= 0) {
+                return (key << CHUNK_BITS) | prev;
+            }
+            --i;
+        } else {
+            i = -i - 2;
+        }
+        return i >= 0 ? (keys[i] << CHUNK_BITS) | containers[i].previous(LOW_MASK) : -1;
+    }
+
+    @Override
+    public int previousClearBit(int fromIndex) {
+        if (fromIndex < 0) {
+            if (fromIndex == -1) {
+                return -1;
+            }
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        }
+        int key = fromIndex >>> CHUNK_BITS;
+        int i = findKey(key);
+        if (i < 0) {
+            return fromIndex;
+        }
+        int prev = containers[i].previousAbsent(fromIndex & LOW_MASK);
+        // skip the preceding full chunks
+        while (prev < 0) {
+            --key;
+            --i;
+            if (key < 0) {
+                return -1;
+            }
+            if (i < 0 || keys[i] != key) {
+                prev = LOW_MASK;
+                break;
+            }
+            prev = containers[i].previousAbsent(LOW_MASK);
+        }
+        return (key << CHUNK_BITS) | prev;
+    }
+
+    // ------------------------------------------------------------------------
+    // bulk operations
+    // ------------------------------------------------------------------------
+
+    @Override
+    public boolean intersects(IBitSet set) {
+        if (!(set instanceof RoaringBitSet other)) {
+            return super.intersects(set);
+        }
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            int k1 = keys[i], k2 = other.keys[j];
+            if (k1 < k2) {
+                ++i;
+            } else if (k1 > k2) {
+                ++j;
+            } else {
+                if (intersects(containers[i], other.containers[j])) {
+                    return true;
+                }
+                ++i;
+                ++j;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(IBitSet set) {
+        if (!(set instanceof RoaringBitSet other)) {
+            return super.contains(set);
+        }
+        for (int j = 0; j < other.size; ++j) {
+            int i = findKey(other.keys[j]);
+            if (i < 0 || !contains(containers[i], other.containers[j])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean and(IBitSet set) {
+        if (set == this) {
+            return false;
+        }
+        boolean changed = false;
+        if (!(set instanceof RoaringBitSet other)) {
+            for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+                if (!set.get(i)) {
+                    clear(i);
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+        int n = 0;
+        for (int i = 0; i < size; ++i) {
+            int j = other.findKey(keys[i]);
+            Container c = containers[i];
+            Container result = j >= 0 ? and(c, other.containers[j]) : null;
+            if (result == null || result.cardinality() != c.cardinality()) {
+                changed = true;
+                c = result;
+            }
+            if (c != null) {
+                keys[n] = keys[i];
+                containers[n] = c;
+                ++n;
+            }
+        }
+        truncate(n);
+        return changed;
+    }
+
+    @Override
+    public boolean andNot(IBitSet set) {
+        if (set == this) {
+            boolean changed = !isEmpty();
+            clear();
+            return changed;
+        }
+        if (!(set instanceof RoaringBitSet other)) {
+            return super.andNot(set);
+        }
+        boolean changed = false;
+        int n = 0;
+        for (int i = 0; i < size; ++i) {
+            int j = other.findKey(keys[i]);
+            Container c = containers[i];
+            if (j >= 0) {
+                Container result = andNot(c, other.containers[j]);
+                if (result == null || result.cardinality() != c.cardinality()) {
+                    changed = true;
+                    c = result;
+                }
+            }
+            if (c != null) {
+                keys[n] = keys[i];
+                containers[n] = c;
+                ++n;
+            }
+        }
+        truncate(n);
+        return changed;
+    }
+
+    @Override
+    public boolean or(IBitSet set) {
+        if (set == this) {
+            return false;
+        }
+        if (!(set instanceof RoaringBitSet other)) {
+            return super.or(set);
+        }
+        boolean changed = false;
+        for (int j = 0; j < other.size; ++j) {
+            int i = findKey(other.keys[j]);
+            if (i < 0) {
+                insertContainer(-i - 1, other.keys[j], copyOptimized(other.containers[j]));
+                changed = true;
+            } else {
+                Container c = containers[i];
+                Container result = or(c, other.containers[j]);
+                if (result.cardinality() != c.cardinality()) {
+                    containers[i] = result;
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public RoaringBitSet orDiff(IBitSet set) {
+        RoaringBitSet diff = new RoaringBitSet();
+        if (set == this) {
+            return diff;
+        }
+        if (!(set instanceof RoaringBitSet other)) {
+            for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+                if (set(i)) {
+                    diff.set(i);
+                }
+            }
+            return diff;
+        }
+        for (int j = 0; j < other.size; ++j) {
+            int key = other.keys[j];
+            int i = findKey(key);
+            if (i < 0) {
+                Container c = copyOptimized(other.containers[j]);
+                insertContainer(-i - 1, key, c);
+                diff.insertContainer(diff.size, key, c.copy());
+            } else {
+                Container d = andNot(other.containers[j], containers[i]);
+                if (d != null) {
+                    containers[i] = or(containers[i], d);
+                    diff.insertContainer(diff.size, key, d);
+                }
+            }
+        }
+        return diff;
+    }
+
+    @Override
+    public boolean xor(IBitSet set) {
+        if (set == this) {
+            boolean changed = !isEmpty();
+            clear();
+            return changed;
+        }
+        if (!(set instanceof RoaringBitSet other)) {
+            return super.xor(set);
+        }
+        for (int j = 0; j < other.size; ++j) {
+            int i = findKey(other.keys[j]);
+            if (i < 0) {
+                insertContainer(-i - 1, other.keys[j], copyOptimized(other.containers[j]));
+            } else {
+                Container result = xor(containers[i], other.containers[j]);
+                if (result == null) {
+                    removeContainer(i);
+                } else {
+                    containers[i] = result;
+                }
+            }
+        }
+        return other.size > 0;
+    }
+
+    @Override
+    public void setTo(IBitSet set) {
+        if (set == this) {
+            return;
+        }
+        if (!(set instanceof RoaringBitSet other)) {
+            super.setTo(set);
+            return;
+        }
+        keys = Arrays.copyOf(other.keys, other.size);
+        containers = new Container[other.size];
+        for (int i = 0; i < other.size; ++i) {
+            containers[i] = other.containers[i].copy();
+        }
+        size = other.size;
+    }
+
+    @Override
+    public void clear() {
+        keys = EMPTY_KEYS;
+        containers = EMPTY_CONTAINERS;
+        size = 0;
+    }
+
+    @Override
+    public <R> R iterateBits(Action<R> action) {
+        for (int i = 0; i < size; ++i) {
+            int base = keys[i] << CHUNK_BITS;
+            Container c = containers[i];
+            for (int v = c.next(0); v >= 0; v = v < LOW_MASK ? c.next(v + 1) : -1) {
+                if (!action.accept(base | v)) {
+                    return action.getResult();
+                }
+            }
+        }
+        return action.getResult();
+    }
+
+    // ------------------------------------------------------------------------
+    // state queries
+    // ------------------------------------------------------------------------
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int length() {
+        if (size == 0) {
+            return 0;
+        }
+        return ((keys[size - 1] << CHUNK_BITS)
+                | containers[size - 1].previous(LOW_MASK)) + 1;
+    }
+
+    @Override
+    public int size() {
+        return size == 0 ? 0 : (keys[size - 1] + 1) << CHUNK_BITS;
+    }
+
+    @Override
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; ++i) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    @Override
+    public int hashCode() {
+        // computed from set bits, as equal sets may use different containers
+        int hash = 1;
+        for (int i = 0; i < size; ++i) {
+            int base = keys[i] << CHUNK_BITS;
+            Container c = containers[i];
+            for (int v = c.next(0); v >= 0; v = v < LOW_MASK ? c.next(v + 1) : -1) {
+                hash = 31 * hash + (base | v);
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RoaringBitSet that) || size != that.size) {
+            return false;
+        }
+        for (int i = 0; i < size; ++i) {
+            if (keys[i] != that.keys[i]
+                    || containers[i].cardinality() != that.containers[i].cardinality()
+                    || !contains(containers[i], that.containers[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public RoaringBitSet copy() {
+        RoaringBitSet copy = new RoaringBitSet();
+        copy.setTo(this);
+        return copy;
+    }
+
+    /**
+     * @return the number of containers of each kind, i.e.,
+     * [#array containers, #bitmap containers, #run containers].
+     * This method is mainly for profiling.
+     */
+    public int[] getContainerCounts() {
+        int[] counts = new int[3];
+        for (int i = 0; i < size; ++i) {
+            Container c = containers[i];
+            ++counts[c instanceof ArrayContainer ? 0 : c instanceof BitmapContainer ? 1 : 2];
+        }
+        return counts;
+    }
+
+    // ------------------------------------------------------------------------
+    // utility methods for chunks
+    // ------------------------------------------------------------------------
+
+    private static void checkIndex(int bitIndex) {
+        if (bitIndex < 0) {
+            throw new IndexOutOfBoundsException("bitIndex=" + bitIndex);
+        }
+    }
+
+    /**
+     * @return index of the chunk with given key if it exists,
+     * otherwise, (-(insertion point) - 1).
+     */
+    private int findKey(int key) {
+        return Arrays.binarySearch(keys, 0, size, (char) key);
+    }
+
+    private void insertContainer(int i, int key, Container c) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = (char) key;
+        containers[i] = c;
+        ++size;
+    }
+
+    private void removeContainer(int i) {
+        System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+        System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+        containers[--size] = null;
+    }
+
+    /**
+     * Keeps only the first {@code n} chunks.
+     */
+    private void truncate(int n) {
+        Arrays.fill(containers, n, size, null);
+        size = n;
+    }
+
+    // ------------------------------------------------------------------------
+    // operations on containers
+    // ------------------------------------------------------------------------
+
+    /**
+     * Converts given container to the most compact representation.
+     *
+     * @return the converted container, or {@code null} if it is empty.
+     */
+    private static Container optimize(Container c) {
+        int cardinality = c.cardinality();
+        if (cardinality == 0) {
+            return null;
+        }
+        // sizes in chars
+        int arraySize = cardinality <= ARRAY_MAX_SIZE ? cardinality : Integer.MAX_VALUE;
+        int bitmapSize = BITMAP_WORDS * (Long.BYTES / Character.BYTES);
+        int runSize = 2 * c.numberOfRuns();
+        if (runSize < arraySize && runSize < bitmapSize) {
+            return c.toRuns();
+        } else if (arraySize <= bitmapSize) {
+            return c.toArray();
+        } else {
+            return c.toBitmap();
+        }
+    }
+
+    /**
+     * @return a copy of given container in the most compact representation.
+     */
+    private static Container copyOptimized(Container c) {
+        Container result = optimize(c);
+        return result == c ? c.copy() : result;
+    }
+
+    private static Container or(Container c1, Container c2) {
+        Container result;
+        if (c1 instanceof ArrayContainer a1 && c2 instanceof ArrayContainer a2) {
+            result = a1.union(a2);
+        } else if (c2 instanceof BitmapContainer b2) {
+            BitmapContainer b = b2.copy();
+            b.orWith(c1);
+            result = b;
+        } else if (c1 instanceof BitmapContainer b1) {
+            BitmapContainer b = b1.copy();
+            b.orWith(c2);
+            result = b;
+        } else {
+            result = c1.toRuns().union(c2.toRuns());
+        }
+        return optimize(result);
+    }
+
+    @Nullable
+    private static Container and(Container c1, Container c2) {
+        Container result;
+        if (c1 instanceof ArrayContainer a1) {
+            result = a1.filter(c2, true);
+        } else if (c2 instanceof ArrayContainer a2) {
+            result = a2.filter(c1, true);
+        } else {
+            BitmapContainer b = c1.toBitmap();
+            b.andWith(c2);
+            result = b;
+        }
+        return optimize(result);
+    }
+
+    @Nullable
+    private static Container andNot(Container c1, Container c2) {
+        Container result;
+        if (c1 instanceof ArrayContainer a1) {
+            result = a1.filter(c2, false);
+        } else {
+            BitmapContainer b = c1.toBitmap();
+            b.andNotWith(c2);
+            result = b;
+        }
+        return optimize(result);
+    }
+
+    @Nullable
+    private static Container xor(Container c1, Container c2) {
+        BitmapContainer b = c1.toBitmap();
+        b.xorWith(c2);
+        return optimize(b);
+    }
+
+    private static boolean intersects(Container c1, Container c2) {
+        if (c1 instanceof ArrayContainer a1) {
+            return a1.anyIn(c2);
+        } else if (c2 instanceof ArrayContainer a2) {
+            return a2.anyIn(c1);
+        } else if (c1 instanceof RunContainer r1) {
+            return r1.anyIn(c2);
+        } else if (c2 instanceof RunContainer r2) {
+            return r2.anyIn(c1);
+        } else {
+            return ((BitmapContainer) c1).intersects((BitmapContainer) c2);
+        }
+    }
+
+    /**
+     * @return {@code true} if {@code c1} contains all bits in {@code c2}.
+     */
+    private static boolean contains(Container c1, Container c2) {
+        if (c1.cardinality() < c2.cardinality()) {
+            return false;
+        }
+        if (c2 instanceof RunContainer r2) {
+            for (int i = 0; i < r2.nRuns; ++i) {
+                if (c1.nextAbsent(r2.start(i)) <= r2.end(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (c1 instanceof BitmapContainer b1 && c2 instanceof BitmapContainer b2) {
+            return b1.containsAll(b2);
+        }
+        for (int v = c2.next(0); v >= 0; v = v < LOW_MASK ? c2.next(v + 1) : -1) {
+            if (!c1.contains(v)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void setRange(long[] words, int start, int end) {
+        int w1 = start >>> ADDRESS_BITS_PER_WORD;
+        int w2 = end >>> ADDRESS_BITS_PER_WORD;
+        long first = -1L << start;
+        long last = -1L >>> (BITS_PER_WORD - 1 - (end & (BITS_PER_WORD - 1)));
+        if (w1 == w2) {
+            words[w1] |= first & last;
+        } else {
+            words[w1] |= first;
+            Arrays.fill(words, w1 + 1, w2, -1L);
+            words[w2] |= last;
+        }
+    }
+
+    private static void clearRange(long[] words, int start, int end) {
+        int w1 = start >>> ADDRESS_BITS_PER_WORD;
+        int w2 = end >>> ADDRESS_BITS_PER_WORD;
+        long first = -1L << start;
+        long last = -1L >>> (BITS_PER_WORD - 1 - (end & (BITS_PER_WORD - 1)));
+        if (w1 == w2) {
+            words[w1] &= ~(first & last);
+        } else {
+            words[w1] &= ~first;
+            Arrays.fill(words, w1 + 1, w2, 0L);
+            words[w2] &= ~last;
+        }
+    }
+
+    private static void flipRange(long[] words, int start, int end) {
+        int w1 = start >>> ADDRESS_BITS_PER_WORD;
+        int w2 = end >>> ADDRESS_BITS_PER_WORD;
+        long first = -1L << start;
+        long last = -1L >>> (BITS_PER_WORD - 1 - (end & (BITS_PER_WORD - 1)));
+        if (w1 == w2) {
+            words[w1] ^= first & last;
+        } else {
+            words[w1] ^= first;
+            for (int w = w1 + 1; w < w2; ++w) {
+                words[w] = ~words[w];
+            }
+            words[w2] ^= last;
+        }
+    }
+
+    /**
+     * Container of the low 16 bits of the set bits in a chunk.
+     * The arguments and results of the queries are in [0, 2<sup>16</sup>).
+     */
+    private abstract static class Container implements Serializable {
+
+        abstract int cardinality();
+
+        abstract boolean contains(int x);
+
+        /**
+         * Adds {@code x} to this container.
+         *
+         * @return the container after adding, which may be a new container
+         * if this container overflows.
+         */
+        abstract Container add(int x);
+
+        /**
+         * Removes {@code x} from this container.
+         *
+         * @return the container after removing, which may be a new container.
+         */
+        abstract Container remove(int x);
+
+        /**
+         * @return the first value that is present and {@code >= from},
+         * or -1 if no such value.
+         */
+        abstract int next(int from);
+
+        /**
+         * @return the last value that is present and {@code <= from},
+         * or -1 if no such value.
+         */
+        abstract int previous(int from);
+
+        /**
+         * @return the first value that is absent and {@code >= from},
+         * or {@link #CHUNK_SIZE} if no such value.
+         */
+        abstract int nextAbsent(int from);
+
+        /**
+         * @return the last value that is absent and {@code <= from},
+         * or -1 if no such value.
+         */
+        abstract int previousAbsent(int from);
+
+        abstract int numberOfRuns();
+
+        abstract Container copy();
+
+        /**
+         * @return a new bitmap container with the same content.
+         */
+        abstract BitmapContainer toBitmap();
+
+        /**
+         * @return an array container with the same content, which may be
+         * this container. The cardinality must not exceed {@link #ARRAY_MAX_SIZE}.
+         */
+        ArrayContainer toArray() {
+            ArrayContainer result = new ArrayContainer(cardinality());
+            for (int v = next(0); v >= 0; v = v < LOW_MASK ? next(v + 1) : -1) {
+                result.content[result.cardinality++] = (char) v;
+            }
+            return result;
+        }
+
+        /**
+         * @return a run container with the same content, which may be
+         * this container.
+         */
+        RunContainer toRuns() {
+            RunContainer result = new RunContainer(numberOfRuns());
+            int start = next(0);
+            while (start >= 0) {
+                int end = nextAbsent(start) - 1;
+                result.appendRun(start, end);
+                start = end < LOW_MASK ? next(end + 1) : -1;
+            }
+            return result;
+        }
+    }
+
+    private static final class ArrayContainer extends Container {
+
+        private char[] content;
+
+        private int cardinality;
+
+        private ArrayContainer(int capacity) {
+            content = new char[capacity];
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        private int indexOf(int x) {
+            return Arrays.binarySearch(content, 0, cardinality, (char) x);
+        }
+
+        @Override
+        boolean contains(int x) {
+            return indexOf(x) >= 0;
+        }
+
+        @Override
+        Container add(int x) {
+            int i = indexOf(x);
+            if (i >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX_SIZE) {
+                Container c = 2 * numberOfRuns() < ARRAY_MAX_SIZE
+                        ? toRuns() : toBitmap();
+                return c.add(x);
+            }
+            i = -i - 1;
+            if (cardinality == content.length) {
+                content = Arrays.copyOf(content,
+                        Math.min(ARRAY_MAX_SIZE, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(content, i, content, i + 1, cardinality - i);
+            content[i] = (char) x;
+            ++cardinality;
+            return this;
+        }
+
+        @Override
+        Container remove(int x) {
+            int i = indexOf(x);
+            if (i >= 0) {
+                System.arraycopy(content, i + 1, content, i, cardinality - i - 1);
+                --cardinality;
+            }
+            return this;
+        }
+
+        @Override
+        int next(int from) {
+            int i = indexOf(from);
+            if (i >= 0) {
+                return from;
+            }
+            i = -i - 1;
+            return i < cardinality ? content[i] : -1;
+        }
+
+        @Override
+        int previous(int from) {
+            int i = indexOf(from);
+            if (i >= 0) {
+                return from;
+            }
+            i = -i - 2;
+            return i >= 0 ? content[i] : -1;
+        }
+
+        @Override
+        int nextAbsent(int from) {
+            int i = indexOf(from);
+            int x = from;
+            if (i >= 0) {
+                while (i < cardinality && content[i] == x) {
+                    ++i;
+                    ++x;
+                }
+            }
+            return x;
+        }
+
+        @Override
+        int previousAbsent(int from) {
+            int i = indexOf(from);
+            int x = from;
+            if (i >= 0) {
+                while (i >= 0 && content[i] == x) {
+                    --i;
+                    --x;
+                }
+            }
+            return x;
+        }
+
+        @Override
+        int numberOfRuns() {
+            int runs = 0;
+            int prev = -2;
+            for (int i = 0; i < cardinality; ++i) {
+                if (content[i] != prev + 1) {
+                    ++runs;
+                }
+                prev = content[i];
+            }
+            return runs;
+        }
+
+        @Override
+        ArrayContainer copy() {
+            ArrayContainer copy = new ArrayContainer(0);
+            copy.content = Arrays.copyOf(content, cardinality);
+            copy.cardinality = cardinality;
+            return copy;
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; ++i) {
+                bitmap.words[content[i] >>> ADDRESS_BITS_PER_WORD] |= 1L << content[i];
+            }
+            bitmap.cardinality = cardinality;
+            return bitmap;
+        }
+
+        @Override
+        ArrayContainer toArray() {
+            return this;
+        }
+
+        /**
+         * @return union of this container and {@code other}.
+         */
+        private Container union(ArrayContainer other) {
+            char[] result = new char[cardinality + other.cardinality];
+            int i = 0, j = 0, n = 0;
+            while (i < cardinality && j < other.cardinality) {
+                char v1 = content[i], v2 = other.content[j];
+                if (v1 < v2) {
+                    result[n++] = v1;
+                    ++i;
+                } else if (v1 > v2) {
+                    result[n++] = v2;
+                    ++j;
+                } else {
+                    result[n++] = v1;
+                    ++i;
+                    ++j;
+                }
+            }
+            while (i < cardinality) {
+                result[n++] = content[i++];
+            }
+            while (j < other.cardinality) {
+                result[n++] = other.content[j++];
+            }
+            ArrayContainer union = new ArrayContainer(0);
+            union.content = result;
+            union.cardinality = n;
+            return n <= ARRAY_MAX_SIZE ? union : union.toBitmap();
+        }
+
+        /**
+         * @return a new array container of the values in this container
+         * that are present ({@code keep} is {@code true})
+         * or absent ({@code keep} is {@code false}) in {@code other}.
+         */
+        private ArrayContainer filter(Container other, boolean keep) {
+            ArrayContainer result = new ArrayContainer(cardinality);
+            for (int i = 0; i < cardinality; ++i) {
+                if (other.contains(content[i]) == keep) {
+                    result.content[result.cardinality++] = content[i];
+                }
+            }
+            return result;
+        }
+
+        /**
+         * @return {@code true} if any value in this container is present
+         * in {@code other}.
+         */
+        private boolean anyIn(Container other) {
+            for (int i = 0; i < cardinality; ++i) {
+                if (other.contains(content[i])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+
+        private final long[] words = new long[BITMAP_WORDS];
+
+        private int cardinality;
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(int x) {
+            return (words[x >>> ADDRESS_BITS_PER_WORD] & (1L << x)) != 0;
+        }
+
+        @Override
+        Container add(int x) {
+            int w = x >>> ADDRESS_BITS_PER_WORD;
+            long bit = 1L << x;
+            if ((words[w] & bit) == 0) {
+                words[w] |= bit;
+                ++cardinality;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(int x) {
+            int w = x >>> ADDRESS_BITS_PER_WORD;
+            long bit = 1L << x;
+            if ((words[w] & bit) != 0) {
+                words[w] &= ~bit;
+                --cardinality;
+                // convert at half of the threshold to avoid
+                // converting back and forth around the threshold
+                if (cardinality <= ARRAY_MAX_SIZE / 2) {
+                    return toArray();
+                }
+            }
+            return this;
+        }
+
+        @Override
+        int next(int from) {
+            int w = from >>> ADDRESS_BITS_PER_WORD;
+            long word = words[w] & (-1L << from);
+            while (true) {
+                if (word != 0) {
+                    return (w << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+                }
+                if (++w == BITMAP_WORDS) {
+                    return -1;
+                }
+                word = words[w];
+            }
+        }
+
+        @Override
+        int previous(int from) {
+            int w = from >>> ADDRESS_BITS_PER_WORD;
+            long word = words[w] & (-1L >>> (BITS_PER_WORD - 1 - (from & (BITS_PER_WORD - 1))));
+            while (true) {
+                if (word != 0) {
+                    return (w << ADDRESS_BITS_PER_WORD)
+                            + BITS_PER_WORD - 1 - Long.numberOfLeadingZeros(word);
+                }
+                if (--w < 0) {
+                    return -1;
+                }
+                word = words[w];
+            }
+        }
+
+        @Override
+        int nextAbsent(int from) {
+            int w = from >>> ADDRESS_BITS_PER_WORD;
+            long word = ~words[w] & (-1L << from);
+            while (true) {
+                if (word != 0) {
+                    return (w << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+                }
+                if (++w == BITMAP_WORDS) {
+                    return CHUNK_SIZE;
+                }
+                word = ~words[w];
+            }
+        }
+
+        @Override
+        int previousAbsent(int from) {
+            int w = from >>> ADDRESS_BITS_PER_WORD;
+            long word = ~words[w] & (-1L >>> (BITS_PER_WORD - 1 - (from & (BITS_PER_WORD - 1))));
+            while (true) {
+                if (word != 0) {
+                    return (w << ADDRESS_BITS_PER_WORD)
+                            + BITS_PER_WORD - 1 - Long.numberOfLeadingZeros(word);
+                }
+                if (--w < 0) {
+                    return -1;
+                }
+                word = ~words[w];
+            }
+        }
+
+        @Override
+        int numberOfRuns() {
+            int runs = 0;
+            long prev = 0;
+            for (long word : words) {
+                // a run starts at the set bits whose previous bits are clear
+                runs += Long.bitCount(word & ~((word << 1) | (prev >>> (BITS_PER_WORD - 1))));
+                prev = word;
+            }
+            return runs;
+        }
+
+        @Override
+        BitmapContainer copy() {
+            BitmapContainer copy = new BitmapContainer();
+            System.arraycopy(words, 0, copy.words, 0, BITMAP_WORDS);
+            copy.cardinality = cardinality;
+            return copy;
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            return copy();
+        }
+
+        private void updateCardinality() {
+            int cardinality = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+            }
+            this.cardinality = cardinality;
+        }
+
+        private void orWith(Container other) {
+            if (other instanceof BitmapContainer b) {
+                for (int w = 0; w < BITMAP_WORDS; ++w) {
+                    words[w] |= b.words[w];
+                }
+            } else if (other instanceof ArrayContainer a) {
+                for (int i = 0; i < a.cardinality; ++i) {
+                    words[a.content[i] >>> ADDRESS_BITS_PER_WORD] |= 1L << a.content[i];
+                }
+            } else {
+                RunContainer r = (RunContainer) other;
+                for (int i = 0; i < r.nRuns; ++i) {
+                    setRange(words, r.start(i), r.end(i));
+                }
+            }
+            updateCardinality();
+        }
+
+        private void andWith(Container other) {
+            long[] otherWords = other instanceof BitmapContainer b
+                    ? b.words : other.toBitmap().words;
+            for (int w = 0; w < BITMAP_WORDS; ++w) {
+                words[w] &= otherWords[w];
+            }
+            updateCardinality();
+        }
+
+        private void andNotWith(Container other) {
+            if (other instanceof BitmapContainer b) {
+                for (int w = 0; w < BITMAP_WORDS; ++w) {
+                    words[w] &= ~b.words[w];
+                }
+            } else if (other instanceof ArrayContainer a) {
+                for (int i = 0; i < a.cardinality; ++i) {
+                    words[a.content[i] >>> ADDRESS_BITS_PER_WORD] &= ~(1L << a.content[i]);
+                }
+            } else {
+                RunContainer r = (RunContainer) other;
+                for (int i = 0; i < r.nRuns; ++i) {
+                    clearRange(words, r.start(i), r.end(i));
+                }
+            }
+            updateCardinality();
+        }
+
+        private void xorWith(Container other) {
+            if (other instanceof BitmapContainer b) {
+                for (int w = 0; w < BITMAP_WORDS; ++w) {
+                    words[w] ^= b.words[w];
+                }
+            } else if (other instanceof ArrayContainer a) {
+                for (int i = 0; i < a.cardinality; ++i) {
+                    words[a.content[i] >>> ADDRESS_BITS_PER_WORD] ^= 1L << a.content[i];
+                }
+            } else {
+                RunContainer r = (RunContainer) other;
+                for (int i = 0; i < r.nRuns; ++i) {
+                    flipRange(words, r.start(i), r.end(i));
+                }
+            }
+            updateCardinality();
+        }
+
+        private boolean intersects(BitmapContainer other) {
+            for (int w = 0; w < BITMAP_WORDS; ++w) {
+                if ((words[w] & other.words[w]) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean containsAll(BitmapContainer other) {
+            for (int w = 0; w < BITMAP_WORDS; ++w) {
+                if ((other.words[w] & ~words[w]) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Container of maximal runs of consecutive values. The runs are
+     * sorted and are neither overlapping nor adjacent.
+     */
+    private static final class RunContainer extends Container {
+
+        /**
+         * The i-th run is [runs[2i], runs[2i] + runs[2i + 1]].
+         */
+        private char[] runs;
+
+        private int nRuns;
+
+        private int cardinality;
+
+        private RunContainer(int capacity) {
+            runs = new char[2 * capacity];
+        }
+
+        private int start(int i) {
+            return runs[2 * i];
+        }
+
+        private int end(int i) {
+            return runs[2 * i] + runs[2 * i + 1];
+        }
+
+        private void setRun(int i, int start, int end) {
+            runs[2 * i] = (char) start;
+            runs[2 * i + 1] = (char) (end - start);
+        }
+
+        private void insertRun(int i, int start, int end) {
+            if (2 * nRuns == runs.length) {
+                runs = Arrays.copyOf(runs, Math.max(4, 2 * runs.length));
+            }
+            System.arraycopy(runs, 2 * i, runs, 2 * i + 2, 2 * (nRuns - i));
+            ++nRuns;
+            setRun(i, start, end);
+        }
+
+        private void removeRun(int i) {
+            System.arraycopy(runs, 2 * i + 2, runs, 2 * i, 2 * (nRuns - i - 1));
+            --nRuns;
+        }
+
+        /**
+         * Appends run [start, end] which starts after all existing runs,
+         * and merges it with the last run if they overlap or are adjacent.
+         */
+        private void appendRun(int start, int end) {
+            if (nRuns > 0 && start <= end(nRuns - 1) + 1) {
+                int last = nRuns - 1;
+                int lastEnd = end(last);
+                if (end > lastEnd) {
+                    setRun(last, start(last), end);
+                    cardinality += end - lastEnd;
+                }
+            } else {
+                insertRun(nRuns, start, end);
+                cardinality += end - start + 1;
+            }
+        }
+
+        /**
+         * @return index of the last run that starts at or before {@code x},
+         * or -1 if no such run.
+         */
+        private int find(int x) {
+            int low = 0, high = nRuns - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (start(mid) <= x) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return high;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(int x) {
+            int i = find(x);
+            return i >= 0 && x <= end(i);
+        }
+
+        @Override
+        Container add(int x) {
+            int i = find(x);
+            if (i >= 0 && x <= end(i)) {
+                return this;
+            }
+            boolean mergePrev = i >= 0 && end(i) + 1 == x;
+            boolean mergeNext = i + 1 < nRuns && start(i + 1) == x + 1;
+            if (mergePrev && mergeNext) {
+                setRun(i, start(i), end(i + 1));
+                removeRun(i + 1);
+            } else if (mergePrev) {
+                setRun(i, start(i), x);
+            } else if (mergeNext) {
+                setRun(i + 1, x, end(i + 1));
+            } else {
+                insertRun(i + 1, x, x);
+            }
+            ++cardinality;
+            return nRuns > MAX_RUNS ? toBitmap() : this;
+        }
+
+        @Override
+        Container remove(int x) {
+            int i = find(x);
+            if (i < 0 || x > end(i)) {
+                return this;
+            }
+            int start = start(i), end = end(i);
+            if (start == end) {
+                removeRun(i);
+            } else if (x == start) {
+                setRun(i, start + 1, end);
+            } else if (x == end) {
+                setRun(i, start, end - 1);
+            } else {
+                setRun(i, start, x - 1);
+                insertRun(i + 1, x + 1, end);
+            }
+            --cardinality;
+            return nRuns > MAX_RUNS ? toBitmap() : this;
+        }
+
+        @Override
+        int next(int from) {
+            int i = find(from);
+            if (i >= 0 && from <= end(i)) {
+                return from;
+            }
+            return i + 1 < nRuns ? start(i + 1) : -1;
+        }
+
+        @Override
+        int previous(int from) {
+            int i = find(from);
+            return i >= 0 ? Math.min(from, end(i)) : -1;
+        }
+
+        @Override
+        int nextAbsent(int from) {
+            int i = find(from);
+            return i >= 0 && from <= end(i) ? end(i) + 1 : from;
+        }
+
+        @Override
+        int previousAbsent(int from) {
+            int i = find(from);
+            return i >= 0 && from <= end(i) ? start(i) - 1 : from;
+        }
+
+        @Override
+        int numberOfRuns() {
+            return nRuns;
+        }
+
+        @Override
+        RunContainer copy() {
+            RunContainer copy = new RunContainer(0);
+            copy.runs = Arrays.copyOf(runs, 2 * nRuns);
+            copy.nRuns = nRuns;
+            copy.cardinality = cardinality;
+            return copy;
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < nRuns; ++i) {
+                setRange(bitmap.words, start(i), end(i));
+            }
+            bitmap.cardinality = cardinality;
+            return bitmap;
+        }
+
+        @Override
+        RunContainer toRuns() {
+            return this;
+        }
+
+        /**
+         * @return union of this container and {@code other}.
+         */
+        private RunContainer union(RunContainer other) {
+            RunContainer result = new RunContainer(nRuns + other.nRuns);
+            int i = 0, j = 0;
+            while (i < nRuns || j < other.nRuns) {
+                if (j == other.nRuns || (i < nRuns && start(i) <= other.start(j))) {
+                    result.appendRun(start(i), end(i));
+                    ++i;
+                } else {
+                    result.appendRun(other.start(j), other.end(j));
+                    ++j;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * @return {@code true} if any value in this container is present
+         * in {@code other}.
+         */
+        private boolean anyIn(Container other) {
+            for (int i = 0; i < nRuns; ++i) {
+                int next = other.next(start(i));
+                if (next >= 0 && next <= end(i)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
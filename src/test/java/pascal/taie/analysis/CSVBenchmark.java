@@ -0,0 +1,184 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis;
+
+import pascal.taie.analysis.pta.plugin.Plugin;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Common skeleton of the benchmark runners, which run a series of
+ * measurements and write the metrics of each measurement as a CSV line,
+ * both to the console and to {@code <dir>/results.csv}.
+ * <p>
+ * A runner is a picocli command that extends this class, declares its
+ * own options, and implements {@link #measureAll(Consumer)}.
+ */
+public abstract class CSVBenchmark {
+
+    @CommandLine.Option(names = "-dir",
+            description = "directory of generated programs and results"
+                    + " (default: output/<benchmark>)")
+    private File dir;
+
+    private final String name;
+
+    private final String header;
+
+    /**
+     * @param name   name of the benchmark, which is used as the name of
+     *               the default output directory.
+     * @param header header line of the CSV results.
+     */
+    protected CSVBenchmark(String name, String header) {
+        this.name = name;
+        this.header = header;
+    }
+
+    /**
+     * Parses given command-line arguments into given runner and runs it.
+     */
+    protected static void run(CSVBenchmark benchmark, String... args) {
+        CommandLine.populateCommand(benchmark, args);
+        benchmark.runAll();
+    }
+
+    private void runAll() {
+        File resultFile = new File(getDir(), "results.csv");
+        try {
+            Files.createDirectories(getDir().toPath());
+            try (PrintStream out = new PrintStream(resultFile)) {
+                out.println(header);
+                measureAll(line -> {
+                    System.out.println(header + "\n" + line);
+                    out.println(line);
+                    out.flush();
+                });
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println("Results are written to " + resultFile.getAbsolutePath());
+    }
+
+    /**
+     * Runs all measurements of this benchmark.
+     *
+     * @param results consumer of the CSV line of each measurement.
+     */
+    protected abstract void measureAll(Consumer<String> results) throws IOException;
+
+    /**
+     * @return the directory of generated programs and results.
+     */
+    protected File getDir() {
+        if (dir == null) {
+            dir = new File("output", name);
+        }
+        return dir;
+    }
+
+    /**
+     * Writes the source code of a generated program to
+     * {@code <dir>/<subDir>/<mainClass>.java}.
+     *
+     * @return the directory of the program, i.e., its class path.
+     */
+    protected Path writeProgram(String subDir, String mainClass, String code)
+            throws IOException {
+        Path programDir = getDir().toPath().resolve(subDir);
+        Files.createDirectories(programDir);
+        Files.writeString(programDir.resolve(mainClass + ".java"), code);
+        return programDir;
+    }
+
+    /**
+     * Runs given action and measures the peak usage of heap memory.
+     *
+     * @return the peak heap usage in MB.
+     */
+    protected static long measurePeakHeap(Runnable action) {
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans()
+                .stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        action.run();
+        long peakHeap = heapPools.stream()
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+        return peakHeap / (1024 * 1024);
+    }
+
+    /**
+     * @return a CSV line of given values.
+     */
+    protected static String toCSVLine(Object... values) {
+        return Arrays.stream(values)
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+    }
+
+    /**
+     * Plugin that records the solving time of pointer analysis, i.e.,
+     * the time from the start to the end of the last phase. Runners add
+     * it (or its subclasses) to option {@code plugins} of pointer analysis.
+     */
+    public static class SolveTimer implements Plugin {
+
+        protected static long solveTime;
+
+        private long startTime;
+
+        @Override
+        public void onStart() {
+            startTime = System.currentTimeMillis();
+        }
+
+        @Override
+        public void onPhaseFinish() {
+            solveTime = System.currentTimeMillis() - startTime;
+        }
+
+        /**
+         * @return the solving time (in ms) of the last run of pointer analysis.
+         */
+        public static long getSolveTime() {
+            return solveTime;
+        }
+    }
+}
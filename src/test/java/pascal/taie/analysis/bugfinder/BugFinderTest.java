@@ -0,0 +1,98 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.bugfinder;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.bugfinder.nullpointer.NullPointerDetection;
+import pascal.taie.language.classes.JMethod;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BugFinderTest {
+
+    private static final String folderPath = "src/test/resources/bugfinder";
+
+    private static final String CACHE_FILE = "bug-finder-cache.txt";
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "NullDeref",
+            "NullDeref2",
+            "NullDeref3",
+            "DroppedException",
+    })
+    void test(String inputClass) {
+        String bugFinder = BugFinder.ID
+                + "=clone-idiom:false;cache-file:" + CACHE_FILE;
+        // the first run populates the cache
+        new File("output", CACHE_FILE).delete();
+        List<String> cold = run(inputClass, bugFinder);
+        assertEquals(0, (int) World.get().getResult(BugFinder.REUSED_CLASSES));
+        // the second run restores the bug instances of all classes
+        // from the cache, and reports the same bug instances
+        List<String> warm = run(inputClass, bugFinder);
+        assertEquals(World.get().getClassHierarchy().applicationClasses().count(),
+                (int) World.get().getResult(BugFinder.REUSED_CLASSES));
+        assertEquals(cold, warm);
+    }
+
+    /**
+     * Runs bug-finder together with the separate detectors, and checks
+     * that bug-finder reports the bug instances equal to theirs.
+     *
+     * @return the bug instances reported by bug-finder, in string form
+     * so that they can be compared across runs.
+     */
+    private static List<String> run(String inputClass, String bugFinder) {
+        Main.main(new String[]{
+                "-pp", "-cp", folderPath, "--input-classes", inputClass,
+                "-a", NullPointerDetection.ID,
+                "-a", DroppedException.ID,
+                "-a", bugFinder,
+        });
+        Set<BugInstance> expected = World.get()
+                .getClassHierarchy()
+                .applicationClasses()
+                .flatMap(c -> c.getDeclaredMethods().stream())
+                .filter(m -> !m.isAbstract())
+                .map(JMethod::getIR)
+                .flatMap(ir -> List.of(NullPointerDetection.ID, DroppedException.ID)
+                        .stream()
+                        .<Collection<BugInstance>>map(ir::getResult))
+                .flatMap(Collection::stream)
+                .collect(Collectors.toSet());
+        List<BugInstance> bugs = World.get().getResult(BugFinder.ID);
+        assertEquals(expected, Set.copyOf(bugs));
+        return bugs.stream()
+                .map(BugInstance::toString)
+                .toList();
+    }
+}
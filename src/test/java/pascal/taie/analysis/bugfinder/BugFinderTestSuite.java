@@ -28,6 +28,7 @@ import org.junit.platform.suite.api.Suite;
 
 @Suite
 @SelectClasses({
+        BugFinderTest.class,
         CloneIdiomTest.class,
         DroppedExceptionTest.class,
         IsNullTest.class,
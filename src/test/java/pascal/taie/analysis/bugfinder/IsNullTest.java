@@ -41,4 +41,14 @@ public class IsNullTest {
         Tests.testInput(inputClass, folderPath, IsNullAnalysis.ID);
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "NullDeref",
+            "NullDeref2",
+    })
+    void testPersistentFact(String inputClass) {
+        Tests.testInput(inputClass, folderPath, IsNullAnalysis.ID,
+                "persistent-fact:true");
+    }
+
 }
@@ -47,4 +47,16 @@ public class CPTest {
         testCP(inputClass);
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Assign",
+            "SimpleBranch",
+            "BranchConstant",
+            "Interprocedural",
+    })
+    void testPersistentFact(String inputClass) {
+        Tests.testInput(inputClass, "src/test/resources/dataflow/constprop/",
+                ConstantPropagation.ID, "edge-refine:false;persistent-fact:true");
+    }
+
 }
@@ -32,4 +32,10 @@ public class EdgeRefineTest {
         Tests.testInput("EdgeRefine", "src/test/resources/dataflow/constprop/",
                 ConstantPropagation.ID, "edge-refine:true");
     }
+
+    @Test
+    void testPersistentFact() {
+        Tests.testInput("EdgeRefine", "src/test/resources/dataflow/constprop/",
+                ConstantPropagation.ID, "edge-refine:true;persistent-fact:true");
+    }
 }
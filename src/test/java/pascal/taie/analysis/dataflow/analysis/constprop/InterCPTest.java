@@ -22,10 +22,27 @@
 
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
 import pascal.taie.analysis.dataflow.inter.InterConstantPropagation;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGBuilder;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.ir.stmt.Nop;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class InterCPTest {
 
@@ -50,4 +67,64 @@ public class InterCPTest {
         testInterCP(mainClass);
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Example",
+            "Reference",
+            "Fibonacci",
+            "MultiIntArgs",
+    })
+    void testLazyICFG(String mainClass) {
+        Tests.testMain(mainClass, CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:false", "-a", "cg=algorithm:cha",
+                "-a", "icfg=lazy:true;cache-size:2");
+    }
+
+    @Test
+    void testLazyICFGEviction() {
+        Tests.testMain("Example", CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:false", "-a", "cg=algorithm:cha",
+                "-a", "icfg=lazy:false");
+        Map<String, Set<String>> expected = describeEdges(
+                World.get().getResult(ICFGBuilder.ID));
+        Tests.testMain("Example", CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:false", "-a", "cg=algorithm:cha",
+                "-a", "icfg=lazy:true;cache-size:1");
+        ICFG<JMethod, Stmt> icfg = World.get().getResult(ICFGBuilder.ID);
+        // the nodes and edges of lazy ICFG are the same as default ICFG,
+        // even if the fragments of most nodes have been evicted
+        assertEquals(expected, describeEdges(icfg));
+        assertEquals(expected, describeEdges(icfg));
+        assertThrows(IllegalArgumentException.class,
+                () -> icfg.getOutEdgesOf(new Nop()));
+    }
+
+    /**
+     * @return map from the description of each node in given ICFG
+     * to the descriptions of its in and out edges.
+     */
+    private static Map<String, Set<String>> describeEdges(ICFG<JMethod, Stmt> icfg) {
+        Map<String, Set<String>> edges = Maps.newMap();
+        icfg.forEach(node -> {
+            Set<String> descs = Sets.newSet();
+            icfg.getInEdgesOf(node).forEach(e ->
+                    descs.add("in " + describe(icfg, e)));
+            icfg.getOutEdgesOf(node).forEach(e ->
+                    descs.add("out " + describe(icfg, e)));
+            assertNull(edges.put(describe(icfg, node), descs));
+        });
+        return edges;
+    }
+
+    private static String describe(ICFG<JMethod, Stmt> icfg, ICFGEdge<Stmt> edge) {
+        return edge.getClass().getSimpleName() + " " + describe(icfg, edge.source())
+                + " -> " + describe(icfg, edge.target());
+    }
+
+    private static String describe(ICFG<JMethod, Stmt> icfg, Stmt node) {
+        JMethod method = icfg.getContainingMethodOf(node);
+        String desc = node == icfg.getEntryOf(method) ? "entry"
+                : node == icfg.getExitOf(method) ? "exit" : node.toString();
+        return method + "/" + desc;
+    }
 }
@@ -25,6 +25,7 @@ package pascal.taie.analysis.deadcode;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.misc.ResultProcessor;
 
 public class DeadCodeTest {
 
@@ -47,4 +48,19 @@ public class DeadCodeTest {
         testDCD(inputClass);
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "DeadAssignment",
+            "Loops",
+    })
+    void testParallelAnalyses(String inputClass) {
+        // live-var and const-prop are independent, thus they run concurrently
+        Tests.testInput(inputClass, "src/test/resources/deadcode/",
+                DeadCodeDetection.ID,
+                "-a", "live-var=strongly:false",
+                "-a", "const-prop=edge-refine:false",
+                "--parallel-analyses",
+                "-kr", DeadCodeDetection.ID + "," + ResultProcessor.ID);
+    }
+
 }
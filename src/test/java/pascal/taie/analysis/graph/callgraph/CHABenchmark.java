@@ -0,0 +1,130 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.Main;
+import pascal.taie.analysis.CSVBenchmark;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import picocli.CommandLine;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Measures the scaling of parallel CHA call graph construction with
+ * the number of threads.
+ * <p>
+ * Building the IR of the reachable methods dominates CHA, and the IR
+ * (as well as the dispatch results of class hierarchy) is cached in the
+ * world. Thus, this runner rebuilds the world before each run, so that
+ * every run builds the call graph from cold caches, and only the call
+ * graph construction is timed. For each given number of threads, it
+ * writes the following metrics as a CSV line:
+ * <ul>
+ *     <li>the minimum building time of the repeated runs;</li>
+ *     <li>the speedup compared to the first number of threads;</li>
+ *     <li>the numbers of reachable methods and call edges;</li>
+ *     <li>whether the call edges (in order) are identical to the ones
+ *     built with the first number of threads.</li>
+ * </ul>
+ * Example: {@code CHABenchmark -cp app.jar -m Main -threads 1,2,4,8}
+ */
+@CommandLine.Command
+public class CHABenchmark extends CSVBenchmark {
+
+    private static final String CSV_HEADER = "threads,time(ms),speedup,"
+            + "methods,edges,identical";
+
+    @CommandLine.Option(names = "-cp", required = true,
+            description = "class path of the analyzed program")
+    private String classPath;
+
+    @CommandLine.Option(names = "-m", required = true,
+            description = "main class of the analyzed program")
+    private String mainClass;
+
+    @CommandLine.Option(names = "-java", defaultValue = "8",
+            description = "Java version of the library")
+    private String javaVersion;
+
+    @CommandLine.Option(names = "-algorithm", defaultValue = "cha",
+            description = "CHA algorithm, e.g., cha and cha-full")
+    private String algorithm;
+
+    @CommandLine.Option(names = "-threads", split = ",", defaultValue = "1,2,4,8",
+            description = "numbers of threads")
+    private List<Integer> threads;
+
+    @CommandLine.Option(names = "-repeat", defaultValue = "3",
+            description = "number of runs for each number of threads")
+    private int repeat;
+
+    public CHABenchmark() {
+        super("cha-benchmark", CSV_HEADER);
+    }
+
+    public static void main(String[] args) {
+        run(new CHABenchmark(), args);
+    }
+
+    @Override
+    protected void measureAll(Consumer<String> results) {
+        // warm up the JIT, the caches are discarded by the next build of world
+        buildWorld();
+        build(threads.stream().max(Integer::compare).orElse(1));
+        long baseTime = -1;
+        List<String> baseEdges = null;
+        for (int n : threads) {
+            long minTime = Long.MAX_VALUE;
+            CallGraph<Invoke, JMethod> callGraph = null;
+            for (int i = 0; i < repeat; ++i) {
+                buildWorld();
+                long start = System.nanoTime();
+                callGraph = build(n);
+                minTime = Math.min(minTime, System.nanoTime() - start);
+            }
+            List<String> edges = callGraph.edges()
+                    .map(Edge::toString)
+                    .toList();
+            if (baseEdges == null) {
+                baseTime = minTime;
+                baseEdges = edges;
+            }
+            results.accept(toCSVLine(n, minTime / 1_000_000,
+                    String.format("%.2f", baseTime / (double) minTime),
+                    callGraph.getNumberOfMethods(),
+                    callGraph.getNumberOfEdges(),
+                    edges.equals(baseEdges)));
+        }
+    }
+
+    private void buildWorld() {
+        Main.buildWorld("-java", javaVersion, "-cp", classPath, "-m", mainClass);
+        System.gc();
+    }
+
+    private CallGraph<Invoke, JMethod> build(int nThreads) {
+        return new CHABuilder(algorithm, nThreads).build();
+    }
+}
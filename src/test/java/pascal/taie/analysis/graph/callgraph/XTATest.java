@@ -0,0 +1,82 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.junit.jupiter.api.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class XTATest {
+
+    private static final String CLASS_PATH = "src/test/resources/callgraph/";
+
+    @Test
+    void testRTA() {
+        assertEquals(Set.of("<One: int get()>"), getInterfaceCallees(
+                "src/test/resources/cha/", "Interface", "rta"));
+        // both Square and Circle are instantiated in the program
+        assertEquals(Set.of("<Square: int area()>", "<Circle: int area()>"),
+                getInterfaceCallees(CLASS_PATH, "XTA", "rta"));
+    }
+
+    @Test
+    void testXTA() {
+        assertEquals(Set.of("<One: int get()>"), getInterfaceCallees(
+                "src/test/resources/cha/", "Interface", "xta"));
+        // Circle never flows to useSquare()
+        assertEquals(Set.of("<Square: int area()>"),
+                getInterfaceCallees(CLASS_PATH, "XTA", "xta"));
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        assertTrue(callGraph.reachableMethods()
+                .anyMatch(m -> m.getSignature().equals("<Circle: void <init>()>")));
+    }
+
+    @Test
+    void testXTAException() {
+        getInterfaceCallees(CLASS_PATH, "XTA", "xta");
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        // Failure is thrown by throwFailure() and caught in main()
+        assertTrue(callGraph.edges()
+                .anyMatch(e -> e.getCallee().getSignature()
+                        .equals("<Failure: void report()>")));
+    }
+
+    private static Set<String> getInterfaceCallees(
+            String classPath, String main, String algorithm) {
+        Main.main("-pp", "-cp", classPath, "-m", main,
+                "-a", "cg=algorithm:" + algorithm);
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        return callGraph.edges()
+                .filter(e -> e.getKind() == CallKind.INTERFACE)
+                .map(e -> e.getCallee().getSignature())
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph.cha;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ParallelCHATest {
+
+    private static final String CLASS_PATH = "src/test/resources/cha/";
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "StaticCall",
+            "VirtualCall",
+            "Interface",
+            "AbstractMethod",
+            "SpecialCall",
+            "Interface2",
+            "Interface3",
+            "Recursion",
+            "Recursion2",
+            "MaxPQ",
+            "LongCallChain",
+    })
+    void test(String mainClass) {
+        // parallel CHA should give the same results as sequential one
+        Tests.testMain(mainClass, CLASS_PATH, "cg", "algorithm:cha;threads:4");
+    }
+
+    /**
+     * CHA resolves interface calls on all implementations, while RTA
+     * (algorithm {@code rta}) only resolves them on instantiated classes.
+     */
+    @Test
+    void testCHAVersusRTA() {
+        assertEquals(Set.of("<One: int get()>", "<Zero: int get()>", "<Two: int get()>"),
+                getInterfaceCallees("cha;threads:2"));
+        // Zero and Two are never instantiated
+        assertEquals(Set.of("<One: int get()>"), getInterfaceCallees("rta"));
+    }
+
+    private static Set<String> getInterfaceCallees(String algorithm) {
+        Main.main("-pp", "-cp", CLASS_PATH, "-m", "Interface",
+                "-a", "cg=algorithm:" + algorithm);
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        return callGraph.edges()
+                .filter(e -> e.getKind() == CallKind.INTERFACE)
+                .map(e -> e.getCallee().getSignature())
+                .collect(Collectors.toSet());
+    }
+}
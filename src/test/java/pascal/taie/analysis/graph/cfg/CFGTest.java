@@ -24,7 +24,19 @@ package pascal.taie.analysis.graph.cfg;
 
 import org.junit.jupiter.api.Test;
 import pascal.taie.Main;
+import pascal.taie.World;
 import pascal.taie.analysis.exception.ThrowAnalysis;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.type.ClassType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 public class CFGTest {
 
@@ -38,11 +50,96 @@ public class CFGTest {
         test("Exceptions", "all");
     }
 
+    @Test
+    void testCompact() {
+        testCompact("CFG", "explicit");
+        testCompact("Exceptions", "all");
+    }
+
+    /**
+     * Checks that compact and cached CFGs have the same nodes and edges
+     * as the default CFGs.
+     */
+    private static void testCompact(String main, String exception) {
+        test(main, exception);
+        Map<String, List<String>> expected = describeCFGs();
+        assertFalse(expected.isEmpty());
+        for (String opts : List.of("compact:true", "cache-size:1",
+                "compact:true;cache-size:1")) {
+            test(main, exception, opts);
+            assertEquals(expected, describeCFGs(), opts);
+        }
+    }
+
     private static void test(String main, String exception) {
+        test(main, exception, "");
+    }
+
+    /**
+     * @return map from the signatures of the methods in the application
+     * classes to the descriptions of their CFGs.
+     */
+    private static Map<String, List<String>> describeCFGs() {
+        Map<String, List<String>> cfgs = new TreeMap<>();
+        World.get().getClassHierarchy()
+                .applicationClasses()
+                .flatMap(c -> c.getDeclaredMethods().stream())
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .forEach(m -> {
+                    CFG<Stmt> cfg = m.getIR().getResult(CFGBuilder.ID);
+                    if (cfg != null) {
+                        cfgs.put(m.getSignature(), describe(cfg));
+                    }
+                });
+        return cfgs;
+    }
+
+    /**
+     * Describes each node of given CFG by its index, its statement,
+     * and its in/out edges (in which the nodes are represented by
+     * their indexes).
+     */
+    private static List<String> describe(CFG<Stmt> cfg) {
+        List<String> nodes = new ArrayList<>();
+        for (int i = 0; i < cfg.getNumberOfNodes(); ++i) {
+            Stmt node = cfg.getNode(i);
+            assertEquals(i, cfg.getIndex(node));
+            assertEquals(cfg.getInDegreeOf(node), cfg.getInEdgesOf(node).size());
+            assertEquals(cfg.getOutDegreeOf(node), cfg.getOutEdgesOf(node).size());
+            assertEquals(cfg.getPredsOf(node).size(),
+                    cfg.getInEdgesOf(node).stream().map(CFGEdge::source).distinct().count());
+            assertEquals(cfg.getSuccsOf(node).size(),
+                    cfg.getOutEdgesOf(node).stream().map(CFGEdge::target).distinct().count());
+            nodes.add(i + ": " + node
+                    + (cfg.isEntry(node) ? " (entry)" : "")
+                    + (cfg.isExit(node) ? " (exit)" : "")
+                    + " in" + describe(cfg, cfg.getInEdgesOf(node))
+                    + " out" + describe(cfg, cfg.getOutEdgesOf(node)));
+        }
+        assertEquals(cfg.getNumberOfNodes(), cfg.getNodes().size());
+        return nodes;
+    }
+
+    private static List<String> describe(CFG<Stmt> cfg, Collection<CFGEdge<Stmt>> edges) {
+        return edges.stream()
+                .map(e -> cfg.getIndex(e.source()) + "->" + cfg.getIndex(e.target())
+                        + " " + e.getKind()
+                        + (e.isSwitchCase() ? " " + e.getCaseValue() : "")
+                        + (e.isExceptional() ? " " + e.getExceptions()
+                        .stream()
+                        .map(ClassType::getName)
+                        .sorted()
+                        .toList() : ""))
+                .sorted()
+                .toList();
+    }
+
+    private static void test(String main, String exception, String opts) {
         Main.main(
                 "-pp", "-cp", "src/test/resources/controlflow", "--input-classes", main,
                 "-a", ThrowAnalysis.ID + "=exception:" + exception,
                 "-a", CFGBuilder.ID + "=exception:" + exception + ";dump:true"
+                        + (opts.isEmpty() ? "" : ";" + opts)
         );
     }
 }
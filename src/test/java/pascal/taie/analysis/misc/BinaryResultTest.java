@@ -0,0 +1,174 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.misc;
+
+import org.junit.jupiter.api.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.PointerAnalysis;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.plugin.ResultProcessor;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BinaryResultTest {
+
+    @Test
+    void testCallGraph() throws IOException {
+        Main.main("-pp", "-cp", "src/test/resources/cha/", "-m", "Interface",
+                "-a", "cg=algorithm:cha;dump-binary:true");
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        try (BinaryResultReader reader = BinaryResultReader.open(
+                outputFile("call-graph.bin"))) {
+            assertFalse(reader.hasPointsToSets());
+            checkCallGraph(callGraph, reader);
+        }
+    }
+
+    @Test
+    void testPointsToSets() throws IOException {
+        Main.main("-pp", "-cp", "src/test/resources/pta/basic", "-m", "Dispatch",
+                "-a", "pta=cs:1-call;dump-binary:true");
+        PointerAnalysisResult pta = World.get().getResult(PointerAnalysis.ID);
+        try (BinaryResultReader reader = BinaryResultReader.open(
+                outputFile(ResultProcessor.RESULTS_BINARY_FILE))) {
+            assertTrue(reader.hasPointsToSets());
+            checkCallGraph(pta.getCallGraph(), reader);
+            assertEquals(pta.getObjects().size(), reader.getNumberOfObjects());
+            int numVars = 0;
+            for (Var var : pta.getVars()) {
+                int method = reader.getMethodId(var.getMethod().getSignature());
+                if (method < 0) {
+                    continue;
+                }
+                ++numVars;
+                int v = reader.getVarId(method, var.getName());
+                assertEquals(var.getName(), reader.getVarName(v));
+                assertEquals(method, reader.getVarMethod(v));
+                Set<String> expected = pta.getPointsToSet(var)
+                        .stream()
+                        .map(Obj::toString)
+                        .collect(Collectors.toSet());
+                int[] pts = reader.getPointsToSet(v);
+                assertEquals(expected, Arrays.stream(pts)
+                        .mapToObj(reader::getObject)
+                        .collect(Collectors.toSet()));
+                for (int obj : pts) {
+                    assertTrue(reader.pointsTo(v, obj));
+                    assertEquals(obj, reader.getObjectId(reader.getObject(obj)));
+                }
+                if (pts.length > 0) {
+                    assertTrue(reader.mayAlias(v, v));
+                }
+            }
+            assertEquals(numVars, reader.getNumberOfVars());
+        }
+    }
+
+    /**
+     * The call-site labels (and the call edges) in binary results
+     * are the same as the ones dumped by option {@code dump-call-edges},
+     * which skip invokedynamic.
+     */
+    @Test
+    void testCallSiteLabels() throws IOException {
+        Main.main("-pp", "-cp", "src/test/resources/pta/lambda", "-m", "Args",
+                "-a", "pta=dump-binary:true", "-a", "cg=dump-call-edges:true");
+        PointerAnalysisResult pta = World.get().getResult(PointerAnalysis.ID);
+        assertTrue(pta.getCallGraph().reachableMethods()
+                .anyMatch(m -> !m.isAbstract()
+                        && m.getIR().invokes(true).anyMatch(Invoke::isDynamic)));
+        Set<String> expected = new HashSet<>(
+                Files.readAllLines(outputFile("call-edges.txt")));
+        Set<String> actual = new HashSet<>();
+        try (BinaryResultReader reader = BinaryResultReader.open(
+                outputFile(ResultProcessor.RESULTS_BINARY_FILE))) {
+            for (int site = 0; site < reader.getNumberOfCallSites(); ++site) {
+                for (int callee : reader.getCalleesOf(site)) {
+                    actual.add(reader.getCallSiteLabel(site)
+                            + "\t" + reader.getMethod(callee));
+                }
+            }
+        }
+        assertEquals(expected, actual);
+    }
+
+    private static void checkCallGraph(CallGraph<Invoke, JMethod> callGraph,
+                                       BinaryResultReader reader) {
+        assertEquals(callGraph.getNumberOfMethods(), reader.getNumberOfMethods());
+        // invokedynamic call sites are skipped
+        Set<String> expected = callGraph.edges()
+                .filter(e -> !e.getCallSite().isDynamic())
+                .map(BinaryResultTest::toString)
+                .collect(Collectors.toSet());
+        assertEquals(callGraph.edges()
+                        .filter(e -> !e.getCallSite().isDynamic())
+                        .count(),
+                reader.getNumberOfEdges());
+        Set<String> actual = new HashSet<>();
+        for (int m = 0; m < reader.getNumberOfMethods(); ++m) {
+            String caller = reader.getMethod(m);
+            assertEquals(m, reader.getMethodId(caller));
+            for (int site : reader.getCallSitesIn(m)) {
+                assertEquals(m, reader.getContainerOf(site));
+                int[] callees = reader.getCalleesOf(site);
+                CallKind[] kinds = reader.getCallKindsOf(site);
+                for (int i = 0; i < callees.length; ++i) {
+                    actual.add(caller + "/" + reader.getLineNumber(site)
+                            + " -" + kinds[i] + "-> " + reader.getMethod(callees[i]));
+                    int callSite = site;
+                    assertTrue(Arrays.stream(reader.getCallersOf(callees[i]))
+                            .anyMatch(s -> s == callSite));
+                }
+            }
+        }
+        assertEquals(expected, actual);
+    }
+
+    private static String toString(Edge<Invoke, JMethod> edge) {
+        return edge.getCallSite().getContainer().getSignature() + "/"
+                + edge.getCallSite().getLineNumber() + " -" + edge.getKind()
+                + "-> " + edge.getCallee().getSignature();
+    }
+
+    private static Path outputFile(String name) {
+        return World.get().getOptions().getOutputDir().toPath().resolve(name);
+    }
+}
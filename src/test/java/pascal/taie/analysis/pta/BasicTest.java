@@ -63,4 +63,19 @@ public class BasicTest {
         Tests.testPTA(DIR, mainClass);
     }
 
+    /**
+     * Tests pointer analysis with points-to sets backed by RoaringBitSet,
+     * which should produce the same results as the default bit sets.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "LinkedQueue",
+            "RedBlackBST",
+            "Dispatch",
+            "Cycle",
+    })
+    void testRoaringBitSet(String mainClass) {
+        Tests.testPTA(DIR, mainClass, "pts-bit-set:roaring");
+    }
+
 }
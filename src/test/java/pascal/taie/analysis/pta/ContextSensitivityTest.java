@@ -22,9 +22,27 @@
 
 package pascal.taie.analysis.pta;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.core.cs.selector.ContextSelectorFactory;
+import pascal.taie.analysis.pta.core.heap.MergedObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.MultiStringsSource;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 /**
@@ -45,9 +63,96 @@ public class ContextSensitivityTest {
     @MultiStringsSource({"OneType", "cs:1-type"})
     @MultiStringsSource({"TwoCall", "cs:2-call"})
     @MultiStringsSource({"TwoObject", "cs:2-obj"})
+    @MultiStringsSource({"TwoObject", "cs:2-obj", "pts-bit-set:roaring"})
     @MultiStringsSource({"TwoType", "cs:2-type"})
     void test(String mainClass, String... opts) {
         Tests.testPTA(DIR, mainClass, opts);
     }
 
+    /**
+     * Adaptive context sensitivity behaves as its initial variant
+     * when the budget is not exceeded.
+     */
+    @ParameterizedTest
+    @MultiStringsSource({"TwoObject", "cs:2-obj", "advanced:adaptive"})
+    @MultiStringsSource({"TwoCall", "cs:2-call", "advanced:adaptive"})
+    void testAdaptive(String mainClass, String... opts) {
+        Tests.testPTA(DIR, mainClass, opts);
+    }
+
+    /**
+     * When the budget is exceeded, adaptive context sensitivity downgrades
+     * some methods, and its results are between the results of its initial
+     * variant and context insensitivity.
+     */
+    @Test
+    void testAdaptiveExceedBudget() {
+        Tests.testPTA(false, DIR, "LongObjContext", "cs:2-obj");
+        Map<String, Set<String>> precise = getAppPointsToSets();
+        Tests.testPTA(false, DIR, "LongObjContext", "cs:ci");
+        Map<String, Set<String>> ci = getAppPointsToSets();
+        Tests.testPTA(false, DIR, "LongObjContext", "cs:2-obj",
+                "advanced:adaptive", "adaptive-time-budget:0");
+        PointerAnalysisResult result = World.get().getResult(PointerAnalysis.ID);
+        Map<JMethod, Integer> limits = result.getResult(
+                ContextSelectorFactory.ADAPTIVE_LIMITS);
+        assertTrue(limits.values().stream().anyMatch(limit -> limit < 2),
+                "No method is downgraded");
+        Map<String, Set<String>> adaptive = getAppPointsToSets();
+        assertTrue(adaptive.keySet().containsAll(precise.keySet()));
+        precise.forEach((var, pts) -> {
+            assertTrue(adaptive.get(var).containsAll(pts),
+                    "Unsound points-to set of " + var);
+            assertTrue(ci.get(var).containsAll(adaptive.get(var)),
+                    "Points-to set of " + var + " is less precise than CI");
+        });
+    }
+
+    /**
+     * @return points-to sets of the variables in application code,
+     * where variables and objects are represented by strings.
+     */
+    private static Map<String, Set<String>> getAppPointsToSets() {
+        PointerAnalysisResult result = World.get().getResult(PointerAnalysis.ID);
+        Map<String, Set<String>> pts = Maps.newMap();
+        for (Var var : result.getVars()) {
+            if (var.getMethod().isApplication()) {
+                pts.put(var.getMethod() + "/" + var.getName(),
+                        result.getPointsToSet(var)
+                                .stream()
+                                .map(Object::toString)
+                                .collect(Collectors.toSet()));
+            }
+        }
+        return pts;
+    }
+
+    /**
+     * The nodes allocated in LinkedQueue are summarized by one object,
+     * thus the facts enqueued to different queues are merged.
+     */
+    @Test
+    void testContainerSummary() {
+        Tests.testPTA(false, DIR, "LinkedQueue", "cs:2-obj",
+                "heap-model:container-summary",
+                "container-summary-rules:[LinkedQueue=type]");
+        PointerAnalysisResult result = World.get().getResult(PointerAnalysis.ID);
+        // Fact result = q1.dequeue();
+        Invoke dequeue = World.get().getMainMethod().getIR()
+                .invokes(false)
+                .filter(invoke -> invoke.getMethodRef().getName().equals("dequeue"))
+                .findFirst()
+                .orElseThrow();
+        Var q1 = ((InvokeInstanceExp) dequeue.getInvokeExp()).getBase();
+        JField last = World.get().getClassHierarchy()
+                .getClass("LinkedQueue").getDeclaredField("last");
+        Set<Obj> nodes = result.getPointsToSet(q1, last);
+        assertEquals(1, nodes.size());
+        Obj node = nodes.iterator().next();
+        assertTrue(node instanceof MergedObj);
+        assertEquals("Node", node.getType().getName());
+        assertTrue(result.getObjects().contains(node));
+        assertEquals(2, result.getPointsToSet(dequeue.getLValue()).size());
+    }
+
 }
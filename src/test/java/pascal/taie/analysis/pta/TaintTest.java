@@ -22,17 +22,33 @@
 
 package pascal.taie.analysis.pta;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import pascal.taie.Main;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.plugin.taint.TaintAnalysis;
+import pascal.taie.analysis.pta.plugin.taint.TaintFlow;
 import pascal.taie.util.MultiStringsSource;
+import pascal.taie.util.collection.Maps;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TaintTest {
 
@@ -42,6 +58,10 @@ public class TaintTest {
 
     private static final String TAINT_CONFIG = TAINT_CONFIG_PREFIX + "taint-config.yml";
 
+    private static final String CALL_SOURCE = "  - { kind: call, method: \"<SourceSink: java.lang.String source*(*{0+})>\", index: result }\n";
+
+    private static final String MAIN = "<SimpleTaint: void main(java.lang.String[])>";
+
     @ParameterizedTest
     @MultiStringsSource({"ArrayTaint", TAINT_CONFIG})
     @MultiStringsSource({"CharArray", TAINT_CONFIG})
@@ -79,6 +99,28 @@ public class TaintTest {
         testInInteractiveMode(mainClass, opts);
     }
 
+    @ParameterizedTest
+    @MultiStringsSource({"ArrayTaint", TAINT_CONFIG})
+    @MultiStringsSource({"CharArray", TAINT_CONFIG})
+    @MultiStringsSource({"FieldTaint", TAINT_CONFIG})
+    @MultiStringsSource({"SimpleTaint", TAINT_CONFIG})
+    @MultiStringsSource({"ArgToResult", TAINT_CONFIG})
+    @MultiStringsSource({"BaseToResult", TAINT_CONFIG})
+    @MultiStringsSource({"StringAppend", TAINT_CONFIG})
+    @MultiStringsSource({"InterTaintTransfer", "cs:2-call", TAINT_CONFIG})
+    @MultiStringsSource({"BackPropagation", TAINT_CONFIG})
+    @MultiStringsSource({"ArrayFieldTransfer",
+            TAINT_CONFIG_PREFIX + "taint-config-array-field-transfer.yml"})
+    @MultiStringsSource({"TaintParam",
+            TAINT_CONFIG_PREFIX + "taint-config-param-source.yml"})
+    void testTaintLane(String mainClass, String... opts) {
+        String[] newOpts = new String[opts.length + 1];
+        System.arraycopy(opts, 0, newOpts, 0, opts.length);
+        newOpts[opts.length] = "taint-lane:true";
+        testInNonInteractiveMode(mainClass, newOpts);
+        testInInteractiveMode(mainClass, newOpts);
+    }
+
     private void testInNonInteractiveMode(String mainClass, String... opts) {
         Tests.testPTA(DIR, mainClass, opts);
     }
@@ -97,6 +139,299 @@ public class TaintTest {
         }
     }
 
+    @Test
+    void testOnFlySinks() {
+        Tests.testPTA(DIR, "SimpleTaint", TAINT_CONFIG, "taint-onfly-sinks:true");
+        PointerAnalysisResult result = World.get().getResult(PointerAnalysis.ID);
+        Set<TaintFlow> taintFlows = result.getResult(TaintAnalysis.class.getName());
+        List<TaintFlow> onTheFlyFlows = result.getResult(TaintAnalysis.ON_THE_FLY_FLOWS);
+        // all sinks of SimpleTaint are checked on the fly
+        assertEquals(6, onTheFlyFlows.size());
+        assertEquals(taintFlows, Set.copyOf(onTheFlyFlows));
+    }
+
+    @Test
+    void testStopAfterMaxFlows() {
+        Tests.testPTA(false, DIR, "SimpleTaint", TAINT_CONFIG, "taint-max-flows:1");
+        PointerAnalysisResult result = World.get().getResult(PointerAnalysis.ID);
+        Set<TaintFlow> taintFlows = result.getResult(TaintAnalysis.class.getName());
+        List<TaintFlow> onTheFlyFlows = result.getResult(TaintAnalysis.ON_THE_FLY_FLOWS);
+        // the solver stops right after the first flow is detected,
+        // before all 6 flows of SimpleTaint are found
+        assertEquals(1, onTheFlyFlows.size());
+        assertTrue(taintFlows.contains(onTheFlyFlows.get(0)));
+        assertTrue(taintFlows.size() < 6, taintFlows.toString());
+    }
+
+    @Test
+    void testResumeAfterStop() throws IOException {
+        String config = Files.readString(
+                Path.of("src/test/resources/pta/taint/taint-config.yml"));
+        // the first run stops after a flow from the field sources is
+        // detected, and the re-run with call sources must finish the solve
+        testConfigChange("SimpleTaint", config.replace(CALL_SOURCE, ""), config,
+                "taint-max-flows:1");
+    }
+
+    @Test
+    void testSinkChangeInInteractiveMode() throws IOException {
+        String config = Files.readString(
+                Path.of("src/test/resources/pta/taint/taint-config.yml"));
+        String sink = "  - { method: \"<SourceSink: void sink(java.lang.String,int)>\", index: 0 }\n";
+        // add a sink after the first run
+        testConfigChange("SimpleTaint", config.replace(sink, ""), config,
+                "taint-onfly-sinks:true");
+        assertOnTheFlyFlowsComplete();
+        // remove a sink after the first run
+        testConfigChange(false, "SimpleTaint", config, config.replace(sink, ""),
+                "taint-onfly-sinks:true");
+        assertOnTheFlyFlowsComplete();
+    }
+
+    /**
+     * Asserts that the taint flows detected on the fly are exactly
+     * the taint flows of the final run.
+     */
+    private static void assertOnTheFlyFlowsComplete() {
+        PointerAnalysisResult result = World.get().getResult(PointerAnalysis.ID);
+        Set<TaintFlow> taintFlows = result.getResult(TaintAnalysis.class.getName());
+        List<TaintFlow> onTheFlyFlows = result.getResult(TaintAnalysis.ON_THE_FLY_FLOWS);
+        assertEquals(taintFlows, Set.copyOf(onTheFlyFlows));
+        assertEquals(taintFlows.size(), onTheFlyFlows.size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"jsonl", "sarif"})
+    void testTaintReport(String format) throws IOException {
+        Tests.testPTA(DIR, "SimpleTaint", TAINT_CONFIG,
+                "taint-report:" + format, "taint-report-paths:2");
+        Path report = Path.of("output", "taint-flows." + format);
+        String content = Files.readString(report);
+        // SimpleTaint-pta-expected.txt contains 6 taint flows
+        if (format.equals("jsonl")) {
+            assertEquals(6, Files.readAllLines(report).size());
+        } else {
+            assertTrue(content.startsWith("{\"version\":\"2.1.0\""));
+            assertEquals(6, content.split("\"ruleId\"").length - 1);
+            assertEquals(6, content.split("\"codeFlows\"").length - 1);
+            assertTrue(content.contains("{\"location\":{\"physicalLocation\":"
+                    + "{\"artifactLocation\":{\"uri\":\"SimpleTaint.java\"}},"
+                    + "\"logicalLocations\":[{\"fullyQualifiedName\":"
+                    + "\"<SimpleTaint: void main(java.lang.String[])>\","
+                    + "\"kind\":\"function\"}],\"message\":{\"text\":"
+                    + "\"[]:<SimpleTaint: void main(java.lang.String[])>/s1\"}}}"));
+        }
+    }
+
+    /**
+     * Checks the witness paths of the reported taint flows, which are
+     * reported either after pointer analysis or on the fly.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"taint-onfly-sinks:false", "taint-onfly-sinks:true"})
+    void testTaintReportPaths(String onFlyOpt) throws IOException {
+        Tests.testPTA(DIR, "SimpleTaint", TAINT_CONFIG, onFlyOpt,
+                "taint-report:jsonl", "taint-report-paths:2", "taint-dump-tfg:false");
+        // map from "<source line>-><sink line>" to witness paths of the flow
+        Map<String, List<List<String>>> paths = Maps.newMap();
+        ObjectMapper mapper = new ObjectMapper();
+        for (String line : Files.readAllLines(Path.of("output", "taint-flows.jsonl"))) {
+            JsonNode flow = mapper.readTree(line);
+            String key = flow.get("source").get("line").asInt()
+                    + "->" + flow.get("sink").get("line").asInt();
+            List<List<String>> flowPaths = new ArrayList<>();
+            flow.get("paths").forEach(path -> {
+                List<String> nodes = new ArrayList<>();
+                path.forEach(node -> {
+                    assertEquals(MAIN, node.get("method").asText());
+                    nodes.add(node.get("node").asText());
+                });
+                flowPaths.add(nodes);
+            });
+            assertTrue(paths.put(key, flowPaths) == null, "duplicate flow " + key);
+        }
+        assertEquals(Set.of("4->5", "4->11", "7->8", "7->11", "15->16", "21->22"),
+                paths.keySet());
+        assertEquals(List.of(List.of(var("temp$0"), var("s1"))), paths.get("4->5"));
+        assertEquals(List.of(List.of(var("temp$1"), var("s2"))), paths.get("7->8"));
+        assertEquals(List.of(List.of(var("s4"))), paths.get("15->16"));
+        assertEquals(List.of(List.of(var("s6"))), paths.get("21->22"));
+        // the paths to sink(s3, 0) pass through s1/s2 and the branches of s3
+        assertPath(paths.get("4->11"), var("temp$0"), var("s1"), var("s3"));
+        assertPath(paths.get("7->11"), var("temp$1"), var("s2"), var("s3"));
+    }
+
+    /**
+     * Checks that each run in interactive mode writes its own report,
+     * which contains all taint flows of the run.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"taint-onfly-sinks:false", "taint-onfly-sinks:true"})
+    void testTaintReportPerRun(String onFlyOpt) throws IOException {
+        Path report1 = Path.of("output", "taint-flows.jsonl");
+        Path report2 = Path.of("output", "taint-flows-2.jsonl");
+        Files.deleteIfExists(report2);
+        String config = Files.readString(
+                Path.of("src/test/resources/pta/taint/taint-config.yml"));
+        // the first run only has the flows from field sources
+        testConfigChange("SimpleTaint", config.replace(CALL_SOURCE, ""), config,
+                onFlyOpt, "taint-report:jsonl");
+        assertEquals(2, Files.readAllLines(report1).size());
+        List<String> lines2 = Files.readAllLines(report2);
+        assertEquals(6, lines2.size());
+        assertEquals(6, Set.copyOf(lines2).size());
+    }
+
+    /**
+     * @return string representation of given variable of SimpleTaint.main()
+     * in the empty context.
+     */
+    private static String var(String name) {
+        return "[]:" + MAIN + "/" + name;
+    }
+
+    /**
+     * Asserts that {@code paths} contains exactly one path which starts
+     * with {@code first}, ends with {@code last} and passes {@code middle}.
+     */
+    private static void assertPath(List<List<String>> paths,
+                                   String first, String middle, String last) {
+        assertEquals(1, paths.size());
+        List<String> path = paths.get(0);
+        assertEquals(first, path.get(0));
+        assertEquals(last, path.get(path.size() - 1));
+        assertTrue(path.contains(middle), path.toString());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"taint-lane:false", "taint-lane:true"})
+    void testConfigChangeInInteractiveMode(String laneOpt) throws IOException {
+        String config = Files.readString(
+                Path.of("src/test/resources/pta/taint/taint-config.yml"));
+        String extraSource = "  - { kind: call, method: \"<SourceSink: void sink(java.lang.String)>\", index: 0 }\n";
+        // add a source after the first run
+        testConfigChange("SimpleTaint", config.replace(CALL_SOURCE, ""), config, laneOpt);
+        // remove a source after the first run
+        testConfigChange("SimpleTaint", config.replace(
+                "sources:\n", "sources:\n" + extraSource), config, laneOpt);
+    }
+
+    /**
+     * Taint configuration for {@code TaintBase}, which transfers taints
+     * via field {@code Box.value}.
+     */
+    private static final String TAINT_BASE_CONFIG = "sources:\n" +
+            "  - { kind: call, method: \"<SourceSink: java.lang.String source()>\", index: result }\n" +
+            "sinks:\n" +
+            "  - { method: \"<SourceSink: void sink(java.lang.String)>\", index: 0 }\n" +
+            "transfers:\n" +
+            "  - { method: \"<Box: void set(java.lang.String)>\", from: 0, to: base.value }\n" +
+            "  - { method: \"<Box: java.lang.String get()>\", from: base.value, to: result }\n";
+
+    /**
+     * {@link #TAINT_BASE_CONFIG} with an additional source whose taint
+     * objects are the receivers of {@code Box.set()/get()} and the bases
+     * of the transferred field {@code Box.value}.
+     */
+    private static final String TAINT_BASE_CONFIG_WITH_BOX_SOURCE =
+            TAINT_BASE_CONFIG.replace("sources:\n", "sources:\n" +
+                    "  - { kind: call, method: \"<Box: Box source()>\", index: result }\n");
+
+    @ParameterizedTest
+    @ValueSource(strings = {"taint-lane:false", "taint-lane:true"})
+    void testRemoveSourceOfTaintBase(String laneOpt) throws IOException {
+        Set<String> expected = runWithConfig("TaintBase", TAINT_BASE_CONFIG, laneOpt);
+        assertEquals(1, expected.size(), expected.toString());
+        testConfigChange(false, "TaintBase",
+                TAINT_BASE_CONFIG_WITH_BOX_SOURCE, TAINT_BASE_CONFIG, laneOpt);
+        assertEquals(expected, getTaintFlows());
+    }
+
+    /**
+     * Taint lane does not let taint objects act as receiver objects or
+     * base objects, so it misses the flow through the field of the taint
+     * object in {@code TaintBase}, and reports the other flow as usual.
+     */
+    @Test
+    void testTaintLaneWithTaintBase() throws IOException {
+        Set<String> flows = runWithConfig("TaintBase",
+                TAINT_BASE_CONFIG_WITH_BOX_SOURCE, "taint-lane:false");
+        assertEquals(2, flows.size(), flows.toString());
+        Set<String> laneFlows = runWithConfig("TaintBase",
+                TAINT_BASE_CONFIG_WITH_BOX_SOURCE, "taint-lane:true");
+        assertEquals(1, laneFlows.size(), laneFlows.toString());
+        assertTrue(flows.containsAll(laneFlows));
+    }
+
+    /**
+     * Runs taint analysis with given configuration without comparing
+     * the results, and returns the taint flows.
+     */
+    private static Set<String> runWithConfig(String mainClass, String config,
+                                             String... opts) throws IOException {
+        Path configFile = Files.createTempFile("taint-config", ".yml");
+        try {
+            Files.writeString(configFile, config);
+            String[] newOpts = new String[opts.length + 1];
+            System.arraycopy(opts, 0, newOpts, 0, opts.length);
+            newOpts[opts.length] = "taint-config:" + configFile;
+            Tests.testPTA(false, DIR, mainClass, newOpts);
+        } finally {
+            Files.deleteIfExists(configFile);
+        }
+        return getTaintFlows();
+    }
+
+    private static Set<String> getTaintFlows() {
+        PointerAnalysisResult result = World.get().getResult(PointerAnalysis.ID);
+        Set<TaintFlow> taintFlows = result.getResult(TaintAnalysis.class.getName());
+        return taintFlows.stream()
+                .map(TaintFlow::toString)
+                .collect(Collectors.toSet());
+    }
+
+    private void testConfigChange(String mainClass, String oldConfig,
+                                  String newConfig, String... opts) throws IOException {
+        testConfigChange(true, mainClass, oldConfig, newConfig, opts);
+    }
+
+    /**
+     * Runs taint analysis in interactive mode with {@code oldConfig},
+     * then changes the configuration to {@code newConfig} and re-runs it.
+     * If {@code processResult} is true, the final taint flows are compared
+     * with the expected results of {@code newConfig}.
+     */
+    private void testConfigChange(boolean processResult, String mainClass,
+                                  String oldConfig, String newConfig,
+                                  String... opts) throws IOException {
+        Path configFile = Files.createTempFile("taint-config", ".yml");
+        InputStream originalSystemIn = System.in;
+        try {
+            Files.writeString(configFile, oldConfig);
+            System.setIn(new InputStream() {
+                private final byte[] input = "r\ne\n".getBytes();
+
+                private int i = 0;
+
+                @Override
+                public int read() throws IOException {
+                    if (i == 0) { // modify configuration before re-running
+                        Files.writeString(configFile, newConfig);
+                    }
+                    return i < input.length ? input[i++] : -1;
+                }
+            });
+            String[] newOpts = new String[opts.length + 2];
+            System.arraycopy(opts, 0, newOpts, 0, opts.length);
+            newOpts[opts.length] = "taint-config:" + configFile;
+            newOpts[opts.length + 1] = "taint-interactive-mode:true";
+            Tests.testPTA(processResult, DIR, mainClass, newOpts);
+        } finally {
+            System.setIn(originalSystemIn);
+            Files.deleteIfExists(configFile);
+        }
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {
             "SimpleTaint",
@@ -25,6 +25,7 @@ package pascal.taie.analysis.pta.core.cs.context;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class ContextTest {
 
@@ -45,6 +46,32 @@ public class ContextTest {
         assertEquals(cde.getParent(), cd);
     }
 
+    @Test
+    void testIntContext() {
+        testContext(new IntContext.Factory<>());
+    }
+
+    @Test
+    void testIntContext2() {
+        IntContext.Factory<String> factory = new IntContext.Factory<>();
+        assertEquals(0, factory.getEmptyContext().getId());
+        IntContext abc = factory.make("A", "B", "C");
+        assertEquals(3, abc.getLength());
+        assertEquals("B", abc.getElementAt(1));
+        assertEquals("[A, B, C]", abc.toString());
+        IntContext bcd = factory.append(abc, "D", 3);
+        assertEquals("[B, C, D]", bcd.toString());
+        assertSame(factory.make("B", "C", "D"), bcd);
+        // produce enough contexts to grow the table
+        for (int i = 0; i < 1000; ++i) {
+            factory.append(bcd, Integer.toString(i), 4);
+        }
+        assertEquals(bcd, factory.make("B", "C", "D"));
+        assertEquals(factory.make("C", "D", "999"),
+                factory.append(bcd, "999", 3));
+        assertEquals(1010, factory.getSize());
+    }
+
     private static void testContext(ContextFactory<String> factory) {
         Context a = factory.make("A");
         Context empty1 = factory.getEmptyContext();
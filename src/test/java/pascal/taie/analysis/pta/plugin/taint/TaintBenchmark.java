@@ -0,0 +1,247 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.Main;
+import pascal.taie.analysis.CSVBenchmark;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.core.solver.Solver;
+import picocli.CommandLine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Measures the scalability of taint analysis on synthetic programs.
+ * <p>
+ * For each combination of program size and configuration size, this
+ * runner generates a program consisting of independent taint chains
+ * (source call, taint transfer, field store/load, a series of method
+ * calls, optional sanitizer and sink call) and a taint configuration
+ * with the given number of sources, sinks, transfers and sanitizers.
+ * It then runs pointer analysis with taint analysis on the program,
+ * and writes the following metrics as a CSV line:
+ * <ul>
+ *     <li>solving time of pointer analysis (with taint analysis);</li>
+ *     <li>time of building taint flow graph by {@link TFGBuilder};</li>
+ *     <li>time of taint post-processing (collecting taint flows,
+ *     building and dumping taint flow graph);</li>
+ *     <li>peak heap usage;</li>
+ *     <li>number of detected and expected taint flows.</li>
+ * </ul>
+ * Example: {@code TaintBenchmark -sizes 100,1000,10000 -configs 10,1000}
+ */
+@CommandLine.Command
+public class TaintBenchmark extends CSVBenchmark {
+
+    private static final String MAIN_CLASS = "TaintBench";
+
+    private static final String CSV_HEADER = "chains,config-size,depth,"
+            + "solve-time(ms),tfg-time(ms),post-time(ms),peak-heap(MB),"
+            + "flows,expected-flows";
+
+    @CommandLine.Option(names = "-sizes", split = ",", defaultValue = "100,1000,10000",
+            description = "numbers of taint chains in generated programs")
+    private List<Integer> sizes;
+
+    @CommandLine.Option(names = "-configs", split = ",", defaultValue = "10,100,1000",
+            description = "numbers of sources/sinks/transfers/sanitizers in taint configs")
+    private List<Integer> configSizes;
+
+    @CommandLine.Option(names = "-depth", defaultValue = "4",
+            description = "number of method calls in each taint chain")
+    private int depth;
+
+    @CommandLine.Option(names = "-pta", defaultValue = "",
+            description = "additional options of pointer analysis, e.g., cs:1-obj")
+    private String ptaOptions;
+
+    public TaintBenchmark() {
+        super("taint-benchmark", CSV_HEADER);
+    }
+
+    public static void main(String[] args) {
+        run(new TaintBenchmark(), args);
+    }
+
+    @Override
+    protected void measureAll(Consumer<String> results) throws IOException {
+        for (int size : sizes) {
+            for (int configSize : configSizes) {
+                results.accept(run(size, configSize));
+            }
+        }
+    }
+
+    private String run(int size, int configSize) throws IOException {
+        Path programDir = writeProgram(size + "-" + configSize, MAIN_CLASS,
+                generateProgram(size, configSize, depth));
+        Path config = programDir.resolve("taint-config.yml");
+        Files.writeString(config, generateConfig(configSize));
+        String ptaArgs = "implicit-entries:false;only-app:true;"
+                + "taint-config:" + config + ";"
+                + "plugins:[" + Probe.class.getName() + "]"
+                + (ptaOptions.isEmpty() ? "" : ";" + ptaOptions);
+        long peakHeap = measurePeakHeap(() -> Main.main(
+                "-pp", "-cp", programDir.toString(),
+                "-m", MAIN_CLASS, "-a", "pta=" + ptaArgs));
+        return toCSVLine(size, configSize, depth, Probe.getSolveTime(),
+                Probe.tfgTime, Probe.postTime, peakHeap,
+                Probe.flows, getExpectedFlows(size));
+    }
+
+    /**
+     * Every fourth chain is sanitized, and the others are taint flows.
+     */
+    private static int getExpectedFlows(int size) {
+        return size - size / 4;
+    }
+
+    private static String generateProgram(int size, int configSize, int depth) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("class ").append(MAIN_CLASS).append(" {\n\n");
+        sb.append("    public static void main(String[] args) {\n");
+        for (int i = 0; i < size; ++i) {
+            sb.append("        chain").append(i).append("();\n");
+        }
+        sb.append("    }\n");
+        for (int i = 0; i < size; ++i) {
+            int k = i % configSize;
+            sb.append("\n    static void chain").append(i).append("() {\n")
+                    .append("        String s = Sources.source").append(k).append("();\n")
+                    .append("        String t = Transfers.transfer").append(k).append("(s);\n")
+                    .append("        Box b = new Box();\n")
+                    .append("        b.f = t;\n")
+                    .append("        String u = step").append(i).append("_0(b.f);\n");
+            if (i % 4 == 3) {
+                sb.append("        u = Sanitizers.sanitize").append(k).append("(u);\n");
+            }
+            sb.append("        Sinks.sink").append(k).append("(u);\n")
+                    .append("    }\n");
+            for (int d = 0; d < depth; ++d) {
+                sb.append("\n    static String step").append(i).append('_').append(d)
+                        .append("(String x) {\n        return ");
+                if (d + 1 < depth) {
+                    sb.append("step").append(i).append('_').append(d + 1).append("(x);\n");
+                } else {
+                    sb.append("x;\n");
+                }
+                sb.append("    }\n");
+            }
+            if (depth == 0) {
+                sb.append("\n    static String step").append(i)
+                        .append("_0(String x) {\n        return x;\n    }\n");
+            }
+        }
+        sb.append("}\n\nclass Box {\n    String f;\n}\n");
+        appendConfigClass(sb, "Sources", configSize, "String source%d() {\n        return new String();\n    }");
+        appendConfigClass(sb, "Transfers", configSize, "String transfer%d(String s) {\n        return new String();\n    }");
+        appendConfigClass(sb, "Sanitizers", configSize, "String sanitize%d(String s) {\n        return s;\n    }");
+        appendConfigClass(sb, "Sinks", configSize, "void sink%d(String s) {\n    }");
+        return sb.toString();
+    }
+
+    private static void appendConfigClass(StringBuilder sb, String className,
+                                          int configSize, String methodFormat) {
+        sb.append("\nclass ").append(className).append(" {\n");
+        for (int k = 0; k < configSize; ++k) {
+            sb.append("\n    static ").append(String.format(methodFormat, k)).append('\n');
+        }
+        sb.append("}\n");
+    }
+
+    private static String generateConfig(int configSize) {
+        StringBuilder sb = new StringBuilder("sources:\n");
+        for (int k = 0; k < configSize; ++k) {
+            sb.append("  - { kind: call, method: \"<Sources: java.lang.String source")
+                    .append(k).append("()>\", index: result }\n");
+        }
+        sb.append("\nsinks:\n");
+        for (int k = 0; k < configSize; ++k) {
+            sb.append("  - { method: \"<Sinks: void sink")
+                    .append(k).append("(java.lang.String)>\", index: 0 }\n");
+        }
+        sb.append("\ntransfers:\n");
+        for (int k = 0; k < configSize; ++k) {
+            sb.append("  - { method: \"<Transfers: java.lang.String transfer")
+                    .append(k).append("(java.lang.String)>\", from: 0, to: result }\n");
+        }
+        sb.append("\nsanitizers:\n");
+        for (int k = 0; k < configSize; ++k) {
+            sb.append("  - { kind: param, method: \"<Sanitizers: java.lang.String sanitize")
+                    .append(k).append("(java.lang.String)>\", index: 0 }\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Plugin that records the metrics of pointer analysis and taint analysis.
+     * It is added after {@link TaintAnalysis}, thus its {@link #onFinish()}
+     * is called after taint flows have been collected and reported.
+     */
+    public static class Probe extends SolveTimer {
+
+        private static long tfgTime;
+
+        private static long postTime;
+
+        private static int flows;
+
+        private Solver solver;
+
+        private long phaseFinishTime;
+
+        @Override
+        public void setSolver(Solver solver) {
+            this.solver = solver;
+        }
+
+        @Override
+        public void onPhaseFinish() {
+            super.onPhaseFinish();
+            phaseFinishTime = System.currentTimeMillis();
+        }
+
+        @Override
+        public void onFinish() {
+            postTime = System.currentTimeMillis() - phaseFinishTime;
+            PointerAnalysisResult result = solver.getResult();
+            Set<TaintFlow> taintFlows = result.getResult(TaintAnalysis.class.getName());
+            flows = taintFlows.size();
+            // re-collect taint objects to measure TFGBuilder alone
+            TaintManager manager = new TaintManager(solver.getHeapModel());
+            for (Obj obj : result.getObjects()) {
+                if (manager.isTaint(obj)) {
+                    manager.makeTaint(manager.getSourcePoint(obj), obj.getType());
+                }
+            }
+            long tfgStart = System.currentTimeMillis();
+            new TFGBuilder(result, taintFlows, manager).build();
+            tfgTime = System.currentTimeMillis() - tfgStart;
+        }
+    }
+}
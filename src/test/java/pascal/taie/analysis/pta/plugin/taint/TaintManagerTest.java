@@ -0,0 +1,91 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.junit.jupiter.api.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.plugin.util.InvokeUtils;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.CharType;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TaintManagerTest {
+
+    @Test
+    void testConvertTaint() {
+        Tests.testPTA(false, "taint", "CharArray",
+                "taint-config:src/test/resources/pta/taint/taint-config.yml");
+        TaintManager manager = new TaintManager(
+                new AllocationSiteBasedModel(getHeapOptions()));
+        TypeSystem typeSystem = World.get().getTypeSystem();
+        Type string = typeSystem.getClassType("java.lang.String");
+        Type chars = typeSystem.getArrayType(CharType.CHAR, 1);
+        // s1 = SourceSink.source();
+        JMethod main = World.get().getClassHierarchy()
+                .getClass("CharArray").getDeclaredMethod("main");
+        Invoke sourceCall = main.getIR().invokes(false).findFirst().orElseThrow();
+        IndexRef result = new IndexRef(IndexRef.Kind.VAR, InvokeUtils.RESULT, null);
+        CallSource source = new CallSource(
+                sourceCall.getMethodRef().resolve(), result, string);
+        SourcePoint sourcePoint = new CallSourcePoint(sourceCall, result, source);
+
+        Obj taint = manager.makeTaint(sourcePoint, string);
+        Obj converted = manager.convertTaint(taint, chars);
+        assertSame(converted, manager.convertTaint(taint, chars));
+        assertEquals(chars, converted.getType());
+        assertEquals(2, manager.getConversions());
+        assertEquals(1, manager.getConversionHits());
+
+        // the memo must not resurrect converted taints after removal
+        assertEquals(Set.of(taint, converted), manager.removeTaints(Set.of(source)));
+        assertTrue(manager.getTaintObjs().isEmpty());
+        taint = manager.makeTaint(sourcePoint, string);
+        converted = manager.convertTaint(taint, chars);
+        assertEquals(Set.of(taint, converted), manager.getTaintObjs());
+        assertEquals(3, manager.getConversions());
+        assertEquals(1, manager.getConversionHits());
+    }
+
+    private static AnalysisOptions getHeapOptions() {
+        Map<String, Object> values = Maps.newMap();
+        values.put("distinguish-string-constants", null);
+        values.put("merge-string-objects", false);
+        values.put("merge-string-builders", false);
+        values.put("merge-exception-objects", false);
+        return new AnalysisOptions(values);
+    }
+}
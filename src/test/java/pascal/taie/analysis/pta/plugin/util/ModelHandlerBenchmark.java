@@ -0,0 +1,154 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.util;
+
+import pascal.taie.Main;
+import pascal.taie.analysis.CSVBenchmark;
+import picocli.CommandLine;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Measures the cost of calling invoke handlers of {@link AnalysisModelPlugin}
+ * in pointer analysis.
+ * <p>
+ * For each program size, this runner generates a reflection-heavy program
+ * (each target class is loaded, instantiated and accessed via reflection
+ * APIs, both directly and through a shared helper method) and runs pointer
+ * analysis with reflection inference on it, so that the reflection models
+ * (which are {@link AnalysisModelPlugin}s) are triggered frequently.
+ * Pointer analysis is run with both reflective and compiled dispatch of
+ * handlers (option {@code model-handler-dispatch}), and this runner
+ * writes the following metrics as a CSV line:
+ * <ul>
+ *     <li>the minimum solving time of the repeated runs with
+ *     reflective dispatch;</li>
+ *     <li>the minimum solving time of the repeated runs with
+ *     compiled dispatch;</li>
+ *     <li>the speedup of compiled dispatch.</li>
+ * </ul>
+ * Example: {@code ModelHandlerBenchmark -sizes 100,1000 -repeat 3}
+ */
+@CommandLine.Command
+public class ModelHandlerBenchmark extends CSVBenchmark {
+
+    private static final String MAIN_CLASS = "ReflectionBench";
+
+    private static final String CSV_HEADER = "classes,reflective(ms),"
+            + "compiled(ms),speedup";
+
+    @CommandLine.Option(names = "-sizes", split = ",", defaultValue = "100,1000",
+            description = "numbers of reflectively-accessed classes in generated programs")
+    private List<Integer> sizes;
+
+    @CommandLine.Option(names = "-repeat", defaultValue = "3",
+            description = "number of runs for each dispatch")
+    private int repeat;
+
+    @CommandLine.Option(names = "-pta", defaultValue = "reflection-inference:solar",
+            description = "additional options of pointer analysis")
+    private String ptaOptions;
+
+    public ModelHandlerBenchmark() {
+        super("model-handler-benchmark", CSV_HEADER);
+    }
+
+    public static void main(String[] args) {
+        run(new ModelHandlerBenchmark(), args);
+    }
+
+    @Override
+    protected void measureAll(Consumer<String> results) throws IOException {
+        for (int size : sizes) {
+            Path programDir = writeProgram(Integer.toString(size),
+                    MAIN_CLASS, generateProgram(size));
+            // warm up the JIT for both dispatches
+            solve(programDir, "reflective");
+            solve(programDir, "compiled");
+            long reflective = Long.MAX_VALUE;
+            long compiled = Long.MAX_VALUE;
+            for (int i = 0; i < repeat; ++i) {
+                reflective = Math.min(reflective, solve(programDir, "reflective"));
+                compiled = Math.min(compiled, solve(programDir, "compiled"));
+            }
+            results.accept(toCSVLine(size, reflective, compiled,
+                    String.format("%.2f", reflective / (double) Math.max(compiled, 1))));
+        }
+    }
+
+    /**
+     * Runs pointer analysis on the program with given dispatch of handlers.
+     *
+     * @return the solving time (in ms).
+     */
+    private long solve(Path programDir, String dispatch) {
+        String ptaArgs = "implicit-entries:false;only-app:true;"
+                + "model-handler-dispatch:" + dispatch + ";"
+                + "plugins:[" + SolveTimer.class.getName() + "]"
+                + (ptaOptions.isEmpty() ? "" : ";" + ptaOptions);
+        Main.main("-pp", "-cp", programDir.toString(),
+                "-m", MAIN_CLASS, "-a", "pta=" + ptaArgs);
+        return SolveTimer.getSolveTime();
+    }
+
+    private static String generateProgram(int size) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("import java.lang.reflect.Field;\n")
+                .append("import java.lang.reflect.Method;\n\n")
+                .append("class ").append(MAIN_CLASS).append(" {\n\n")
+                .append("    public static void main(String[] args) throws Exception {\n");
+        for (int i = 0; i < size; ++i) {
+            sb.append("        direct").append(i).append("();\n")
+                    .append("        call(\"Target").append(i).append("\", \"m\");\n");
+        }
+        sb.append("    }\n");
+        for (int i = 0; i < size; ++i) {
+            sb.append("\n    static void direct").append(i).append("() throws Exception {\n")
+                    .append("        Class<?> c = Class.forName(\"Target").append(i).append("\");\n")
+                    .append("        Object o = c.newInstance();\n")
+                    .append("        Method m = c.getMethod(\"m\");\n")
+                    .append("        Object r = m.invoke(o, new Object[0]);\n")
+                    .append("        Field f = c.getField(\"f\");\n")
+                    .append("        f.set(o, r);\n")
+                    .append("        Object v = f.get(o);\n")
+                    .append("    }\n");
+        }
+        sb.append("\n    static Object call(String cName, String mName) throws Exception {\n")
+                .append("        Class<?> c = Class.forName(cName);\n")
+                .append("        Object o = c.newInstance();\n")
+                .append("        Method m = c.getMethod(mName);\n")
+                .append("        return m.invoke(o, new Object[0]);\n")
+                .append("    }\n}\n");
+        for (int i = 0; i < size; ++i) {
+            sb.append("\nclass Target").append(i).append(" {\n\n")
+                    .append("    public Object f;\n\n")
+                    .append("    public Object m() {\n")
+                    .append("        return new Object();\n")
+                    .append("    }\n}\n");
+        }
+        return sb.toString();
+    }
+}
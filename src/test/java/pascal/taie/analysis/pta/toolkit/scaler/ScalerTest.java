@@ -0,0 +1,70 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.toolkit.scaler;
+
+import org.junit.jupiter.api.Test;
+import pascal.taie.analysis.Tests;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ScalerTest {
+
+    @Test
+    void testStepFunction() {
+        Random random = new Random(0);
+        int n = 1000;
+        long initial = 42;
+        long[] points = new long[n];
+        long[] deltas = new long[n];
+        for (int i = 0; i < n; ++i) {
+            points[i] = random.nextInt(500); // produce duplicate points
+            deltas[i] = random.nextInt(200) - 100;
+        }
+        Scaler.StepFunction f = Scaler.StepFunction.of(initial, points, deltas);
+        for (long x = -10; x < 520; ++x) {
+            long expected = initial;
+            for (int i = 0; i < n; ++i) {
+                if (points[i] <= x) {
+                    expected += deltas[i];
+                }
+            }
+            assertEquals(expected, f.valueAt(x), "value at " + x);
+        }
+    }
+
+    @Test
+    void testEmptyStepFunction() {
+        Scaler.StepFunction f = Scaler.StepFunction.of(
+                7, new long[0], new long[0]);
+        assertEquals(7, f.valueAt(Long.MIN_VALUE));
+        assertEquals(7, f.valueAt(Long.MAX_VALUE));
+    }
+
+    @Test
+    void testScaler() {
+        Tests.testPTA(false, "contextsensitivity", "TwoObject", "advanced:scaler");
+        Tests.testPTA(false, "contextsensitivity", "TwoObject", "advanced:scaler=100");
+    }
+}
@@ -28,6 +28,7 @@ import org.junit.jupiter.params.provider.ValueSource;
 import pascal.taie.World;
 import pascal.taie.analysis.Tests;
 import pascal.taie.analysis.graph.flowgraph.FlowGraphDumper;
+import pascal.taie.analysis.graph.flowgraph.Node;
 import pascal.taie.analysis.graph.flowgraph.ObjectFlowGraph;
 import pascal.taie.analysis.pta.PointerAnalysis;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
@@ -37,6 +38,9 @@ import pascal.taie.util.graph.DotDumper;
 
 import java.io.File;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 public class ZipperTest {
 
     private static final String CS = "contextsensitivity";
@@ -79,6 +83,28 @@ public class ZipperTest {
         FlowGraphDumper.dump(ofg, output);
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "StoreLoad",
+            "CallParamRet",
+    })
+    void testIndexedOFG(String mainClass) {
+        Tests.testPTA(false, BASIC, mainClass);
+        PointerAnalysisResult pta = World.get().getResult(PointerAnalysis.ID);
+        ObjectFlowGraph ofg = pta.getObjectFlowGraph();
+        IndexedObjectFlowGraph iofg = new IndexedObjectFlowGraph(ofg);
+        assertEquals(ofg.getNodes().size(), iofg.getNumberOfNodes());
+        for (Node node : ofg.getNodes()) {
+            int i = node.getIndex();
+            assertEquals(ofg.getOutDegreeOf(node), iofg.outEnd(i) - iofg.outStart(i));
+            assertEquals(ofg.getInDegreeOf(node), iofg.inEnd(i) - iofg.inStart(i));
+            for (int pos = iofg.outStart(i); pos < iofg.outEnd(i); ++pos) {
+                assertTrue(ofg.getSuccsOf(node).contains(
+                        iofg.getNode(iofg.outTarget(pos))));
+            }
+        }
+    }
+
     @Test
     void testPFGBuilder() {
         Tests.testPTA(false, MISC, "Zipper", "advanced:zipper");
@@ -92,6 +92,14 @@ public class OptionsTest {
         assertEquals(Set.of("pta", "def-use"), options.getKeepResult());
     }
 
+    @Test
+    void testParallelAnalyses() {
+        Options options = Options.parse();
+        assertFalse(options.isParallelAnalyses());
+        options = Options.parse("--parallel-analyses");
+        assertTrue(options.isParallelAnalyses());
+    }
+
     @Test
     void testClasspath() {
         Options options = Options.parse(
@@ -27,6 +27,8 @@ import org.junit.jupiter.api.Test;
 import pascal.taie.Main;
 import pascal.taie.World;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -144,6 +146,23 @@ public class SignatureMatcherTest {
                 matcher.getMethods("<com.example.XFather: void multi(java.lang.String,int{2+})>"));
     }
 
+    @Test
+    void testGetMethodsInBatch() {
+        List<String> patterns = List.of(
+                "<com.example.X: void foo(*{1+})>",
+                "<com.example.XFather: void foo(java.lang.String,*{0+})>",
+                "<com.example.X*: void foo(int)>",
+                "<com.example.XFather^: void foo(java.lang.String)>",
+                "<com.example.Y: void fun(com.example.XFather^{1+})>",
+                "<com.example.XFather: void multi(java.lang.String,int{2+})>",
+                "<com.example.XFather: void foo(int)>",
+                "<*: * foo(*{0+})>");
+        Map<String, Set<JMethod>> result =
+                new SignatureMatcher(hierarchy).getMethods(patterns);
+        assertEquals(patterns.size(), result.size());
+        patterns.forEach(p -> assertEquals(matcher.getMethods(p), result.get(p)));
+    }
+
     @Test
     void testGetFields() {
         JField x_XFather = hierarchy.getField("<com.example.X: com.example.XFather xFatherField>");
@@ -0,0 +1,65 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResultHolderTest {
+
+    @Test
+    void testGetKeys() {
+        ResultHolder holder = new AbstractResultHolder() {};
+        holder.storeResult("a", 1);
+        Collection<String> keys = holder.getKeys();
+        holder.storeResult("b", 2);
+        // the keys are a snapshot which is not affected by later changes
+        assertEquals(List.of("a"), List.copyOf(keys));
+        assertEquals(2, holder.getKeys().size());
+    }
+
+    @Test
+    void testGetResultWithSupplier() {
+        ResultHolder holder = new AbstractResultHolder() {};
+        String result = holder.getResult("a", () -> {
+            // the supplier runs without holding the lock of the holder,
+            // thus other threads can access the holder meanwhile
+            CompletableFuture<Void> other = CompletableFuture.runAsync(
+                    () -> holder.storeResult("a", "other"));
+            other.orTimeout(10, TimeUnit.SECONDS).join();
+            return "supplied";
+        });
+        // the result stored first is kept
+        assertEquals("other", result);
+        assertEquals("other", holder.getResult("a"));
+        assertEquals("other", holder.getResult("a", () -> "unused"));
+        assertTrue(holder.hasResult("a"));
+    }
+}
@@ -32,6 +32,7 @@ import pascal.taie.util.graph.GraphTest;
         CollectionTestSuite.class,
         GraphTest.class,
         IndexerTest.class,
+        ResultHolderTest.class,
 })
 public class UtilTestSuite {
 }
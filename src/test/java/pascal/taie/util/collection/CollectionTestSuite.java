@@ -34,7 +34,9 @@ import org.junit.platform.suite.api.Suite;
         HybridHashSetTest.class,
         IndexMapTest.class,
         MultiMapTest.class,
+        PersistentIndexMapTest.class,
         RegularBitSetTest.class,
+        RoaringBitSetTest.class,
         SetQueueTest.class,
         SparseBitSetTest.class,
         StreamsTest.class,
@@ -0,0 +1,236 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import org.junit.jupiter.api.Test;
+import pascal.taie.util.Indexer;
+import pascal.taie.util.SerializationUtils;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PersistentIndexMapTest {
+
+    private static class IntIndexer implements
+            Indexer<Integer>, Serializable {
+
+        @Override
+        public int getIndex(Integer i) {
+            return i;
+        }
+
+        @Override
+        public Integer getObject(int index) {
+            return index;
+        }
+    }
+
+    private static final Indexer<Integer> indexer = new IntIndexer();
+
+    private static PersistentIndexMap<Integer, String> makeMap() {
+        PersistentIndexMap<Integer, String> m = new PersistentIndexMap<>(indexer);
+        m.put(1, "one");
+        m.put(3, "three");
+        m.put(4, "four");
+        return m;
+    }
+
+    @Test
+    void testGet() {
+        var m = makeMap();
+        assertEquals("one", m.get(1));
+        assertNull(m.get(2));
+        assertNull(m.get(100));
+        assertTrue(m.containsKey(3));
+        assertFalse(m.containsKey(100000));
+    }
+
+    @Test
+    void testPutLargeIndex() {
+        var m = makeMap();
+        m.put(1 << 20, "large");
+        m.put(Integer.MAX_VALUE, "max");
+        assertEquals(5, m.size());
+        assertEquals("large", m.get(1 << 20));
+        assertEquals("max", m.get(Integer.MAX_VALUE));
+        assertEquals("one", m.get(1));
+        m.remove(1 << 20);
+        m.remove(Integer.MAX_VALUE);
+        assertEquals(makeMap(), m);
+    }
+
+    @Test
+    void testRemove() {
+        var m = makeMap();
+        assertNull(m.remove(2));
+        assertEquals(3, m.size());
+        assertEquals("one", m.remove(1));
+        assertEquals(2, m.size());
+        m.remove(3);
+        m.remove(4);
+        assertTrue(m.isEmpty());
+    }
+
+    @Test
+    void testCopy() {
+        var m1 = makeMap();
+        var m2 = m1.copy();
+        assertEquals(m1, m2);
+        m2.put(1, "ONE");
+        m2.put(64, "sixty-four");
+        m2.remove(3);
+        assertEquals("one", m1.get(1));
+        assertEquals("three", m1.get(3));
+        assertNull(m1.get(64));
+        assertEquals(3, m1.size());
+        assertEquals("ONE", m2.get(1));
+        assertEquals(3, m2.size());
+        assertNotEquals(m1, m2);
+        m2.put(1, "one");
+        m2.put(3, "three");
+        m2.remove(64);
+        assertEquals(m1, m2);
+        assertEquals(m1.hashCode(), m2.hashCode());
+    }
+
+    @Test
+    void testCopyFrom() {
+        var m1 = makeMap();
+        var m2 = new PersistentIndexMap<Integer, String>(indexer);
+        assertTrue(m2.copyFrom(m1));
+        assertEquals(m1, m2);
+        assertFalse(m2.copyFrom(m1));
+        assertFalse(m2.copyFrom(new PersistentIndexMap<>(indexer)));
+        // keep the mappings absent in the copied map
+        m2.put(2, "two");
+        m2.put(1 << 20, "large");
+        m1.put(1, "ONE");
+        m1.put(100, "hundred");
+        assertTrue(m2.copyFrom(m1));
+        assertEquals(6, m2.size());
+        assertEquals("{1=ONE, 2=two, 3=three, 4=four, 100=hundred, 1048576=large}",
+                m2.toString());
+        assertEquals(4, m1.size());
+        assertFalse(m2.copyFrom(m1));
+        // copy to the map of lower trie
+        var m3 = makeMap();
+        assertTrue(m3.copyFrom(m2));
+        assertEquals(m2, m3);
+        assertEquals(m2.hashCode(), m3.hashCode());
+    }
+
+    @Test
+    void testCopyFromRandom() {
+        Random random = new Random(0);
+        for (int i = 0; i < 100; ++i) {
+            var m1 = new PersistentIndexMap<Integer, String>(indexer);
+            var m2 = new PersistentIndexMap<Integer, String>(indexer);
+            Map<Integer, String> expected = new TreeMap<>();
+            int bound = 1 << random.nextInt(20);
+            for (int j = 0; j < 50; ++j) {
+                int key = random.nextInt(bound);
+                String value = Integer.toString(random.nextInt(3));
+                if (random.nextBoolean()) {
+                    m1.put(key, value);
+                } else {
+                    m2.put(key, value);
+                    expected.put(key, value);
+                }
+            }
+            if (random.nextBoolean()) {
+                // let the maps share part of their tries
+                m1 = m2.copy();
+                m1.put(random.nextInt(bound), "shared");
+            }
+            Map<Integer, String> merged = new TreeMap<>(expected);
+            merged.putAll(m1);
+            assertEquals(!merged.equals(expected), m2.copyFrom(m1));
+            assertEquals(merged, m2);
+            assertEquals(merged.size(), m2.size());
+        }
+    }
+
+    @Test
+    void testEqualsOtherMaps() {
+        var m = makeMap();
+        var t = new TreeMap<>(Map.of(1, "one", 3, "three", 4, "four"));
+        assertEquals(t, m);
+        assertEquals(m, t);
+        assertEquals(t.hashCode(), m.hashCode());
+    }
+
+    @Test
+    void testIterationOrder() {
+        var m = new PersistentIndexMap<Integer, String>(indexer);
+        m.put(1000, "c");
+        m.put(33, "b");
+        m.put(2, "a");
+        assertEquals("{2=a, 33=b, 1000=c}", m.toString());
+    }
+
+    @Test
+    void testEntrySetValue() {
+        var m = makeMap();
+        var copy = m.copy();
+        m.entrySet().forEach(e -> e.setValue(e.getValue().toUpperCase()));
+        assertEquals("{1=ONE, 3=THREE, 4=FOUR}", m.toString());
+        assertEquals("{1=one, 3=three, 4=four}", copy.toString());
+    }
+
+    @Test
+    void testKeySetRemove() {
+        var m = makeMap();
+        m.putAll(Map.of(0, "zero", 1, "one", 2, "two",
+                3, "three", 4, "four", 5, "five"));
+        m.keySet().removeIf(n -> n % 2 == 0);
+        assertEquals(3, m.size());
+        assertEquals("{1=one, 3=three, 5=five}", m.toString());
+    }
+
+    @Test
+    void testPutNull() {
+        assertThrows(NullPointerException.class, () -> {
+            var m = makeMap();
+            m.put(1, null);
+        });
+    }
+
+    @Test
+    void testSerializable() {
+        Map<Integer, String> map1 = makeMap();
+        Map<Integer, String> map2 = SerializationUtils.serializedCopy(map1);
+        assertEquals(map1, map2);
+        map1.put(40, "forty");
+        map2.put(40, "forty");
+        assertEquals(map1, map2);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RoaringBitSetTest extends IBitSetTest {
+
+    private static final int CHUNK = 1 << 16;
+
+    @Override
+    protected IBitSet of(int... indexes) {
+        IBitSet result = new RoaringBitSet();
+        for (int i : indexes) {
+            result.set(i);
+        }
+        return result;
+    }
+
+    private static RoaringBitSet range(int start, int end) {
+        RoaringBitSet s = new RoaringBitSet();
+        for (int i = start; i < end; ++i) {
+            s.set(i);
+        }
+        return s;
+    }
+
+    @Test
+    void testRange() {
+        RoaringBitSet s = range(CHUNK - 100, 3 * CHUNK + 100);
+        assertEquals(2 * CHUNK + 200, s.cardinality());
+        assertEquals(CHUNK - 100, s.nextSetBit(0));
+        assertEquals(3 * CHUNK + 100, s.nextClearBit(CHUNK - 100));
+        assertEquals(CHUNK - 101, s.previousClearBit(3 * CHUNK));
+        assertEquals(3 * CHUNK + 99, s.previousSetBit(Integer.MAX_VALUE - 1));
+        assertEquals(3 * CHUNK + 100, s.length());
+        // copied chunks are stored as runs
+        RoaringBitSet copy = new RoaringBitSet();
+        copy.or(s);
+        assertEquals(s, copy);
+        assertEquals(4, copy.getContainerCounts()[2]);
+    }
+
+    @Test
+    void testContainerConversion() {
+        RoaringBitSet s = new RoaringBitSet();
+        for (int i = 0; i < 10000; ++i) {
+            s.set(i * 3);
+        }
+        // the first chunk exceeds the capacity of array container
+        assertEquals(1, s.getContainerCounts()[1]);
+        for (int i = 0; i < 10000; ++i) {
+            assertTrue(s.get(i * 3));
+            assertFalse(s.get(i * 3 + 1));
+        }
+        for (int i = 0; i < 9000; ++i) {
+            assertTrue(s.clear(i * 3));
+        }
+        assertEquals(1000, s.cardinality());
+        assertEquals(0, s.getContainerCounts()[1]);
+        assertEquals(27000, s.nextSetBit(0));
+    }
+
+    @Test
+    void testHighIndexes() {
+        int high = Integer.MAX_VALUE - 1;
+        RoaringBitSet s = (RoaringBitSet) of(1, high - CHUNK, high);
+        assertEquals(3, s.cardinality());
+        assertEquals(high - CHUNK, s.nextSetBit(2));
+        assertEquals(high, s.nextSetBit(high - CHUNK + 1));
+        assertEquals(-1, s.nextClearBit(high));
+        assertEquals(Integer.MAX_VALUE, s.length());
+        s.andNot(of(high));
+        assertEquals(high - CHUNK + 1, s.length());
+    }
+
+    @Test
+    void testRandomAgainstSparse() {
+        Random random = new Random(0);
+        for (int round = 0; round < 100; ++round) {
+            IBitSet r1 = new RoaringBitSet(), r2 = new RoaringBitSet();
+            IBitSet s1 = new SparseBitSet(), s2 = new SparseBitSet();
+            fill(random, r1, s1);
+            fill(random, r2, s2);
+            assertEquals(s1.intersects(s2), r1.intersects(r2));
+            assertEquals(s1.contains(s2), r1.contains(r2));
+            assertSameBits(s1.copy().orDiff(s2), r1.copy().orDiff(r2));
+            IBitSet r = r1.copy(), s = s1.copy();
+            assertEquals(s.or(s2), r.or(r2));
+            assertSameBits(s, r);
+            r = r1.copy();
+            s = s1.copy();
+            assertEquals(s.and(s2), r.and(r2));
+            assertSameBits(s, r);
+            r = r1.copy();
+            s = s1.copy();
+            assertEquals(s.andNot(s2), r.andNot(r2));
+            assertSameBits(s, r);
+            r = r1.copy();
+            s = s1.copy();
+            r.xor(r2);
+            s.xor(s2);
+            assertSameBits(s, r);
+        }
+    }
+
+    /**
+     * Adds the same bits, which are mixtures of scattered bits
+     * and runs, to the two sets.
+     */
+    private static void fill(Random random, IBitSet s1, IBitSet s2) {
+        int universe = 4 * CHUNK;
+        for (int i = random.nextInt(50); i > 0; --i) {
+            int start = random.nextInt(universe);
+            int length = random.nextBoolean() ? 1 : random.nextInt(CHUNK);
+            for (int bit = start; bit < start + length; ++bit) {
+                s1.set(bit);
+                s2.set(bit);
+            }
+        }
+    }
+
+    private static void assertSameBits(IBitSet expected, IBitSet actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        for (int i = expected.nextSetBit(0); i >= 0; i = expected.nextSetBit(i + 1)) {
+            assertTrue(actual.get(i));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+interface Shape {
+    int area();
+}
+
+public class XTA {
+
+    public static void main(String[] args) {
+        useSquare();
+        Object o = makeCircle();
+        try {
+            fail();
+        } catch (Failure e) {
+            e.report();
+        }
+    }
+
+    static void useSquare() {
+        Shape s = new Square();
+        s.area();
+    }
+
+    static Object makeCircle() {
+        return new Circle();
+    }
+
+    static void fail() {
+        throwFailure();
+    }
+
+    static void throwFailure() {
+        throw new Failure();
+    }
+}
+
+class Failure extends RuntimeException {
+
+    void report() {
+    }
+}
+
+class Square implements Shape {
+
+    public int area() {
+        return 1;
+    }
+}
+
+class Circle implements Shape {
+
+    public int area() {
+        return 2;
+    }
+}
@@ -0,0 +1,28 @@
+class TaintBase {
+
+    public static void main(String[] args) {
+        Box box = Box.source(); // only points to taint object
+        box.set(SourceSink.source());
+        SourceSink.sink(box.get()); // taint via field of taint object
+
+        String s = SourceSink.source();
+        SourceSink.sink(s); // taint
+    }
+}
+
+class Box {
+
+    String value;
+
+    static Box source() {
+        return null;
+    }
+
+    void set(String value) {
+        this.value = value;
+    }
+
+    String get() {
+        return value;
+    }
+}